@@ -32,10 +32,16 @@ import javax.vecmath.Matrix4f;
 import javax.vecmath.Quat4f;
 import javax.vecmath.Vector3f;
 
+import de.coreengine.util.Configuration;
 import de.coreengine.util.Pair;
 
 public class Animator {
 
+    /**
+     * Maximum joints of a skinning palette, joints with a greater index are ignored
+     */
+    public static final int MAX_JOINTS = Configuration.getValuei("ANIMATION_MAX_JOINTS");
+
     /**
      * Setting a skeleton and all its children into the current pose of an animation
      *
@@ -48,6 +54,54 @@ public class Animator {
         skeleton.calcAnimatedTransformAndPose(null);
     }
 
+    /**
+     * Setting a skeleton and all its children into the current pose of an animation
+     * and writing the resulting skinning palette
+     *
+     * @param skeleton  Skeleton to animate
+     * @param animation Animation to play
+     * @param time      Current time of the animation
+     * @param palette   Skinning palette to write the animated transforms into
+     */
+    public static void applyAnimation(Joint skeleton, Animation animation, float time, float[] palette) {
+        applyAnimation(skeleton, animation, time);
+        writeSkinningPalette(skeleton, palette);
+    }
+
+    /**
+     * Writing the animated transforms of a joint and all its children into a
+     * skinning palette. Each joint writes its matrix column major to the offset
+     * index * 16. Joints, that don't fit into the palette, are skipped.
+     *
+     * @param joint   Joint to write
+     * @param palette Skinning palette to write into
+     */
+    public static void writeSkinningPalette(Joint joint, float[] palette) {
+        int offset = joint.getIndex() * 16;
+        if (offset >= 0 && offset + 16 <= palette.length) {
+            Matrix4f m = joint.getAnimatedTransform();
+            palette[offset] = m.m00;
+            palette[offset + 1] = m.m10;
+            palette[offset + 2] = m.m20;
+            palette[offset + 3] = m.m30;
+            palette[offset + 4] = m.m01;
+            palette[offset + 5] = m.m11;
+            palette[offset + 6] = m.m21;
+            palette[offset + 7] = m.m31;
+            palette[offset + 8] = m.m02;
+            palette[offset + 9] = m.m12;
+            palette[offset + 10] = m.m22;
+            palette[offset + 11] = m.m32;
+            palette[offset + 12] = m.m03;
+            palette[offset + 13] = m.m13;
+            palette[offset + 14] = m.m23;
+            palette[offset + 15] = m.m33;
+        }
+
+        for (Joint child : joint.getChildren())
+            writeSkinningPalette(child, palette);
+    }
+
     /**
      * Setting a joint and all its children into the current pose of an animation
      *
@@ -215,6 +215,17 @@ public class Joint {
         return index;
     }
 
+    /**
+     * @return Number of matrices needed to store all joints of this hierarchy by
+     *         their index (highest index + 1)
+     */
+    public int getSkeletonSize() {
+        int size = index + 1;
+        for (Joint child : children)
+            size = Integer.max(size, child.getSkeletonSize());
+        return size;
+    }
+
     /**
      * @return Transformation to put a vertex into the animated pose
      */
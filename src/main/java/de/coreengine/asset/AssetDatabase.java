@@ -29,6 +29,7 @@
 package de.coreengine.asset;
 
 import de.coreengine.rendering.model.AnimatedModel;
+import de.coreengine.rendering.model.AtlasRegion;
 import de.coreengine.rendering.model.Font;
 import de.coreengine.rendering.model.Model;
 
@@ -45,6 +46,20 @@ public class AssetDatabase {
     private static HashMap<String, Integer> sounds = new HashMap<>();
     private static HashMap<String, Model> models = new HashMap<>();
     private static HashMap<String, AnimatedModel> animatedModels = new HashMap<>();
+    private static HashMap<String, AtlasRegion> atlasRegions = new HashMap<>();
+
+    // Incremented every time a texture or atlas region is stored
+    private static int textureVersion = 0;
+
+    /**
+     * Version of the texture database, that changes every time a texture or an
+     * atlas region is stored. Can be used to validate cached texture lookups.
+     * 
+     * @return Current texture version
+     */
+    public static int getTextureVersion() {
+        return textureVersion;
+    }
 
     /**
      * Getting texture by name from the database. Returns 0, if the texture could
@@ -67,6 +82,19 @@ public class AssetDatabase {
      */
     public static void addTexture(String name, Integer texture) {
         textures.put(name, texture);
+        textureVersion++;
+    }
+
+    /**
+     * Removing a texture from the database. The texture itself is not deleted.
+     * 
+     * @param name Name of the texture
+     * @return Removed texture or 0, if the texture could not be found
+     */
+    public static int removeTexture(String name) {
+        Integer texture = textures.remove(name);
+        textureVersion++;
+        return texture == null ? 0 : texture;
     }
 
     /**
@@ -91,6 +119,16 @@ public class AssetDatabase {
         fonts.put(name, font);
     }
 
+    /**
+     * Removing a font from the database, so it can be loaded again
+     *
+     * @param name Name of the font
+     * @return Removed font or null, if the font could not be found
+     */
+    public static Font removeFont(String name) {
+        return fonts.remove(name);
+    }
+
     /**
      * Getting sound by name from the database. Returns 0, if the sound could not be
      * found
@@ -136,6 +174,20 @@ public class AssetDatabase {
         models.put(name, model);
     }
 
+    /**
+     * Removing a model from the database and deleting its meshes, so the model
+     * can not be drawn anymore
+     * 
+     * @param name Name of the model
+     * @return Removed model or null, if the model could not be found
+     */
+    public static Model removeModel(String name) {
+        Model model = models.remove(name);
+        if (model != null)
+            model.delete();
+        return model;
+    }
+
     /**
      * Getting animated model by name from the database. Returns null, if the
      * animated model could not be found
@@ -158,6 +210,29 @@ public class AssetDatabase {
         animatedModels.put(name, model);
     }
 
+    /**
+     * Getting the region of a texture in a texture atlas. Returns null, if the
+     * texture is not packed into an atlas
+     *
+     * @param name Name of the texture in the database
+     * @return Atlas region of the texture
+     */
+    public static AtlasRegion getAtlasRegion(String name) {
+        return atlasRegions.get(name);
+    }
+
+    /**
+     * Manually store an atlas region of a texture into the database. If a region
+     * with this name already exist, it will be overwritten!
+     *
+     * @param name   Name of the texture
+     * @param region Region of the texture in the atlas
+     */
+    public static void addAtlasRegion(String name, AtlasRegion region) {
+        atlasRegions.put(name, region);
+        textureVersion++;
+    }
+
     static {
         // Store default black opengl texture
         textures.put("black", 0);
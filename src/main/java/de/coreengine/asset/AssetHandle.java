@@ -0,0 +1,117 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handle of an asset, that is loaded asynchronous by the
+ * {@link AsyncAssetLoader}. Only use from the main thread.
+ *
+ * @author Darius Dinger
+ */
+public class AssetHandle {
+
+    /**
+     * Loading state of an asset
+     */
+    public enum State {
+        LOADING, READY, FAILED
+    }
+
+    // Name of the asset in the asset database
+    private final String name;
+
+    private State state = State.LOADING;
+
+    // Callbacks to run, when the asset is done
+    private List<Runnable> callbacks = new ArrayList<>();
+
+    /**
+     * @param name Name of the asset in the asset database
+     */
+    AssetHandle(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Finishing the loading of the asset and running the callbacks
+     *
+     * @param success Was the asset loaded
+     */
+    void finish(boolean success) {
+        state = success ? State.READY : State.FAILED;
+
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+        callbacks = null;
+    }
+
+    /**
+     * Adding a callback, that runs on the main thread, when the asset is done. If
+     * the asset is already done, the callback runs immediately.
+     *
+     * @param callback Callback to run
+     */
+    public void whenDone(Runnable callback) {
+        if (isDone())
+            callback.run();
+        else
+            callbacks.add(callback);
+    }
+
+    /**
+     * @return Name of the asset in the asset database
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Loading state of the asset
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return Is the asset ready to use
+     */
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * @return Is the asset loaded or failed
+     */
+    public boolean isDone() {
+        return state != State.LOADING;
+    }
+}
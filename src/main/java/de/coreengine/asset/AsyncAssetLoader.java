@@ -0,0 +1,386 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.asset.dataStructures.AnimatedModelData;
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.asset.dataStructures.ModelData;
+import de.coreengine.rendering.model.AnimatedModel;
+import de.coreengine.rendering.model.Material;
+import de.coreengine.rendering.model.MeshArena;
+import de.coreengine.rendering.model.Model;
+import de.coreengine.util.Configuration;
+import de.coreengine.util.Logger;
+import org.lwjgl.opengl.GL11;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Class that loads assets asynchronous. Files are decoded on worker threads,
+ * which also prepare all cpu side data of models (levels of detail, bvhs,
+ * collision shapes, interleaved vertices). Only the gl/al uploads are queued
+ * and done by {@link #update()} on the main thread within a time budget per
+ * frame. Until a texture is uploaded, its name points to
+ * {@link Material#TEXTURE_WHITE}, if it fails to load, the name is removed
+ * again, so the load can be retried. Models are not in the asset database
+ * before they are uploaded, entities with such a model are not rendered. Only
+ * use from the main thread.
+ *
+ * @author Darius Dinger
+ */
+public class AsyncAssetLoader {
+    private static final int WORKER_THREADS = Configuration.getValuei("ASYNC_LOADER_THREADS");
+    private static final long UPLOAD_BUDGET = (long) (Configuration.getValuef("ASYNC_LOADER_UPLOAD_BUDGET") * 1000000);
+
+    /**
+     * Upload of decoded asset data on the main thread
+     *
+     * @param <T> Type of the decoded data
+     */
+    private interface Upload<T> {
+
+        /**
+         * @param data Decoded data to upload
+         * @return Was the asset uploaded
+         */
+        boolean upload(T data);
+    }
+
+    // Worker threads, that decode the files
+    private static ExecutorService workers = null;
+
+    // Uploads of decoded assets, that wait for the main thread
+    private static final ConcurrentLinkedQueue<Runnable> UPLOADS = new ConcurrentLinkedQueue<>();
+
+    // Handles of the assets, that are currently loading
+    private static final HashMap<String, AssetHandle> PENDING = new HashMap<>();
+
+    /**
+     * Loading a texture file asynchronous into the asset database
+     *
+     * @param textureFile Path to the texture relative to application
+     * @param mipmap      Uses this texture mipmapping/anisotropic filtering (if
+     *                    supported)
+     * @param filtering   Wich filtering mathod (GL_NEARES, GL_LINEAR, ...)
+     * @param asResource  Loading texture from resources
+     * @return Handle of the texture
+     */
+    public static AssetHandle loadTexture(String textureFile, boolean mipmap, int filtering, boolean asResource) {
+        AssetHandle pending = PENDING.get("texture:" + textureFile);
+        if (pending != null)
+            return pending;
+        if (AssetDatabase.getTexture(textureFile) != 0)
+            return done(textureFile);
+
+        // Use white texture until uploaded
+        AssetDatabase.addTexture(textureFile, AssetDatabase.getTexture(Material.TEXTURE_WHITE));
+
+        return load("texture:" + textureFile, textureFile,
+                () -> TextureLoader.loadTextureFileMeta(textureFile, mipmap, filtering, asResource), data -> {
+                    data.generateKey(textureFile, mipmap, filtering);
+                    return true;
+                }, () -> {
+
+                    // Remove placeholder, if still set
+                    if (AssetDatabase.getTexture(textureFile) == AssetDatabase.getTexture(Material.TEXTURE_WHITE))
+                        AssetDatabase.removeTexture(textureFile);
+                });
+    }
+
+    /**
+     * Loading an ogg sound file asynchronous into the asset database
+     *
+     * @param file         Ogg sound file
+     * @param fromResouces Load sound from resources
+     * @return Handle of the sound
+     */
+    public static AssetHandle loadSound(String file, boolean fromResouces) {
+        AssetHandle pending = PENDING.get("sound:" + file);
+        if (pending != null)
+            return pending;
+        if (AssetDatabase.getSound(file) != 0)
+            return done(file);
+
+        return load("sound:" + file, file, () -> OggLoader.decodeSound(file, fromResouces), data -> {
+            OggLoader.uploadSound(file, data);
+            return true;
+        }, null);
+    }
+
+    /**
+     * Loading a cem model file asynchronous into the asset database. The levels
+     * of detail and all other cpu side data are prepared on the worker thread
+     * too.
+     *
+     * @param file       File to load
+     * @param texPath    Location of the models textures
+     * @param asResource Loading model and textures from resources
+     * @return Handle of the model
+     */
+    public static AssetHandle loadModel(String file, String texPath, boolean asResource) {
+        return loadModel(file, texPath, asResource, () -> CemLoader.loadModelData(file, asResource));
+    }
+
+    /**
+     * Loading a model file asynchronous into the asset database using assimp
+     *
+     * @param file       File to load
+     * @param texPath    Location of the models textures
+     * @param asResource Loading textures from resources
+     * @param shape      Collision shape, or "convex" / "triangleMesh" / null to
+     *                   auto generate
+     * @return Handle of the model
+     */
+    public static AssetHandle loadModelFile(String file, String texPath, boolean asResource, String shape) {
+        return loadModel(file, texPath, asResource, () -> ModelLoader.loadModelFileData(file, shape));
+    }
+
+    /**
+     * Loading a cea animated model file asynchronous into the asset database
+     *
+     * @param file       File to load
+     * @param texPath    Location of the models textures
+     * @param asResource Loading model and textures from resources
+     * @return Handle of the animated model
+     */
+    public static AssetHandle loadAnimatedModel(String file, String texPath, boolean asResource) {
+        return loadAnimatedModel(file, texPath, asResource, () -> CeaLoader.loadAnimatedModelData(file, asResource));
+    }
+
+    /**
+     * Loading an animated model file asynchronous into the asset database using
+     * assimp
+     *
+     * @param file       File to load
+     * @param texPath    Location of the models textures
+     * @param asResource Loading textures from resources
+     * @param shape      Collision shape, or "convex" / "triangleMesh" / null to
+     *                   auto generate
+     * @return Handle of the animated model
+     */
+    public static AssetHandle loadAnimatedModelFile(String file, String texPath, boolean asResource,
+            String shape) {
+        return loadAnimatedModel(file, texPath, asResource,
+                () -> ModelLoader.loadAnimatedModelFileData(file, shape));
+    }
+
+    /**
+     * Loading a static model asynchronous into the asset database
+     *
+     * @param file       Name of the model in the asset database
+     * @param texPath    Location of the models textures
+     * @param asResource Loading textures from resources
+     * @param decode     Decoder of the model data
+     * @return Handle of the model
+     */
+    private static AssetHandle loadModel(String file, String texPath, boolean asResource,
+            Supplier<ModelData> decode) {
+        AssetHandle pending = PENDING.get("model:" + file);
+        if (pending != null)
+            return pending;
+        if (AssetDatabase.getModel(file) != null)
+            return done(file);
+
+        boolean arena = MeshArena.isEnabled();
+        return load("model:" + file, file, () -> {
+            ModelData data = decode.get();
+            if (data != null) {
+                data.generateLods();
+                data.prepareInstance(arena);
+            }
+            return data;
+        }, data -> {
+            loadMaterialTextures(data, texPath, asResource);
+            Model model = data.getInstance(texPath, asResource);
+            if (model != null)
+                AssetDatabase.addModel(file, model);
+            return model != null;
+        }, null);
+    }
+
+    /**
+     * Loading an animated model asynchronous into the asset database
+     *
+     * @param file       Name of the animated model in the asset database
+     * @param texPath    Location of the models textures
+     * @param asResource Loading textures from resources
+     * @param decode     Decoder of the animated model data
+     * @return Handle of the animated model
+     */
+    private static AssetHandle loadAnimatedModel(String file, String texPath, boolean asResource,
+            Supplier<AnimatedModelData> decode) {
+        AssetHandle pending = PENDING.get("animatedModel:" + file);
+        if (pending != null)
+            return pending;
+        if (AssetDatabase.getAnimatedModel(file) != null)
+            return done(file);
+
+        return load("animatedModel:" + file, file, () -> {
+            AnimatedModelData data = decode.get();
+            if (data != null)
+                data.prepareInstance(false);
+            return data;
+        }, data -> {
+            loadMaterialTextures(data, texPath, asResource);
+            AnimatedModel model = data.getInstance(texPath, asResource);
+            if (model != null)
+                AssetDatabase.addAnimatedModel(file, model);
+            return model != null;
+        }, null);
+    }
+
+    /**
+     * Starting the asynchronous load of the material textures of a model, so the
+     * model instance only references their placeholders instead of decoding them
+     * on the main thread
+     *
+     * @param data       Model data
+     * @param texPath    Location of the models textures
+     * @param asResource Loading textures from resources
+     */
+    private static void loadMaterialTextures(ModelData data, String texPath, boolean asResource) {
+        if (data.meshes == null)
+            return;
+
+        for (MeshData mesh : data.meshes) {
+            if (mesh.material == null)
+                continue;
+
+            for (String texture : mesh.material.getTextureFiles()) {
+                loadTexture(texPath + texture, true, GL11.GL_LINEAR, asResource);
+            }
+        }
+    }
+
+    /**
+     * Decoding an asset on a worker thread and queuing its upload
+     *
+     * @param key    Key of the asset in the pending assets
+     * @param name   Name of the asset in the asset database
+     * @param decode Decoder of the asset data, may return null on failure
+     * @param upload Upload of the decoded data
+     * @param failed Called on the main thread, if the asset could not be loaded,
+     *               or null
+     * @param <T>    Type of the decoded data
+     * @return Handle of the asset
+     */
+    private static <T> AssetHandle load(String key, String name, Supplier<T> decode, Upload<T> upload,
+            Runnable failed) {
+        AssetHandle handle = new AssetHandle(name);
+        PENDING.put(key, handle);
+
+        getWorkers().execute(() -> {
+            T data = null;
+            try {
+                data = decode.get();
+            } catch (RuntimeException e) {
+                Logger.warn("Error by loading asset", "The asset " + name + " could not be decoded!");
+            }
+
+            T decoded = data;
+            queue(() -> {
+                PENDING.remove(key);
+                boolean loaded = decoded != null && upload.upload(decoded);
+                if (!loaded && failed != null)
+                    failed.run();
+                handle.finish(loaded);
+            });
+        });
+
+        return handle;
+    }
+
+    /**
+     * @param name Name of the asset in the asset database
+     * @return Handle of an asset, that is already loaded
+     */
+    private static AssetHandle done(String name) {
+        AssetHandle handle = new AssetHandle(name);
+        handle.finish(true);
+        return handle;
+    }
+
+    /**
+     * @return Worker threads, created on first use
+     */
+    private static ExecutorService getWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "AsyncAssetLoader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Queuing an upload for the main thread. Thread safe.
+     *
+     * @param upload Upload to run in {@link #update()}
+     */
+    static void queue(Runnable upload) {
+        UPLOADS.add(upload);
+    }
+
+    /**
+     * Uploading decoded assets, until the upload budget of this frame is used.
+     * At least one asset is uploaded per call. Called once per frame by the game.
+     */
+    public static void update() {
+        update(UPLOAD_BUDGET);
+    }
+
+    /**
+     * Uploading decoded assets, until a budget is used. At least one asset is
+     * uploaded per call.
+     *
+     * @param budget Upload budget in nanoseconds
+     */
+    static void update(long budget) {
+        long start = System.nanoTime();
+
+        Runnable upload;
+        while ((upload = UPLOADS.poll()) != null) {
+            upload.run();
+            if (System.nanoTime() - start >= budget)
+                break;
+        }
+    }
+
+    /**
+     * @return Count of assets, that are currently loading
+     */
+    public static int getPendingCount() {
+        return PENDING.size();
+    }
+}
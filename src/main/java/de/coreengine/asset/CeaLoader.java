@@ -29,9 +29,13 @@
 package de.coreengine.asset;
 
 import de.coreengine.asset.dataStructures.AnimatedModelData;
+import de.coreengine.asset.dataStructures.MappedModelFormat;
+import de.coreengine.util.BufferUtils;
 import de.coreengine.util.Logger;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Class that can load cea (Core Engine Animated Model) files
@@ -76,22 +80,34 @@ public class CeaLoader {
     }
 
     /**
-     * Saving dataStructures model to a file
+     * Saving animated model data to a file in the memory mappable format
      *
      * @param file      Filename to save
-     * @param modelData Meta model to save
+     * @param modelData Animated model data to save
      */
     public static void saveAnimatedModelData(String file, AnimatedModelData modelData) {
+        saveAnimatedModelData(file, modelData, false);
+    }
 
-        try {
+    /**
+     * Saving animated model data to a file
+     *
+     * @param file         Filename to save
+     * @param modelData    Animated model data to save
+     * @param legacyFormat Save in the first format version instead of the memory
+     *                     mappable format, for older readers
+     */
+    public static void saveAnimatedModelData(String file, AnimatedModelData modelData, boolean legacyFormat) {
+
+        try (FileOutputStream fos = new FileOutputStream(file); FileChannel channel = fos.getChannel()) {
 
             // Construct data from dataStructures model
-            byte[] data = modelData.toBytes();
+            ByteBuffer data = legacyFormat ? ByteBuffer.wrap(modelData.toBytes()) : modelData.toBuffer();
 
-            // Read bytes from file
-            FileOutputStream fos = new FileOutputStream(file);
-            fos.write(data);
-            fos.close();
+            // Write bytes into file
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
 
         } catch (FileNotFoundException e0) {
             Logger.err("Error by saving animated model data",
@@ -103,7 +119,9 @@ public class CeaLoader {
     }
 
     /**
-     * Loading animated model data from a file
+     * Loading animated model data from a file. Files in the memory mappable format are
+     * mapped and their vertex attributes are passed to opengl without copying,
+     * files in the first format version are still supported.
      *
      * @param file       File to load
      * @param asResource Loading animated model data from resources
@@ -113,20 +131,24 @@ public class CeaLoader {
 
         try {
 
-            InputStream is;
+            // Map file or read resource into a direct buffer
+            ByteBuffer data;
             if (asResource)
-                is = CeaLoader.class.getClassLoader().getResourceAsStream(file);
+                data = BufferUtils.ioResourceToByteBuffer(file, 8 * 1024);
             else
-                is = new FileInputStream(new File(file));
-
-            // Read bytes from file
-            byte[] data = new byte[is.available()];
-            is.read(data);
-            is.close();
+                data = BufferUtils.mapFile(file);
+            if (data == null)
+                throw new FileNotFoundException(file);
 
-            // Construct dataStructures model from bytes
+            // Construct dataStructures model from the data
             AnimatedModelData modelData = new AnimatedModelData();
-            modelData.fromBytes(data);
+            if (MappedModelFormat.isMappedFormat(data))
+                modelData.fromBuffer(data);
+            else {
+                byte[] bytes = new byte[data.remaining()];
+                data.get(bytes);
+                modelData.fromBytes(bytes);
+            }
             return modelData;
 
         } catch (FileNotFoundException e0) {
@@ -29,9 +29,13 @@
 package de.coreengine.asset;
 
 import de.coreengine.asset.dataStructures.ModelData;
+import de.coreengine.asset.dataStructures.MappedModelFormat;
+import de.coreengine.util.BufferUtils;
 import de.coreengine.util.Logger;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Class that can load cem (Core Engine Model) files (see
@@ -75,22 +79,34 @@ public class CemLoader {
     }
 
     /**
-     * Saving model data to a file
+     * Saving model data to a file in the memory mappable format
      *
      * @param file      Filename to save
-     * @param modelData ModelData to save
+     * @param modelData Model data to save
      */
     public static void saveModelData(String file, ModelData modelData) {
+        saveModelData(file, modelData, false);
+    }
 
-        try {
+    /**
+     * Saving model data to a file
+     *
+     * @param file         Filename to save
+     * @param modelData    Model data to save
+     * @param legacyFormat Save in the first format version instead of the memory
+     *                     mappable format, for older readers
+     */
+    public static void saveModelData(String file, ModelData modelData, boolean legacyFormat) {
+
+        try (FileOutputStream fos = new FileOutputStream(file); FileChannel channel = fos.getChannel()) {
 
             // Construct data from dataStructures model
-            byte[] data = modelData.toBytes();
+            ByteBuffer data = legacyFormat ? ByteBuffer.wrap(modelData.toBytes()) : modelData.toBuffer();
 
-            // Read bytes from file
-            FileOutputStream fos = new FileOutputStream(file);
-            fos.write(data);
-            fos.close();
+            // Write bytes into file
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
 
         } catch (FileNotFoundException e0) {
             Logger.err("Error by saving model data",
@@ -102,30 +118,36 @@ public class CemLoader {
     }
 
     /**
-     * Loading dataStructures model from a file
+     * Loading model data from a file. Files in the memory mappable format are
+     * mapped and their vertex attributes are passed to opengl without copying,
+     * files in the first format version are still supported.
      *
      * @param file       File to load
      * @param asResource Loading model data from resources
-     * @return Loaded dataStructures model
+     * @return Loaded model data
      */
     public static ModelData loadModelData(String file, boolean asResource) {
 
         try {
 
-            InputStream is;
+            // Map file or read resource into a direct buffer
+            ByteBuffer data;
             if (asResource)
-                is = CemLoader.class.getClassLoader().getResourceAsStream(file);
+                data = BufferUtils.ioResourceToByteBuffer(file, 8 * 1024);
             else
-                is = new FileInputStream(new File(file));
-
-            // Read bytes from file
-            byte[] data = new byte[is.available()];
-            is.read(data);
-            is.close();
+                data = BufferUtils.mapFile(file);
+            if (data == null)
+                throw new FileNotFoundException(file);
 
-            // Construct dataStructures model from bytes
+            // Construct dataStructures model from the data
             ModelData modelData = new ModelData();
-            modelData.fromBytes(data);
+            if (MappedModelFormat.isMappedFormat(data))
+                modelData.fromBuffer(data);
+            else {
+                byte[] bytes = new byte[data.remaining()];
+                data.get(bytes);
+                modelData.fromBytes(bytes);
+            }
             return modelData;
 
         } catch (FileNotFoundException e0) {
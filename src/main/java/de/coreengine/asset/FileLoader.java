@@ -28,6 +28,8 @@
 package de.coreengine.asset;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Objects;
@@ -163,4 +165,56 @@ public class FileLoader {
 
         return data.toArray(new String[0]);
     }
+
+    /**
+     * Reading a file from drive into a byte array
+     *
+     * @param path Path to the file relative to the application
+     * @return Content of the file
+     * @throws IOException Throws if the file could not be read
+     */
+    public static byte[] readFileBytes(String path) throws IOException {
+        return Files.readAllBytes(new File(path).toPath());
+    }
+
+    /**
+     * Reading a resource into a byte array
+     *
+     * @param path Path to the resource
+     * @return Content of the resource
+     * @throws IOException          Throws if the resource could not be read
+     * @throws NullPointerException Throws if the resource could not be found
+     */
+    public static byte[] getResourceBytes(String path) throws IOException {
+        try (InputStream is = Objects.requireNonNull(FileLoader.class.getClassLoader().getResourceAsStream(path))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, is.available()));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Splitting utf-8 text into lines like {@link #getResource(String, boolean)}
+     *
+     * @param data      Utf-8 text to split
+     * @param lineBreak If true, the strings in the result array will have an \n at
+     *                  the end
+     * @return Lines of the text
+     */
+    public static String[] toLines(byte[] data, boolean lineBreak) {
+        String[] lines = new String(data, StandardCharsets.UTF_8).replace("\r", "").split("\n");
+        if (lines.length == 1 && lines[0].isEmpty())
+            return new String[0];
+
+        if (lineBreak) {
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] += "\n";
+            }
+        }
+        return lines;
+    }
 }
@@ -30,15 +30,13 @@ package de.coreengine.asset;
 import de.coreengine.rendering.model.Character;
 import de.coreengine.rendering.model.Font;
 import de.coreengine.util.Logger;
-import de.coreengine.util.Toolbox;
-import de.coreengine.util.gl.IndexBuffer;
-import de.coreengine.util.gl.VertexArrayObject;
 import org.lwjgl.opengl.GL11;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 
 /**
  * Class that can load a fnt file and its texture atlas
@@ -47,10 +45,11 @@ import java.util.List;
  */
 public class FntLoader {
     private static final float LINE_HEIGHT = 0.03f;
+    private static final int CACHE_FORMAT = 1;
 
     /**
      * Loading font file and its texture atlas from fnt file ad store it into
-     * database
+     * database. The parsed fnt file is cached as binary blob.
      * 
      * @param file       Fnt file name relative to application
      * @param asResource Load font from resources
@@ -62,23 +61,11 @@ public class FntLoader {
         try {
 
             // Load fnt file
-            String[] data;
+            byte[] source;
             if (asResource)
-                data = FileLoader.getResource(file, false);
+                source = FileLoader.getResourceBytes(file);
             else
-                data = FileLoader.readFile(file, false);
-
-            // Fnt data
-            String textureAtlas = "";
-            HashMap<Integer, Character> chars = new HashMap<>();
-            VertexArrayObject vao = new VertexArrayObject();
-
-            List<Float> vertices = new LinkedList<>();
-            List<Float> offsets = new LinkedList<>();
-            List<Float> texCoords = new LinkedList<>();
-
-            int texWidth = 1, texHeight = 1;
-            float lineHeight = 1, lineWidth = 1;
+                source = FileLoader.readFileBytes(file);
 
             // Get path of file
             int lastSlash = file.lastIndexOf("/") + 1;
@@ -88,139 +75,147 @@ public class FntLoader {
             else
                 path = file.substring(0, lastSlash);
 
-            // Iterate data
-            int indicesCounter = 0;
-            for (String line : data) {
-                String[] args = line.split(" ");
-
-                switch (args[0]) {
-                    case "common":
-
-                        // Load texture atlas
-                        for (String arg : args) {
-                            if (arg.startsWith("scaleW=")) {
-                                texWidth = Integer.parseInt(arg.split("=")[1]);
-                            } else if (arg.startsWith("scaleH=")) {
-                                texHeight = Integer.parseInt(arg.split("=")[1]);
-                            } else if (arg.startsWith("lineHeight=")) {
-                                lineHeight = Integer.parseInt(arg.split("=")[1]);
-                            }
-                        }
+            Font font = ResourceCache.load((asResource ? "res_" : "file_") + file, CACHE_FORMAT, source,
+                    lines -> convert(lines, path), FntLoader::decode);
 
-                        // Bring line height in relation to image
-                        lineHeight = LINE_HEIGHT / lineHeight;
-                        lineWidth = lineHeight;
+            // Load texture atlas
+            if (!font.getTextureAtlas().isEmpty())
+                TextureLoader.loadTextureFile(font.getTextureAtlas(), false, GL11.GL_LINEAR, asResource);
 
-                        break;
-                    case "page":
+            AssetDatabase.addFont(file, font);
+        } catch (IOException | NullPointerException ex) {
+            Logger.warn("Error by loading font", "The fnt file '" + file + "' could not be loaded!");
+        }
+    }
 
-                        // Load texture atlas
-                        for (String arg : args) {
-                            if (arg.startsWith("file=")) {
-                                textureAtlas = path + arg.split("=")[1].replace("\"", "");
-                                TextureLoader.loadTextureFile(textureAtlas, false, GL11.GL_LINEAR, asResource);
-                            }
+    /**
+     * Converting the lines of a fnt file into the binary blob.<br>
+     * <br>
+     * Format:<br>
+     * TextureAtlas (string) | CharCount (int) | Char0 | Char1 | ...<br>
+     * Char: Id (int) | Character constructor values (9 floats)
+     *
+     * @param data Lines of the fnt file
+     * @param path Path of the fnt file, the texture atlas is relative to
+     * @return Binary blob of the font
+     * @throws IOException Throws if the blob could not be written
+     */
+    private static byte[] convert(String[] data, String path) throws IOException {
+
+        // Fnt data
+        String textureAtlas = "";
+        ByteArrayOutputStream charBytes = new ByteArrayOutputStream();
+        DataOutputStream charOut = new DataOutputStream(charBytes);
+        int charCount = 0;
+
+        int texWidth = 1, texHeight = 1;
+        float lineHeight = 1, lineWidth = 1;
+
+        // Iterate data
+        for (String line : data) {
+            String[] args = line.split(" ");
+
+            switch (args[0]) {
+                case "common":
+
+                    // Load texture atlas
+                    for (String arg : args) {
+                        if (arg.startsWith("scaleW=")) {
+                            texWidth = Integer.parseInt(arg.split("=")[1]);
+                        } else if (arg.startsWith("scaleH=")) {
+                            texHeight = Integer.parseInt(arg.split("=")[1]);
+                        } else if (arg.startsWith("lineHeight=")) {
+                            lineHeight = Integer.parseInt(arg.split("=")[1]);
                         }
+                    }
 
-                        break;
-                    case "char":
-
-                        int id = 0;
-                        float x = 0, y = 0, w = 0, h = 0, ox = 0, oy = 0, ax = 0;
-
-                        // Load character
-                        for (String arg : args) {
-                            if (arg.startsWith("id=")) {
-                                id = Integer.parseInt(arg.split("=")[1]);
-                            } else if (arg.startsWith("x=")) {
-                                x = Float.parseFloat(arg.split("=")[1]);
-                            } else if (arg.startsWith("y=")) {
-                                y = Float.parseFloat(arg.split("=")[1]);
-                            } else if (arg.startsWith("width=")) {
-                                w = Float.parseFloat(arg.split("=")[1]);
-                            } else if (arg.startsWith("height=")) {
-                                h = Float.parseFloat(arg.split("=")[1]);
-                            } else if (arg.startsWith("xoffset=")) {
-                                ox = Float.parseFloat(arg.split("=")[1]) * lineWidth;
-                            } else if (arg.startsWith("yoffset=")) {
-                                oy = Float.parseFloat(arg.split("=")[1]) * lineHeight;
-                            } else if (arg.startsWith("xadvance=")) {
-                                ax = Float.parseFloat(arg.split("=")[1]) * lineWidth;
-                            }
-                        }
+                    // Bring line height in relation to image
+                    lineHeight = LINE_HEIGHT / lineHeight;
+                    lineWidth = lineHeight;
 
-                        // Create mesh
-                        addVertexData(vertices, texCoords, ox, -oy, w * lineWidth, h * lineHeight, x / texWidth,
-                                y / texHeight, w / texWidth, h / texHeight);
+                    break;
+                case "page":
 
-                        // Load indices into mesh
-                        int[] indices = new int[6];
-                        for (int i = 0; i < 6; i++) {
-                            indices[i] = indicesCounter++;
+                    // Get texture atlas
+                    for (String arg : args) {
+                        if (arg.startsWith("file=")) {
+                            textureAtlas = path + arg.split("=")[1].replace("\"", "");
                         }
-                        IndexBuffer index = vao.addIndexBuffer(indices);
-
-                        // Create new character an add to vao
-                        Character newChar = new Character(ox, oy, ax, index);
-                        chars.put(id, newChar);
-
-                        break;
-                }
+                    }
+
+                    break;
+                case "char":
+
+                    int id = 0;
+                    float x = 0, y = 0, w = 0, h = 0, ox = 0, oy = 0, ax = 0;
+
+                    // Load character
+                    for (String arg : args) {
+                        if (arg.startsWith("id=")) {
+                            id = Integer.parseInt(arg.split("=")[1]);
+                        } else if (arg.startsWith("x=")) {
+                            x = Float.parseFloat(arg.split("=")[1]);
+                        } else if (arg.startsWith("y=")) {
+                            y = Float.parseFloat(arg.split("=")[1]);
+                        } else if (arg.startsWith("width=")) {
+                            w = Float.parseFloat(arg.split("=")[1]);
+                        } else if (arg.startsWith("height=")) {
+                            h = Float.parseFloat(arg.split("=")[1]);
+                        } else if (arg.startsWith("xoffset=")) {
+                            ox = Float.parseFloat(arg.split("=")[1]) * lineWidth;
+                        } else if (arg.startsWith("yoffset=")) {
+                            oy = Float.parseFloat(arg.split("=")[1]) * lineHeight;
+                        } else if (arg.startsWith("xadvance=")) {
+                            ax = Float.parseFloat(arg.split("=")[1]) * lineWidth;
+                        }
+                    }
+
+                    // Write character with its quad and texture atlas area
+                    charOut.writeInt(id);
+                    charOut.writeFloat(ox);
+                    charOut.writeFloat(oy);
+                    charOut.writeFloat(ax);
+                    charOut.writeFloat(w * lineWidth);
+                    charOut.writeFloat(h * lineHeight);
+                    charOut.writeFloat(x / texWidth);
+                    charOut.writeFloat(y / texHeight);
+                    charOut.writeFloat(w / texWidth);
+                    charOut.writeFloat(h / texHeight);
+                    charCount++;
+
+                    break;
             }
-
-            float[] verticesArr = Toolbox.toArrayf(vertices);
-            float[] offsetsArr = Toolbox.toArrayf(offsets);
-            float[] texCoordsArr = Toolbox.toArrayf(texCoords);
-
-            vao.addVertexBuffer(verticesArr, 2, 0);
-            vao.addVertexBuffer(texCoordsArr, 2, 1);
-            vao.addVertexBuffer(offsetsArr, 2, 2);
-
-            AssetDatabase.addFont(file, new Font(textureAtlas, chars, vao, LINE_HEIGHT));
-        } catch (IOException ex) {
-            Logger.warn("Error by loading font", "The fnt file '" + file + "' could not be loaded!");
         }
-    }
-
-    private static void addVertexData(List<Float> vertices, List<Float> texCoords, float ox, float oy, float w, float h,
-            float tx, float ty, float tw, float th) {
-
-        // Vertices
-        vertices.add(ox + w);
-        vertices.add(oy - h);
-
-        vertices.add(ox + w);
-        vertices.add(oy);
-
-        vertices.add(ox);
-        vertices.add(oy - h);
-
-        vertices.add(ox);
-        vertices.add(oy - h);
-
-        vertices.add(ox + w);
-        vertices.add(oy);
 
-        vertices.add(ox);
-        vertices.add(oy);
+        // Combine atlas and characters
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ResourceCache.putString(out, textureAtlas);
+        out.writeInt(charCount);
+        charBytes.writeTo(out);
+        out.flush();
 
-        // TextureData coords
-        texCoords.add(tx + tw);
-        texCoords.add(ty + th);
-
-        texCoords.add(tx + tw);
-        texCoords.add(ty);
-
-        texCoords.add(tx);
-        texCoords.add(ty + th);
-
-        texCoords.add(tx);
-        texCoords.add(ty + th);
+        return bytes.toByteArray();
+    }
 
-        texCoords.add(tx + tw);
-        texCoords.add(ty);
+    /**
+     * Decoding a font from its binary blob
+     *
+     * @param data Binary blob of the font
+     * @return Decoded font
+     */
+    private static Font decode(ByteBuffer data) {
+        String textureAtlas = ResourceCache.getString(data);
+
+        // Load characters
+        int charCount = ResourceCache.getCount(data, 40);
+        HashMap<Integer, Character> chars = new HashMap<>(charCount * 2);
+        for (int i = 0; i < charCount; i++) {
+            int id = data.getInt();
+            chars.put(id, new Character(data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat(),
+                    data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat()));
+        }
 
-        texCoords.add(tx);
-        texCoords.add(ty);
+        return new Font(textureAtlas, chars, LINE_HEIGHT);
     }
 }
@@ -166,6 +166,7 @@ public class ModelLoader {
         // Create and store model data
         ModelData modelData = new ModelData();
         modelData.meshes = meshes;
+        modelData.generateLods();
 
         return modelData;
     }
@@ -46,6 +46,14 @@ import java.nio.ShortBuffer;
  */
 public class OggLoader {
 
+    /**
+     * Decoded sound, that is not uploaded to openal yet
+     */
+    static class DecodedSound {
+        ShortBuffer data;
+        int format, sampleRate;
+    }
+
     /**
      * Loading ogg sound file and storing into asset database
      *
@@ -56,6 +64,20 @@ public class OggLoader {
         if (AssetDatabase.getSound(file) != 0)
             return;
 
+        DecodedSound sound = decodeSound(file, fromResouces);
+        if (sound != null)
+            uploadSound(file, sound);
+    }
+
+    /**
+     * Decoding an ogg sound file. Does not need an openal context, so it can run
+     * on any thread.
+     *
+     * @param file         Ogg sound file
+     * @param fromResouces Load sound from resources
+     * @return Decoded sound or null, if the sound could not be loaded
+     */
+    static DecodedSound decodeSound(String file, boolean fromResouces) {
         ShortBuffer audioData = null;
         int channels, sampleRate;
 
@@ -69,7 +91,7 @@ public class OggLoader {
                 ByteBuffer buffer = BufferUtils.ioResourceToByteBuffer(file, 8 * 1024);
                 if (buffer == null) {
                     Logger.warn("Error by loading sound", "The OGG file " + file + " could not be found!");
-                    return;
+                    return null;
                 }
                 audioData = STBVorbis.stb_vorbis_decode_memory(buffer, channelsBuffer, sampleRateBuffer);
             } else {
@@ -78,6 +100,7 @@ public class OggLoader {
 
             if (audioData == null) {
                 Logger.warn("Error by loading audio", "The audio file " + file + " could not be loaded!");
+                return null;
             }
 
             // Get data from buffers
@@ -86,7 +109,7 @@ public class OggLoader {
 
         } catch (IOException e) {
             Logger.warn("Error by loading audio", "The audio file " + file + " could not be loaded!");
-            return;
+            return null;
         }
 
         // Getting format (Mono/Stereo)
@@ -104,14 +127,29 @@ public class OggLoader {
                 break;
         }
 
+        DecodedSound sound = new DecodedSound();
+        sound.data = audioData;
+        sound.format = format;
+        sound.sampleRate = sampleRate;
+        return sound;
+    }
+
+    /**
+     * Uploading a decoded sound into an openal buffer and storing it into the
+     * asset database
+     *
+     * @param name  Name of the sound in the asset database
+     * @param sound Decoded sound to upload
+     */
+    static void uploadSound(String name, DecodedSound sound) {
+
         // Create audio buffer
-        int sound = AL10.alGenBuffers();
-        MemoryDumper.addAudioBuffer(sound);
+        int buffer = AL10.alGenBuffers();
+        MemoryDumper.addAudioBuffer(buffer);
 
         // Load audio into buffer
-        assert audioData != null;
-        AL10.alBufferData(sound, format, audioData, sampleRate);
+        AL10.alBufferData(buffer, sound.format, sound.data, sound.sampleRate);
 
-        AssetDatabase.addSound(file, sound);
+        AssetDatabase.addSound(name, buffer);
     }
 }
@@ -0,0 +1,262 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.util.Logger;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Class that caches text resources converted into compact binary blobs on the
+ * drive. A blob is converted on the first run and reused, as long as the text
+ * source and the binary format are unchanged. If the blob is missing, outdated
+ * or can not be decoded, the text source is converted again.<br>
+ * <br>
+ * Blob format:<br>
+ * Magic (int) | Format (int) | SourceHash (long) | PayloadSize (int) | Payload
+ *
+ * @author Darius Dinger
+ */
+public class ResourceCache {
+    private static final String CACHE_DIRECTORY = "coreEngineCache";
+    private static final int MAGIC = 0x43454243; // CEBC
+    private static final int HEADER_SIZE = 20;
+
+    // Directory of the blobs
+    private static File directory = new File(CACHE_DIRECTORY);
+
+    // Are blobs read and written, else text sources are converted on every load
+    private static boolean enabled = true;
+
+    /**
+     * Converter from the text lines of a resource into its binary payload
+     */
+    public interface Converter {
+
+        /**
+         * @param lines Lines of the text source without line breaks
+         * @return Binary payload of the resource
+         * @throws IOException Throws if the payload could not be written
+         */
+        byte[] convert(String[] lines) throws IOException;
+    }
+
+    /**
+     * Decoder of the binary payload of a resource
+     *
+     * @param <T> Type of the decoded resource
+     */
+    public interface Decoder<T> {
+
+        /**
+         * @param payload Binary payload of the resource, positioned at its start
+         * @return Decoded resource
+         */
+        T decode(ByteBuffer payload);
+    }
+
+    /**
+     * Getting a text resource through its binary payload. Decodes the cached blob
+     * read with a single bulk read or converts the text source and caches the
+     * result. A blob, that can not be decoded, is deleted and the text source is
+     * converted again.
+     *
+     * @param name      Unique name of the resource, used as blob name
+     * @param format    Version of the binary format of the payload
+     * @param source    Bytes of the text source
+     * @param converter Converter of the text source into the payload
+     * @param decoder   Decoder of the payload
+     * @param <T>       Type of the decoded resource
+     * @return Decoded resource
+     * @throws IOException Throws if the text source could not be converted
+     */
+    public static <T> T load(String name, int format, byte[] source, Converter converter, Decoder<T> decoder)
+            throws IOException {
+        if (!enabled)
+            return decoder.decode(ByteBuffer.wrap(converter.convert(FileLoader.toLines(source, false))));
+
+        long hash = hash(source);
+        File file = new File(directory, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin");
+
+        // Try cached blob
+        ByteBuffer cached = read(file, format, hash);
+        if (cached != null) {
+            try {
+                return decoder.decode(cached);
+            } catch (RuntimeException e) {
+                Logger.info("Resource cache broken", "The binary cache of '" + file + "' is broken and replaced!");
+                file.delete();
+            }
+        }
+
+        // Convert text source and cache result
+        byte[] payload = converter.convert(FileLoader.toLines(source, false));
+        write(file, format, hash, payload);
+
+        return decoder.decode(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Enabling or disabling the blob cache. When disabled, text sources are
+     * converted on every load.
+     *
+     * @param enabled Should blobs be read and written
+     */
+    public static void setEnabled(boolean enabled) {
+        ResourceCache.enabled = enabled;
+    }
+
+    /**
+     * @return Are blobs read and written
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Setting the directory of the blobs
+     *
+     * @param directory New blob directory
+     */
+    static void setDirectory(File directory) {
+        ResourceCache.directory = directory;
+    }
+
+    /**
+     * Reading the payload of a blob, if it matches the format and source hash
+     *
+     * @param file   Blob file to read
+     * @param format Expected format version
+     * @param hash   Expected hash of the text source
+     * @return Payload of the blob or null, if the blob is missing or outdated
+     */
+    private static ByteBuffer read(File file, int format, long hash) {
+        if (!file.isFile())
+            return null;
+
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC || data.getInt() != format
+                    || data.getLong() != hash || data.getInt() != data.remaining())
+                return null;
+
+            return data.slice();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writing a blob. The blob is written into a temporary file first, so other
+     * instances never read a partly written blob. Failures only disable the
+     * caching of this resource.
+     *
+     * @param file    Blob file to write
+     * @param format  Format version of the payload
+     * @param hash    Hash of the text source
+     * @param payload Payload to write
+     */
+    private static void write(File file, int format, long hash, byte[] payload) {
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(format);
+                out.writeLong(hash);
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Logger.info("Resource not cached", "The binary cache of '" + file + "' could not be written!");
+        }
+    }
+
+    /**
+     * @param data Bytes to hash
+     * @return Crc32 of the bytes combined with their length
+     */
+    private static long hash(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue() | (long) data.length << 32;
+    }
+
+    /**
+     * Writing a string as utf-8 bytes with its length into a payload
+     *
+     * @param out    Output of the payload
+     * @param string String to write
+     * @throws IOException Throws if the string could not be written
+     */
+    public static void putString(DataOutput out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reading a string written by {@link #putString(DataOutput, String)} from a
+     * payload
+     *
+     * @param data Payload to read from
+     * @return Read string
+     */
+    public static String getString(ByteBuffer data) {
+        byte[] bytes = new byte[getCount(data, 1)];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reading an element count from a payload, that is checked against the
+     * remaining bytes, so broken payloads never allocate huge arrays
+     *
+     * @param data        Payload to read from
+     * @param elementSize Min size of an element in bytes
+     * @return Read count
+     * @throws BufferUnderflowException Throws if the payload is too small for the
+     *                                  count
+     */
+    public static int getCount(ByteBuffer data, int elementSize) {
+        int count = data.getInt();
+        if (count < 0 || (long) count * elementSize > data.remaining())
+            throw new BufferUnderflowException();
+        return count;
+    }
+}
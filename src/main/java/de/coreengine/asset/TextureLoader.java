@@ -27,8 +27,9 @@
  */
 package de.coreengine.asset;
 
+import de.coreengine.rendering.model.AtlasRegion;
 import de.coreengine.rendering.model.Material;
-import de.coreengine.system.Game;
+import de.coreengine.util.AtlasPacker;
 import de.coreengine.util.BufferUtils;
 import de.coreengine.util.Logger;
 import de.coreengine.util.gl.MemoryDumper;
@@ -62,16 +63,18 @@ import java.nio.IntBuffer;
  * @author Darius Dinger
  */
 public class TextureLoader {
+    private static final int ATLAS_PADDING = 2;
 
     /**
-     * Load TextureData file and store into TextureData object
+     * Load TextureData file and store into TextureData object. Can be called from
+     * any thread.
      * 
      * @param textureFile Path to TextureData relative to application
      * @param mipmap      Uses this TextureData mipmapping/anisotropic filtering (if
      *                    supported)
      * @param filtering   Wich filtering mathod (GL_NEARES, GL_LINEAR, ...)
      * @param asResource  Loading TextureData from resources
-     * @return TextureData object
+     * @return TextureData object or null, if the file could not be loaded
      */
     public static TextureData loadTextureFileMeta(String textureFile, boolean mipmap, int filtering,
             boolean asResource) {
@@ -116,9 +119,9 @@ public class TextureLoader {
             textureWidth = w.get();
             textureHeight = h.get();
         } catch (IOException e) {
-            Logger.err("Error by loading TextureData",
-                    "An IO Error occurs while " + "loading TextureData " + textureFile + "!");
-            Game.exit(1);
+            Logger.warn("Error by loading TextureData",
+                    "An IO Error occurs while loading TextureData " + textureFile + "! Returning null!");
+            return null;
         }
 
         // Create texture data
@@ -150,6 +153,69 @@ public class TextureLoader {
             AssetDatabase.addTexture(textureFile, AssetDatabase.getTexture(Material.TEXTURE_WHITE));
     }
 
+    /**
+     * Loading several texture files and packing them into one texture atlas. The
+     * atlas is stored into the asset database with the atlas key, the region of
+     * each texture with its file name. Used for GUI textures, so the GUI renderer
+     * can batch panes with different textures.
+     *
+     * @param atlasKey     Key of the atlas in the asset database
+     * @param textureFiles Paths to the textures relative to application
+     * @param asResource   Loading textures from resources
+     */
+    public static void loadTextureAtlas(String atlasKey, String[] textureFiles, boolean asResource) {
+        if (AssetDatabase.getTexture(atlasKey) != 0)
+            return;
+
+        // Load texture data
+        TextureData[] images = new TextureData[textureFiles.length];
+        int[] widths = new int[textureFiles.length];
+        int[] heights = new int[textureFiles.length];
+        for (int i = 0; i < textureFiles.length; i++) {
+            images[i] = loadTextureFileMeta(textureFiles[i], false, GL11.GL_LINEAR, asResource);
+            widths[i] = images[i] == null ? 0 : images[i].width;
+            heights[i] = images[i] == null ? 0 : images[i].height;
+        }
+
+        // Pack textures
+        AtlasPacker packer = new AtlasPacker(GL11.glGetInteger(GL11.GL_MAX_TEXTURE_SIZE), ATLAS_PADDING);
+        if (!packer.pack(widths, heights)) {
+            Logger.warn("Error by loading texture atlas",
+                    "The textures of the atlas " + atlasKey + " do not fit into one texture! Loading seperately!");
+            for (String textureFile : textureFiles) {
+                loadTextureFile(textureFile, false, GL11.GL_LINEAR, asResource);
+            }
+            return;
+        }
+
+        // Create atlas texture
+        int tex = GL11.glGenTextures();
+        MemoryDumper.addTexture(tex);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, tex);
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, packer.getWidth(), packer.getHeight(), 0,
+                GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, (ByteBuffer) null);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+
+        // Copy textures into atlas and store their regions
+        for (int i = 0; i < textureFiles.length; i++) {
+            if (images[i] == null)
+                continue;
+
+            GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, packer.getX(i), packer.getY(i), widths[i], heights[i],
+                    GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, images[i].data);
+            AssetDatabase.addAtlasRegion(textureFiles[i],
+                    new AtlasRegion(tex, (float) packer.getX(i) / packer.getWidth(),
+                            (float) packer.getY(i) / packer.getHeight(), (float) widths[i] / packer.getWidth(),
+                            (float) heights[i] / packer.getHeight()));
+        }
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+
+        AssetDatabase.addTexture(atlasKey, tex);
+    }
+
     /**
      * Loading cube map texture from abstract path and extension and storing into
      * asset database. The cube map file names will be generated by:<br>
@@ -188,6 +254,10 @@ public class TextureLoader {
         TextureData imgB = loadTextureFileMeta(bottom, false, GL11.GL_LINEAR, asResource);
         TextureData imgF = loadTextureFileMeta(front, false, GL11.GL_LINEAR, asResource);
         TextureData imgBa = loadTextureFileMeta(back, false, GL11.GL_LINEAR, asResource);
+        if (imgL == null || imgR == null || imgT == null || imgB == null || imgF == null || imgBa == null) {
+            Logger.warn("Error by loading cube map", "A texture of the cube map " + key + " is missing!");
+            return;
+        }
 
         // Gen and bind cube map texture
         int tex = GL11.glGenTextures();
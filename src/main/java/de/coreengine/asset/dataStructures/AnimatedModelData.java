@@ -36,6 +36,7 @@ import de.coreengine.util.ByteArrayUtils;
 import de.coreengine.util.Logger;
 
 import javax.vecmath.Matrix4f;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -139,6 +140,7 @@ public class AnimatedModelData extends ModelData {
                 Animation animation = animations.get(animationName);
                 animationsA[c] = animation.toBytes();
                 animationsSizesI[c] = animationsA[c].length;
+                c++;
             }
         }
         byte[] animationSizes = ByteArrayUtils.toBytes(animationsSizesI);
@@ -149,6 +151,43 @@ public class AnimatedModelData extends ModelData {
                 animations);
     }
 
+    /**
+     * Constructing this animated model data from data in the memory mappable
+     * format. The skeleton and animations are stored in the extra section in the
+     * format of {@link #toBytes()} without meshes.
+     *
+     * @param data Data to construct animated model data from
+     */
+    @Override
+    public void fromBuffer(ByteBuffer data) {
+        byte[] extra = MappedModelFormat.readExtra(data);
+        if (extra != null)
+            fromBytes(extra);
+        else {
+            skeleton = null;
+            animations = null;
+        }
+
+        super.fromBuffer(data);
+    }
+
+    /**
+     * Converting this animated model data into the memory mappable format
+     *
+     * @return Converted data
+     */
+    @Override
+    public ByteBuffer toBuffer() {
+
+        // Skeleton and animations without meshes
+        MeshData[] meshes = this.meshes;
+        this.meshes = null;
+        byte[] extra = toBytes();
+        this.meshes = meshes;
+
+        return MappedModelFormat.write(meshes, extra);
+    }
+
     /**
      * Creates new animated model instance of the dataStructure animated model
      *
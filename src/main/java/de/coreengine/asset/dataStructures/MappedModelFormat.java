@@ -0,0 +1,341 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset.dataStructures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Second version of the cem/cea model format, that can be memory mapped. All
+ * values are stored in the byte order of the writing machine and every section
+ * starts 16 byte aligned, so the vertex attribute sections can be passed to
+ * opengl as slices of the mapped file without copying.<br>
+ * <br>
+ * Format:<br>
+ * First Sector [Header]:<br>
+ * Magic (4 bytes, "CEM2") | ByteOrder (int, 1 in the byte order of the file) |
+ * MeshCount (int) | ExtraOffset (int) | ExtraSize (int)<br>
+ * <br>
+ * Second Sector [Offset Table], per mesh:<br>
+ * LodCount (int, -1 = lods not generated) | Offset and size (2 ints) of Vertices, TextureCoordinates,
+ * Normals, Tangents, JointIds, Weights, Indices, Material (MaterialData bytes),
+ * CollisionShape (utf-8 string), Lod0, Lod1, ...<br>
+ * <br>
+ * Third Sector [Sections]:<br>
+ * Sections referenced by the offset table and the extra section, that stores
+ * format specific data (the animation data of cea files)<br>
+ *
+ * @author Darius Dinger
+ */
+public class MappedModelFormat {
+    private static final byte[] MAGIC = { 'C', 'E', 'M', '2' };
+    private static final int HEADER_SIZE = 20;
+    private static final int ALIGNMENT = 16;
+
+    // Sections per mesh before the lods
+    private static final int SECTIONS = 9;
+    private static final int VERTICES = 0, TEX_COORDS = 1, NORMALS = 2, TANGENTS = 3, JOINT_IDS = 4, WEIGHTS = 5,
+            INDICES = 6, MATERIAL = 7, SHAPE = 8;
+
+    /**
+     * @param data Data of a model file, positioned at its start
+     * @return Is the data in this format
+     */
+    public static boolean isMappedFormat(ByteBuffer data) {
+        if (data.remaining() < HEADER_SIZE)
+            return false;
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data.get(data.position() + i) != MAGIC[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writing meshes and an extra section into this format
+     *
+     * @param meshes Meshes to write, can be null
+     * @param extra  Format specific extra data, can be null
+     * @return Written data in native byte order, positioned at its start
+     */
+    public static ByteBuffer write(MeshData[] meshes, byte[] extra) {
+        int meshCount = meshes == null ? 0 : meshes.length;
+
+        // Collect section contents
+        Object[][] sections = new Object[meshCount][];
+        int[] lodCounts = new int[meshCount];
+        int tableSize = 0;
+        for (int m = 0; m < meshCount; m++) {
+            MeshData mesh = meshes[m];
+            int lodCount = mesh.lods == null ? 0 : mesh.lods.length;
+            lodCounts[m] = mesh.lods == null ? -1 : lodCount;
+
+            Object[] meshSections = new Object[SECTIONS + lodCount];
+            meshSections[VERTICES] = mesh.vertices;
+            meshSections[TEX_COORDS] = MeshData.toArray(mesh.texCoords, mesh.texCoordsBuffer);
+            meshSections[NORMALS] = MeshData.toArray(mesh.normals, mesh.normalsBuffer);
+            meshSections[TANGENTS] = MeshData.toArray(mesh.tangents, mesh.tangentsBuffer);
+            meshSections[JOINT_IDS] = MeshData.toArray(mesh.jointIds, mesh.jointIdsBuffer);
+            meshSections[WEIGHTS] = MeshData.toArray(mesh.weights, mesh.weightsBuffer);
+            meshSections[INDICES] = mesh.indices;
+            meshSections[MATERIAL] = mesh.material == null ? null : mesh.material.toBytes();
+            meshSections[SHAPE] = mesh.shape == null ? null : mesh.shape.getBytes(StandardCharsets.UTF_8);
+            for (int l = 0; l < lodCount; l++)
+                meshSections[SECTIONS + l] = mesh.lods[l];
+
+            sections[m] = meshSections;
+            tableSize += 4 + meshSections.length * 8;
+        }
+
+        // Layout sections
+        int[][] offsets = new int[meshCount][];
+        int size = align(HEADER_SIZE + tableSize);
+        for (int m = 0; m < meshCount; m++) {
+            offsets[m] = new int[sections[m].length];
+            for (int s = 0; s < sections[m].length; s++) {
+                offsets[m][s] = size;
+                size = align(size + sizeOf(sections[m][s]));
+            }
+        }
+        int extraOffset = size;
+        size += extra == null ? 0 : extra.length;
+
+        // Write header and offset table
+        ByteBuffer data = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+        data.put(MAGIC);
+        data.putInt(1);
+        data.putInt(meshCount);
+        data.putInt(extra == null ? 0 : extraOffset);
+        data.putInt(extra == null ? 0 : extra.length);
+        for (int m = 0; m < meshCount; m++) {
+            data.putInt(lodCounts[m]);
+            for (int s = 0; s < sections[m].length; s++) {
+                data.putInt(offsets[m][s]);
+                data.putInt(sizeOf(sections[m][s]));
+            }
+        }
+
+        // Write sections
+        for (int m = 0; m < meshCount; m++) {
+            for (int s = 0; s < sections[m].length; s++) {
+                data.position(offsets[m][s]);
+                Object section = sections[m][s];
+                if (section instanceof float[])
+                    data.asFloatBuffer().put((float[]) section);
+                else if (section instanceof int[])
+                    data.asIntBuffer().put((int[]) section);
+                else if (section instanceof byte[])
+                    data.put((byte[]) section);
+            }
+        }
+        if (extra != null) {
+            data.position(extraOffset);
+            data.put(extra);
+        }
+
+        data.position(0);
+        return data;
+    }
+
+    /**
+     * Reading the meshes of data in this format. The vertex attributes, that are
+     * only needed by opengl, reference the data as slices, if it is a direct buffer
+     * in native byte order. Vertices, indices and lods are copied into arrays with one bulk copy
+     * each, because they are needed on the cpu (bvh, collision shapes, occluder
+     * geometry).
+     *
+     * @param data Data in this format, positioned at its start
+     * @return Read meshes or null, if the data contains no meshes
+     */
+    public static MeshData[] readMeshes(ByteBuffer data) {
+        ByteBuffer file = data.slice().order(getOrder(data));
+        boolean zeroCopy = file.isDirect() && file.order() == ByteOrder.nativeOrder();
+
+        int meshCount = file.getInt(8);
+        if (meshCount == 0)
+            return null;
+
+        MeshData[] meshes = new MeshData[meshCount];
+        int table = HEADER_SIZE;
+        for (int m = 0; m < meshCount; m++) {
+            int lodCount = Math.max(0, file.getInt(table));
+            boolean hasLods = file.getInt(table) >= 0;
+            int[] offsets = new int[SECTIONS + lodCount], sizes = new int[SECTIONS + lodCount];
+            for (int s = 0; s < offsets.length; s++) {
+                offsets[s] = file.getInt(table + 4 + s * 8);
+                sizes[s] = file.getInt(table + 8 + s * 8);
+            }
+            table += 4 + offsets.length * 8;
+
+            MeshData mesh = new MeshData();
+            mesh.vertices = toFloats(file, offsets[VERTICES], sizes[VERTICES]);
+            mesh.indices = toInts(file, offsets[INDICES], sizes[INDICES]);
+
+            // Attributes only needed by opengl
+            if (zeroCopy) {
+                mesh.texCoordsBuffer = slice(file, offsets[TEX_COORDS], sizes[TEX_COORDS]);
+                mesh.normalsBuffer = slice(file, offsets[NORMALS], sizes[NORMALS]);
+                mesh.tangentsBuffer = slice(file, offsets[TANGENTS], sizes[TANGENTS]);
+                mesh.jointIdsBuffer = slice(file, offsets[JOINT_IDS], sizes[JOINT_IDS]);
+                mesh.weightsBuffer = slice(file, offsets[WEIGHTS], sizes[WEIGHTS]);
+            } else {
+                mesh.texCoords = toFloats(file, offsets[TEX_COORDS], sizes[TEX_COORDS]);
+                mesh.normals = toFloats(file, offsets[NORMALS], sizes[NORMALS]);
+                mesh.tangents = toFloats(file, offsets[TANGENTS], sizes[TANGENTS]);
+                mesh.jointIds = toInts(file, offsets[JOINT_IDS], sizes[JOINT_IDS]);
+                mesh.weights = toFloats(file, offsets[WEIGHTS], sizes[WEIGHTS]);
+            }
+
+            // Material and collision shape
+            byte[] material = toBytes(file, offsets[MATERIAL], sizes[MATERIAL]);
+            if (material != null) {
+                mesh.material = new MaterialData();
+                mesh.material.fromBytes(material);
+            }
+            byte[] shape = toBytes(file, offsets[SHAPE], sizes[SHAPE]);
+            mesh.shape = shape == null ? null : new String(shape, StandardCharsets.UTF_8);
+
+            // Lods
+            mesh.lods = hasLods ? new int[lodCount][] : null;
+            for (int l = 0; l < lodCount; l++)
+                mesh.lods[l] = toInts(file, offsets[SECTIONS + l], sizes[SECTIONS + l]);
+
+            meshes[m] = mesh;
+        }
+
+        return meshes;
+    }
+
+    /**
+     * Reading the extra section of data in this format
+     *
+     * @param data Data in this format, positioned at its start
+     * @return Extra section or null, if the data has no extra section
+     */
+    public static byte[] readExtra(ByteBuffer data) {
+        ByteBuffer file = data.slice().order(getOrder(data));
+        return toBytes(file, file.getInt(12), file.getInt(16));
+    }
+
+    /**
+     * @param data Data in this format, positioned at its start
+     * @return Byte order of the data
+     */
+    private static ByteOrder getOrder(ByteBuffer data) {
+        return data.duplicate().order(ByteOrder.BIG_ENDIAN).getInt(data.position() + 4) == 1
+                ? ByteOrder.BIG_ENDIAN
+                : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * @param file   Data of the file
+     * @param offset Offset of the section
+     * @param size   Size of the section in bytes
+     * @return Section as slice in the byte order of the file or null, if empty
+     */
+    private static ByteBuffer slice(ByteBuffer file, int offset, int size) {
+        if (size == 0)
+            return null;
+
+        ByteBuffer section = file.duplicate();
+        section.limit(offset + size).position(offset);
+        return section.slice().order(file.order());
+    }
+
+    /**
+     * @param file   Data of the file
+     * @param offset Offset of the section
+     * @param size   Size of the section in bytes
+     * @return Section copied into a float array or null, if empty
+     */
+    private static float[] toFloats(ByteBuffer file, int offset, int size) {
+        ByteBuffer section = slice(file, offset, size);
+        if (section == null)
+            return null;
+
+        float[] result = new float[size / 4];
+        section.asFloatBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * @param file   Data of the file
+     * @param offset Offset of the section
+     * @param size   Size of the section in bytes
+     * @return Section copied into an int array or null, if empty
+     */
+    private static int[] toInts(ByteBuffer file, int offset, int size) {
+        ByteBuffer section = slice(file, offset, size);
+        if (section == null)
+            return null;
+
+        int[] result = new int[size / 4];
+        section.asIntBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * @param file   Data of the file
+     * @param offset Offset of the section
+     * @param size   Size of the section in bytes
+     * @return Section copied into a byte array or null, if empty
+     */
+    private static byte[] toBytes(ByteBuffer file, int offset, int size) {
+        ByteBuffer section = slice(file, offset, size);
+        if (section == null)
+            return null;
+
+        byte[] result = new byte[size];
+        section.get(result);
+        return result;
+    }
+
+    /**
+     * @param section Content of a section (float[], int[], byte[] or null)
+     * @return Size of the section in bytes
+     */
+    private static int sizeOf(Object section) {
+        if (section instanceof float[])
+            return ((float[]) section).length * 4;
+        if (section instanceof int[])
+            return ((int[]) section).length * 4;
+        if (section instanceof byte[])
+            return ((byte[]) section).length;
+        return 0;
+    }
+
+    /**
+     * @param offset Offset to align
+     * @return Offset rounded up to the alignment
+     */
+    private static int align(int offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
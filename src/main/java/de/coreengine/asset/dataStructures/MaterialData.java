@@ -33,7 +33,9 @@ import de.coreengine.rendering.model.Material;
 import de.coreengine.util.ByteArrayUtils;
 import org.lwjgl.opengl.GL11;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Material data that can be stored into a file<br>
@@ -241,6 +243,19 @@ public class MaterialData {
                 return instance;
         }
 
+        /**
+         * @return Texture files of the material, that are not null
+         */
+        public List<String> getTextureFiles() {
+                List<String> files = new ArrayList<>();
+                for (String file : new String[] { diffuseMap, normalMap, specularMap, displacementMap,
+                                ambientOcclusionMap, alphaMap, reflectionMap, glowMap }) {
+                        if (file != null)
+                                files.add(file);
+                }
+                return files;
+        }
+
         /**
          * Loading texture from material
          *
@@ -32,13 +32,18 @@ import com.bulletphysics.collision.shapes.CollisionShape;
 import com.bulletphysics.collision.shapes.ConvexHullShape;
 import com.bulletphysics.collision.shapes.TriangleMeshShape;
 import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.MeshArena;
+import de.coreengine.rendering.model.MeshBVH;
 import de.coreengine.util.ByteArrayUtils;
+import de.coreengine.util.MeshSimplifier;
 import de.coreengine.util.Logger;
 import de.coreengine.util.bullet.CollisionShapeParser;
 import de.coreengine.util.bullet.Physics;
 import de.coreengine.util.gl.IndexBuffer;
 import de.coreengine.util.gl.VertexArrayObject;
+import org.lwjgl.opengl.GL11;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class MeshData {
@@ -49,6 +54,19 @@ public class MeshData {
         public MaterialData material = null;
         public String shape = null;
 
+        // Simplified index buffers, from high to low detail
+        public int[][] lods = null;
+
+        // Native order vertex attributes of a memory mapped file, only used if the
+        // array of the attribute is null (see MappedModelFormat)
+        public ByteBuffer texCoordsBuffer = null, normalsBuffer = null, tangentsBuffer = null,
+                        jointIdsBuffer = null, weightsBuffer = null;
+
+        // Cpu side data of the next instance, prepared by prepareInstance()
+        private CollisionShape preparedShape = null;
+        private MeshBVH preparedBVH = null;
+        private float[] preparedBounds = null, preparedArenaVertices = null;
+
         /**
          * Constructing dataStructure mesh from a byte array.<br>
          * <br>
@@ -68,6 +86,10 @@ public class MeshData {
          * <br>
          * Fourth Sector [CollisionShape]:<br>
          * CollisionShape (String)<br>
+         * <br>
+         * Fifth Sector [LODs] (optional):<br>
+         * LodCount (int) | Lod0Size (int) | Lod1Size (int) | ... | Lod0 (int[]) |
+         * Lod1 (int[]) | ...<br>
          *
          * @param data Byte array to construct dataStructure mesh from
          */
@@ -101,6 +123,19 @@ public class MeshData {
 
                 // Get collision shape
                 shape = metaData[8] == 0 ? null : new String(Arrays.copyOfRange(data, counter, counter + metaData[8]));
+                counter += metaData[8];
+
+                // Get lods, if stored
+                lods = null;
+                if (counter + 4 <= data.length) {
+                        int lodCount = ByteArrayUtils.fromBytesi(Arrays.copyOfRange(data, counter, counter += 4))[0];
+                        int[] lodSizes = ByteArrayUtils
+                                        .fromBytesi(Arrays.copyOfRange(data, counter, counter += lodCount * 4));
+                        lods = new int[lodCount][];
+                        for (int i = 0; i < lodCount; i++)
+                                lods[i] = ByteArrayUtils
+                                                .fromBytesi(Arrays.copyOfRange(data, counter, counter += lodSizes[i]));
+                }
         }
 
         /**
@@ -122,11 +157,22 @@ public class MeshData {
          * <br>
          * Fourth Sector [CollisionShape]:<br>
          * CollisionShape (String)<br>
+         * <br>
+         * Fifth Sector [LODs] (optional):<br>
+         * LodCount (int) | Lod0Size (int) | Lod1Size (int) | ... | Lod0 (int[]) |
+         * Lod1 (int[]) | ...<br>
          *
          * @return Converted byte array
          */
         public byte[] toBytes() {
 
+                // Get vertex attributes of a mapped file as arrays
+                float[] texCoords = toArray(this.texCoords, texCoordsBuffer);
+                float[] normals = toArray(this.normals, normalsBuffer);
+                float[] tangents = toArray(this.tangents, tangentsBuffer);
+                int[] jointIds = toArray(this.jointIds, jointIdsBuffer);
+                float[] weights = toArray(this.weights, weightsBuffer);
+
                 // Get material and collision shape bytes
                 byte[] materialBytes = material == null ? new byte[0] : material.toBytes();
                 byte[] shapeBytes = shape == null ? new byte[0] : shape.getBytes();
@@ -148,13 +194,80 @@ public class MeshData {
                 byte[] weightsBytes = weights == null ? new byte[0] : ByteArrayUtils.toBytes(weights);
                 byte[] indicesBytes = indices == null ? new byte[0] : ByteArrayUtils.toBytes(indices);
 
+                // Define lods
+                byte[] lodBytes = new byte[0];
+                if (lods != null) {
+                        byte[][] lodBytesA = new byte[lods.length + 2][];
+                        int[] lodSizes = new int[lods.length];
+                        for (int i = 0; i < lods.length; i++) {
+                                lodBytesA[i + 2] = ByteArrayUtils.toBytes(lods[i]);
+                                lodSizes[i] = lodBytesA[i + 2].length;
+                        }
+                        lodBytesA[0] = ByteArrayUtils.toBytes(new int[] { lods.length });
+                        lodBytesA[1] = ByteArrayUtils.toBytes(lodSizes);
+                        lodBytes = ByteArrayUtils.combine(lodBytesA);
+                }
+
                 // Create and return final byte array
                 return ByteArrayUtils.combine(metaData, verticesBytes, texCoordsBytes, normalsBytes, tangentsBytes,
-                                jointIdsBytes, weightsBytes, indicesBytes, materialBytes, shapeBytes);
+                                jointIdsBytes, weightsBytes, indicesBytes, materialBytes, shapeBytes, lodBytes);
         }
 
         /**
-         * Creating new mesh instance of the dataStructure model
+         * Generating simplified index buffers for the mesh, if it has no lods yet.
+         * Every lod has about reduction times the triangles of the previous one.
+         * Stops early, if the mesh cannot be simplified any further.
+         *
+         * @param count     Max count of lods to generate
+         * @param reduction Triangle reduction from lod to lod (0.5 = half)
+         */
+        public void generateLods(int count, float reduction) {
+                if (lods != null || vertices == null || indices == null || count <= 0)
+                        return;
+
+                int[][] result = new int[count][];
+                int[] previous = indices;
+                int generated = 0;
+                for (int i = 0; i < count; i++) {
+                        int target = (int) (previous.length / 3 * reduction) * 3;
+                        int[] lod = MeshSimplifier.simplify(vertices, previous, target);
+
+                        // Stop, if the simplification barely reduced the triangles
+                        if (lod.length == 0 || lod.length > previous.length * (reduction + 1.0f) * 0.5f)
+                                break;
+
+                        result[generated++] = lod;
+                        previous = lod;
+                }
+                lods = Arrays.copyOf(result, generated);
+        }
+
+        /**
+         * Preparing the cpu side data of the next instance (collision shape, bvh,
+         * bounding sphere and the interleaved vertices of the mesh arena), so
+         * {@link #getInstance} only has to upload to opengl. Needs no opengl, so it
+         * can be called on a loader thread.
+         *
+         * @param arena Is the mesh added to the mesh arena
+         */
+        public void prepareInstance(boolean arena) {
+                if (vertices == null || indices == null)
+                        return;
+
+                preparedShape = createShape();
+                preparedBVH = new MeshBVH(vertices, indices);
+                preparedBounds = calcBoundingSphere();
+
+                float[] texCoords = toArray(this.texCoords, texCoordsBuffer);
+                float[] normals = toArray(this.normals, normalsBuffer);
+                float[] tangents = toArray(this.tangents, tangentsBuffer);
+                if (arena && texCoords != null && normals != null && tangents != null)
+                        preparedArenaVertices = MeshArena.interleave(vertices, texCoords, normals, tangents);
+        }
+
+        /**
+         * Creating new mesh instance of the dataStructure model. Uses the data of
+         * {@link #prepareInstance}, if it was called before.
          *
          * @param texPath    Path to get mesh textures from
          * @param asResource Load mesh textures from resources
@@ -175,6 +288,8 @@ public class MeshData {
                 }
                 if (texCoords != null)
                         vao.addVertexBuffer(texCoords, 2, 1);
+                else if (texCoordsBuffer != null)
+                        vao.addVertexBuffer(texCoordsBuffer, GL11.GL_FLOAT, 2, 1);
                 else {
                         Logger.warn("Error by creating mesh instance",
                                         "The texture coordinates of the dataStructures mesh are null! Returning null!");
@@ -182,6 +297,8 @@ public class MeshData {
                 }
                 if (normals != null)
                         vao.addVertexBuffer(normals, 3, 2);
+                else if (normalsBuffer != null)
+                        vao.addVertexBuffer(normalsBuffer, GL11.GL_FLOAT, 3, 2);
                 else {
                         Logger.warn("Error by creating mesh instance",
                                         "The normals of the dataStructures mesh are null! Returning null!");
@@ -189,6 +306,8 @@ public class MeshData {
                 }
                 if (tangents != null)
                         vao.addVertexBuffer(tangents, 3, 3);
+                else if (tangentsBuffer != null)
+                        vao.addVertexBuffer(tangentsBuffer, GL11.GL_FLOAT, 3, 3);
                 else {
                         Logger.warn("Error by creating mesh instance",
                                         "The tangents of the dataStructures mesh are null! Returning null!");
@@ -196,6 +315,8 @@ public class MeshData {
                 }
                 if (jointIds != null && animated)
                         vao.addVertexBuffer(jointIds, 4, 4);
+                else if (jointIdsBuffer != null && animated)
+                        vao.addVertexBuffer(jointIdsBuffer, GL11.GL_INT, 4, 4);
                 else if (animated) {
                         Logger.warn("Error by creating mesh instance (animated)",
                                         "The joint ids of the dataStructures mesh are null! Returning null!");
@@ -203,6 +324,8 @@ public class MeshData {
                 }
                 if (weights != null && animated)
                         vao.addVertexBuffer(weights, 4, 5);
+                else if (weightsBuffer != null && animated)
+                        vao.addVertexBuffer(weightsBuffer, GL11.GL_FLOAT, 4, 5);
                 else if (animated) {
                         Logger.warn("Error by creating mesh instance (animated)",
                                         "The weights of the dataStructures mesh are null! Returning null!");
@@ -219,7 +342,50 @@ public class MeshData {
                         return null;
                 }
 
-                // Create collision shape
+                // Create lod index buffers
+                IndexBuffer[] lodIndexBuffers = new IndexBuffer[lods == null ? 0 : lods.length];
+                for (int i = 0; i < lodIndexBuffers.length; i++)
+                        lodIndexBuffers[i] = vao.addIndexBuffer(lods[i]);
+
+                // Use prepared cpu side data only once
+                CollisionShape collisionShape = preparedShape != null ? preparedShape : createShape();
+                MeshBVH bvh = preparedBVH != null ? preparedBVH : new MeshBVH(vertices, indices);
+                float[] bounds = preparedBounds != null ? preparedBounds : calcBoundingSphere();
+                float[] arenaVertices = preparedArenaVertices;
+                preparedShape = null;
+                preparedBVH = null;
+                preparedBounds = null;
+                preparedArenaVertices = null;
+
+                // Finalize
+                Mesh mesh;
+                if (material == null)
+                        mesh = new Mesh(vao, indexBuffer, collisionShape);
+                else
+                        mesh = new Mesh(vao, indexBuffer, this.material.getInstance(texPath, asResource),
+                                        collisionShape);
+                mesh.setLodIndexBuffers(lodIndexBuffers);
+                mesh.setBoundingSphere(bounds[0], bounds[1], bounds[2], bounds[3]);
+                mesh.setBVH(bvh);
+                // Full resolution, simplified lods can grow the silhouette and close
+                // openings, which would cull objects seen through them
+                mesh.setOccluderGeometry(vertices, indices);
+                if (!animated && MeshArena.isEnabled()) {
+                        if (arenaVertices == null)
+                                arenaVertices = MeshArena.interleave(vertices, toArray(texCoords, texCoordsBuffer),
+                                                toArray(normals, normalsBuffer), toArray(tangents, tangentsBuffer));
+                        mesh.setArenaRange(MeshArena.getInstance().add(arenaVertices, indices, lods));
+                }
+                return mesh;
+        }
+
+        /**
+         * Creating the collision shape of the mesh from the shape string. Convex
+         * hull and triangle mesh shapes are built from the vertices.
+         *
+         * @return Created collision shape
+         */
+        private CollisionShape createShape() {
                 if (shape == null)
                         Logger.warn("Empty collision shape", "Collision shape not set, creating convex hull!");
                 CollisionShape collisionShape = CollisionShapeParser.toShape(shape);
@@ -228,12 +394,67 @@ public class MeshData {
                         collisionShape = Physics.createConvexHullShape(vertices);
                 if (collisionShape instanceof TriangleMeshShape)
                         collisionShape = Physics.createTriangleMeshShape(vertices, indices);
+                return collisionShape;
+        }
 
-                // Finalize
-                if (material == null)
-                        return new Mesh(vao, indexBuffer, collisionShape);
-                else
-                        return new Mesh(vao, indexBuffer, this.material.getInstance(texPath, asResource),
-                                        collisionShape);
+        /**
+         * @param array  Array of a vertex attribute
+         * @param buffer Buffer of the vertex attribute
+         * @return The array or the buffer copied into a new array, if the array is
+         *         null
+         */
+        static float[] toArray(float[] array, ByteBuffer buffer) {
+                if (array != null || buffer == null)
+                        return array;
+
+                float[] result = new float[buffer.remaining() / 4];
+                buffer.duplicate().order(buffer.order()).asFloatBuffer().get(result);
+                return result;
+        }
+
+        /**
+         * @param array  Array of a vertex attribute
+         * @param buffer Buffer of the vertex attribute
+         * @return The array or the buffer copied into a new array, if the array is
+         *         null
+         */
+        static int[] toArray(int[] array, ByteBuffer buffer) {
+                if (array != null || buffer == null)
+                        return array;
+
+                int[] result = new int[buffer.remaining() / 4];
+                buffer.duplicate().order(buffer.order()).asIntBuffer().get(result);
+                return result;
+        }
+
+        /**
+         * Calculating the bounding sphere of the vertices around the center of
+         * their bounding box
+         *
+         * @return Center x, y, z and radius of the sphere
+         */
+        private float[] calcBoundingSphere() {
+
+                // Bounding box
+                float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+                float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+                for (int i = 0; i < vertices.length; i += 3) {
+                        minX = Math.min(minX, vertices[i]);
+                        minY = Math.min(minY, vertices[i + 1]);
+                        minZ = Math.min(minZ, vertices[i + 2]);
+                        maxX = Math.max(maxX, vertices[i]);
+                        maxY = Math.max(maxY, vertices[i + 1]);
+                        maxZ = Math.max(maxZ, vertices[i + 2]);
+                }
+                float cx = (minX + maxX) * 0.5f, cy = (minY + maxY) * 0.5f, cz = (minZ + maxZ) * 0.5f;
+
+                // Radius to the farthest vertex
+                float radiusSq = 0.0f;
+                for (int i = 0; i < vertices.length; i += 3) {
+                        float dx = vertices[i] - cx, dy = vertices[i + 1] - cy, dz = vertices[i + 2] - cz;
+                        radiusSq = Math.max(radiusSq, dx * dx + dy * dy + dz * dz);
+                }
+
+                return new float[] { cx, cy, cz, (float) Math.sqrt(radiusSq) };
         }
 }
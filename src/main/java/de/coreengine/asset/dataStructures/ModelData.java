@@ -30,8 +30,10 @@ package de.coreengine.asset.dataStructures;
 import de.coreengine.rendering.model.Mesh;
 import de.coreengine.rendering.model.Model;
 import de.coreengine.util.ByteArrayUtils;
+import de.coreengine.util.Configuration;
 import de.coreengine.util.Logger;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -40,6 +42,8 @@ import java.util.Arrays;
  * @author Darius Dinger
  */
 public class ModelData {
+    private static final int LOD_COUNT = Configuration.getValuei("LOD_COUNT");
+    private static final float LOD_REDUCTION = Configuration.getValuef("LOD_REDUCTION");
 
     // Data
     public MeshData[] meshes = null;
@@ -125,7 +129,56 @@ public class ModelData {
     }
 
     /**
-     * Creates new model instance of the dataStructure model
+     * Constructing dataStructure model from data in the memory mappable format
+     * (see {@link MappedModelFormat})
+     *
+     * @param data Data to construct dataStructure model from
+     */
+    public void fromBuffer(ByteBuffer data) {
+        meshes = MappedModelFormat.readMeshes(data);
+    }
+
+    /**
+     * Converting the dataStructure model into the memory mappable format (see
+     * {@link MappedModelFormat})
+     *
+     * @return Converted data
+     */
+    public ByteBuffer toBuffer() {
+        return MappedModelFormat.write(meshes, null);
+    }
+
+    /**
+     * Generating the levels of detail of all meshes, that have no lods yet. The
+     * lods are saved with the model data.
+     */
+    public void generateLods() {
+        if (meshes == null)
+            return;
+
+        for (MeshData mesh : meshes)
+            mesh.generateLods(LOD_COUNT, LOD_REDUCTION);
+    }
+
+    /**
+     * Preparing the cpu side data of all mesh instances, so
+     * {@link #getInstance} only has to upload to opengl. Can be called on a
+     * loader thread (see {@link MeshData#prepareInstance}).
+     *
+     * @param arena Are the meshes added to the mesh arena
+     */
+    public void prepareInstance(boolean arena) {
+        if (meshes == null)
+            return;
+
+        for (MeshData mesh : meshes)
+            mesh.prepareInstance(arena);
+    }
+
+    /**
+     * Creates new model instance of the dataStructure model. Levels of detail are
+     * not generated here, they come with the model file or get generated by
+     * {@link #generateLods()} at import time or on the loader thread.
      *
      * @param texPath    Path to get models textures from
      * @param asResource Load model textures from resources
@@ -0,0 +1,130 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector4f;
+
+/**
+ * Class that represents the view frustum of a view projection matrix as planes
+ * in world space. Can be used to cull objects outside the view.
+ *
+ * @author Darius Dinger
+ */
+public class Frustum {
+    private static final int PLANE_SIZE = 4;
+
+    // Planes (a, b, c, d), point is inside a plane if a*x + b*y + c*z + d >= 0
+    private final float[] planes = new float[7 * PLANE_SIZE];
+    private int planeCount = 6;
+
+    /**
+     * Extracting the six frustum planes from a view projection matrix
+     *
+     * @param vpMat View projection matrix to extract planes from
+     */
+    public void update(Matrix4f vpMat) {
+        setPlane(0, vpMat.m30 + vpMat.m00, vpMat.m31 + vpMat.m01, vpMat.m32 + vpMat.m02, vpMat.m33 + vpMat.m03);
+        setPlane(1, vpMat.m30 - vpMat.m00, vpMat.m31 - vpMat.m01, vpMat.m32 - vpMat.m02, vpMat.m33 - vpMat.m03);
+        setPlane(2, vpMat.m30 + vpMat.m10, vpMat.m31 + vpMat.m11, vpMat.m32 + vpMat.m12, vpMat.m33 + vpMat.m13);
+        setPlane(3, vpMat.m30 - vpMat.m10, vpMat.m31 - vpMat.m11, vpMat.m32 - vpMat.m12, vpMat.m33 - vpMat.m13);
+        setPlane(4, vpMat.m30 + vpMat.m20, vpMat.m31 + vpMat.m21, vpMat.m32 + vpMat.m22, vpMat.m33 + vpMat.m23);
+        setPlane(5, vpMat.m30 - vpMat.m20, vpMat.m31 - vpMat.m21, vpMat.m32 - vpMat.m22, vpMat.m33 - vpMat.m23);
+        planeCount = 6;
+    }
+
+    /**
+     * Extracting the six frustum planes from a view projection matrix and adding
+     * the clip plane, the scene gets rendered with, as seventh plane
+     *
+     * @param vpMat     View projection matrix to extract planes from
+     * @param clipPlane Clip plane of the render pass
+     */
+    public void update(Matrix4f vpMat, Vector4f clipPlane) {
+        update(vpMat);
+        setPlane(6, clipPlane.x, clipPlane.y, clipPlane.z, clipPlane.w);
+        planeCount = 7;
+    }
+
+    /**
+     * Setting and normalizing a plane
+     *
+     * @param plane Index of the plane
+     * @param a     X normal of the plane
+     * @param b     Y normal of the plane
+     * @param c     Z normal of the plane
+     * @param d     Distance of the plane
+     */
+    private void setPlane(int plane, float a, float b, float c, float d) {
+        float length = (float) Math.sqrt(a * a + b * b + c * c);
+        int o = plane * PLANE_SIZE;
+        planes[o] = a / length;
+        planes[o + 1] = b / length;
+        planes[o + 2] = c / length;
+        planes[o + 3] = d / length;
+    }
+
+    /**
+     * Checks if a sphere is inside or intersects the frustum
+     *
+     * @param x      World x position of the sphere center
+     * @param y      World y position of the sphere center
+     * @param z      World z position of the sphere center
+     * @param radius Radius of the sphere
+     * @return True, if the sphere is (partly) inside the frustum
+     */
+    public boolean intersectsSphere(float x, float y, float z, float radius) {
+        for (int o = 0; o < planeCount * PLANE_SIZE; o += PLANE_SIZE) {
+            if (planes[o] * x + planes[o + 1] * y + planes[o + 2] * z + planes[o + 3] < -radius)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an axis aligned box is inside or intersects the frustum. Tests the
+     * corner of the box, that is farthest along each plane normal.
+     *
+     * @param minX Min world x of the box
+     * @param minY Min world y of the box
+     * @param minZ Min world z of the box
+     * @param maxX Max world x of the box
+     * @param maxY Max world y of the box
+     * @param maxZ Max world z of the box
+     * @return True, if the box is (partly) inside the frustum
+     */
+    public boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int o = 0; o < planeCount * PLANE_SIZE; o += PLANE_SIZE) {
+            float a = planes[o], b = planes[o + 1], c = planes[o + 2];
+            float x = a >= 0 ? maxX : minX, y = b >= 0 ? maxY : minY, z = c >= 0 ? maxZ : minZ;
+            if (a * x + b * y + c * z + planes[o + 3] < 0)
+                return false;
+        }
+        return true;
+    }
+}
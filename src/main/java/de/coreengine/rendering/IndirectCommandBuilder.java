@@ -0,0 +1,238 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import java.util.Arrays;
+
+/**
+ * Builder for the draw commands of an indirect multi draw. A command draws one
+ * index range of the mesh arena for a consecutive run of instances. Each
+ * command belongs to a group (like a material), commands of the same group are
+ * stored consecutively after finishing, so every group can be submitted with a
+ * single glMultiDrawElementsIndirect.<br>
+ * <br>
+ * Command layout (DrawElementsIndirectCommand):<br>
+ * count | instanceCount | firstIndex | baseVertex | baseInstance<br>
+ * <br>
+ * Instance layout:<br>
+ * transformation (16 floats, column major) | pick color (r, g, b) | unused
+ *
+ * @author Darius Dinger
+ */
+public class IndirectCommandBuilder {
+
+    /**
+     * Ints per draw command
+     */
+    public static final int COMMAND_SIZE = 5;
+
+    /**
+     * Floats per instance
+     */
+    public static final int INSTANCE_SIZE = 20;
+
+    // Unsorted commands and their groups
+    private int[] commands = new int[COMMAND_SIZE * 64];
+    private int[] commandGroups = new int[64];
+    private int commandCount = 0;
+
+    // Commands sorted by group and the command range of each group
+    private int[] sortedCommands = new int[COMMAND_SIZE * 64];
+    private int[] groupFirstCommand = new int[8], groupCommandCount = new int[8];
+    private int groupCount = 0;
+
+    // Instance data of all commands
+    private float[] instances = new float[INSTANCE_SIZE * 256];
+    private int instanceCount = 0;
+
+    // Is a command currently open
+    private boolean open = false;
+
+    /**
+     * Removing all commands and instances
+     */
+    public void clear() {
+        commandCount = 0;
+        instanceCount = 0;
+        groupCount = 0;
+        open = false;
+    }
+
+    /**
+     * Starting a new command, following instances are added to this command
+     *
+     * @param group      Group of the command
+     * @param indexCount Count of indices to draw
+     * @param firstIndex First index in the index buffer
+     * @param baseVertex Value added to each index
+     */
+    public void beginCommand(int group, int indexCount, int firstIndex, int baseVertex) {
+        endCommand();
+
+        if (commandCount == commandGroups.length) {
+            commands = Arrays.copyOf(commands, commands.length * 2);
+            commandGroups = Arrays.copyOf(commandGroups, commandGroups.length * 2);
+        }
+
+        int c = commandCount * COMMAND_SIZE;
+        commands[c] = indexCount;
+        commands[c + 1] = 0;
+        commands[c + 2] = firstIndex;
+        commands[c + 3] = baseVertex;
+        commands[c + 4] = instanceCount;
+        commandGroups[commandCount] = group;
+        commandCount++;
+        groupCount = Integer.max(groupCount, group + 1);
+        open = true;
+    }
+
+    /**
+     * Adding an instance to the open command
+     *
+     * @param transMat Transformation matrix of the instance, column major
+     * @param r        Red channel of the pick color
+     * @param g        Green channel of the pick color
+     * @param b        Blue channel of the pick color
+     */
+    public void addInstance(float[] transMat, float r, float g, float b) {
+        if (!open)
+            throw new IllegalStateException("No open command to add the instance to!");
+
+        if ((instanceCount + 1) * INSTANCE_SIZE > instances.length)
+            instances = Arrays.copyOf(instances, instances.length * 2);
+
+        int i = instanceCount * INSTANCE_SIZE;
+        System.arraycopy(transMat, 0, instances, i, 16);
+        instances[i + 16] = r;
+        instances[i + 17] = g;
+        instances[i + 18] = b;
+        instances[i + 19] = 0.0f;
+        instanceCount++;
+
+        commands[(commandCount - 1) * COMMAND_SIZE + 1]++;
+    }
+
+    /**
+     * Closing the open command. Commands without instances are removed.
+     */
+    public void endCommand() {
+        if (!open)
+            return;
+        open = false;
+
+        if (commands[(commandCount - 1) * COMMAND_SIZE + 1] == 0)
+            commandCount--;
+    }
+
+    /**
+     * Closing the open command and sorting the commands by their group (stable
+     * counting sort), so the commands of each group are stored consecutively
+     */
+    public void finish() {
+        endCommand();
+
+        if (groupFirstCommand.length < groupCount) {
+            groupFirstCommand = new int[groupCount * 2];
+            groupCommandCount = new int[groupCount * 2];
+        }
+        if (sortedCommands.length < commands.length)
+            sortedCommands = new int[commands.length];
+
+        // Count commands per group
+        Arrays.fill(groupCommandCount, 0, groupCount, 0);
+        for (int i = 0; i < commandCount; i++)
+            groupCommandCount[commandGroups[i]]++;
+
+        // Calc first command of each group
+        int first = 0;
+        for (int g = 0; g < groupCount; g++) {
+            groupFirstCommand[g] = first;
+            first += groupCommandCount[g];
+        }
+
+        // Place commands
+        for (int g = 0; g < groupCount; g++)
+            groupCommandCount[g] = 0;
+        for (int i = 0; i < commandCount; i++) {
+            int g = commandGroups[i];
+            int target = groupFirstCommand[g] + groupCommandCount[g]++;
+            System.arraycopy(commands, i * COMMAND_SIZE, sortedCommands, target * COMMAND_SIZE, COMMAND_SIZE);
+        }
+    }
+
+    /**
+     * @return Draw commands sorted by group, valid after finish()
+     */
+    public int[] getCommands() {
+        return sortedCommands;
+    }
+
+    /**
+     * @return Count of the draw commands
+     */
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * @return Count of the groups (highest group + 1)
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * @param group Group to get first command of
+     * @return Index of the first command of the group, valid after finish()
+     */
+    public int getGroupFirstCommand(int group) {
+        return groupFirstCommand[group];
+    }
+
+    /**
+     * @param group Group to get command count of
+     * @return Count of the commands of the group, valid after finish()
+     */
+    public int getGroupCommandCount(int group) {
+        return groupCommandCount[group];
+    }
+
+    /**
+     * @return Instance data of all commands
+     */
+    public float[] getInstanceData() {
+        return instances;
+    }
+
+    /**
+     * @return Count of the instances of all commands
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import de.coreengine.rendering.renderable.light.PointLight;
+import de.coreengine.rendering.renderable.light.SpotLight;
+import de.coreengine.util.Configuration;
+
+import javax.vecmath.Matrix4f;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Class that assigns point and spot lights to clusters of the view frustum. The
+ * frustum is divided into screen space tiles and exponential depth slices. Each
+ * cluster references a compact list of the lights, that can reach it, so the
+ * deferred shader only has to shade a fragment with its clusters lights.<br>
+ * <br>
+ * The binning runs on the cpu only and does not need an opengl context.
+ *
+ * @author Darius Dinger
+ */
+public class LightClusters {
+    private static final int DEFAULT_TILES_X = Configuration.getValuei("LIGHT_CLUSTER_TILES_X");
+    private static final int DEFAULT_TILES_Y = Configuration.getValuei("LIGHT_CLUSTER_TILES_Y");
+    private static final int DEFAULT_SLICES = Configuration.getValuei("LIGHT_CLUSTER_SLICES");
+    private static final float DEFAULT_CUTOFF = Configuration.getValuef("LIGHT_CLUSTER_CUTOFF");
+
+    /**
+     * Floats per light in the light data array.<br>
+     * [pos.x, pos.y, pos.z, intensity, col.r, col.g, col.b, isSpot, att.x, att.y,
+     * cone.x, cone.y, dir.x, dir.y, dir.z, radius]
+     */
+    public static final int LIGHT_DATA_SIZE = 16;
+
+    // Ints per light in the light bounds array
+    // [minTileX, maxTileX, minTileY, maxTileY, minSlice, maxSlice]
+    private static final int LIGHT_BOUNDS_SIZE = 6;
+
+    // Light count, from which the binning gets split across cores
+    private static final int PARALLEL_THRESHOLD = 128;
+
+    // Cluster grid dimensions
+    private final int tilesX, tilesY, slices;
+
+    // Brightness, under that a light has no effect anymore
+    private final float cutoff;
+
+    // Should binning of many lights be split across cores
+    private boolean parallel = true;
+
+    // Light data and screen space bounds of all lights
+    private float[] lightData = new float[0];
+    private int[] lightBounds = new int[0];
+    private int lightCount = 0;
+
+    // Offset and count into the light indices for each cluster
+    private final int[] clusterData;
+
+    // Compact light index lists of all clusters
+    private int[] lightIndices = new int[0];
+    private int indexCount = 0;
+
+    // Projection values of the last update
+    private float xScale, yScale, nearPlane, farPlane, sliceScale;
+
+    /**
+     * Creating new light clusters with the default dimensions of the configuration
+     */
+    public LightClusters() {
+        this(DEFAULT_TILES_X, DEFAULT_TILES_Y, DEFAULT_SLICES, DEFAULT_CUTOFF);
+    }
+
+    /**
+     * Creating new light clusters
+     * 
+     * @param tilesX Screen space tiles on the x axis
+     * @param tilesY Screen space tiles on the y axis
+     * @param slices Depth slices between near and far plane
+     * @param cutoff Brightness, under that a light is treated as out of range
+     */
+    public LightClusters(int tilesX, int tilesY, int slices, float cutoff) {
+        this.tilesX = tilesX;
+        this.tilesY = tilesY;
+        this.slices = slices;
+        this.cutoff = cutoff;
+
+        clusterData = new int[tilesX * tilesY * slices * 2];
+    }
+
+    /**
+     * Assigning lights to the clusters of a camera frustum
+     * 
+     * @param pointLights      Point lights to assign
+     * @param spotLights       Spot lights to assign
+     * @param viewMatrix       View matrix of the camera
+     * @param projectionMatrix Perspective projection matrix of the camera
+     * @param nearPlane        Near plane distance of the camera
+     * @param farPlane         Far plane distance of the camera
+     */
+    public void update(List<PointLight> pointLights, List<SpotLight> spotLights, Matrix4f viewMatrix,
+            Matrix4f projectionMatrix, float nearPlane, float farPlane) {
+        this.xScale = projectionMatrix.m00;
+        this.yScale = projectionMatrix.m11;
+        this.nearPlane = nearPlane;
+        this.farPlane = farPlane;
+        this.sliceScale = slices / (float) Math.log(farPlane / nearPlane);
+
+        // Collect light data
+        lightCount = pointLights.size() + spotLights.size();
+        if (lightData.length < lightCount * LIGHT_DATA_SIZE) {
+            lightData = new float[lightCount * LIGHT_DATA_SIZE * 2];
+            lightBounds = new int[lightCount * LIGHT_BOUNDS_SIZE * 2];
+        }
+
+        int light = 0;
+        for (int i = 0; i < pointLights.size(); i++) {
+            storeLight(light++, pointLights.get(i), false);
+        }
+        for (int i = 0; i < spotLights.size(); i++) {
+            storeLight(light++, spotLights.get(i), true);
+        }
+
+        boolean runParallel = parallel && lightCount >= PARALLEL_THRESHOLD;
+
+        // Calculate cluster bounds of each light
+        if (runParallel)
+            IntStream.range(0, lightCount).parallel().forEach(l -> calcLightBounds(l, viewMatrix));
+        else
+            for (int l = 0; l < lightCount; l++)
+                calcLightBounds(l, viewMatrix);
+
+        // Count lights per cluster
+        if (runParallel)
+            IntStream.range(0, slices).parallel().forEach(s -> binSlice(s, false));
+        else
+            for (int s = 0; s < slices; s++)
+                binSlice(s, false);
+
+        // Calculate cluster offsets into the compact index list and reset counts
+        indexCount = 0;
+        for (int c = 0; c < clusterData.length; c += 2) {
+            clusterData[c] = indexCount;
+            indexCount += clusterData[c + 1];
+            clusterData[c + 1] = 0;
+        }
+        if (lightIndices.length < indexCount)
+            lightIndices = new int[indexCount * 2];
+
+        // Fill light indices of each cluster
+        if (runParallel)
+            IntStream.range(0, slices).parallel().forEach(s -> binSlice(s, true));
+        else
+            for (int s = 0; s < slices; s++)
+                binSlice(s, true);
+    }
+
+    /**
+     * Storing data of a light into the light data array
+     * 
+     * @param index Index of the light
+     * @param light Point light or spot light to store
+     * @param spot  Is the light a spot light
+     */
+    private void storeLight(int index, PointLight light, boolean spot) {
+        int d = index * LIGHT_DATA_SIZE;
+
+        lightData[d] = light.getPosition().x;
+        lightData[d + 1] = light.getPosition().y;
+        lightData[d + 2] = light.getPosition().z;
+        lightData[d + 3] = light.getIntensity();
+
+        lightData[d + 4] = light.getColor().getRed();
+        lightData[d + 5] = light.getColor().getGreen();
+        lightData[d + 6] = light.getColor().getBlue();
+        lightData[d + 7] = spot ? 1.0f : 0.0f;
+
+        lightData[d + 8] = light.getAttenuation().x;
+        lightData[d + 9] = light.getAttenuation().y;
+
+        if (spot) {
+            SpotLight spotLight = (SpotLight) light;
+            lightData[d + 10] = spotLight.getLightCone().x;
+            lightData[d + 11] = spotLight.getLightCone().y;
+            lightData[d + 12] = spotLight.getDirection().x;
+            lightData[d + 13] = spotLight.getDirection().y;
+            lightData[d + 14] = spotLight.getDirection().z;
+        } else {
+            Arrays.fill(lightData, d + 10, d + 15, 0.0f);
+        }
+
+        lightData[d + 15] = calcRadius(light);
+    }
+
+    /**
+     * Calculating the distance, where the brightness of a light drops under the
+     * cutoff value. The attenuation is intensity + linear * d + squared * d^2.
+     * 
+     * @param light Light to calculate radius for
+     * @return Range of the light, 0 if the light is never bright enough or
+     *         Float.MAX_VALUE if it never drops
+     */
+    private float calcRadius(PointLight light) {
+        float maxColor = Math.max(light.getColor().getRed(),
+                Math.max(light.getColor().getGreen(), light.getColor().getBlue()));
+
+        float a = light.getAttenuation().y;
+        float b = light.getAttenuation().x;
+        float c = light.getIntensity() - maxColor / cutoff;
+
+        if (c >= 0.0f)
+            return 0.0f;
+        else if (a > 0.0f)
+            return (float) (-b + Math.sqrt(b * b - 4.0f * a * c)) / (2.0f * a);
+        else if (b > 0.0f)
+            return -c / b;
+        else
+            return Float.MAX_VALUE;
+    }
+
+    /**
+     * Calculating the tile and slice ranges, a light can reach. The light sphere
+     * gets bounded by a view space box, which gets projected onto the screen.
+     * 
+     * @param index      Index of the light
+     * @param viewMatrix View matrix of the camera
+     */
+    private void calcLightBounds(int index, Matrix4f viewMatrix) {
+        int d = index * LIGHT_DATA_SIZE;
+        int b = index * LIGHT_BOUNDS_SIZE;
+
+        float x = lightData[d], y = lightData[d + 1], z = lightData[d + 2];
+        float radius = lightData[d + 15];
+
+        // Transform light position into view space
+        float vx = viewMatrix.m00 * x + viewMatrix.m01 * y + viewMatrix.m02 * z + viewMatrix.m03;
+        float vy = viewMatrix.m10 * x + viewMatrix.m11 * y + viewMatrix.m12 * z + viewMatrix.m13;
+        float vz = viewMatrix.m20 * x + viewMatrix.m21 * y + viewMatrix.m22 * z + viewMatrix.m23;
+
+        // Depth range of the light sphere (view space looks to -z)
+        float minDepth = -vz - radius;
+        float maxDepth = -vz + radius;
+
+        // Light out of range or behind the frustum
+        if (radius <= 0.0f || maxDepth < nearPlane || minDepth > farPlane) {
+            setEmptyBounds(b);
+            return;
+        }
+
+        lightBounds[b + 4] = getSlice(Math.max(minDepth, nearPlane));
+        lightBounds[b + 5] = getSlice(Math.min(maxDepth, farPlane));
+
+        // Sphere intersects near plane, so its projection covers the whole screen
+        if (minDepth <= nearPlane) {
+            lightBounds[b] = 0;
+            lightBounds[b + 1] = tilesX - 1;
+            lightBounds[b + 2] = 0;
+            lightBounds[b + 3] = tilesY - 1;
+            return;
+        }
+
+        // Project view space box of the sphere into normalized device coordinates
+        float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            float w = i == 0 ? minDepth : maxDepth;
+            for (int j = 0; j < 2; j++) {
+                float px = xScale * (j == 0 ? vx - radius : vx + radius) / w;
+                float py = yScale * (j == 0 ? vy - radius : vy + radius) / w;
+                minX = Math.min(minX, px);
+                maxX = Math.max(maxX, px);
+                minY = Math.min(minY, py);
+                maxY = Math.max(maxY, py);
+            }
+        }
+
+        // Projection outside of the screen
+        if (maxX < -1.0f || minX > 1.0f || maxY < -1.0f || minY > 1.0f) {
+            setEmptyBounds(b);
+            return;
+        }
+
+        lightBounds[b] = getTile(minX, tilesX);
+        lightBounds[b + 1] = getTile(maxX, tilesX);
+        lightBounds[b + 2] = getTile(minY, tilesY);
+        lightBounds[b + 3] = getTile(maxY, tilesY);
+    }
+
+    /**
+     * Setting the bounds of a light to an empty range
+     * 
+     * @param b Offset of the light in the bounds array
+     */
+    private void setEmptyBounds(int b) {
+        lightBounds[b] = 0;
+        lightBounds[b + 1] = -1;
+        lightBounds[b + 2] = 0;
+        lightBounds[b + 3] = -1;
+        lightBounds[b + 4] = 0;
+        lightBounds[b + 5] = -1;
+    }
+
+    /**
+     * @param depth Positive view space depth between near and far plane
+     * @return Depth slice of the depth
+     */
+    private int getSlice(float depth) {
+        int slice = (int) (Math.log(depth / nearPlane) * sliceScale);
+        return Math.max(0, Math.min(slices - 1, slice));
+    }
+
+    /**
+     * @param ndc   Normalized device coordinate
+     * @param tiles Tile count on the axis
+     * @return Tile of the coordinate, clamped to the screen
+     */
+    private int getTile(float ndc, int tiles) {
+        int tile = (int) Math.floor((ndc * 0.5f + 0.5f) * tiles);
+        return Math.max(0, Math.min(tiles - 1, tile));
+    }
+
+    /**
+     * Counting or filling the lights of all clusters in a depth slice. Every slice
+     * only writes into its own clusters, so slices can be binned in parallel.
+     * 
+     * @param slice Depth slice to bin
+     * @param fill  False to count the lights, true to write the light indices
+     */
+    private void binSlice(int slice, boolean fill) {
+        int sliceOffset = slice * tilesX * tilesY;
+
+        // Reset counts before counting
+        if (!fill) {
+            for (int c = sliceOffset; c < sliceOffset + tilesX * tilesY; c++)
+                clusterData[c * 2 + 1] = 0;
+        }
+
+        for (int l = 0; l < lightCount; l++) {
+            int b = l * LIGHT_BOUNDS_SIZE;
+            if (slice < lightBounds[b + 4] || slice > lightBounds[b + 5])
+                continue;
+
+            for (int ty = lightBounds[b + 2]; ty <= lightBounds[b + 3]; ty++) {
+                for (int tx = lightBounds[b]; tx <= lightBounds[b + 1]; tx++) {
+                    int c = (sliceOffset + ty * tilesX + tx) * 2;
+
+                    if (fill)
+                        lightIndices[clusterData[c] + clusterData[c + 1]] = l;
+                    clusterData[c + 1]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Should the binning of many lights be split across all cores
+     * 
+     * @param parallel Enable parallel binning
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return Light data of all assigned lights, LIGHT_DATA_SIZE floats per light
+     */
+    public float[] getLightData() {
+        return lightData;
+    }
+
+    /**
+     * @return Count of assigned lights
+     */
+    public int getLightCount() {
+        return lightCount;
+    }
+
+    /**
+     * @return Offset and count into the light indices for each cluster
+     */
+    public int[] getClusterData() {
+        return clusterData;
+    }
+
+    /**
+     * @return Compact light index lists of all clusters
+     */
+    public int[] getLightIndices() {
+        return lightIndices;
+    }
+
+    /**
+     * @return Count of used light indices
+     */
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * @return Screen space tiles on the x axis
+     */
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    /**
+     * @return Screen space tiles on the y axis
+     */
+    public int getTilesY() {
+        return tilesY;
+    }
+
+    /**
+     * @return Depth slices between near and far plane
+     */
+    public int getSlices() {
+        return slices;
+    }
+
+    /**
+     * @return Near plane of the last update
+     */
+    public float getNearPlane() {
+        return nearPlane;
+    }
+
+    /**
+     * @return Factor to calculate the depth slice from log(depth / near)
+     */
+    public float getSliceScale() {
+        return sliceScale;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import de.coreengine.rendering.renderable.Camera;
+import de.coreengine.util.Configuration;
+
+/**
+ * Selects the level of detail of an object from its projected size on the
+ * screen. A hysteresis around the thresholds prevents objects from popping
+ * between two levels.
+ *
+ * @author Darius Dinger
+ */
+public class LodSelector {
+    private static final float[] SCREEN_SIZES = Configuration.getValuefa("LOD_SCREEN_SIZES");
+    private static final float HYSTERESIS = Configuration.getValuef("LOD_HYSTERESIS");
+
+    /**
+     * Calculating the projected size of a bounding sphere as part of the screen
+     * height
+     * 
+     * @param cam    Camera to project with
+     * @param x      X center of the sphere in world space
+     * @param y      Y center of the sphere in world space
+     * @param z      Z center of the sphere in world space
+     * @param radius Radius of the sphere
+     * @return Projected diameter relative to the screen height
+     */
+    public static float getScreenSize(Camera cam, float x, float y, float z, float radius) {
+        float dx = x - cam.getPosition().x, dy = y - cam.getPosition().y, dz = z - cam.getPosition().z;
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance <= radius)
+            return Float.MAX_VALUE;
+
+        return radius / (distance * (float) Math.tan(Math.toRadians(cam.getFov() * 0.5f)));
+    }
+
+    /**
+     * Selecting the level of detail for a projected size. The level only
+     * changes, if the size leaves the threshold by more than the hysteresis.
+     * 
+     * @param screenSize Projected size relative to the screen height
+     * @param current    Level of detail selected last frame
+     * @param lodCount   Count of available levels
+     * @return Selected level of detail
+     */
+    public static int select(float screenSize, int current, int lodCount) {
+        int maxLod = Math.min(lodCount - 1, SCREEN_SIZES.length);
+        int lod = Math.max(0, Math.min(current, maxLod));
+
+        // Coarser level, if the object got smaller
+        while (lod < maxLod && screenSize < SCREEN_SIZES[lod] * (1.0f - HYSTERESIS))
+            lod++;
+
+        // Finer level, if the object got bigger
+        while (lod > 0 && screenSize > SCREEN_SIZES[lod - 1] * (1.0f + HYSTERESIS))
+            lod--;
+
+        return lod;
+    }
+}
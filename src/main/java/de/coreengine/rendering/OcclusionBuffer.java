@@ -0,0 +1,360 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import javax.vecmath.Matrix4f;
+import java.util.Arrays;
+
+/**
+ * Cpu software occlusion buffer. Occluder triangles are rasterized into a small
+ * depth buffer, from which a hierarchical max depth pyramid is built. Bounding
+ * boxes are tested against the pyramid, to cull objects that are completely
+ * hidden behind the occluders. Runs without opengl.
+ *
+ * @author Darius Dinger
+ */
+public class OcclusionBuffer {
+
+    // Min w of a vertex to be rasterized, triangles crossing the near plane are
+    // skipped, which is conservative
+    private static final float MIN_W = 1e-4f;
+
+    // Size of the depth buffer
+    private final int width, height;
+
+    // Depth pyramid, level 0 is the rasterized depth (ndc z, 1 = far)
+    private final float[][] levels;
+    private final int[] levelWidths, levelHeights;
+
+    // View projection matrix of the current frame
+    private final Matrix4f vpMat = new Matrix4f();
+
+    // Combined model view projection matrix of the current occluder
+    private final Matrix4f mvpMat = new Matrix4f();
+
+    // Transformed vertices of the current occluder (x, y, depth, w)
+    private float[] projected = new float[0];
+
+    // Has the pyramid to be rebuilt before the next test
+    private boolean pyramidDirty = false;
+
+    // Stats of the current frame
+    private int occluderTriangles = 0, testedObjects = 0, culledObjects = 0;
+
+    /**
+     * Creating new occlusion buffer
+     * 
+     * @param width  Width of the depth buffer
+     * @param height Height of the depth buffer
+     */
+    public OcclusionBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        int levelCount = 1;
+        for (int size = Math.max(width, height); size > 1; size = (size + 1) / 2)
+            levelCount++;
+
+        levels = new float[levelCount][];
+        levelWidths = new int[levelCount];
+        levelHeights = new int[levelCount];
+        int w = width, h = height;
+        for (int l = 0; l < levelCount; l++) {
+            levels[l] = new float[w * h];
+            levelWidths[l] = w;
+            levelHeights[l] = h;
+            w = Math.max(1, (w + 1) / 2);
+            h = Math.max(1, (h + 1) / 2);
+        }
+    }
+
+    /**
+     * Clearing the buffer and stats for a new frame
+     * 
+     * @param vpMat View projection matrix of the frame
+     */
+    public void clear(Matrix4f vpMat) {
+        this.vpMat.set(vpMat);
+        Arrays.fill(levels[0], 1.0f);
+        pyramidDirty = true;
+
+        occluderTriangles = 0;
+        testedObjects = 0;
+        culledObjects = 0;
+    }
+
+    /**
+     * Rasterizing the triangles of an occluder mesh into the depth buffer
+     * 
+     * @param transMat Transformation matrix of the occluder
+     * @param vertices Vertex positions of the occluder mesh (x, y, z)
+     * @param indices  Triangle indices of the occluder mesh
+     */
+    public void addOccluder(Matrix4f transMat, float[] vertices, int[] indices) {
+        mvpMat.mul(vpMat, transMat);
+        Matrix4f m = mvpMat;
+
+        // Transform vertices
+        int vertexCount = vertices.length / 3;
+        if (projected.length < vertexCount * 4)
+            projected = new float[vertexCount * 4];
+        for (int v = 0; v < vertexCount; v++) {
+            float x = vertices[v * 3], y = vertices[v * 3 + 1], z = vertices[v * 3 + 2];
+            float cw = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+            projected[v * 4 + 3] = cw;
+            if (cw < MIN_W)
+                continue;
+
+            float cx = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+            float cy = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+            float cz = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+            projected[v * 4] = (cx / cw * 0.5f + 0.5f) * width;
+            projected[v * 4 + 1] = (cy / cw * 0.5f + 0.5f) * height;
+            projected[v * 4 + 2] = cz / cw;
+        }
+
+        for (int i = 0; i + 2 < indices.length; i += 3) {
+            int a = indices[i] * 4, b = indices[i + 1] * 4, c = indices[i + 2] * 4;
+            if (projected[a + 3] < MIN_W || projected[b + 3] < MIN_W || projected[c + 3] < MIN_W)
+                continue;
+            rasterizeTriangle(a, b, c);
+        }
+
+        pyramidDirty = true;
+    }
+
+    /**
+     * Rasterizing a projected triangle into level 0 with min depth. Pixels are
+     * sampled at their center with a top left fill rule, so meshes are watertight.
+     * The written depth is the farthest depth of the triangle inside the pixel,
+     * the coverage margin is added by the box test.
+     * 
+     * @param a Offset of the first vertex in the projected array
+     * @param b Offset of the second vertex in the projected array
+     * @param c Offset of the third vertex in the projected array
+     */
+    private void rasterizeTriangle(int a, int b, int c) {
+        float[] p = projected;
+
+        // Double signed area, both windings are rasterized by flipping to a
+        // positive area
+        float area = (p[b] - p[a]) * (p[c + 1] - p[a + 1]) - (p[b + 1] - p[a + 1]) * (p[c] - p[a]);
+        if (area == 0.0f)
+            return;
+        if (area < 0.0f) {
+            int tmp = b;
+            b = c;
+            c = tmp;
+            area = -area;
+        }
+        float invArea = 1.0f / area;
+        float ax = p[a], ay = p[a + 1], bx = p[b], by = p[b + 1], cx = p[c], cy = p[c + 1];
+
+        // Pixel bounds of the triangle
+        int minX = Math.max(0, (int) Math.floor(Math.min(ax, Math.min(bx, cx))));
+        int maxX = Math.min(width - 1, (int) Math.ceil(Math.max(ax, Math.max(bx, cx))));
+        int minY = Math.max(0, (int) Math.floor(Math.min(ay, Math.min(by, cy))));
+        int maxY = Math.min(height - 1, (int) Math.ceil(Math.max(ay, Math.max(by, cy))));
+        if (minX > maxX || minY > maxY)
+            return;
+
+        // Top left fill rule, pixel centers exactly on an edge are only covered by
+        // one of the two triangles sharing it
+        boolean topLeft0 = isTopLeft(cx - bx, cy - by);
+        boolean topLeft1 = isTopLeft(ax - cx, ay - cy);
+        boolean topLeft2 = isTopLeft(bx - ax, by - ay);
+
+        // Depth offset from the pixel center to the farthest pixel corner
+        float za = p[a + 2], zb = p[b + 2], zc = p[c + 2];
+        float zdx = ((by - cy) * za + (cy - ay) * zb + (ay - by) * zc) * invArea;
+        float zdy = ((cx - bx) * za + (ax - cx) * zb + (bx - ax) * zc) * invArea;
+        float zMargin = 0.5f * (Math.abs(zdx) + Math.abs(zdy));
+
+        occluderTriangles++;
+        float[] depth = levels[0];
+        for (int y = minY; y <= maxY; y++) {
+            float py = y + 0.5f;
+            for (int x = minX; x <= maxX; x++) {
+                float px = x + 0.5f;
+
+                // Edge functions of the pixel center, positive inside
+                float e0 = (cx - bx) * (py - by) - (cy - by) * (px - bx);
+                float e1 = (ax - cx) * (py - cy) - (ay - cy) * (px - cx);
+                float e2 = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+                if (e0 < 0.0f || e1 < 0.0f || e2 < 0.0f)
+                    continue;
+                if ((e0 == 0.0f && !topLeft0) || (e1 == 0.0f && !topLeft1) || (e2 == 0.0f && !topLeft2))
+                    continue;
+
+                float z = (e0 * za + e1 * zb + e2 * zc) * invArea + zMargin;
+                int i = y * width + x;
+                if (z < depth[i])
+                    depth[i] = z;
+            }
+        }
+    }
+
+    /**
+     * Checks if an edge of a triangle with positive area is a top or left edge
+     * 
+     * @param dx X direction of the edge
+     * @param dy Y direction of the edge
+     * @return True, if pixel centers on the edge are covered
+     */
+    private static boolean isTopLeft(float dx, float dy) {
+        return dy > 0.0f || (dy == 0.0f && dx < 0.0f);
+    }
+
+    /**
+     * Building the max depth pyramid from the rasterized depth
+     */
+    private void buildPyramid() {
+        for (int l = 1; l < levels.length; l++) {
+            float[] src = levels[l - 1], dst = levels[l];
+            int sw = levelWidths[l - 1], sh = levelHeights[l - 1];
+            int dw = levelWidths[l], dh = levelHeights[l];
+            for (int y = 0; y < dh; y++) {
+                int y0 = Math.min(y * 2, sh - 1), y1 = Math.min(y * 2 + 1, sh - 1);
+                for (int x = 0; x < dw; x++) {
+                    int x0 = Math.min(x * 2, sw - 1), x1 = Math.min(x * 2 + 1, sw - 1);
+                    dst[y * dw + x] = Math.max(Math.max(src[y0 * sw + x0], src[y0 * sw + x1]),
+                            Math.max(src[y1 * sw + x0], src[y1 * sw + x1]));
+                }
+            }
+        }
+        pyramidDirty = false;
+    }
+
+    /**
+     * Checks if a world space axis aligned bounding box is completely hidden
+     * behind the occluders. Boxes crossing the near plane are never occluded.
+     * 
+     * @param minX Min x of the box
+     * @param minY Min y of the box
+     * @param minZ Min z of the box
+     * @param maxX Max x of the box
+     * @param maxY Max y of the box
+     * @param maxZ Max z of the box
+     * @return True, if the box is occluded
+     */
+    public boolean isOccluded(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (pyramidDirty)
+            buildPyramid();
+        testedObjects++;
+
+        // Project corners to screen rect and nearest depth
+        Matrix4f m = vpMat;
+        float sMinX = Float.MAX_VALUE, sMinY = Float.MAX_VALUE, sMaxX = -Float.MAX_VALUE, sMaxY = -Float.MAX_VALUE;
+        float nearest = Float.MAX_VALUE;
+        for (int corner = 0; corner < 8; corner++) {
+            float x = (corner & 1) == 0 ? minX : maxX;
+            float y = (corner & 2) == 0 ? minY : maxY;
+            float z = (corner & 4) == 0 ? minZ : maxZ;
+
+            float cw = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+            if (cw < MIN_W)
+                return false;
+
+            float sx = ((m.m00 * x + m.m01 * y + m.m02 * z + m.m03) / cw * 0.5f + 0.5f) * width;
+            float sy = ((m.m10 * x + m.m11 * y + m.m12 * z + m.m13) / cw * 0.5f + 0.5f) * height;
+            float sz = (m.m20 * x + m.m21 * y + m.m22 * z + m.m23) / cw;
+            sMinX = Math.min(sMinX, sx);
+            sMinY = Math.min(sMinY, sy);
+            sMaxX = Math.max(sMaxX, sx);
+            sMaxY = Math.max(sMaxY, sy);
+            nearest = Math.min(nearest, sz);
+        }
+
+        // Widen rect by one pixel, as pixels are covered by their center, and clamp
+        // it to the screen
+        int x0 = Math.max(0, (int) Math.floor(sMinX) - 1), y0 = Math.max(0, (int) Math.floor(sMinY) - 1);
+        int x1 = Math.min(width - 1, (int) Math.floor(sMaxX) + 1);
+        int y1 = Math.min(height - 1, (int) Math.floor(sMaxY) + 1);
+        if (x0 > x1 || y0 > y1)
+            return false;
+
+        // Level, where the rect covers at most 2x2 texels
+        int level = 0;
+        while (level < levels.length - 1 && ((x1 >> level) - (x0 >> level) > 1 || (y1 >> level) - (y0 >> level) > 1))
+            level++;
+
+        float[] depth = levels[level];
+        int lw = levelWidths[level];
+        for (int y = y0 >> level; y <= y1 >> level; y++) {
+            for (int x = x0 >> level; x <= x1 >> level; x++) {
+                if (nearest <= depth[y * lw + x])
+                    return false;
+            }
+        }
+
+        culledObjects++;
+        return true;
+    }
+
+    /**
+     * @return Count of occluder triangles rasterized this frame
+     */
+    public int getOccluderTriangles() {
+        return occluderTriangles;
+    }
+
+    /**
+     * @return Count of objects tested this frame
+     */
+    public int getTestedObjects() {
+        return testedObjects;
+    }
+
+    /**
+     * @return Count of objects culled this frame
+     */
+    public int getCulledObjects() {
+        return culledObjects;
+    }
+
+    /**
+     * @return Part of the tested objects, that were culled this frame
+     */
+    public float getCullRate() {
+        return testedObjects == 0 ? 0.0f : (float) culledObjects / testedObjects;
+    }
+
+    /**
+     * @return Width of the depth buffer
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Height of the depth buffer
+     */
+    public int getHeight() {
+        return height;
+    }
+}
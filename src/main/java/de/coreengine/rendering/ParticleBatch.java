@@ -0,0 +1,177 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import de.coreengine.rendering.renderable.Particle;
+import de.coreengine.util.RadixSorter;
+
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+
+/**
+ * Batch of particles with the same texture, stored as flat vertex data, that
+ * can be streamed into a vertex buffer as it is.<br>
+ * <br>
+ * Vertex layout per particle:<br>
+ * position (x, y, z) | size (x, y) | color (r, g, b, a) | age
+ *
+ * @author Darius Dinger
+ */
+public class ParticleBatch {
+
+    /**
+     * Floats per particle in the vertex data
+     */
+    public static final int FLOATS_PER_PARTICLE = 10;
+
+    // Vertex data of the particles and a second array to sort into
+    private float[] data = new float[FLOATS_PER_PARTICLE * 64];
+    private float[] sorted = new float[0];
+    private int count = 0;
+
+    // Depth keys for sorting
+    private int[] depthKeys = new int[0];
+
+    /**
+     * Adding a particle to the batch
+     *
+     * @param particle Particle to add
+     */
+    public void add(Particle particle) {
+        add(particle.getPosition().x, particle.getPosition().y, particle.getPosition().z, particle.getSize().x,
+                particle.getSize().y, particle.getColor().getRed(), particle.getColor().getGreen(),
+                particle.getColor().getBlue(), particle.getAlpha(), particle.getAge());
+    }
+
+    /**
+     * Adding a particle to the batch
+     *
+     * @param x     X position of the particle
+     * @param y     Y position of the particle
+     * @param z     Z position of the particle
+     * @param sizeX Width of the particle
+     * @param sizeY Height of the particle
+     * @param r     Red channel of the particle color
+     * @param g     Green channel of the particle color
+     * @param b     Blue channel of the particle color
+     * @param a     Alpha of the particle color
+     * @param age   Age of the particle (0 = spawned, 1 = dies)
+     */
+    public void add(float x, float y, float z, float sizeX, float sizeY, float r, float g, float b, float a,
+            float age) {
+        ensureCapacity(count + 1);
+
+        int i = count * FLOATS_PER_PARTICLE;
+        data[i] = x;
+        data[i + 1] = y;
+        data[i + 2] = z;
+        data[i + 3] = sizeX;
+        data[i + 4] = sizeY;
+        data[i + 5] = r;
+        data[i + 6] = g;
+        data[i + 7] = b;
+        data[i + 8] = a;
+        data[i + 9] = age;
+        count++;
+    }
+
+    /**
+     * Adding particles, that are already in the vertex layout
+     *
+     * @param particles     Vertex data of the particles
+     * @param particleCount Count of particles to add
+     */
+    public void add(float[] particles, int particleCount) {
+        ensureCapacity(count + particleCount);
+        System.arraycopy(particles, 0, data, count * FLOATS_PER_PARTICLE, particleCount * FLOATS_PER_PARTICLE);
+        count += particleCount;
+    }
+
+    /**
+     * Growing the data array, if needed
+     *
+     * @param particleCount Count of particles, the batch must be able to hold
+     */
+    private void ensureCapacity(int particleCount) {
+        if (particleCount * FLOATS_PER_PARTICLE > data.length)
+            data = Arrays.copyOf(data, Integer.max(particleCount, count * 2) * FLOATS_PER_PARTICLE);
+    }
+
+    /**
+     * Sorting the particles back to front from the camera position, using a radix
+     * sort on the squared distances
+     *
+     * @param camPos Position of the camera
+     * @param sorter Radix sorter to use
+     */
+    public void sortBackToFront(Vector3f camPos, RadixSorter sorter) {
+        if (count < 2)
+            return;
+        if (depthKeys.length < count)
+            depthKeys = new int[data.length / FLOATS_PER_PARTICLE];
+        if (sorted.length < data.length)
+            sorted = new float[data.length];
+
+        // Bits of non negative floats keep their order, inverted for back to front
+        for (int p = 0; p < count; p++) {
+            int i = p * FLOATS_PER_PARTICLE;
+            float dx = data[i] - camPos.x, dy = data[i + 1] - camPos.y, dz = data[i + 2] - camPos.z;
+            depthKeys[p] = Integer.MAX_VALUE - Float.floatToIntBits(dx * dx + dy * dy + dz * dz);
+        }
+
+        int[] order = sorter.sort(depthKeys, count);
+        for (int p = 0; p < count; p++)
+            System.arraycopy(data, order[p] * FLOATS_PER_PARTICLE, sorted, p * FLOATS_PER_PARTICLE,
+                    FLOATS_PER_PARTICLE);
+
+        float[] swap = data;
+        data = sorted;
+        sorted = swap;
+    }
+
+    /**
+     * Removing all particles, the capacity is kept
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @return Vertex data of the particles
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    /**
+     * @return Count of particles in the batch
+     */
+    public int getCount() {
+        return count;
+    }
+}
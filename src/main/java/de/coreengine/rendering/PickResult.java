@@ -0,0 +1,100 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Result of a picking query. Contains the nearest hit object, the distance
+ * along the ray and the hit point.
+ *
+ * @author Darius Dinger
+ */
+public class PickResult {
+
+    // Hit object or null
+    private Object object = null;
+
+    // Distance along the ray and hit point
+    private float distance = 0.0f;
+    private final Vector3f point = new Vector3f();
+
+    /**
+     * Setting the hit of the result
+     * 
+     * @param object   Hit object
+     * @param distance Distance along the ray
+     * @param x        X coordinate of the hit point
+     * @param y        Y coordinate of the hit point
+     * @param z        Z coordinate of the hit point
+     */
+    void set(Object object, float distance, float x, float y, float z) {
+        this.object = object;
+        this.distance = distance;
+        this.point.set(x, y, z);
+    }
+
+    /**
+     * Resetting the result to no hit
+     */
+    void clear() {
+        object = null;
+        distance = 0.0f;
+        point.set(0, 0, 0);
+    }
+
+    /**
+     * @return True, if something was hit
+     */
+    public boolean hasHit() {
+        return object != null;
+    }
+
+    /**
+     * @return Hit object (Entity, AnimatedEntity or GUIPane) or null, if nothing
+     *         was hit
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    /**
+     * @return Distance along the ray to the hit point. 0 for 2d gui panes
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return Hit point in world space. For 2d gui panes the point in normalized
+     *         device coordinates
+     */
+    public Vector3f getPoint() {
+        return point;
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import de.coreengine.asset.AssetDatabase;
+import de.coreengine.framework.Window;
+import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.MeshBVH;
+import de.coreengine.rendering.model.Model;
+import de.coreengine.rendering.renderable.AnimatedEntity;
+import de.coreengine.rendering.renderable.Camera;
+import de.coreengine.rendering.renderable.Entity;
+import de.coreengine.rendering.renderable.gui.GUIPane;
+import de.coreengine.util.CameraRay;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+
+/**
+ * Cpu picking service. Casts rays against the triangle bvhs of the meshes and
+ * the rectangles of the gui panes, that were rendered in the last frame. Queries
+ * run only on demand. Animated entities are tested in their bind pose.
+ *
+ * @author Darius Dinger
+ */
+public class Picker {
+
+    // Objects submitted for the current frame
+    private ArrayList<Entity> nextEntities = new ArrayList<>();
+    private ArrayList<AnimatedEntity> nextAnimatedEntities = new ArrayList<>();
+    private ArrayList<GUIPane> nextGuis2D = new ArrayList<>();
+    private ArrayList<GUIPane> nextGuis3D = new ArrayList<>();
+
+    // Objects rendered in the last frame, that can be picked
+    private ArrayList<Entity> entities = new ArrayList<>();
+    private ArrayList<AnimatedEntity> animatedEntities = new ArrayList<>();
+    private ArrayList<GUIPane> guis2D = new ArrayList<>();
+    private ArrayList<GUIPane> guis3D = new ArrayList<>();
+
+    // Buffers for the ray casts
+    private final Vector3f origin = new Vector3f(), direction = new Vector3f(), center = new Vector3f();
+    private final Matrix4f inverse = new Matrix4f();
+
+    /**
+     * @param entity Entity rendered in the current frame
+     */
+    public void addEntity(Entity entity) {
+        nextEntities.add(entity);
+    }
+
+    /**
+     * @param entity Animated entity rendered in the current frame
+     */
+    public void addAnimatedEntity(AnimatedEntity entity) {
+        nextAnimatedEntities.add(entity);
+    }
+
+    /**
+     * @param gui 2d gui pane rendered in the current frame
+     */
+    public void addGui2D(GUIPane gui) {
+        nextGuis2D.add(gui);
+    }
+
+    /**
+     * @param gui 3d gui pane rendered in the current frame
+     */
+    public void addGui3D(GUIPane gui) {
+        nextGuis3D.add(gui);
+    }
+
+    /**
+     * Making the objects submitted for the current frame pickable and clearing
+     * the submit lists for the next frame
+     */
+    public void swap() {
+        ArrayList<Entity> e = entities;
+        entities = nextEntities;
+        nextEntities = e;
+        nextEntities.clear();
+
+        ArrayList<AnimatedEntity> a = animatedEntities;
+        animatedEntities = nextAnimatedEntities;
+        nextAnimatedEntities = a;
+        nextAnimatedEntities.clear();
+
+        ArrayList<GUIPane> g = guis2D;
+        guis2D = nextGuis2D;
+        nextGuis2D = g;
+        nextGuis2D.clear();
+
+        g = guis3D;
+        guis3D = nextGuis3D;
+        nextGuis3D = g;
+        nextGuis3D.clear();
+    }
+
+    /**
+     * Picking the nearest object under a point of the screen. 2d gui panes are
+     * preferred over the 3d world.
+     * 
+     * @param cam    Camera the last frame was rendered from
+     * @param x      X coordinate of the point in normalized device coordinates
+     * @param y      Y coordinate of the point in normalized device coordinates
+     * @param result Result to store the hit in
+     */
+    public void pickScreen(Camera cam, float x, float y, PickResult result) {
+        result.clear();
+
+        // 2d guis
+        if (pickGuis2D(x, y, result))
+            return;
+
+        // 3d world
+        CameraRay.calcRay(cam.getInverseViewMatrix(), cam.getInverseProjectionMatrix(), x, y, direction);
+        pickRay(cam, cam.getPosition(), direction, Float.MAX_VALUE, result);
+    }
+
+    /**
+     * Picking the nearest entity, animated entity or 3d gui pane along a ray
+     * 
+     * @param cam       Camera for camera facing gui panes
+     * @param rayOrigin Origin of the ray in world space
+     * @param rayDir    Normalized direction of the ray in world space
+     * @param maxDist   Max distance of the ray
+     * @param result    Result to store the hit in
+     * @return True, if something was hit
+     */
+    public boolean pickRay(Camera cam, Vector3f rayOrigin, Vector3f rayDir, float maxDist, PickResult result) {
+        result.clear();
+        float ox = rayOrigin.x, oy = rayOrigin.y, oz = rayOrigin.z;
+        float dx = rayDir.x, dy = rayDir.y, dz = rayDir.z;
+
+        Object nearestObject = null;
+        float nearest = maxDist;
+
+        // 3d guis
+        for (GUIPane gui : guis3D) {
+            float[] m;
+            float scale;
+            if (gui.isFacingCamera()) {
+                m = gui.getTransMatFacing(cam);
+                scale = gui.getScaleY();
+            } else {
+                m = gui.getTransMat();
+                scale = 1.0f;
+            }
+
+            float dist = intersectRect(ox, oy, oz, dx, dy, dz, m[12], m[13], m[14], m[0] * scale, m[1] * scale,
+                    m[2] * scale, m[4] * scale, m[5] * scale, m[6] * scale);
+            if (dist >= 0.0f && dist < nearest) {
+                nearest = dist;
+                nearestObject = gui;
+            }
+        }
+
+        // Entities
+        for (Entity entity : entities) {
+            if (entity.isRotateWithCam())
+                continue;
+
+            Model model = AssetDatabase.getModel(entity.getModel());
+            if (model == null)
+                continue;
+
+            for (Mesh mesh : model.getMeshes()) {
+
+                // Early out with the bounding sphere
+                float radius = entity.getWorldBoundingSphere(mesh, center);
+                if (radius >= 0.0f && !intersectsSphere(ox, oy, oz, dx, dy, dz, center, radius, nearest))
+                    continue;
+
+                float dist = raycastMesh(mesh, entity.getTransform().getTransMat(), ox, oy, oz, dx, dy, dz, nearest);
+                if (dist >= 0.0f && dist < nearest) {
+                    nearest = dist;
+                    nearestObject = entity;
+                }
+            }
+        }
+
+        // Animated entities
+        for (AnimatedEntity entity : animatedEntities) {
+            Model model = AssetDatabase.getAnimatedModel(entity.getModel());
+            if (model == null)
+                continue;
+
+            for (Mesh mesh : model.getMeshes()) {
+                float dist = raycastMesh(mesh, entity.getTransform().getTransMat(), ox, oy, oz, dx, dy, dz, nearest);
+                if (dist >= 0.0f && dist < nearest) {
+                    nearest = dist;
+                    nearestObject = entity;
+                }
+            }
+        }
+
+        if (nearestObject == null)
+            return false;
+
+        result.set(nearestObject, nearest, ox + dx * nearest, oy + dy * nearest, oz + dz * nearest);
+        return true;
+    }
+
+    /**
+     * Picking the nearest 2d gui pane under a point of the screen. With equal
+     * depth the first rendered pane wins, like the depth test.
+     * 
+     * @param x      X coordinate of the point in normalized device coordinates
+     * @param y      Y coordinate of the point in normalized device coordinates
+     * @param result Result to store the hit in
+     * @return True, if a pane was hit
+     */
+    private boolean pickGuis2D(float x, float y, PickResult result) {
+        Matrix4f o = Window.getOrthoMatrix();
+
+        GUIPane nearestGui = null;
+        float nearestZ = Float.MAX_VALUE;
+        for (GUIPane gui : guis2D) {
+            float[] m = gui.getTransMat();
+
+            // Center and axes of the pane in normalized device coordinates
+            float cx = o.m00 * m[12] + o.m01 * m[13] + o.m02 * m[14] + o.m03;
+            float cy = o.m10 * m[12] + o.m11 * m[13] + o.m12 * m[14] + o.m13;
+            float cz = o.m20 * m[12] + o.m21 * m[13] + o.m22 * m[14] + o.m23;
+            float ux = o.m00 * m[0] + o.m01 * m[1] + o.m02 * m[2];
+            float uy = o.m10 * m[0] + o.m11 * m[1] + o.m12 * m[2];
+            float uz = o.m20 * m[0] + o.m21 * m[1] + o.m22 * m[2];
+            float vx = o.m00 * m[4] + o.m01 * m[5] + o.m02 * m[6];
+            float vy = o.m10 * m[4] + o.m11 * m[5] + o.m12 * m[6];
+            float vz = o.m20 * m[4] + o.m21 * m[5] + o.m22 * m[6];
+
+            // Solve point = center + u * uAxis + v * vAxis in the xy plane
+            float det = ux * vy - uy * vx;
+            if (det == 0.0f)
+                continue;
+            float px = x - cx, py = y - cy;
+            float u = (px * vy - py * vx) / det;
+            float v = (ux * py - uy * px) / det;
+            if (u < -1.0f || u > 1.0f || v < -1.0f || v > 1.0f)
+                continue;
+
+            float z = cz + u * uz + v * vz;
+            if (z < nearestZ) {
+                nearestZ = z;
+                nearestGui = gui;
+            }
+        }
+
+        if (nearestGui == null)
+            return false;
+
+        result.set(nearestGui, 0.0f, x, y, nearestZ);
+        return true;
+    }
+
+    /**
+     * Casting a ray against the bvh of a mesh
+     * 
+     * @param mesh    Mesh to cast against
+     * @param mat     Transformation matrix of the mesh
+     * @param ox      Ray origin x
+     * @param oy      Ray origin y
+     * @param oz      Ray origin z
+     * @param dx      Ray direction x
+     * @param dy      Ray direction y
+     * @param dz      Ray direction z
+     * @param maxDist Max distance of the ray
+     * @return World space distance of the hit or a negative value, if nothing was
+     *         hit
+     */
+    private float raycastMesh(Mesh mesh, Matrix4f mat, float ox, float oy, float oz, float dx, float dy, float dz,
+            float maxDist) {
+        MeshBVH bvh = mesh.getBVH();
+        if (bvh == null)
+            return -1.0f;
+
+        // Transform ray into model space. The direction is not normalized again,
+        // so the distance along the ray stays the world space distance
+        inverse.invert(mat);
+        float lox = inverse.m00 * ox + inverse.m01 * oy + inverse.m02 * oz + inverse.m03;
+        float loy = inverse.m10 * ox + inverse.m11 * oy + inverse.m12 * oz + inverse.m13;
+        float loz = inverse.m20 * ox + inverse.m21 * oy + inverse.m22 * oz + inverse.m23;
+        float ldx = inverse.m00 * dx + inverse.m01 * dy + inverse.m02 * dz;
+        float ldy = inverse.m10 * dx + inverse.m11 * dy + inverse.m12 * dz;
+        float ldz = inverse.m20 * dx + inverse.m21 * dy + inverse.m22 * dz;
+
+        return bvh.raycast(lox, loy, loz, ldx, ldy, ldz, maxDist);
+    }
+
+    /**
+     * Checks if a ray intersects a sphere before a max distance
+     * 
+     * @param ox      Ray origin x
+     * @param oy      Ray origin y
+     * @param oz      Ray origin z
+     * @param dx      Normalized ray direction x
+     * @param dy      Normalized ray direction y
+     * @param dz      Normalized ray direction z
+     * @param center  Center of the sphere
+     * @param radius  Radius of the sphere
+     * @param maxDist Max distance of the ray
+     * @return True, if the ray intersects the sphere
+     */
+    private static boolean intersectsSphere(float ox, float oy, float oz, float dx, float dy, float dz,
+            Vector3f center, float radius, float maxDist) {
+        float lx = center.x - ox, ly = center.y - oy, lz = center.z - oz;
+        float tca = lx * dx + ly * dy + lz * dz;
+        float d2 = lx * lx + ly * ly + lz * lz - tca * tca;
+        if (d2 > radius * radius)
+            return false;
+
+        float thc = (float) Math.sqrt(radius * radius - d2);
+        return tca + thc >= 0.0f && tca - thc <= maxDist;
+    }
+
+    /**
+     * Intersecting a ray with a rectangle center +- uAxis +- vAxis
+     * 
+     * @return Distance along the ray or a negative value, if the rectangle was
+     *         not hit
+     */
+    private static float intersectRect(float ox, float oy, float oz, float dx, float dy, float dz, float cx,
+            float cy, float cz, float ux, float uy, float uz, float vx, float vy, float vz) {
+
+        // Solve origin + t * dir = center + u * uAxis + v * vAxis (Cramer)
+        float nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+        float det = -(dx * nx + dy * ny + dz * nz);
+        if (Math.abs(det) < 1e-12f)
+            return -1.0f;
+
+        float px = ox - cx, py = oy - cy, pz = oz - cz;
+        float t = (px * nx + py * ny + pz * nz) / det;
+        if (t < 0.0f)
+            return -1.0f;
+
+        // Hit point relative to the center
+        float hx = px + dx * t, hy = py + dy * t, hz = pz + dz * t;
+
+        // Project onto the axes
+        float uu = ux * ux + uy * uy + uz * uz, vv = vx * vx + vy * vy + vz * vz, uv = ux * vx + uy * vy + uz * vz;
+        float hu = hx * ux + hy * uy + hz * uz, hv = hx * vx + hy * vy + hz * vz;
+        float d = uu * vv - uv * uv;
+        if (d == 0.0f)
+            return -1.0f;
+        float u = (hu * vv - hv * uv) / d, v = (hv * uu - hu * uv) / d;
+
+        return u >= -1.0f && u <= 1.0f && v >= -1.0f && v <= 1.0f ? t : -1.0f;
+    }
+}
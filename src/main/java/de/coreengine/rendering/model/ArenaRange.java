@@ -0,0 +1,96 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.model;
+
+/**
+ * Range of a mesh in the shared buffers of the mesh arena. Every level of
+ * detail has its own index range, all share the same vertices.
+ *
+ * @author Darius Dinger
+ */
+public class ArenaRange {
+
+    // First vertex and vertex count in the shared vertex buffer
+    private final int baseVertex, vertexCount;
+
+    // First index and index count of each level of detail in the shared index
+    // buffer
+    private final int[] firstIndices, indexCounts;
+
+    /**
+     * Creates new arena range
+     *
+     * @param baseVertex   First vertex in the shared vertex buffer
+     * @param vertexCount  Count of vertices
+     * @param firstIndices First index of each level of detail
+     * @param indexCounts  Index count of each level of detail
+     */
+    ArenaRange(int baseVertex, int vertexCount, int[] firstIndices, int[] indexCounts) {
+        this.baseVertex = baseVertex;
+        this.vertexCount = vertexCount;
+        this.firstIndices = firstIndices;
+        this.indexCounts = indexCounts;
+    }
+
+    /**
+     * @return First vertex in the shared vertex buffer, added to every index
+     */
+    public int getBaseVertex() {
+        return baseVertex;
+    }
+
+    /**
+     * @return Count of vertices in the shared vertex buffer
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @param lod Level of detail, clamped to the available levels
+     * @return First index of the level of detail in the shared index buffer
+     */
+    public int getFirstIndex(int lod) {
+        return firstIndices[Math.max(0, Integer.min(lod, firstIndices.length - 1))];
+    }
+
+    /**
+     * @param lod Level of detail, clamped to the available levels
+     * @return Index count of the level of detail
+     */
+    public int getIndexCount(int lod) {
+        return indexCounts[Math.max(0, Integer.min(lod, indexCounts.length - 1))];
+    }
+
+    /**
+     * @return Count of the levels of detail (including the full detail)
+     */
+    public int getLodCount() {
+        return firstIndices.length;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.model;
+
+/**
+ * Class that represents the area of a texture in a texture atlas
+ *
+ * @author Darius Dinger
+ */
+public class AtlasRegion {
+
+    // Opengl texture of the atlas
+    private final int atlas;
+
+    // Area of the texture in the atlas (0 - 1)
+    private final float u, v, width, height;
+
+    /**
+     * Creating new atlas region
+     *
+     * @param atlas  Opengl texture of the atlas
+     * @param u      X position of the area in the atlas (0 - 1)
+     * @param v      Y position of the area in the atlas (0 - 1)
+     * @param width  Width of the area in the atlas (0 - 1)
+     * @param height Height of the area in the atlas (0 - 1)
+     */
+    public AtlasRegion(int atlas, float u, float v, float width, float height) {
+        this.atlas = atlas;
+        this.u = u;
+        this.v = v;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return Opengl texture of the atlas
+     */
+    public int getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * @return X position of the area in the atlas (0 - 1)
+     */
+    public float getU() {
+        return u;
+    }
+
+    /**
+     * @return Y position of the area in the atlas (0 - 1)
+     */
+    public float getV() {
+        return v;
+    }
+
+    /**
+     * @return Width of the area in the atlas (0 - 1)
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Height of the area in the atlas (0 - 1)
+     */
+    public float getHeight() {
+        return height;
+    }
+}
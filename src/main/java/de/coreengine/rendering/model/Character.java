@@ -27,8 +27,6 @@
  */
 package de.coreengine.rendering.model;
 
-import de.coreengine.util.gl.IndexBuffer;
-
 /**
  * Class that represent a character of a font
  *
@@ -42,22 +40,36 @@ public class Character {
     // Moving of the cursor after this char
     private final float advancex;
 
-    // Indexbuffer of the character texture
-    private final IndexBuffer index;
+    // Size of the character quad
+    private final float width, height;
+
+    // Area of the character in the texture atlas
+    private final float texx, texy, texWidth, texHeight;
 
     /**
      * Creating new character for a font
      * 
-     * @param offsetx  X offset of the character relative to the cursor
-     * @param offsety  Y offset of the character relative to the cursor
-     * @param advancex Moving of the cursor after this char
-     * @param index    Indexbuffer of the character texture
+     * @param offsetx   X offset of the character relative to the cursor
+     * @param offsety   Y offset of the character relative to the cursor
+     * @param advancex  Moving of the cursor after this char
+     * @param width     Width of the character quad
+     * @param height    Height of the character quad
+     * @param texx      X position of the character in the texture atlas (0 - 1)
+     * @param texy      Y position of the character in the texture atlas (0 - 1)
+     * @param texWidth  Width of the character in the texture atlas (0 - 1)
+     * @param texHeight Height of the character in the texture atlas (0 - 1)
      */
-    public Character(float offsetx, float offsety, float advancex, IndexBuffer index) {
+    public Character(float offsetx, float offsety, float advancex, float width, float height, float texx, float texy,
+            float texWidth, float texHeight) {
         this.offsetx = offsetx;
         this.offsety = offsety;
         this.advancex = advancex;
-        this.index = index;
+        this.width = width;
+        this.height = height;
+        this.texx = texx;
+        this.texy = texy;
+        this.texWidth = texWidth;
+        this.texHeight = texHeight;
     }
 
     /**
@@ -68,23 +80,58 @@ public class Character {
     }
 
     /**
-     * @return Indexbuffer of the character texture
+     * @return X offset of the character relative to the cursor
      */
-    public IndexBuffer getIndex() {
-        return index;
+    public float getOffsetx() {
+        return offsetx;
     }
 
     /**
      * @return Y offset of the character relative to the cursor
      */
-    public float getOffsetx() {
-        return offsetx;
+    public float getOffsety() {
+        return offsety;
     }
 
     /**
-     * @return X offset of the character relative to the cursor
+     * @return Width of the character quad
      */
-    public float getOffsety() {
-        return offsety;
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Height of the character quad
+     */
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * @return X position of the character in the texture atlas (0 - 1)
+     */
+    public float getTexx() {
+        return texx;
+    }
+
+    /**
+     * @return Y position of the character in the texture atlas (0 - 1)
+     */
+    public float getTexy() {
+        return texy;
+    }
+
+    /**
+     * @return Width of the character in the texture atlas (0 - 1)
+     */
+    public float getTexWidth() {
+        return texWidth;
+    }
+
+    /**
+     * @return Height of the character in the texture atlas (0 - 1)
+     */
+    public float getTexHeight() {
+        return texHeight;
     }
 }
@@ -27,8 +27,6 @@
  */
 package de.coreengine.rendering.model;
 
-import de.coreengine.util.gl.VertexArrayObject;
-
 import java.util.HashMap;
 
 /**
@@ -44,9 +42,6 @@ public class Font {
     // Characters of the font sirtet by ascii
     private final HashMap<Integer, Character> characters;
 
-    // Vertex array object of the character models
-    private final VertexArrayObject vao;
-
     // Height of a line of text
     private final float lineHeight;
 
@@ -55,13 +50,11 @@ public class Font {
      * 
      * @param textureAtlas TextureData atlas image of the font
      * @param characters   Characters of the font sirtet by ascii
-     * @param vao          Vertex array object of the character models
      * @param lineHeight   Height of a line of text
      */
-    public Font(String textureAtlas, HashMap<Integer, Character> characters, VertexArrayObject vao, float lineHeight) {
+    public Font(String textureAtlas, HashMap<Integer, Character> characters, float lineHeight) {
         this.textureAtlas = textureAtlas;
         this.characters = characters;
-        this.vao = vao;
         this.lineHeight = lineHeight;
     }
 
@@ -82,13 +75,6 @@ public class Font {
         return characters.get(ascii);
     }
 
-    /**
-     * @return VAO of the font chars
-     */
-    public VertexArrayObject getVao() {
-        return vao;
-    }
-
     /**
      * @return Height of a line of text
      */
@@ -31,6 +31,8 @@ import de.coreengine.asset.TextureLoader;
 import de.coreengine.util.Configuration;
 import org.lwjgl.opengl.GL11;
 
+import java.util.Objects;
+
 /**
  * Class that represents a material with all its maps and parameters for a mesh
  *
@@ -133,6 +135,38 @@ public class Material {
          */
         public float shineDamping = Configuration.getValuef("MATERIAL_DEFAULT_SHINE_DAMPING");
 
+        /**
+         * Checks if the other material sets the same shader state, so meshes with
+         * both materials can be drawn in one indirect draw call
+         * 
+         * @param other Material to compare
+         * @return Are both materials interchangeable for rendering
+         */
+        public boolean isBatchCompatible(Material other) {
+                if (other == this)
+                        return true;
+
+                return Objects.equals(diffuseMap, other.diffuseMap) && Objects.equals(normalMap, other.normalMap)
+                                && Objects.equals(specularMap, other.specularMap)
+                                && Objects.equals(displacementMap, other.displacementMap)
+                                && Objects.equals(ambientOcclusionMap, other.ambientOcclusionMap)
+                                && Objects.equals(alphaMap, other.alphaMap)
+                                && Objects.equals(reflectionMap, other.reflectionMap)
+                                && Objects.equals(glowMap, other.glowMap) && isSameColor(diffuseColor, other.diffuseColor)
+                                && isSameColor(glowColor, other.glowColor) && displacementFactor == other.displacementFactor
+                                && tiling == other.tiling && shininess == other.shininess
+                                && shineDamping == other.shineDamping;
+        }
+
+        /**
+         * @param a First color
+         * @param b Second color
+         * @return Have both colors the same channels
+         */
+        private static boolean isSameColor(Color a, Color b) {
+                return a.getRed() == b.getRed() && a.getGreen() == b.getGreen() && a.getBlue() == b.getBlue();
+        }
+
         public static void init() {
 
                 // Load default textures
@@ -52,6 +52,22 @@ public class Mesh {
     // Collision shape of the model
     private final CollisionShape shape;
 
+    // Bounding sphere of the model in model space, radius < 0 if unknown
+    private float boundingX, boundingY, boundingZ, boundingRadius = -1.0f;
+
+    // Index buffers of the lower levels of detail
+    private IndexBuffer[] lodIndexBuffers = new IndexBuffer[0];
+
+    // Bvh over the triangles for cpu ray casts, null if unknown
+    private MeshBVH bvh = null;
+
+    // Range of the mesh in the mesh arena, null if not in the arena
+    private ArenaRange arenaRange = null;
+
+    // Geometry to rasterize, when the mesh is an occluder
+    private float[] occluderVertices = null;
+    private int[] occluderIndices = null;
+
     /**
      * Creating new model and set the material to default material
      * 
@@ -90,6 +106,34 @@ public class Mesh {
         return indexBuffer;
     }
 
+    /**
+     * Getting the index buffer of a level of detail. Levels above the lod count
+     * return the lowest level.
+     * 
+     * @param lod Level of detail, 0 is the full resolution
+     * @return Index buffer of the level
+     */
+    public IndexBuffer getIndexBuffer(int lod) {
+        if (lod <= 0 || lodIndexBuffers.length == 0)
+            return indexBuffer;
+        return lodIndexBuffers[Math.min(lod, lodIndexBuffers.length) - 1];
+    }
+
+    /**
+     * @param lodIndexBuffers Index buffers of the lower levels of detail, from
+     *                        high to low detail
+     */
+    public void setLodIndexBuffers(IndexBuffer[] lodIndexBuffers) {
+        this.lodIndexBuffers = lodIndexBuffers;
+    }
+
+    /**
+     * @return Count of levels of detail including the full resolution
+     */
+    public int getLodCount() {
+        return lodIndexBuffers.length + 1;
+    }
+
     /**
      * @return Models material
      */
@@ -110,4 +154,118 @@ public class Mesh {
     public CollisionShape getShape() {
         return shape;
     }
+
+    /**
+     * Setting the bounding sphere of the model in model space. Used to cull the
+     * model.
+     *
+     * @param x      X center of the sphere
+     * @param y      Y center of the sphere
+     * @param z      Z center of the sphere
+     * @param radius Radius of the sphere
+     */
+    public void setBoundingSphere(float x, float y, float z, float radius) {
+        this.boundingX = x;
+        this.boundingY = y;
+        this.boundingZ = z;
+        this.boundingRadius = radius;
+    }
+
+    /**
+     * @return X center of the bounding sphere in model space
+     */
+    public float getBoundingX() {
+        return boundingX;
+    }
+
+    /**
+     * @return Y center of the bounding sphere in model space
+     */
+    public float getBoundingY() {
+        return boundingY;
+    }
+
+    /**
+     * @return Z center of the bounding sphere in model space
+     */
+    public float getBoundingZ() {
+        return boundingZ;
+    }
+
+    /**
+     * @return Radius of the bounding sphere in model space or a negative value,
+     *         if the bounds are unknown
+     */
+    public float getBoundingRadius() {
+        return boundingRadius;
+    }
+
+    /**
+     * @param bvh Bvh over the triangles of the mesh in model space
+     */
+    public void setBVH(MeshBVH bvh) {
+        this.bvh = bvh;
+    }
+
+    /**
+     * @return Bvh over the triangles of the mesh in model space or null, if
+     *         unknown
+     */
+    public MeshBVH getBVH() {
+        return bvh;
+    }
+
+    /**
+     * Setting the cpu geometry of the mesh, that is rasterized into the occlusion
+     * buffer, if an entity of the mesh is an occluder
+     *
+     * @param vertices Vertex positions in model space (x, y, z)
+     * @param indices  Triangle indices, must not lie outside the rendered mesh
+     */
+    public void setOccluderGeometry(float[] vertices, int[] indices) {
+        this.occluderVertices = vertices;
+        this.occluderIndices = indices;
+    }
+
+    /**
+     * @return Vertex positions of the occluder geometry or null, if unknown
+     */
+    public float[] getOccluderVertices() {
+        return occluderVertices;
+    }
+
+    /**
+     * @return Triangle indices of the occluder geometry or null, if unknown
+     */
+    public int[] getOccluderIndices() {
+        return occluderIndices;
+    }
+
+    /**
+     * @param arenaRange Range of the mesh in the mesh arena, or null
+     */
+    public void setArenaRange(ArenaRange arenaRange) {
+        this.arenaRange = arenaRange;
+    }
+
+    /**
+     * @return Range of the mesh in the mesh arena, null if the mesh is not stored
+     *         in the arena and can't be drawn indirect
+     */
+    public ArenaRange getArenaRange() {
+        return arenaRange;
+    }
+
+    /**
+     * Deleting the mesh from opengl and freeing its range in the mesh arena. The
+     * mesh can not be drawn anymore afterwards.
+     */
+    public void delete() {
+        vao.delete();
+
+        if (arenaRange != null) {
+            MeshArena.getInstance().remove(arenaRange);
+            arenaRange = null;
+        }
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.model;
+
+import de.coreengine.util.Configuration;
+import de.coreengine.util.Logger;
+import de.coreengine.util.RangeAllocator;
+import de.coreengine.util.gl.IndexBuffer;
+import de.coreengine.util.gl.VertexArrayObject;
+import org.lwjgl.opengl.GL;
+
+/**
+ * Shared vertex and index buffers for static geometry. Meshes are sub
+ * allocated into the arena, so all of them can be drawn with one vao and
+ * indirect multi draws. The vertices are stored interleaved (position,
+ * texCoord, normal, tangent), the instance id attribute is used to find the
+ * per instance data of an indirect draw via its base instance.
+ *
+ * @author Darius Dinger
+ */
+public class MeshArena {
+
+    /**
+     * Floats per vertex in the shared vertex buffer
+     */
+    public static final int FLOATS_PER_VERTEX = 11;
+
+    /**
+     * Row of the per instance id attribute
+     */
+    public static final int INSTANCE_ID_ROW = 6;
+
+    private static final boolean ENABLED = Configuration.getValuei("STATIC_GEOMETRY_BATCHING") == 1;
+    private static final int MAX_VERTICES = Configuration.getValuei("STATIC_GEOMETRY_MAX_VERTICES");
+    private static final int MAX_INDICES = Configuration.getValuei("STATIC_GEOMETRY_MAX_INDICES");
+    private static final int MAX_INSTANCES = Configuration.getValuei("STATIC_GEOMETRY_MAX_INSTANCES");
+
+    // Arena instance, created with the first mesh
+    private static MeshArena instance = null;
+
+    // Shared vao, vertex buffer and index buffer
+    private final VertexArrayObject vao;
+    private final int vertexVbo;
+    private final IndexBuffer indexBuffer;
+
+    // Allocators of the vertex and index ranges
+    private final RangeAllocator vertexAllocator, indexAllocator;
+
+    /**
+     * Creates new mesh arena and allocates the shared buffers
+     *
+     * @param maxVertices  Vertex capacity
+     * @param maxIndices   Index capacity
+     * @param maxInstances Maximum instances per frame
+     */
+    private MeshArena(int maxVertices, int maxIndices, int maxInstances) {
+        vao = new VertexArrayObject();
+        vertexVbo = vao.addInterleavedVertexBuffer(0, 3, 2, 3, 3);
+        vao.allocateVertexBuffer(vertexVbo, (long) maxVertices * FLOATS_PER_VERTEX * 4);
+        indexBuffer = vao.addIndexBuffer(maxIndices);
+
+        // Instance ids, offset by the base instance of each draw command
+        int[] instanceIds = new int[maxInstances];
+        for (int i = 0; i < maxInstances; i++)
+            instanceIds[i] = i;
+        vao.addInstancedVertexBuffer(instanceIds, 1, INSTANCE_ID_ROW);
+
+        vertexAllocator = new RangeAllocator(maxVertices);
+        indexAllocator = new RangeAllocator(maxIndices);
+    }
+
+    /**
+     * @return Is static geometry batching enabled and supported by the opengl
+     *         context (indirect multi draws need opengl 4.3)
+     */
+    public static boolean isEnabled() {
+        return ENABLED && GL.getCapabilities().OpenGL43;
+    }
+
+    /**
+     * @return Mesh arena, created on the first call
+     */
+    public static MeshArena getInstance() {
+        if (instance == null)
+            instance = new MeshArena(MAX_VERTICES, MAX_INDICES, MAX_INSTANCES);
+        return instance;
+    }
+
+    /**
+     * Adding mesh data into the arena
+     *
+     * @param vertices  Vertex positions (x, y, z)
+     * @param texCoords Texture coordinates (u, v)
+     * @param normals   Normals (x, y, z)
+     * @param tangents  Tangents (x, y, z)
+     * @param indices   Indices of the full detail
+     * @param lods      Indices of the lower levels of detail or null
+     * @return Range of the mesh in the arena or null, if the arena is full
+     */
+    public ArenaRange add(float[] vertices, float[] texCoords, float[] normals, float[] tangents, int[] indices,
+            int[][] lods) {
+        return add(interleave(vertices, texCoords, normals, tangents), indices, lods);
+    }
+
+    /**
+     * Adding interleaved mesh data into the arena
+     *
+     * @param interleaved Interleaved vertices (see {@link #interleave})
+     * @param indices     Indices of the full detail
+     * @param lods        Indices of the lower levels of detail or null
+     * @return Range of the mesh in the arena or null, if the arena is full
+     */
+    public ArenaRange add(float[] interleaved, int[] indices, int[][] lods) {
+        int vertexCount = interleaved.length / FLOATS_PER_VERTEX;
+        int lodCount = 1 + (lods == null ? 0 : lods.length);
+
+        // Allocate vertices
+        int baseVertex = vertexAllocator.allocate(vertexCount);
+        if (baseVertex == -1) {
+            Logger.warn("Mesh arena full", "No space for " + vertexCount + " vertices, mesh is drawn separately!");
+            return null;
+        }
+
+        // Allocate indices of all levels of detail
+        int[] firstIndices = new int[lodCount], indexCounts = new int[lodCount];
+        for (int l = 0; l < lodCount; l++) {
+            int[] lodIndices = l == 0 ? indices : lods[l - 1];
+            indexCounts[l] = lodIndices.length;
+            firstIndices[l] = indexAllocator.allocate(lodIndices.length);
+
+            // Free already allocated ranges, if full
+            if (firstIndices[l] == -1) {
+                for (int f = 0; f < l; f++)
+                    indexAllocator.free(firstIndices[f], indexCounts[f]);
+                vertexAllocator.free(baseVertex, vertexCount);
+                Logger.warn("Mesh arena full",
+                        "No space for " + lodIndices.length + " indices, mesh is drawn separately!");
+                return null;
+            }
+        }
+
+        // Upload vertices and indices
+        vao.updateVertexBuffer(vertexVbo, (long) baseVertex * FLOATS_PER_VERTEX * 4, interleaved);
+        for (int l = 0; l < lodCount; l++)
+            indexBuffer.update(firstIndices[l], l == 0 ? indices : lods[l - 1]);
+
+        return new ArenaRange(baseVertex, vertexCount, firstIndices, indexCounts);
+    }
+
+    /**
+     * Interleaving the vertex attributes of a mesh into the layout of the arena.
+     * Needs no opengl, so it can be done on any thread.
+     *
+     * @param vertices  Vertex positions (x, y, z)
+     * @param texCoords Texture coordinates (u, v)
+     * @param normals   Normals (x, y, z)
+     * @param tangents  Tangents (x, y, z)
+     * @return Interleaved vertices
+     */
+    public static float[] interleave(float[] vertices, float[] texCoords, float[] normals, float[] tangents) {
+        int vertexCount = vertices.length / 3;
+        float[] interleaved = new float[vertexCount * FLOATS_PER_VERTEX];
+        for (int v = 0; v < vertexCount; v++) {
+            int i = v * FLOATS_PER_VERTEX;
+            System.arraycopy(vertices, v * 3, interleaved, i, 3);
+            System.arraycopy(texCoords, v * 2, interleaved, i + 3, 2);
+            System.arraycopy(normals, v * 3, interleaved, i + 5, 3);
+            System.arraycopy(tangents, v * 3, interleaved, i + 8, 3);
+        }
+        return interleaved;
+    }
+
+    /**
+     * Removing a mesh from the arena, so its ranges can be reused
+     *
+     * @param range Range of the mesh
+     */
+    public void remove(ArenaRange range) {
+        vertexAllocator.free(range.getBaseVertex(), range.getVertexCount());
+        for (int l = 0; l < range.getLodCount(); l++)
+            indexAllocator.free(range.getFirstIndex(l), range.getIndexCount(l));
+    }
+
+    /**
+     * @return Shared vao of the arena
+     */
+    public VertexArrayObject getVao() {
+        return vao;
+    }
+
+    /**
+     * @return Shared index buffer of the arena
+     */
+    public IndexBuffer getIndexBuffer() {
+        return indexBuffer;
+    }
+
+    /**
+     * @return Maximum instances, that can be drawn per frame
+     */
+    public int getMaxInstances() {
+        return MAX_INSTANCES;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.model;
+
+/**
+ * Bounding volume hierarchy over the triangles of a mesh, to cast rays against
+ * the triangles on the cpu. The nodes are stored in flat arrays, children of a
+ * node are stored next to each other.
+ *
+ * @author Darius Dinger
+ */
+public class MeshBVH {
+
+    // Max triangles in a leaf node
+    private static final int MAX_LEAF_TRIANGLES = 4;
+
+    // Max depth of the traversal stack
+    private static final int MAX_DEPTH = 64;
+
+    // Vertex positions and the (reordered) triangle indices
+    private final float[] vertices;
+    private final int[] triangles;
+
+    // Triangle centroids while building
+    private float[] centroids;
+
+    // Node bounds (minX, minY, minZ, maxX, maxY, maxZ) and node data
+    // (first triangle or first child, triangle count or 0 for inner nodes)
+    private float[] bounds;
+    private int[] nodes;
+    private int nodeCount = 0;
+
+    // Traversal stack
+    private final int[] stack = new int[MAX_DEPTH * 2];
+
+    /**
+     * Building a new bvh over the triangles of a mesh
+     * 
+     * @param vertices Vertex positions of the mesh (x, y, z)
+     * @param indices  Triangle indices of the mesh
+     */
+    public MeshBVH(float[] vertices, int[] indices) {
+        this.vertices = vertices;
+        this.triangles = indices.clone();
+
+        int triCount = indices.length / 3;
+        bounds = new float[Math.max(1, triCount * 2) * 6];
+        nodes = new int[Math.max(1, triCount * 2) * 2];
+
+        // Calc centroids
+        centroids = new float[triCount * 3];
+        for (int t = 0; t < triCount; t++) {
+            for (int c = 0; c < 3; c++) {
+                centroids[t * 3 + c] = (vertices[triangles[t * 3] * 3 + c] + vertices[triangles[t * 3 + 1] * 3 + c]
+                        + vertices[triangles[t * 3 + 2] * 3 + c]) / 3.0f;
+            }
+        }
+
+        nodeCount = 1;
+        build(0, 0, triCount, 0);
+        centroids = null;
+    }
+
+    /**
+     * Building a node and its children recursively
+     * 
+     * @param node  Index of the node to build
+     * @param first First triangle of the node
+     * @param count Triangle count of the node
+     * @param depth Depth of the node
+     */
+    private void build(int node, int first, int count, int depth) {
+
+        // Calc bounds
+        float[] b = bounds;
+        int o = node * 6;
+        b[o] = b[o + 1] = b[o + 2] = Float.MAX_VALUE;
+        b[o + 3] = b[o + 4] = b[o + 5] = -Float.MAX_VALUE;
+        for (int t = first; t < first + count; t++) {
+            for (int v = 0; v < 3; v++) {
+                int vi = triangles[t * 3 + v] * 3;
+                for (int c = 0; c < 3; c++) {
+                    b[o + c] = Math.min(b[o + c], vertices[vi + c]);
+                    b[o + 3 + c] = Math.max(b[o + 3 + c], vertices[vi + c]);
+                }
+            }
+        }
+
+        if (count <= MAX_LEAF_TRIANGLES || depth >= MAX_DEPTH - 1) {
+            nodes[node * 2] = first;
+            nodes[node * 2 + 1] = count;
+            return;
+        }
+
+        // Split longest axis of the centroid bounds at the middle
+        float minC0 = Float.MAX_VALUE, minC1 = Float.MAX_VALUE, minC2 = Float.MAX_VALUE;
+        float maxC0 = -Float.MAX_VALUE, maxC1 = -Float.MAX_VALUE, maxC2 = -Float.MAX_VALUE;
+        for (int t = first; t < first + count; t++) {
+            minC0 = Math.min(minC0, centroids[t * 3]);
+            minC1 = Math.min(minC1, centroids[t * 3 + 1]);
+            minC2 = Math.min(minC2, centroids[t * 3 + 2]);
+            maxC0 = Math.max(maxC0, centroids[t * 3]);
+            maxC1 = Math.max(maxC1, centroids[t * 3 + 1]);
+            maxC2 = Math.max(maxC2, centroids[t * 3 + 2]);
+        }
+        int axis = 0;
+        float split = (minC0 + maxC0) * 0.5f;
+        if (maxC1 - minC1 > maxC0 - minC0 && maxC1 - minC1 >= maxC2 - minC2) {
+            axis = 1;
+            split = (minC1 + maxC1) * 0.5f;
+        } else if (maxC2 - minC2 > maxC0 - minC0) {
+            axis = 2;
+            split = (minC2 + maxC2) * 0.5f;
+        }
+
+        // Partition triangles
+        int i = first, j = first + count - 1;
+        while (i <= j) {
+            if (centroids[i * 3 + axis] < split)
+                i++;
+            else
+                swapTriangles(i, j--);
+        }
+
+        // Fall back to median split, if all centroids are on one side
+        int leftCount = i - first;
+        if (leftCount == 0 || leftCount == count)
+            leftCount = count / 2;
+
+        int left = nodeCount;
+        nodeCount += 2;
+        nodes[node * 2] = left;
+        nodes[node * 2 + 1] = 0;
+
+        build(left, first, leftCount, depth + 1);
+        build(left + 1, first + leftCount, count - leftCount, depth + 1);
+    }
+
+    /**
+     * Swapping two triangles and their centroids
+     * 
+     * @param a First triangle
+     * @param b Second triangle
+     */
+    private void swapTriangles(int a, int b) {
+        for (int c = 0; c < 3; c++) {
+            int ti = triangles[a * 3 + c];
+            triangles[a * 3 + c] = triangles[b * 3 + c];
+            triangles[b * 3 + c] = ti;
+
+            float tc = centroids[a * 3 + c];
+            centroids[a * 3 + c] = centroids[b * 3 + c];
+            centroids[b * 3 + c] = tc;
+        }
+    }
+
+    /**
+     * Casting a ray against the triangles of the mesh. The direction does not need
+     * to be normalized, the returned distance is in units of the direction length.
+     * Not thread safe.
+     * 
+     * @param ox      Ray origin x
+     * @param oy      Ray origin y
+     * @param oz      Ray origin z
+     * @param dx      Ray direction x
+     * @param dy      Ray direction y
+     * @param dz      Ray direction z
+     * @param maxDist Max distance of the ray
+     * @return Distance to the nearest hit or a negative value, if nothing was hit
+     */
+    public float raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDist) {
+        if (triangles.length == 0)
+            return -1.0f;
+
+        float invX = 1.0f / dx, invY = 1.0f / dy, invZ = 1.0f / dz;
+        float nearest = maxDist;
+        boolean hit = false;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+
+            // Slab test
+            int o = node * 6;
+            float t0 = (bounds[o] - ox) * invX, t1 = (bounds[o + 3] - ox) * invX;
+            float tMin = Math.min(t0, t1), tMax = Math.max(t0, t1);
+            t0 = (bounds[o + 1] - oy) * invY;
+            t1 = (bounds[o + 4] - oy) * invY;
+            tMin = Math.max(tMin, Math.min(t0, t1));
+            tMax = Math.min(tMax, Math.max(t0, t1));
+            t0 = (bounds[o + 2] - oz) * invZ;
+            t1 = (bounds[o + 5] - oz) * invZ;
+            tMin = Math.max(tMin, Math.min(t0, t1));
+            tMax = Math.min(tMax, Math.max(t0, t1));
+            if (tMax < Math.max(tMin, 0.0f) || tMin > nearest)
+                continue;
+
+            int count = nodes[node * 2 + 1];
+            if (count == 0) {
+                stack[top++] = nodes[node * 2];
+                stack[top++] = nodes[node * 2] + 1;
+                continue;
+            }
+
+            // Test triangles of the leaf (Moeller-Trumbore)
+            int first = nodes[node * 2];
+            for (int t = first; t < first + count; t++) {
+                int a = triangles[t * 3] * 3, b = triangles[t * 3 + 1] * 3, c = triangles[t * 3 + 2] * 3;
+                float e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1],
+                        e1z = vertices[b + 2] - vertices[a + 2];
+                float e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1],
+                        e2z = vertices[c + 2] - vertices[a + 2];
+
+                float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+                float det = e1x * px + e1y * py + e1z * pz;
+                if (Math.abs(det) < 1e-12f)
+                    continue;
+                float invDet = 1.0f / det;
+
+                float sx = ox - vertices[a], sy = oy - vertices[a + 1], sz = oz - vertices[a + 2];
+                float u = (sx * px + sy * py + sz * pz) * invDet;
+                if (u < 0.0f || u > 1.0f)
+                    continue;
+
+                float qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+                float v = (dx * qx + dy * qy + dz * qz) * invDet;
+                if (v < 0.0f || u + v > 1.0f)
+                    continue;
+
+                float dist = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+                if (dist >= 0.0f && dist < nearest) {
+                    nearest = dist;
+                    hit = true;
+                }
+            }
+        }
+
+        return hit ? nearest : -1.0f;
+    }
+}
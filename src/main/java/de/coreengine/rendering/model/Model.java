@@ -37,6 +37,12 @@ public class Model {
     // Meshes of the model
     private final Mesh[] meshes;
 
+    // Bounding sphere around all meshes in model space, radius < 0 if unknown
+    private float boundingX, boundingY, boundingZ, boundingRadius = -1.0f;
+
+    // Max count of levels of detail of the meshes
+    private int lodCount = 1;
+
     /**
      * Creating new model with its meshes
      *
@@ -44,6 +50,41 @@ public class Model {
      */
     public Model(Mesh[] meshes) {
         this.meshes = meshes;
+
+        // Bounding box of the mesh bounding spheres
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (Mesh mesh : meshes) {
+            if (mesh == null)
+                continue;
+            lodCount = Math.max(lodCount, mesh.getLodCount());
+
+            float r = mesh.getBoundingRadius();
+            if (r < 0.0f)
+                return;
+            minX = Math.min(minX, mesh.getBoundingX() - r);
+            minY = Math.min(minY, mesh.getBoundingY() - r);
+            minZ = Math.min(minZ, mesh.getBoundingZ() - r);
+            maxX = Math.max(maxX, mesh.getBoundingX() + r);
+            maxY = Math.max(maxY, mesh.getBoundingY() + r);
+            maxZ = Math.max(maxZ, mesh.getBoundingZ() + r);
+        }
+        if (minX > maxX)
+            return;
+
+        // Sphere around the center of the box, that contains all mesh spheres
+        boundingX = (minX + maxX) * 0.5f;
+        boundingY = (minY + maxY) * 0.5f;
+        boundingZ = (minZ + maxZ) * 0.5f;
+        boundingRadius = 0.0f;
+        for (Mesh mesh : meshes) {
+            if (mesh == null)
+                continue;
+            float dx = mesh.getBoundingX() - boundingX, dy = mesh.getBoundingY() - boundingY,
+                    dz = mesh.getBoundingZ() - boundingZ;
+            boundingRadius = Math.max(boundingRadius,
+                    (float) Math.sqrt(dx * dx + dy * dy + dz * dz) + mesh.getBoundingRadius());
+        }
     }
 
     /**
@@ -52,4 +93,51 @@ public class Model {
     public Mesh[] getMeshes() {
         return meshes;
     }
+
+    /**
+     * @return X center of the bounding sphere in model space
+     */
+    public float getBoundingX() {
+        return boundingX;
+    }
+
+    /**
+     * @return Y center of the bounding sphere in model space
+     */
+    public float getBoundingY() {
+        return boundingY;
+    }
+
+    /**
+     * @return Z center of the bounding sphere in model space
+     */
+    public float getBoundingZ() {
+        return boundingZ;
+    }
+
+    /**
+     * @return Radius of the bounding sphere around all meshes in model space or a
+     *         negative value, if unknown
+     */
+    public float getBoundingRadius() {
+        return boundingRadius;
+    }
+
+    /**
+     * @return Max count of levels of detail of the meshes
+     */
+    public int getLodCount() {
+        return lodCount;
+    }
+
+    /**
+     * Deleting all meshes of the model from opengl and freeing their ranges in
+     * the mesh arena
+     */
+    public void delete() {
+        for (Mesh mesh : meshes) {
+            if (mesh != null)
+                mesh.delete();
+        }
+    }
 }
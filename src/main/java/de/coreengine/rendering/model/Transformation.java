@@ -46,6 +46,9 @@ public class Transformation {
     // Has rotation, translation or scale changed since last update
     private boolean recalc = false;
 
+    // Increases every time the transformation matrix changes
+    private int version = 0;
+
     // Rotation variables of the trans mat
     private float localRotx, localRoty, localRotz;
 
@@ -144,6 +147,22 @@ public class Transformation {
 
         bulletTransform.set(transMat);
         bulletTransform.getOpenGLMatrix(transMatArr);
+        version++;
+    }
+
+    /**
+     * Returns the version of the transformation matrix, that increases every
+     * time the matrix changes. Can be used to detect movement without comparing
+     * matrices.
+     * 
+     * @return Current version of the transformation matrix
+     */
+    public int getVersion() {
+
+        // Check if matrix changed
+        recalcTransMat();
+
+        return version;
     }
 
     /**
@@ -385,8 +404,8 @@ public class Transformation {
             return;
 
         // Tell children to recalc
-        for (Transformation t : children)
-            t.recalc = true;
+        for (int i = 0; i < children.size(); i++)
+            children.get(i).recalc = true;
 
         // Reclalc rotation matrices
         localRotxMat.rotX((float) Math.toRadians(localRotx));
@@ -420,5 +439,6 @@ public class Transformation {
         // Transfer to transmat array
         bulletTransform.set(transMat);
         bulletTransform.getOpenGLMatrix(transMatArr);
+        version++;
     }
 }
@@ -29,12 +29,17 @@ package de.coreengine.rendering.programs;
 
 import de.coreengine.asset.FileLoader;
 import de.coreengine.rendering.GBuffer;
+import de.coreengine.rendering.LightClusters;
 import de.coreengine.rendering.renderable.light.*;
-import de.coreengine.util.Toolbox;
+import de.coreengine.util.gl.TextureBufferObject;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
 
-import javax.vecmath.Vector3f;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.List;
 
 /**
@@ -46,12 +51,33 @@ public class DeferredShader extends Shader {
     private static final int MAX_LIGHTS = 25;
 
     private final int colorBufferUnit = 0, positionBufferUnit = 1, normalBufferUnit = 2, variable0BufferUnit = 3,
-            variable1BufferUnit = 4, shadowMapUnit = 5;
+            variable1BufferUnit = 4, shadowMapUnit = 5, lightDataUnit = 6, clusterDataUnit = 7,
+            lightIndicesUnit = 8;
 
-    private int camPosLoc, alColorsLoc, alIntensitiesLoc, dlColorsLoc, dlIntensitiesLoc, dlDirectionsLoc, plColorsLoc,
-            plIntensitiesLoc, plPositionsLoc, plAttenuationsLoc, slColorsLoc, slIntensitiesLoc, slPositionsLoc,
-            slAttenuationsLoc, slDirectionsLoc, slLightConesLoc, alCountLoc, slCountLoc, dlCountLoc, plCountLoc,
-            toShadowMapSpaceLoc, enableShadowsLoc;
+    private int alColorsLoc, alIntensitiesLoc, dlColorsLoc, dlIntensitiesLoc, dlDirectionsLoc, alCountLoc,
+            dlCountLoc, toShadowMapSpaceLoc, cascadeSplitsLoc, cascadeCountLoc, enableShadowsLoc, clusterCountLoc, clusterDepthLoc;
+
+    // Buffer textures of the clustered lights
+    private final TextureBufferObject lightData, clusterData, lightIndices;
+
+    // Buffers to store clustered light data before uploading
+    private FloatBuffer lightDataBuffer = BufferUtils.createFloatBuffer(0);
+    private IntBuffer clusterDataBuffer = BufferUtils.createIntBuffer(0);
+    private IntBuffer lightIndicesBuffer = BufferUtils.createIntBuffer(0);
+
+    // Reused buffers for the global light uniforms
+    private final FloatBuffer colorsBuffer = BufferUtils.createFloatBuffer(MAX_LIGHTS * 3);
+    private final FloatBuffer intensitiesBuffer = BufferUtils.createFloatBuffer(MAX_LIGHTS);
+    private final FloatBuffer directionsBuffer = BufferUtils.createFloatBuffer(MAX_LIGHTS * 3);
+
+    /**
+     * Creates new deferred shader and the buffer textures for the clustered lights
+     */
+    public DeferredShader() {
+        lightData = new TextureBufferObject(GL30.GL_RGBA32F);
+        clusterData = new TextureBufferObject(GL30.GL_RG32I);
+        lightIndices = new TextureBufferObject(GL30.GL_R32I);
+    }
 
     @Override
     protected void addShaders() {
@@ -75,11 +101,16 @@ public class DeferredShader extends Shader {
         bindTextureUnit("variable0Buffer", variable0BufferUnit);
         bindTextureUnit("variable1Buffer", variable1BufferUnit);
         bindTextureUnit("shadowMap", shadowMapUnit);
+        bindTextureUnit("lightData", lightDataUnit);
+        bindTextureUnit("clusterData", clusterDataUnit);
+        bindTextureUnit("lightIndices", lightIndicesUnit);
 
         toShadowMapSpaceLoc = getUniformLocation("toShadowMapSpace");
+        cascadeSplitsLoc = getUniformLocation("cascadeSplits");
+        cascadeCountLoc = getUniformLocation("cascadeCount");
         enableShadowsLoc = getUniformLocation("enableShadows");
 
-        camPosLoc = getUniformLocation("camPos");
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
 
         alColorsLoc = getUniformLocation("alColors");
         alIntensitiesLoc = getUniformLocation("alIntensities");
@@ -90,29 +121,8 @@ public class DeferredShader extends Shader {
         dlDirectionsLoc = getUniformLocation("dlDirections");
         dlCountLoc = getUniformLocation("dlCount");
 
-        plColorsLoc = getUniformLocation("plColors");
-        plIntensitiesLoc = getUniformLocation("plIntensities");
-        plPositionsLoc = getUniformLocation("plPositions");
-        plAttenuationsLoc = getUniformLocation("plAttenuations");
-        plCountLoc = getUniformLocation("plCount");
-
-        slColorsLoc = getUniformLocation("slColors");
-        slIntensitiesLoc = getUniformLocation("slIntensities");
-        slPositionsLoc = getUniformLocation("slPositions");
-        slAttenuationsLoc = getUniformLocation("slAttenuations");
-        slDirectionsLoc = getUniformLocation("slDirections");
-        slLightConesLoc = getUniformLocation("slLightCones");
-        slCountLoc = getUniformLocation("slCount");
-    }
-
-    /**
-     * Setting the position, the specular light calculation is using for calculating
-     * the reflections
-     * 
-     * @param camPos Position of the camera/player
-     */
-    public void setCameraPosition(Vector3f camPos) {
-        setUniform(camPosLoc, camPos.x, camPos.y, camPos.z);
+        clusterCountLoc = getUniformLocation("clusterCount");
+        clusterDepthLoc = getUniformLocation("clusterDepth");
     }
 
     /**
@@ -137,27 +147,24 @@ public class DeferredShader extends Shader {
 
         if (light != null) {
             bindTexture(light.getShadowMap().getDepthAttachment(), shadowMapUnit, GL11.GL_TEXTURE_2D);
-            setUniform(toShadowMapSpaceLoc, Toolbox.matrixToFloatArray(light.getVpMat()));
+            setUniform(toShadowMapSpaceLoc, light.getCascadeMatrices());
+            setUniformArray1f(cascadeSplitsLoc, light.getCascadeSplits());
+            setUniform(cascadeCountLoc, light.getCascades().length);
         }
 
         setUniform(enableShadowsLoc, light != null);
     }
 
     /**
-     * Setting light sources for the next frame
+     * Setting global light sources for the next frame. Point and spot lights are
+     * set through the light clusters.
      * 
-     * @param pointLights       To render point lights
-     * @param spotLights        To render spot lights
      * @param ambientLights     To render ambient lights
      * @param directionalLights To render directional lights
      */
-    public void setLightSources(List<PointLight> pointLights, List<SpotLight> spotLights,
-            List<AmbientLight> ambientLights, List<DirectionalLight> directionalLights) {
-
+    public void setLightSources(List<AmbientLight> ambientLights, List<DirectionalLight> directionalLights) {
         setAmbientLights(ambientLights);
         setDirectionalLights(directionalLights);
-        setPointLights(pointLights);
-        setSpotLights(spotLights);
     }
 
     /**
@@ -171,19 +178,21 @@ public class DeferredShader extends Shader {
         if (alCount == 0)
             return;
 
-        float[] colors = new float[alCount * 3];
-        float[] intensities = new float[alCount];
-
+        colorsBuffer.clear();
+        intensitiesBuffer.clear();
         for (int i = 0; i < alCount; i++) {
-            colors[i * 3] = ambientLights.get(i).getColor().getRed();
-            colors[i * 3 + 1] = ambientLights.get(i).getColor().getGreen();
-            colors[i * 3 + 2] = ambientLights.get(i).getColor().getBlue();
+            AmbientLight light = ambientLights.get(i);
+            colorsBuffer.put(light.getColor().getRed());
+            colorsBuffer.put(light.getColor().getGreen());
+            colorsBuffer.put(light.getColor().getBlue());
 
-            intensities[i] = ambientLights.get(i).getIntensity();
+            intensitiesBuffer.put(light.getIntensity());
         }
+        colorsBuffer.flip();
+        intensitiesBuffer.flip();
 
-        setUniformArray3f(alColorsLoc, colors);
-        setUniformArray1f(alIntensitiesLoc, intensities);
+        setUniformArray3f(alColorsLoc, colorsBuffer);
+        setUniformArray1f(alIntensitiesLoc, intensitiesBuffer);
     }
 
     /**
@@ -197,109 +206,67 @@ public class DeferredShader extends Shader {
         if (dlCount == 0)
             return;
 
-        float[] colors = new float[dlCount * 3];
-        float[] intensities = new float[dlCount];
-        float[] directions = new float[dlCount * 3];
-
+        colorsBuffer.clear();
+        intensitiesBuffer.clear();
+        directionsBuffer.clear();
         for (int i = 0; i < dlCount; i++) {
-            colors[i * 3] = directionalLights.get(i).getColor().getRed();
-            colors[i * 3 + 1] = directionalLights.get(i).getColor().getGreen();
-            colors[i * 3 + 2] = directionalLights.get(i).getColor().getBlue();
-
-            intensities[i] = directionalLights.get(i).getIntensity();
-
-            directions[i * 3] = directionalLights.get(i).getDirection().x;
-            directions[i * 3 + 1] = directionalLights.get(i).getDirection().y;
-            directions[i * 3 + 2] = directionalLights.get(i).getDirection().z;
-        }
-
-        setUniformArray3f(dlColorsLoc, colors);
-        setUniformArray1f(dlIntensitiesLoc, intensities);
-        setUniformArray3f(dlDirectionsLoc, directions);
-    }
-
-    /**
-     * Setting point light sources for the next frame
-     * 
-     * @param pointLights To render point lights
-     */
-    private void setPointLights(List<PointLight> pointLights) {
-        int plCount = Integer.min(pointLights.size(), MAX_LIGHTS);
-        setUniform(plCountLoc, plCount);
-        if (plCount == 0)
-            return;
-
-        float[] colors = new float[plCount * 3];
-        float[] intensities = new float[plCount];
-        float[] positions = new float[plCount * 3];
-        float[] attenuations = new float[plCount * 2];
-
-        for (int i = 0; i < plCount; i++) {
-            colors[i * 3] = pointLights.get(i).getColor().getRed();
-            colors[i * 3 + 1] = pointLights.get(i).getColor().getGreen();
-            colors[i * 3 + 2] = pointLights.get(i).getColor().getBlue();
+            DirectionalLight light = directionalLights.get(i);
+            colorsBuffer.put(light.getColor().getRed());
+            colorsBuffer.put(light.getColor().getGreen());
+            colorsBuffer.put(light.getColor().getBlue());
 
-            intensities[i] = pointLights.get(i).getIntensity();
+            intensitiesBuffer.put(light.getIntensity());
 
-            positions[i * 3] = pointLights.get(i).getPosition().x;
-            positions[i * 3 + 1] = pointLights.get(i).getPosition().y;
-            positions[i * 3 + 2] = pointLights.get(i).getPosition().z;
-
-            attenuations[i * 2] = pointLights.get(i).getAttenuation().x;
-            attenuations[i * 2 + 1] = pointLights.get(i).getAttenuation().y;
+            directionsBuffer.put(light.getDirection().x);
+            directionsBuffer.put(light.getDirection().y);
+            directionsBuffer.put(light.getDirection().z);
         }
+        colorsBuffer.flip();
+        intensitiesBuffer.flip();
+        directionsBuffer.flip();
 
-        setUniformArray3f(plColorsLoc, colors);
-        setUniformArray1f(plIntensitiesLoc, intensities);
-        setUniformArray3f(plPositionsLoc, positions);
-        setUniformArray2f(plAttenuationsLoc, attenuations);
+        setUniformArray3f(dlColorsLoc, colorsBuffer);
+        setUniformArray1f(dlIntensitiesLoc, intensitiesBuffer);
+        setUniformArray3f(dlDirectionsLoc, directionsBuffer);
     }
 
     /**
-     * Setting spot light sources for the next frame
+     * Setting the clustered point and spot lights for the next frame
      * 
-     * @param spotLights To render spot lights
+     * @param clusters Light clusters, the lights are assigned to
      */
-    private void setSpotLights(List<SpotLight> spotLights) {
-        int slCount = Integer.min(spotLights.size(), MAX_LIGHTS);
-        setUniform(slCountLoc, slCount);
-        if (slCount == 0)
-            return;
-
-        float[] colors = new float[slCount * 3];
-        float[] intensities = new float[slCount];
-        float[] positions = new float[slCount * 3];
-        float[] attenuations = new float[slCount * 2];
-        float[] directions = new float[slCount * 3];
-        float[] lightCones = new float[slCount * 2];
-
-        for (int i = 0; i < slCount; i++) {
-            colors[i * 3] = spotLights.get(i).getColor().getRed();
-            colors[i * 3 + 1] = spotLights.get(i).getColor().getGreen();
-            colors[i * 3 + 2] = spotLights.get(i).getColor().getBlue();
-
-            intensities[i] = spotLights.get(i).getIntensity();
-
-            positions[i * 3] = spotLights.get(i).getPosition().x;
-            positions[i * 3 + 1] = spotLights.get(i).getPosition().y;
-            positions[i * 3 + 2] = spotLights.get(i).getPosition().z;
-
-            attenuations[i * 2] = spotLights.get(i).getAttenuation().x;
-            attenuations[i * 2 + 1] = spotLights.get(i).getAttenuation().y;
-
-            directions[i * 3] = spotLights.get(i).getDirection().x;
-            directions[i * 3 + 1] = spotLights.get(i).getDirection().y;
-            directions[i * 3 + 2] = spotLights.get(i).getDirection().z;
-
-            lightCones[i * 2] = spotLights.get(i).getLightCone().x;
-            lightCones[i * 2 + 1] = spotLights.get(i).getLightCone().y;
-        }
-
-        setUniformArray3f(slColorsLoc, colors);
-        setUniformArray1f(slIntensitiesLoc, intensities);
-        setUniformArray3f(slPositionsLoc, positions);
-        setUniformArray2f(slAttenuationsLoc, attenuations);
-        setUniformArray3f(slDirectionsLoc, directions);
-        setUniformArray2f(slLightConesLoc, lightCones);
+    public void setLightClusters(LightClusters clusters) {
+
+        // Upload light data
+        int lightFloats = clusters.getLightCount() * LightClusters.LIGHT_DATA_SIZE;
+        if (lightDataBuffer.capacity() < lightFloats)
+            lightDataBuffer = BufferUtils.createFloatBuffer(lightFloats * 2);
+        lightDataBuffer.clear();
+        lightDataBuffer.put(clusters.getLightData(), 0, lightFloats);
+        lightDataBuffer.flip();
+        lightData.update(lightDataBuffer);
+
+        // Upload cluster offsets and counts
+        if (clusterDataBuffer.capacity() < clusters.getClusterData().length)
+            clusterDataBuffer = BufferUtils.createIntBuffer(clusters.getClusterData().length);
+        clusterDataBuffer.clear();
+        clusterDataBuffer.put(clusters.getClusterData());
+        clusterDataBuffer.flip();
+        clusterData.update(clusterDataBuffer);
+
+        // Upload compact light indices
+        if (lightIndicesBuffer.capacity() < clusters.getIndexCount())
+            lightIndicesBuffer = BufferUtils.createIntBuffer(clusters.getIndexCount() * 2);
+        lightIndicesBuffer.clear();
+        lightIndicesBuffer.put(clusters.getLightIndices(), 0, clusters.getIndexCount());
+        lightIndicesBuffer.flip();
+        lightIndices.update(lightIndicesBuffer);
+
+        bindTexture(lightData.getTexture(), lightDataUnit, GL31.GL_TEXTURE_BUFFER);
+        bindTexture(clusterData.getTexture(), clusterDataUnit, GL31.GL_TEXTURE_BUFFER);
+        bindTexture(lightIndices.getTexture(), lightIndicesUnit, GL31.GL_TEXTURE_BUFFER);
+
+        setUniform(clusterCountLoc, clusters.getTilesX(), clusters.getTilesY(), clusters.getSlices());
+        setUniform(clusterDepthLoc, clusters.getNearPlane(), clusters.getSliceScale());
     }
 }
@@ -30,7 +30,6 @@ package de.coreengine.rendering.programs;
 import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
 import de.coreengine.rendering.renderable.Camera;
-import de.coreengine.rendering.renderable.gui.GUIChar;
 import de.coreengine.rendering.renderable.gui.GUIPane;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.opengl.GL11;
@@ -47,7 +46,7 @@ public class FontShader extends Shader {
 
     private final int fontAtlasUnit = 0;
 
-    private int mMatTextLoc, vpMatLoc, offsetLoc, scaleLoc, fontColorLoc, additionalScaleLoc;
+    private int mMatTextLoc, vpMatLoc, fontColorLoc, additionalScaleLoc;
 
     @Override
     protected void addShaders() {
@@ -68,8 +67,6 @@ public class FontShader extends Shader {
         bindTextureUnit("fontAtlas", fontAtlasUnit);
 
         mMatTextLoc = getUniformLocation("mMatText");
-        offsetLoc = getUniformLocation("offset");
-        scaleLoc = getUniformLocation("scale");
         vpMatLoc = getUniformLocation("vpMat");
         fontColorLoc = getUniformLocation("fontColor");
         additionalScaleLoc = getUniformLocation("additionalScale");
@@ -91,7 +88,6 @@ public class FontShader extends Shader {
     public void prepareText(GUIPane pane, Camera cam) {
         bindTexture(AssetDatabase.getTexture(AssetDatabase.getFont(pane.getText().getFont()).getTextureAtlas()),
                 fontAtlasUnit, GL11.GL_TEXTURE_2D);
-        setUniform(scaleLoc, pane.getText().getFontSize());
         setUniform(fontColorLoc, pane.getText().getFontColor());
 
         if (pane.isFacingCamera()) {
@@ -101,16 +97,5 @@ public class FontShader extends Shader {
             setUniform(mMatTextLoc, pane.getTransMat());
             setUniform(additionalScaleLoc, 1, 1);
         }
-
-        setUniform(additionalScaleLoc, pane.getText().getFontColor());
-    }
-
-    /**
-     * Prepare shader fo one next char to render
-     * 
-     * @param c Char to render
-     */
-    public void prepareChar(GUIChar c) {
-        setUniform(offsetLoc, c.getOffset().x, c.getOffset().y);
     }
 }
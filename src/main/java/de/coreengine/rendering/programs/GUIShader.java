@@ -27,11 +27,7 @@
  */
 package de.coreengine.rendering.programs;
 
-import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
-import de.coreengine.rendering.model.Material;
-import de.coreengine.rendering.renderable.Camera;
-import de.coreengine.rendering.renderable.gui.GUIPane;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
@@ -47,7 +43,7 @@ public class GUIShader extends Shader {
 
     private final int colorTextureUnit = 0;
 
-    private int transMatLoc, vpMatLoc, colorLoc, textureSetLoc, pickColorLoc, additionalScaleLoc;
+    private int vpMatLoc;
 
     @Override
     protected void addShaders() {
@@ -60,44 +56,27 @@ public class GUIShader extends Shader {
     @Override
     protected void bindAttribs() {
         bindAttribute(0, "position");
+        bindAttribute(1, "texCoord");
+        bindAttribute(2, "color");
+        bindAttribute(3, "pickColor");
+        bindAttribute(4, "normal");
+        bindAttribute(5, "textured");
     }
 
     @Override
     protected void loadUniforms() {
         bindTextureUnit("colorTexture", colorTextureUnit);
 
-        colorLoc = getUniformLocation("color");
-        pickColorLoc = getUniformLocation("pickColor");
-        transMatLoc = getUniformLocation("transMat");
-        textureSetLoc = getUniformLocation("textureSet");
         vpMatLoc = getUniformLocation("vpMat");
-        additionalScaleLoc = getUniformLocation("additionalScale");
     }
 
     /**
-     * Prepare shader for next gui to render
+     * Binding the texture of the next gui batch
      * 
-     * @param gui Next gui to render
-     * @param cam Current set camera
+     * @param texture Texture or atlas of the batch
      */
-    public void prepareGui(GUIPane gui, Camera cam) {
-        setUniform(colorLoc, gui.getColor());
-        setUniform(pickColorLoc, gui.getPickColor());
-
-        if (gui.isFacingCamera()) {
-            setUniform(transMatLoc, gui.getTransMatFacing(cam));
-            setUniform(additionalScaleLoc, gui.getScaleY(), gui.getScaleY());
-        } else {
-            setUniform(transMatLoc, gui.getTransMat());
-            setUniform(additionalScaleLoc, 1, 1);
-        }
-
-        if (gui.getTexture() != Material.TEXTURE_BLACK) {
-            bindTexture(AssetDatabase.getTexture(gui.getTexture()), colorTextureUnit, GL11.GL_TEXTURE_2D);
-            setUniform(textureSetLoc, true);
-        } else
-            setUniform(textureSetLoc, false);
-
+    public void setTexture(int texture) {
+        bindTexture(texture, colorTextureUnit, GL11.GL_TEXTURE_2D);
     }
 
     /**
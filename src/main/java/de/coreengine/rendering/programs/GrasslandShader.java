@@ -29,7 +29,6 @@ package de.coreengine.rendering.programs;
 
 import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.terrain.Terrain;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.opengl.GL11;
@@ -46,7 +45,7 @@ public class GrasslandShader extends Shader {
                         windMapUnit = 4;
 
         // Uniform locations
-        private int amplitudeLoc, mMatTerrLoc, vpMat, scaleLoc, camPosLoc, tuftCount, tuftDistanceLoc, bladesColorLoc,
+        private int amplitudeLoc, mMatTerrLoc, scaleLoc, tuftCount, tuftDistanceLoc, bladesColorLoc,
                         areaLoc, windOffsetLoc, windMapTiling, windIntensityLoc;
 
         @Override
@@ -67,9 +66,7 @@ public class GrasslandShader extends Shader {
         protected void loadUniforms() {
                 amplitudeLoc = getUniformLocation("amplitude");
                 mMatTerrLoc = getUniformLocation("mMatTerr");
-                vpMat = getUniformLocation("vpMat");
                 scaleLoc = getUniformLocation("scale");
-                camPosLoc = getUniformLocation("camPos");
                 tuftDistanceLoc = getUniformLocation("tuftDistance");
                 bladesColorLoc = getUniformLocation("bladesColor");
                 areaLoc = getUniformLocation("area");
@@ -83,16 +80,8 @@ public class GrasslandShader extends Shader {
                 bindTextureUnit("lightMap", lightMapUnit);
                 bindTextureUnit("densityMap", densityMapUnit);
                 bindTextureUnit("windMap", windMapUnit);
-        }
 
-        /**
-         * Setting camera for next terrain
-         * 
-         * @param cam Next camera
-         */
-        public void setcamera(Camera cam) {
-                setUniform(vpMat, Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
-                setUniform(camPosLoc, cam.getPosition().x, cam.getPosition().y, cam.getPosition().z);
+                bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
         }
 
         /**
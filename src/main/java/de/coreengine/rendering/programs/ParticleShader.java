@@ -35,14 +35,11 @@ import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL32;
 
-import javax.vecmath.Vector2f;
-import javax.vecmath.Vector3f;
-
 public class ParticleShader extends Shader {
 
     private final int colorTextureUnit = 0;
 
-    private int vpMatLoc, fMatLoc, scaleLoc, posLoc;
+    private int fMatLoc;
 
     @Override
     protected void addShaders() {
@@ -57,16 +54,18 @@ public class ParticleShader extends Shader {
     @Override
     protected void bindAttribs() {
         bindAttribute(0, "position");
+        bindAttribute(1, "size");
+        bindAttribute(2, "color");
+        bindAttribute(3, "age");
     }
 
     @Override
     protected void loadUniforms() {
         fMatLoc = getUniformLocation("fMat");
-        vpMatLoc = getUniformLocation("vpMat");
-        scaleLoc = getUniformLocation("scale");
-        posLoc = getUniformLocation("pos");
 
         bindTextureUnit("colorTexture", colorTextureUnit);
+
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
     }
 
     /**
@@ -75,7 +74,6 @@ public class ParticleShader extends Shader {
      * @param cam Camera to render from
      */
     public void prepareCam(Camera cam) {
-        setUniform(vpMatLoc, Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
         setUniform(fMatLoc, Toolbox.matrixToFloatArray(cam.getFacingMatrix()));
     }
 
@@ -87,15 +85,4 @@ public class ParticleShader extends Shader {
     public void prepareParticles(int texture) {
         bindTexture(texture, colorTextureUnit, GL11.GL_TEXTURE_2D);
     }
-
-    /**
-     * Set transformation for next particle
-     *
-     * @param size Size of the next particle
-     * @param pos  Position of the next particle
-     */
-    public void setNextTransform(Vector2f size, Vector3f pos) {
-        setUniform(scaleLoc, size.x, size.y);
-        setUniform(posLoc, pos.x, pos.y, pos.z);
-    }
 }
@@ -0,0 +1,100 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.programs;
+
+import de.coreengine.rendering.renderable.Camera;
+import de.coreengine.util.FrameTimer;
+import de.coreengine.util.Toolbox;
+import de.coreengine.util.gl.UniformBufferObject;
+import org.lwjgl.BufferUtils;
+
+import javax.vecmath.Vector4f;
+import java.nio.FloatBuffer;
+
+/**
+ * Uniform block, that contains the per pass constants (view projection matrix,
+ * camera position, time and clip plane) shared by all shaders. The block gets
+ * uploaded once per render pass, instead of once per shader program.<br>
+ * <br>
+ * Shaders can access the data by declaring the std140 "PassData" block:<br>
+ * mat4 vpMat; vec3 camPos; float time; vec4 clipPlane;
+ *
+ * @author Darius Dinger
+ */
+public class PassUniforms {
+
+    /**
+     * Name of the uniform block in the shader code
+     */
+    public static final String BLOCK_NAME = "PassData";
+
+    /**
+     * Uniform buffer binding point of the pass data block
+     */
+    public static final int BINDING_POINT = 0;
+
+    // Size of the block in floats, using the std140 layout
+    private static final int BLOCK_SIZE = 16 + 4 + 4;
+
+    // Buffer to store the block data before uploading
+    private static final FloatBuffer DATA = BufferUtils.createFloatBuffer(BLOCK_SIZE);
+
+    // Uniform buffer, that contains the block data
+    private static UniformBufferObject ubo = null;
+
+    /**
+     * Creating the uniform buffer and binding it to the pass data binding point
+     */
+    public static void init() {
+        ubo = new UniformBufferObject(BLOCK_SIZE * 4);
+        ubo.bindToBindingPoint(BINDING_POINT);
+    }
+
+    /**
+     * Uploading the constants of the next render pass into the uniform buffer
+     *
+     * @param cam       Camera to render next pass from
+     * @param clipPlane Clip plane of the next pass
+     */
+    public static void update(Camera cam, Vector4f clipPlane) {
+        DATA.clear();
+
+        // mat4 vpMat
+        DATA.put(Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
+
+        // vec3 camPos, float time
+        DATA.put(cam.getPosition().x).put(cam.getPosition().y).put(cam.getPosition().z);
+        DATA.put(FrameTimer.getTime());
+
+        // vec4 clipPlane
+        DATA.put(clipPlane.x).put(clipPlane.y).put(clipPlane.z).put(clipPlane.w);
+
+        DATA.flip();
+        ubo.update(DATA);
+    }
+}
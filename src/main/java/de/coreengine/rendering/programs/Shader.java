@@ -34,6 +34,10 @@ import de.coreengine.util.gl.MemoryDumper;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 /**
  * Class that represents an opengl shader program
@@ -157,6 +161,25 @@ public abstract class Shader {
         stop();
     }
 
+    /**
+     * Binding uniform block of the shader program to an uniform buffer binding
+     * point
+     * 
+     * @param block        Uniform block name in shader code
+     * @param bindingPoint Binding point of the uniform buffer to read from
+     */
+    protected final void bindUniformBlock(String block, int bindingPoint) {
+        int blockIndex = GL31.glGetUniformBlockIndex(program, block);
+
+        if (blockIndex == GL31.GL_INVALID_INDEX) {
+            Logger.warn("Uniform block not found",
+                    "The uniform block " + block + " could not be found in the " + shaderName + " shader!");
+            return;
+        }
+
+        GL31.glUniformBlockBinding(program, blockIndex, bindingPoint);
+    }
+
     /**
      * Adding shaders to program
      */
@@ -275,6 +298,17 @@ public abstract class Shader {
         GL20.glUniform3fv(location, floats);
     }
 
+    /**
+     * Loading a vec3 array into a uniform variable. Only the remaining elements of
+     * the buffer are uploaded, so a reused buffer can be limited to the used count.
+     * 
+     * @param location Location of the uniform variable
+     * @param floats   float buffer to use (x0,y0,z0,x1,y1,z1,x2,...)
+     */
+    protected final void setUniformArray3f(int location, FloatBuffer floats) {
+        GL20.glUniform3fv(location, floats);
+    }
+
     /**
      * Loading a vec2 array into a uniform variable
      * 
@@ -295,6 +329,17 @@ public abstract class Shader {
         GL20.glUniform1fv(location, floats);
     }
 
+    /**
+     * Loading a float array into a uniform variable. Only the remaining elements of
+     * the buffer are uploaded.
+     * 
+     * @param location Location of the uniform variable
+     * @param floats   float buffer to use (x0,x1,x2,...)
+     */
+    protected final void setUniformArray1f(int location, FloatBuffer floats) {
+        GL20.glUniform1fv(location, floats);
+    }
+
     /**
      * Loading a int array into a uniform variable
      * 
@@ -305,6 +350,17 @@ public abstract class Shader {
         GL20.glUniform1iv(location, ints);
     }
 
+    /**
+     * Loading a int array into a uniform variable. Only the remaining elements of
+     * the buffer are uploaded.
+     * 
+     * @param location Location of the uniform variable
+     * @param ints     int buffer to use (x0,x1,x2,...)
+     */
+    protected final void setUniformArray1i(int location, IntBuffer ints) {
+        GL20.glUniform1iv(location, ints);
+    }
+
     /**
      * Loading a color into a uniform vec3f variable
      * 
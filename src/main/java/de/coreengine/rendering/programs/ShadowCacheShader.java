@@ -0,0 +1,78 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.programs;
+
+import de.coreengine.asset.FileLoader;
+import de.coreengine.rendering.renderable.light.ShadowCascade;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+
+/**
+ * Shader that reprojects the cached static shadows of a cascade into the shadow
+ * map, by writing the transformed depth of the static shadow map
+ *
+ * @author Darius Dinger
+ */
+public class ShadowCacheShader extends Shader {
+    private static final int STATIC_SHADOW_MAP_UNIT = 0;
+
+    private int uvTransformLoc, depthTransformLoc;
+
+    @Override
+    protected void addShaders() {
+        addShader(FileLoader.getResource(Shader.SHADERS_LOCATION + "shadowCache.vert", true), GL20.GL_VERTEX_SHADER,
+                "Shadow Cache Vertex Shader");
+        addShader(FileLoader.getResource(Shader.SHADERS_LOCATION + "shadowCache.frag", true),
+                GL20.GL_FRAGMENT_SHADER, "Shadow Cache Fragment Shader");
+    }
+
+    @Override
+    protected void bindAttribs() {
+        bindAttribute(0, "position");
+    }
+
+    @Override
+    protected void loadUniforms() {
+        bindTextureUnit("staticShadowMap", STATIC_SHADOW_MAP_UNIT);
+        uvTransformLoc = getUniformLocation("uvTransform");
+        depthTransformLoc = getUniformLocation("depthTransform");
+    }
+
+    /**
+     * Setting the static shadow map and reprojection of the next cascade
+     *
+     * @param staticShadowMap Depth texture of the cached static shadows
+     * @param cascade         Cascade to reproject the static shadows into
+     */
+    public void setCascade(int staticShadowMap, ShadowCascade cascade) {
+        bindTexture(staticShadowMap, STATIC_SHADOW_MAP_UNIT, GL11.GL_TEXTURE_2D);
+        setUniform(uvTransformLoc, cascade.getStaticUvScale(), cascade.getStaticUvOffsetX(),
+                cascade.getStaticUvOffsetY());
+        setUniform(depthTransformLoc, cascade.getStaticDepthScale(), cascade.getStaticDepthOffset());
+    }
+}
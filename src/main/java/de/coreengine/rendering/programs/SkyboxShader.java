@@ -29,12 +29,15 @@ package de.coreengine.rendering.programs;
 
 import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.Skybox;
 import de.coreengine.util.Toolbox;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL20;
 
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
 /**
  * Shader for the skybox renderer
  *
@@ -43,7 +46,11 @@ import org.lwjgl.opengl.GL20;
 public class SkyboxShader extends Shader {
     private static final int MAX_CUBE_MAPS = 10;
 
-    private int blendingFactorsLoc, vpMatLoc, transMatLoc, sizeLoc, camPosLoc, cubeMapCountLoc, cubeMapTexturesLoc;
+    private int blendingFactorsLoc, transMatLoc, sizeLoc, cubeMapCountLoc, cubeMapTexturesLoc;
+
+    // Reused buffers for the cube map uniforms
+    private final FloatBuffer blendFactors = BufferUtils.createFloatBuffer(MAX_CUBE_MAPS);
+    private final IntBuffer cubeMapTextureUnits = BufferUtils.createIntBuffer(MAX_CUBE_MAPS);
 
     @Override
     protected void addShaders() {
@@ -61,12 +68,12 @@ public class SkyboxShader extends Shader {
     @Override
     protected void loadUniforms() {
         sizeLoc = getUniformLocation("size");
-        vpMatLoc = getUniformLocation("vpMat");
         transMatLoc = getUniformLocation("transMat");
-        camPosLoc = getUniformLocation("camPos");
         blendingFactorsLoc = getUniformLocation("blendingFactors");
         cubeMapCountLoc = getUniformLocation("cubeMapCount");
         cubeMapTexturesLoc = getUniformLocation("cubeMapTextures");
+
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
     }
 
     /**
@@ -78,16 +85,6 @@ public class SkyboxShader extends Shader {
         setUniform(sizeLoc, size);
     }
 
-    /**
-     * Setting the camera to render next skyboxes from
-     * 
-     * @param cam Camera to set
-     */
-    public void setCamera(Camera cam) {
-        setUniform(vpMatLoc, Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
-        setUniform(camPosLoc, cam.getPosition().x, cam.getPosition().y, cam.getPosition().z);
-    }
-
     /**
      * Preparing next skybox
      * 
@@ -98,18 +95,18 @@ public class SkyboxShader extends Shader {
         // Cap cube map count at limit
         int cubeMapCount = Integer.min(MAX_CUBE_MAPS, skybox.getCubeMapTextures().length);
 
-        // Preparing array
-        float[] blendFactors = new float[cubeMapCount];
-        int[] cubeMapTextureUnits = new int[cubeMapCount];
-
-        // Fill array and loading textures
+        // Fill buffers and loading textures
+        blendFactors.clear();
+        cubeMapTextureUnits.clear();
         for (int i = 0; i < cubeMapCount; i++) {
-            blendFactors[i] = skybox.getBlendingFactors()[i];
+            blendFactors.put(skybox.getBlendingFactors()[i]);
 
             // Load texture
-            cubeMapTextureUnits[i] = i;
+            cubeMapTextureUnits.put(i);
             bindTexture(AssetDatabase.getTexture(skybox.getCubeMapTextures()[i]), i, GL13.GL_TEXTURE_CUBE_MAP);
         }
+        blendFactors.flip();
+        cubeMapTextureUnits.flip();
 
         // Load arrays and skybox stuff
         setUniform(cubeMapCountLoc, cubeMapCount);
@@ -39,7 +39,6 @@ import org.lwjgl.opengl.GL40;
 
 import javax.vecmath.Matrix4f;
 import javax.vecmath.Vector2f;
-import javax.vecmath.Vector3f;
 
 /**
  * Class that represent a shader programm for the terrain shader pipeline
@@ -54,7 +53,7 @@ public class TerrainShader extends Shader {
             displacementGUnit = 22, displacementBUnit = 23;
 
     // Uniform locations
-    private int chunkSizeLoc, chunkOffsetLoc, vpMatLoc, mMatLoc, camPosLoc, amplitudeLoc, tessAreaLoc, clipPlaneLoc,
+    private int chunkSizeLoc, chunkOffsetLoc, mMatLoc, amplitudeLoc, tessAreaLoc,
             diffuseLoc, diffuseRLoc, diffuseGLoc, diffuseBLoc, tilingLoc, tilingRLoc, tilingGLoc, tilingBLoc,
             specularLoc, specularRLoc, specularGLoc, specularBLoc, displacementLoc, displacementRLoc, displacementGLoc,
             displacementBLoc;
@@ -83,16 +82,13 @@ public class TerrainShader extends Shader {
         chunkSizeLoc = getUniformLocation("chunkSize");
         chunkOffsetLoc = getUniformLocation("chunkOffset");
 
-        vpMatLoc = getUniformLocation("vpMat");
         mMatLoc = getUniformLocation("mMat");
 
-        camPosLoc = getUniformLocation("camPos");
-
         amplitudeLoc = getUniformLocation("amplitude");
 
         tessAreaLoc = getUniformLocation("tessArea");
 
-        clipPlaneLoc = getUniformLocation("clipPlane");
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
 
         tilingLoc = getUniformLocation("tiling");
         tilingRLoc = getUniformLocation("tilingR");
@@ -216,18 +212,6 @@ public class TerrainShader extends Shader {
         bindTexture(AssetDatabase.getTexture(pack.getBlueMaterial().normalMap), normalBUnit, GL11.GL_TEXTURE_2D);
     }
 
-    /**
-     * Setting clip plane for next terrain
-     * 
-     * @param x X value of the plane normal
-     * @param y Y value of the plane normal
-     * @param z Z value of the plane normal
-     * @param w Distance of the plane normal
-     */
-    public void setClipPlane(float x, float y, float z, float w) {
-        setUniform(clipPlaneLoc, x, y, z, w);
-    }
-
     /**
      * Loading the transformation matrix of the terrain into the shader
      * 
@@ -247,22 +231,4 @@ public class TerrainShader extends Shader {
         setUniform(chunkOffsetLoc, offset.x, offset.y);
         setUniform(chunkSizeLoc, size);
     }
-
-    /**
-     * Setting view projection matrix to use
-     * 
-     * @param vpMat New view projection matrix
-     */
-    public void setViewProjectionMatrix(Matrix4f vpMat) {
-        setUniform(vpMatLoc, Toolbox.matrixToFloatArray(vpMat));
-    }
-
-    /**
-     * Setting camera position used for tesselation
-     * 
-     * @param camPos Camera position to use
-     */
-    public void setCameraPosition(Vector3f camPos) {
-        setUniform(camPosLoc, camPos.x, camPos.y, camPos.z);
-    }
 }
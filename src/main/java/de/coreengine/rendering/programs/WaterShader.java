@@ -29,7 +29,6 @@ package de.coreengine.rendering.programs;
 
 import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.Water;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.opengl.GL11;
@@ -45,8 +44,8 @@ public class WaterShader extends Shader {
     private final int dudvMapUnit = 0, reflectionTextureUnit = 1, refractionTextureUnit = 2, depthTexureUnit = 3,
             normalMapUnit = 4;
 
-    private int mMatLoc, tilingLoc, offsetLoc, waveStrengthLoc, addColorLoc, mulColorLoc, softEdgeDepthLoc, vpMatLoc,
-            camPosLoc, shininessLoc, shineDamperLoc, reflectionEnabledLoc, refractionEnabledLoc;
+    private int mMatLoc, tilingLoc, offsetLoc, waveStrengthLoc, addColorLoc, mulColorLoc, softEdgeDepthLoc,
+            shininessLoc, shineDamperLoc, reflectionEnabledLoc, refractionEnabledLoc;
 
     @Override
     protected void addShaders() {
@@ -69,6 +68,8 @@ public class WaterShader extends Shader {
         bindTextureUnit("refractionTexture", refractionTextureUnit);
         bindTextureUnit("depthTexture", depthTexureUnit);
 
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
+
         mMatLoc = getUniformLocation("mMat");
         tilingLoc = getUniformLocation("tiling");
         offsetLoc = getUniformLocation("offset");
@@ -76,35 +77,24 @@ public class WaterShader extends Shader {
         addColorLoc = getUniformLocation("additiveColor");
         mulColorLoc = getUniformLocation("multiplicativeColor");
         softEdgeDepthLoc = getUniformLocation("softEdgeDepth");
-        vpMatLoc = getUniformLocation("vpMat");
-        camPosLoc = getUniformLocation("camPos");
         shininessLoc = getUniformLocation("shininess");
         shineDamperLoc = getUniformLocation("shineDamper");
         refractionEnabledLoc = getUniformLocation("refractionEnabled");
         reflectionEnabledLoc = getUniformLocation("reflectionEnabled");
     }
 
-    /**
-     * Setting camera for next water
-     * 
-     * @param cam Camera to set
-     */
-    public void setCamera(Camera cam) {
-        setUniform(camPosLoc, cam.getPosition().x, cam.getPosition().y, cam.getPosition().z);
-        setUniform(vpMatLoc, Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
-    }
-
     /**
      * Prepare shader for next water to render
      * 
-     * @param water Next water
+     * @param water      Next water
+     * @param passSource Water to use the reflection and refraction textures of
      */
-    public void prepareWater(Water water) {
+    public void prepareWater(Water water, Water passSource) {
         bindTexture(AssetDatabase.getTexture(water.getDudvMap()), dudvMapUnit, GL11.GL_TEXTURE_2D);
         bindTexture(AssetDatabase.getTexture(water.getNormalMap()), normalMapUnit, GL11.GL_TEXTURE_2D);
-        bindTexture(water.getReflectionFbo().getColorAttachment0(), reflectionTextureUnit, GL11.GL_TEXTURE_2D);
-        bindTexture(water.getRefractionFbo().getColorAttachment0(), refractionTextureUnit, GL11.GL_TEXTURE_2D);
-        bindTexture(water.getRefractionFbo().getDepthAttachment(), depthTexureUnit, GL11.GL_TEXTURE_2D);
+        bindTexture(passSource.getReflectionFbo().getColorAttachment0(), reflectionTextureUnit, GL11.GL_TEXTURE_2D);
+        bindTexture(passSource.getRefractionFbo().getColorAttachment0(), refractionTextureUnit, GL11.GL_TEXTURE_2D);
+        bindTexture(passSource.getRefractionFbo().getDepthAttachment(), depthTexureUnit, GL11.GL_TEXTURE_2D);
 
         setUniform(mMatLoc, Toolbox.matrixToFloatArray(water.getTransMat()));
         setUniform(tilingLoc, water.getTiling());
@@ -28,16 +28,23 @@
 
 package de.coreengine.rendering.programs.entity;
 
-import de.coreengine.animation.Joint;
 import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
 import de.coreengine.rendering.model.Material;
+import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.programs.PassUniforms;
 import de.coreengine.rendering.programs.Shader;
 import de.coreengine.rendering.renderable.AnimatedEntity;
-import de.coreengine.rendering.renderable.Camera;
-import de.coreengine.util.Toolbox;
+import de.coreengine.util.BatchMap;
+import de.coreengine.util.gl.TextureBufferObject;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+import java.util.List;
 
 /**
  * Shader for the animated entity renderer
@@ -45,13 +52,29 @@ import org.lwjgl.opengl.GL20;
  * @author Darius Dinger
  */
 public class AnimatedEntityShader extends Shader {
-    private static final int MAX_JOINTS = 50;
 
     private final int diffuseMapUnit = 0, normalMapUnit = 1, specularMapUnit = 2, displacementMapUnit = 3,
-            aoMapUnit = 4, glowMapUnit = 5;
+            aoMapUnit = 4, glowMapUnit = 5, jointDataUnit = 6;
+
+    private int transMatLoc, tilingLoc, displacementFactorLoc, reflectivityLoc, shineDamperLoc, diffuseColorLoc,
+            pickingColorLoc, glowColorLoc, jointOffsetLoc, jointCountLoc;
+
+    // Buffer texture with the skinning palettes of all entities in the frame
+    private final TextureBufferObject jointData;
+
+    // Buffer to collect the skinning palettes before uploading
+    private FloatBuffer jointDataBuffer = BufferUtils.createFloatBuffer(0);
 
-    private int vpMatLoc, transMatLoc, tilingLoc, camPosLoc, displacementFactorLoc, reflectivityLoc, shineDamperLoc,
-            diffuseColorLoc, pickingColorLoc, glowColorLoc, clipPlaneLoc, jointMatLoc;
+    // Current palette upload frame
+    private int frame = 0;
+
+    /**
+     * Creates new animated entity shader and the buffer texture for the skinning
+     * palettes
+     */
+    public AnimatedEntityShader() {
+        jointData = new TextureBufferObject(GL30.GL_RGBA32F);
+    }
 
     @Override
     protected void addShaders() {
@@ -74,18 +97,16 @@ public class AnimatedEntityShader extends Shader {
 
     @Override
     protected void loadUniforms() {
-        vpMatLoc = getUniformLocation("vpMat");
         transMatLoc = getUniformLocation("transMat");
         tilingLoc = getUniformLocation("tiling");
-        camPosLoc = getUniformLocation("camPos");
         displacementFactorLoc = getUniformLocation("displacementFactor");
         reflectivityLoc = getUniformLocation("shininess");
         shineDamperLoc = getUniformLocation("shineDamper");
         diffuseColorLoc = getUniformLocation("diffuseColor");
         pickingColorLoc = getUniformLocation("pickingColor");
         glowColorLoc = getUniformLocation("glowColor");
-        clipPlaneLoc = getUniformLocation("clipPlane");
-        jointMatLoc = getUniformLocation("jointMat");
+        jointOffsetLoc = getUniformLocation("jointOffset");
+        jointCountLoc = getUniformLocation("jointCount");
 
         bindTextureUnit("diffuseMap", diffuseMapUnit);
         bindTextureUnit("normalMap", normalMapUnit);
@@ -93,26 +114,59 @@ public class AnimatedEntityShader extends Shader {
         bindTextureUnit("displacementMap", displacementMapUnit);
         bindTextureUnit("aoMap", aoMapUnit);
         bindTextureUnit("glowMap", glowMapUnit);
+        bindTextureUnit("jointData", jointDataUnit);
+
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
     }
 
     /**
-     * Setting clip plane for next entity
+     * Uploading the skinning palettes of all entities into the joint buffer. Each
+     * palette is uploaded once, even if the entity has multiple meshes, and is
+     * reused by all render passes of the frame.
      *
-     * @param x X value of the plane normal
-     * @param y Y value of the plane normal
-     * @param z Z value of the plane normal
-     * @param w Distance of the plane normal
+     * @param entities Animated entities of the frame
      */
-    public void setClipPlane(float x, float y, float z, float w) {
-        setUniform(clipPlaneLoc, x, y, z, w);
+    public void uploadSkinningPalettes(BatchMap<Mesh, List<AnimatedEntity>> entities) {
+        frame++;
+
+        // Assign palette offsets (in texels)
+        int texels = 0;
+        for (int m = 0; m < entities.size(); m++) {
+            List<AnimatedEntity> batch = entities.getValue(m);
+            for (int e = 0; e < batch.size(); e++) {
+                AnimatedEntity entity = batch.get(e);
+                if (entity.getPaletteFrame() != frame) {
+                    entity.setPaletteOffset(texels, frame);
+                    texels += entity.getSkinningPalette().length / 4;
+                }
+            }
+        }
+        if (texels == 0)
+            return;
+
+        // Collect palettes
+        if (jointDataBuffer.capacity() < texels * 4)
+            jointDataBuffer = BufferUtils.createFloatBuffer(texels * 8);
+        jointDataBuffer.clear();
+        for (int m = 0; m < entities.size(); m++) {
+            List<AnimatedEntity> batch = entities.getValue(m);
+            for (int e = 0; e < batch.size(); e++) {
+                AnimatedEntity entity = batch.get(e);
+                // Entities with multiple meshes are only written at their first occurrence
+                int offset = entity.getPaletteOffset() * 4;
+                if (jointDataBuffer.position() == offset)
+                    jointDataBuffer.put(entity.getSkinningPalette());
+            }
+        }
+        jointDataBuffer.flip();
+        jointData.update(jointDataBuffer);
     }
 
     /**
-     * @param cam camera to render next models from
+     * Binding the joint buffer with the uploaded skinning palettes
      */
-    public void setCamera(Camera cam) {
-        setUniform(vpMatLoc, Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
-        setUniform(camPosLoc, cam.getPosition().x, cam.getPosition().y, cam.getPosition().z);
+    public void prepareSkinningPalettes() {
+        bindTexture(jointData.getTexture(), jointDataUnit, GL31.GL_TEXTURE_BUFFER);
     }
 
     /**
@@ -122,48 +176,11 @@ public class AnimatedEntityShader extends Shader {
      */
     public void prepareEntity(AnimatedEntity entity) {
         setUniform(transMatLoc, entity.getTransform().getTransMatArr());
-        prepareSkeleton(entity.getSkeleton());
+        setUniform(jointOffsetLoc, entity.getPaletteOffset());
+        setUniform(jointCountLoc, entity.getSkinningPalette().length / 16);
         setUniform(pickingColorLoc, entity.getPickColor());
     }
 
-    /**
-     * Preparing skeleton of an animated entity
-     *
-     * @param skeleton Skeleton to prepare
-     */
-    private void prepareSkeleton(Joint skeleton) {
-        float[] matrices = new float[MAX_JOINTS * 16];
-        addJointMatrices(skeleton, matrices);
-        setUniform(jointMatLoc, matrices);
-    }
-
-    /**
-     * Adding this joints matrices and all children joint matrices to the matrices
-     * float array at their specific position
-     *
-     * @param joint    Joint to add matrices from
-     * @param matrices Array to fill in matrices
-     */
-    private void addJointMatrices(Joint joint, float[] matrices) {
-
-        // Check if joint fits into array
-        if (joint.getIndex() >= 0 || joint.getIndex() < MAX_JOINTS) {
-
-            // Fill up matrix
-            for (int r = 0; r < 4; r++) {
-                for (int c = 0; c < 4; c++) {
-                    float val = joint.getAnimatedTransform().getElement(c, r);
-                    matrices[(joint.getIndex() * 16) + (r * 4) + c] = val;
-                }
-            }
-        }
-
-        // Fill up children matrices
-        for (Joint child : joint.getChildren()) {
-            addJointMatrices(child, matrices);
-        }
-    }
-
     /**
      * Preparing shader for next material
      *
@@ -30,12 +30,17 @@ package de.coreengine.rendering.programs.entity;
 import de.coreengine.asset.AssetDatabase;
 import de.coreengine.asset.FileLoader;
 import de.coreengine.rendering.model.Material;
+import de.coreengine.rendering.model.MeshArena;
+import de.coreengine.rendering.programs.PassUniforms;
 import de.coreengine.rendering.programs.Shader;
 import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.Entity;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+
+import javax.vecmath.Matrix4f;
 
 /**
  * Shader for the object renderer
@@ -47,10 +52,13 @@ import org.lwjgl.opengl.GL20;
  */
 public class EntityShader extends Shader {
 
-    protected int diffuseMapUnit = 0;
+    protected int diffuseMapUnit = 0, instanceDataUnit = 6;
+
+    protected int transMatLoc, tilingLoc, reflectivityLoc, shineDamperLoc, diffuseColorLoc, pickingColorLoc,
+            glowColorLoc, indirectLoc;
 
-    protected int vpMatLoc, transMatLoc, tilingLoc, camPosLoc, reflectivityLoc, shineDamperLoc,
-            diffuseColorLoc, pickingColorLoc, clipPlaneLoc, glowColorLoc;
+    // Buffer for the transformation of entities, that rotate with the camera
+    private final Matrix4f camTransMat = new Matrix4f();
 
     @Override
     protected void addShaders() {
@@ -65,51 +73,64 @@ public class EntityShader extends Shader {
         bindAttribute(0, "position");
         bindAttribute(1, "texCoord");
         bindAttribute(2, "normal");
+        bindAttribute(MeshArena.INSTANCE_ID_ROW, "instanceId");
     }
 
     @Override
     protected void loadUniforms() {
-        vpMatLoc = getUniformLocation("vpMat");
         transMatLoc = getUniformLocation("transMat");
         tilingLoc = getUniformLocation("tiling");
-        camPosLoc = getUniformLocation("camPos");
         reflectivityLoc = getUniformLocation("shininess");
         shineDamperLoc = getUniformLocation("shineDamper");
         diffuseColorLoc = getUniformLocation("diffuseColor");
         pickingColorLoc = getUniformLocation("pickingColor");
-        clipPlaneLoc = getUniformLocation("clipPlane");
         glowColorLoc = getUniformLocation("glowColor");
+        indirectLoc = getUniformLocation("indirect");
 
         bindTextureUnit("diffuseMap", diffuseMapUnit);
+        bindTextureUnit("instanceData", instanceDataUnit);
+
+        bindUniformBlock(PassUniforms.BLOCK_NAME, PassUniforms.BINDING_POINT);
     }
 
     /**
-     * Setting clip plane for next entity
+     * Preparing shader for next entity. If the entity rotates with the camera, its
+     * transformation gets moved into camera space, so the shared view projection
+     * matrix only applies the projection.
      * 
-     * @param x X value of the plane normal
-     * @param y Y value of the plane normal
-     * @param z Z value of the plane normal
-     * @param w Distance of the plane normal
+     * @param entity Entity to prepare
+     * @param cam    Camera the next entity is rendered from
      */
-    public void setClipPlane(float x, float y, float z, float w) {
-        setUniform(clipPlaneLoc, x, y, z, w);
+    public void prepareEntity(Entity entity, Camera cam) {
+        if (entity.isRotateWithCam()) {
+            camTransMat.mul(cam.getInverseViewMatrix(), entity.getTransform().getTransMat());
+            setUniform(transMatLoc, Toolbox.matrixToFloatArray(camTransMat));
+        } else {
+            setUniform(transMatLoc, entity.getTransform().getTransMatArr());
+        }
+        setUniform(pickingColorLoc, entity.getPickColor());
     }
 
     /**
-     * @param cam           Camera to render next models from
-     * @param rotateWithCam Should the entity rotate and move with the camera
+     * @return Can the shader draw entities indirect, with the per instance data
+     *         read from the instance data buffer
      */
-    public void setCamera(Camera cam, boolean rotateWithCam) {
-        if (rotateWithCam)
-            setUniform(vpMatLoc, Toolbox.matrixToFloatArray(cam.getProjectionMatrix()));
-        else
-            setUniform(vpMatLoc, Toolbox.matrixToFloatArray(cam.getViewProjectionMatrix()));
-        setUniform(camPosLoc, cam.getPosition().x, cam.getPosition().y, cam.getPosition().z);
+    public boolean isIndirectSupported() {
+        return indirectLoc != -1;
     }
 
-    public void prepareEntity(Entity entity) {
-        setUniform(transMatLoc, entity.getTransform().getTransMatArr());
-        setUniform(pickingColorLoc, entity.getPickColor());
+    /**
+     * Switching between indirect draws, where transformation and picking color
+     * are read per instance from the instance data buffer, and single entity
+     * draws
+     * 
+     * @param indirect          Are the next draws indirect
+     * @param instanceDataTexId Buffer texture with the instance data
+     */
+    public void prepareIndirect(boolean indirect, int instanceDataTexId) {
+        setUniform(indirectLoc, indirect);
+        if (indirect)
+            bindTexture(instanceDataTexId, instanceDataUnit, GL31.GL_TEXTURE_BUFFER);
     }
 
     /**
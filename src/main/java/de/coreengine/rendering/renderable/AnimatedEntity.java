@@ -28,8 +28,10 @@
 
 package de.coreengine.rendering.renderable;
 
+import de.coreengine.animation.Animator;
 import de.coreengine.animation.Joint;
 import de.coreengine.asset.AssetDatabase;
+import de.coreengine.rendering.model.AnimatedModel;
 import de.coreengine.rendering.model.Color;
 import de.coreengine.rendering.model.Transformation;
 import de.coreengine.rendering.renderer.MasterRenderer;
@@ -51,6 +53,13 @@ public class AnimatedEntity {
     // Root joint of the models skeleton
     private Joint skeleton = null;
 
+    // Animated joint matrices of the skeleton, column major
+    private float[] skinningPalette = new float[0];
+
+    // Texel offset of the palette in the renderers joint buffer and the frame it
+    // was assigned in
+    private int paletteOffset = 0, paletteFrame = -1;
+
     // Color for picking
     private final Color pickColor;
 
@@ -59,11 +68,46 @@ public class AnimatedEntity {
     }
 
     /**
+     * Setting the model of the entity. A model, that is still loaded
+     * asynchronous, gets its skeleton once it is uploaded, until then the entity
+     * is not rendered and has no skeleton.
+     * 
      * @param model New model of the entity
      */
     public void setModel(String model) {
         this.model = model;
-        this.skeleton = AssetDatabase.getAnimatedModel(model).getNewSkeletonInstance();
+        this.skeleton = null;
+        this.skinningPalette = new float[0];
+        createSkeleton();
+    }
+
+    /**
+     * Creating the skeleton instance and skinning palette of the model, if the
+     * model is loaded and the skeleton not created yet
+     * 
+     * @return True, if the skeleton exists
+     */
+    private boolean createSkeleton() {
+        if (skeleton != null)
+            return true;
+
+        AnimatedModel animatedModel = model == null ? null : AssetDatabase.getAnimatedModel(model);
+        if (animatedModel == null)
+            return false;
+
+        skeleton = animatedModel.getNewSkeletonInstance();
+        skinningPalette = new float[Integer.min(skeleton.getSkeletonSize(), Animator.MAX_JOINTS) * 16];
+        Animator.writeSkinningPalette(skeleton, skinningPalette);
+        return true;
+    }
+
+    /**
+     * Rewriting the skinning palette from the current skeleton pose. Only needed,
+     * if the skeleton was posed without passing the palette to the animator.
+     */
+    public void updateSkinningPalette() {
+        if (createSkeleton())
+            Animator.writeSkinningPalette(skeleton, skinningPalette);
     }
 
     /**
@@ -81,12 +125,49 @@ public class AnimatedEntity {
     }
 
     /**
-     * @return Root joint of the models skeleton
+     * @return Root joint of the models skeleton or null, if the model is not
+     *         loaded (yet)
      */
     public Joint getSkeleton() {
+        createSkeleton();
         return skeleton;
     }
 
+    /**
+     * @return Animated joint matrices of the skeleton, column major, 16 floats per
+     *         joint index. Empty, if the model is not loaded (yet)
+     */
+    public float[] getSkinningPalette() {
+        createSkeleton();
+        return skinningPalette;
+    }
+
+    /**
+     * Setting the texel offset of the skinning palette in the renderers joint
+     * buffer. Used by the renderer to upload each palette once per frame.
+     *
+     * @param offset Texel offset of the palette
+     * @param frame  Frame the offset was assigned in
+     */
+    public void setPaletteOffset(int offset, int frame) {
+        this.paletteOffset = offset;
+        this.paletteFrame = frame;
+    }
+
+    /**
+     * @return Texel offset of the skinning palette in the renderers joint buffer
+     */
+    public int getPaletteOffset() {
+        return paletteOffset;
+    }
+
+    /**
+     * @return Frame the palette offset was assigned in
+     */
+    public int getPaletteFrame() {
+        return paletteFrame;
+    }
+
     /**
      * @return Color of this Entity in the mouse picker
      */
@@ -97,11 +178,11 @@ public class AnimatedEntity {
     /**
      * Returns true if mouse is over entity. <br>
      * 
-     * <b>Only works, if picking is enabled!!!</b>
+     * Uses the cpu or the gpu picking, depending on PICKING_MODE.
      * 
      * @return Is mouse over entity
      */
     public boolean isMouseOver() {
-        return pickColor.compare(MasterRenderer.getPickedColor());
+        return MasterRenderer.isMouseOver(this, pickColor);
     }
 }
@@ -71,6 +71,7 @@ public class Camera {
     private final Matrix4f viewMatrix = new Matrix4f();
     private final Matrix4f inverseViewMatrix = new Matrix4f();
     private final Matrix4f facingModelMatrix = new Matrix4f();
+    private final Matrix4f facingMVPMatrix = new Matrix4f();
 
     // Cameras projection matrix
     private final Matrix4f projectionMatrix = new Matrix4f();
@@ -333,6 +334,24 @@ public class Camera {
         return viewMatrix;
     }
 
+    /**
+     * Gets the inverse of the current view matrix (camera to world space)
+     *
+     * @return Inverse view matrix of the camera
+     */
+    public Matrix4f getInverseViewMatrix() {
+        return inverseViewMatrix;
+    }
+
+    /**
+     * Gets the inverse of the current projection matrix (clip to camera space)
+     *
+     * @return Inverse projection matrix
+     */
+    public Matrix4f getInverseProjectionMatrix() {
+        return inverseProjectionMatrix;
+    }
+
     /**
      * Gets cameras field of view
      *
@@ -412,15 +431,15 @@ public class Camera {
      * @param x X offset of the matrix
      * @param y Y offset of the matrix
      * @param z Z offset of the matrix
-     * @return View projection matrix of the camera
+     * @return View projection matrix of the camera, only valid until the next call
      */
     public Matrix4f getFacingMVPMatrix(float x, float y, float z) {
 
-        Matrix4f mvpMatrix = new Matrix4f(facingModelMatrix);
-        mvpMatrix.setColumn(3, x, y, z, 1.0f);
-        mvpMatrix.mul(viewProjectionMatrix, mvpMatrix);
+        facingMVPMatrix.set(facingModelMatrix);
+        facingMVPMatrix.setColumn(3, x, y, z, 1.0f);
+        facingMVPMatrix.mul(viewProjectionMatrix, facingMVPMatrix);
 
-        return mvpMatrix;
+        return facingMVPMatrix;
     }
 
     /**
@@ -28,12 +28,18 @@
 package de.coreengine.rendering.renderable;
 
 import de.coreengine.rendering.model.Color;
+import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.Model;
 import de.coreengine.rendering.model.Transformation;
 import de.coreengine.rendering.programs.entity.EntityShader;
 import de.coreengine.rendering.renderer.EntityRenderer;
 import de.coreengine.rendering.renderer.MasterRenderer;
 import de.coreengine.util.Toolbox;
 
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+import java.util.Objects;
+
 /**
  * Class that represents an entity in the world
  *
@@ -56,6 +62,23 @@ public class Entity {
     // Is backface ulling enabledfor this entity
     private boolean cullFaces = true;
 
+    // Is the entity static, so its shadow can be cached
+    private boolean isStatic = false;
+
+    // Version of all static entities, increases when a static entity changed
+    private static int staticVersion = 0;
+
+    // Transformation version and model instance, this static entity was last
+    // checked with
+    private int checkedTransformVersion = -1;
+    private Object checkedModel = null;
+
+    // Current level of detail of the entity
+    private int lod = 0;
+
+    // Is the entity rasterized into the occlusion buffer
+    private boolean occluder = false;
+
     // Shader to use when render the entity
     private EntityShader shader = EntityRenderer.DEFAULT_SHADER;
 
@@ -67,6 +90,8 @@ public class Entity {
      * @param model New model of the entity
      */
     public void setModel(String model) {
+        if (isStatic && !Objects.equals(this.model, model))
+            staticVersion++;
         this.model = model;
     }
 
@@ -110,12 +135,12 @@ public class Entity {
     /**
      * Returns true if mouse is over entity. <br>
      * 
-     * <b>Only works, if picking is enabled!!!</b>
+     * Uses the cpu or the gpu picking, depending on PICKING_MODE.
      * 
      * @return Is mouse over entity
      */
     public boolean isMouseOver() {
-        return pickColor.compare(MasterRenderer.getPickedColor());
+        return MasterRenderer.isMouseOver(this, pickColor);
     }
 
     /**
@@ -132,6 +157,148 @@ public class Entity {
         this.cullFaces = cullFaces;
     }
 
+    /**
+     * Calculating the world space bounding sphere of the entity from the bounding
+     * sphere of its mesh and its transformation
+     *
+     * @param mesh   Mesh of the entity
+     * @param center Vector to store the world space center in
+     * @return World space radius or a negative value, if the mesh bounds are
+     *         unknown
+     */
+    public float getWorldBoundingSphere(Mesh mesh, Vector3f center) {
+        return getWorldBoundingSphere(mesh.getBoundingX(), mesh.getBoundingY(), mesh.getBoundingZ(),
+                mesh.getBoundingRadius(), center);
+    }
+
+    /**
+     * Calculating the world space bounding sphere of the entity from the bounding
+     * sphere of its whole model and its transformation
+     *
+     * @param model  Model of the entity
+     * @param center Vector to store the world space center in
+     * @return World space radius or a negative value, if the model bounds are
+     *         unknown
+     */
+    public float getWorldBoundingSphere(Model model, Vector3f center) {
+        return getWorldBoundingSphere(model.getBoundingX(), model.getBoundingY(), model.getBoundingZ(),
+                model.getBoundingRadius(), center);
+    }
+
+    /**
+     * Transforming a model space bounding sphere into world space
+     *
+     * @param bx     X center in model space
+     * @param by     Y center in model space
+     * @param bz     Z center in model space
+     * @param radius Radius in model space
+     * @param center Vector to store the world space center in
+     * @return World space radius or a negative value, if radius is negative
+     */
+    private float getWorldBoundingSphere(float bx, float by, float bz, float radius, Vector3f center) {
+        if (radius < 0.0f)
+            return -1.0f;
+
+        Matrix4f mat = transform.getTransMat();
+        center.x = mat.m00 * bx + mat.m01 * by + mat.m02 * bz + mat.m03;
+        center.y = mat.m10 * bx + mat.m11 * by + mat.m12 * bz + mat.m13;
+        center.z = mat.m20 * bx + mat.m21 * by + mat.m22 * bz + mat.m23;
+
+        // Scale radius by the biggest axis scale
+        float scaleSq = Math.max(mat.m00 * mat.m00 + mat.m10 * mat.m10 + mat.m20 * mat.m20,
+                Math.max(mat.m01 * mat.m01 + mat.m11 * mat.m11 + mat.m21 * mat.m21,
+                        mat.m02 * mat.m02 + mat.m12 * mat.m12 + mat.m22 * mat.m22));
+
+        return radius * (float) Math.sqrt(scaleSq);
+    }
+
+    /**
+     * @return Is the entity static
+     */
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * Static entities are rarely moving, so their shadows get cached in the
+     * shadow light. Changing, adding or removing a static entity increases the
+     * static version, which rerenders the cached shadows.
+     *
+     * @param isStatic Should the entity be static
+     */
+    public void setStatic(boolean isStatic) {
+        if (this.isStatic != isStatic)
+            staticVersion++;
+        this.isStatic = isStatic;
+    }
+
+    /**
+     * Checking this static entity for changes of its transformation or model
+     * instance since the last check and increasing the static version, if it
+     * changed. Called by the renderer every frame, the entity is rendered.
+     *
+     * @param modelInstance Model instance, the entity is rendered with
+     */
+    public void checkStaticChanges(Object modelInstance) {
+        int transformVersion = transform.getVersion();
+        if (transformVersion != checkedTransformVersion || modelInstance != checkedModel) {
+            checkedTransformVersion = transformVersion;
+            checkedModel = modelInstance;
+            staticVersion++;
+        }
+    }
+
+    /**
+     * Increases the static version, so cached static shadows get rendered again.
+     * Called by the renderer, when static entities were added or removed.
+     */
+    public static void invalidateStatic() {
+        staticVersion++;
+    }
+
+    /**
+     * @return Version of all static entities, increases when a static entity was
+     *         changed, added or removed
+     */
+    public static int getStaticVersion() {
+        return staticVersion;
+    }
+
+    /**
+     * @return Is the entity rasterized into the occlusion buffer to hide other
+     *         entities
+     */
+    public boolean isOccluder() {
+        return occluder;
+    }
+
+    /**
+     * Setting the entity as occluder. Occluders should be big and closed meshes
+     * like buildings, hills or walls.
+     *
+     * @param occluder Should the entity hide other entities behind it
+     */
+    public void setOccluder(boolean occluder) {
+        this.occluder = occluder;
+    }
+
+    /**
+     * @return Current level of detail of the entity, 0 is the full resolution
+     */
+    public int getLod() {
+        return lod;
+    }
+
+    /**
+     * Setting the level of detail of the entity. Gets overwritten by the lod
+     * selection every frame, the entity is rendered.
+     *
+     * @param lod New level of detail, 0 is the full resolution
+     */
+    public void setLod(int lod) {
+        this.lod = lod;
+    }
+
     /**
      * @param shader Shader for rendering the entity.
      */
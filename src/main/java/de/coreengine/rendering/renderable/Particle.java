@@ -28,6 +28,7 @@
 
 package de.coreengine.rendering.renderable;
 
+import de.coreengine.rendering.model.Color;
 import de.coreengine.rendering.model.Material;
 import de.coreengine.util.Configuration;
 
@@ -44,6 +45,13 @@ public class Particle {
     // Particles current texture
     private String texture = Material.TEXTURE_WHITE;
 
+    // Color and alpha, the texture gets multiplied with
+    private Color color = new Color();
+    private float alpha = 1.0f;
+
+    // Age of the particle (0 = spawned, 1 = dies)
+    private float age = 0.0f;
+
     /**
      * @return Particles current texture
      */
@@ -73,4 +81,39 @@ public class Particle {
     public Vector3f getPosition() {
         return position;
     }
+
+    /**
+     * @return Read/Writeable color, the texture gets multiplied with
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * @return Alpha, the texture gets multiplied with
+     */
+    public float getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @param alpha New alpha, the texture gets multiplied with
+     */
+    public void setAlpha(float alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * @return Age of the particle (0 = spawned, 1 = dies)
+     */
+    public float getAge() {
+        return age;
+    }
+
+    /**
+     * @param age New age of the particle (0 = spawned, 1 = dies)
+     */
+    public void setAge(float age) {
+        this.age = age;
+    }
 }
@@ -135,6 +135,10 @@ public class Water {
         recreateFbos();
     }
 
+    public float getQuality() {
+        return quality;
+    }
+
     /**
      * @return Waters dudv map for distortion
      */
@@ -27,6 +27,8 @@
  */
 package de.coreengine.rendering.renderable.gui;
 
+import de.coreengine.asset.AssetDatabase;
+import de.coreengine.rendering.model.AtlasRegion;
 import de.coreengine.rendering.model.Color;
 import de.coreengine.rendering.model.Material;
 import de.coreengine.rendering.model.Transformation;
@@ -34,6 +36,10 @@ import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderer.MasterRenderer;
 import de.coreengine.util.Toolbox;
 
+import javax.vecmath.Matrix4f;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Class that represent a pane for a gui
  *
@@ -41,6 +47,14 @@ import de.coreengine.util.Toolbox;
  */
 public class GUIPane {
 
+    // Position, texture coordinate, color, pick color, normal and textured flag
+    public static final int FLOATS_PER_VERTEX = 15;
+    public static final int VERTICES_PER_PANE = 6;
+    public static final int FLOATS_PER_PANE = FLOATS_PER_VERTEX * VERTICES_PER_PANE;
+
+    // Corners of the pane quad in triangle order
+    private static final float[] QUAD = { -1, 1, -1, -1, 1, 1, 1, 1, -1, -1, 1, -1 };
+
     // Text of the pane
     private GUIText text = new GUIText();
 
@@ -60,6 +74,21 @@ public class GUIPane {
     // Is the gui pane always facing the camera?
     private boolean facingCamera = false;
 
+    // Child panes, that has to be rebuilt, when this pane moves
+    private final List<GUIPane> children = new ArrayList<>();
+
+    // Has the vertices of the pane to be rebuilt
+    private boolean dirty = true;
+
+    // Cached vertices, texture and the values they were built from
+    private final float[] vertices = new float[FLOATS_PER_PANE];
+    private int batchTexture = 0;
+    private int textureVersion = -1;
+    private float builtRed, builtGreen, builtBlue;
+
+    // Cached transformation matrix, when facing the camera
+    private final float[] transMatFacing = new float[16];
+
     /**
      * Creating new GUI Pane and setting its parent or null, if no parent gui exist
      * 
@@ -68,8 +97,10 @@ public class GUIPane {
     public GUIPane(GUIPane parent) {
 
         // Add to parent if exist
-        if (parent != null)
+        if (parent != null) {
             parent.transform.addChild(transform);
+            parent.children.add(this);
+        }
 
         pickColor = Toolbox.generateRandomColor();
     }
@@ -95,6 +126,18 @@ public class GUIPane {
         return renderText;
     }
 
+    /**
+     * Deleting the opengl buffers of the text of this pane and all child panes.
+     * Has to be called from the opengl thread, when the pane is not rendered
+     * anymore. The buffers get created again, if the pane is rendered again.
+     */
+    public void clear() {
+        text.clear();
+        for (GUIPane child : children) {
+            child.clear();
+        }
+    }
+
     /**
      * @return Read/Writeable color of the pane
      */
@@ -113,7 +156,10 @@ public class GUIPane {
      * @param texture New texture of the pane
      */
     public void setTexture(String texture) {
-        this.texture = texture;
+        if (texture == null ? this.texture != null : !texture.equals(this.texture)) {
+            this.texture = texture;
+            dirty = true;
+        }
     }
 
     /**
@@ -123,8 +169,22 @@ public class GUIPane {
      * @param scaleX Vertical scale
      */
     public void setScaleX(float scaleX) {
+        if (transform.getScaleX() == scaleX)
+            return;
+
         transform.setScaleX(scaleX);
+        markDirty();
+        updateLineWidth();
+    }
+
+    /**
+     * Updating the line width of the text of this pane and all child panes to
+     * their global width
+     */
+    private void updateLineWidth() {
         text.setLineWidth(transform.getGlobalScaleX() * 2.0f);
+        for (GUIPane child : children)
+            child.updateLineWidth();
     }
 
     /**
@@ -134,7 +194,10 @@ public class GUIPane {
      * @param scaleY Horizontal scale
      */
     public void setScaleY(float scaleY) {
-        transform.setScaleY(scaleY);
+        if (transform.getScaleY() != scaleY) {
+            transform.setScaleY(scaleY);
+            markDirty();
+        }
     }
 
     /**
@@ -171,7 +234,10 @@ public class GUIPane {
      * @param posX X pos
      */
     public void setPosX(float posX) {
-        transform.setPosX(posX);
+        if (transform.getPosX() != posX) {
+            transform.setPosX(posX);
+            markDirty();
+        }
     }
 
     /**
@@ -181,7 +247,10 @@ public class GUIPane {
      * @param posY Y pos
      */
     public void setPosY(float posY) {
-        transform.setPosY(posY);
+        if (transform.getPosY() != posY) {
+            transform.setPosY(posY);
+            markDirty();
+        }
     }
 
     /**
@@ -191,7 +260,10 @@ public class GUIPane {
      * @param posZ Z pos
      */
     public void setPosZ(float posZ) {
-        transform.setPosZ(posZ);
+        if (transform.getPosZ() != posZ) {
+            transform.setPosZ(posZ);
+            markDirty();
+        }
     }
 
     /**
@@ -201,7 +273,10 @@ public class GUIPane {
      * @param rotX X rotation
      */
     public void setRotX(float rotX) {
-        transform.setRotX(rotX);
+        if (transform.getRotX() != rotX) {
+            transform.setRotX(rotX);
+            markDirty();
+        }
     }
 
     /**
@@ -211,7 +286,10 @@ public class GUIPane {
      * @param rotY Y rotation
      */
     public void setRotY(float rotY) {
-        transform.setRotY(rotY);
+        if (transform.getRotY() != rotY) {
+            transform.setRotY(rotY);
+            markDirty();
+        }
     }
 
     /**
@@ -221,7 +299,10 @@ public class GUIPane {
      * @param rotZ Z rotation
      */
     public void setRotZ(float rotZ) {
-        transform.setRotZ(rotZ);
+        if (transform.getRotZ() != rotZ) {
+            transform.setRotZ(rotZ);
+            markDirty();
+        }
     }
 
     /**
@@ -281,12 +362,12 @@ public class GUIPane {
     /**
      * Returns true if mouse is over gui pane. <br>
      * 
-     * <b>Only works, if picking is enabled!!!</b>
+     * Uses the cpu or the gpu picking, depending on PICKING_MODE.
      * 
      * @return Is mouse over gui
      */
     public boolean isMouseOver() {
-        return pickColor.compare(MasterRenderer.getPickedColor());
+        return MasterRenderer.isMouseOver(this, pickColor);
     }
 
     /**
@@ -302,13 +383,123 @@ public class GUIPane {
      * @param cam Camera that the transmat should face to
      */
     public float[] getTransMatFacing(Camera cam) {
-        float[] transformFloats = Toolbox.matrixToFloatArray(cam.getFacingMatrix());
-        transformFloats[12] = getPosX();
-        transformFloats[13] = getPosY();
-        transformFloats[14] = getPosZ();
-        transformFloats[15] = 1;
+        Matrix4f facing = cam.getFacingMatrix();
+        int ctr = 0;
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                transMatFacing[ctr++] = facing.getElement(c, r);
+            }
+        }
+        transMatFacing[12] = getPosX();
+        transMatFacing[13] = getPosY();
+        transMatFacing[14] = getPosZ();
+        transMatFacing[15] = 1;
+
+        return transMatFacing;
+    }
+
+    /**
+     * Marks the vertices of this pane and all child panes to be rebuilt
+     */
+    private void markDirty() {
+        dirty = true;
+        for (GUIPane child : children)
+            child.markDirty();
+    }
+
+    /**
+     * Rebuilding the cached vertices of the pane, if the transformation,
+     * texture or color changed since the last call. Panes facing the camera are
+     * rebuilt every call.
+     * 
+     * @param cam Camera to face for camera facing panes
+     * @return True, if the vertices changed
+     */
+    public boolean prepareVertices(Camera cam) {
+        if (!dirty && !facingCamera && textureVersion == AssetDatabase.getTextureVersion()
+                && builtRed == color.getRed() && builtGreen == color.getGreen() && builtBlue == color.getBlue())
+            return false;
+
+        // Get texture or atlas region of the pane
+        AtlasRegion region = null;
+        batchTexture = 0;
+        if (texture != null && !texture.equals(Material.TEXTURE_BLACK)) {
+            region = AssetDatabase.getAtlasRegion(texture);
+            batchTexture = region != null ? region.getAtlas() : AssetDatabase.getTexture(texture);
+        }
+        textureVersion = AssetDatabase.getTextureVersion();
+
+        // Transformation matrix (column major) and additional scale of the pane
+        float[] m;
+        float scale;
+        if (facingCamera) {
+            m = getTransMatFacing(cam);
+            scale = getScaleY();
+        } else {
+            m = getTransMat();
+            scale = 1.0f;
+        }
+
+        // Normal of the pane
+        float nx = m[8] + m[12], ny = m[9] + m[13], nz = m[10] + m[14];
+        float nLength = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (nLength != 0.0f) {
+            nx /= nLength;
+            ny /= nLength;
+            nz /= nLength;
+        }
+
+        // Texture area
+        float u = 0.0f, v = 0.0f, uw = 1.0f, vh = 1.0f;
+        if (region != null) {
+            u = region.getU();
+            v = region.getV();
+            uw = region.getWidth();
+            vh = region.getHeight();
+        }
+
+        builtRed = color.getRed();
+        builtGreen = color.getGreen();
+        builtBlue = color.getBlue();
+
+        int o = 0;
+        for (int i = 0; i < QUAD.length; i += 2) {
+            float x = QUAD[i] * scale, y = QUAD[i + 1] * scale;
+
+            vertices[o++] = m[0] * x + m[4] * y + m[12];
+            vertices[o++] = m[1] * x + m[5] * y + m[13];
+            vertices[o++] = m[2] * x + m[6] * y + m[14];
+            vertices[o++] = u + (QUAD[i] * 0.5f + 0.5f) * uw;
+            vertices[o++] = v + (QUAD[i + 1] * -0.5f + 0.5f) * vh;
+            vertices[o++] = builtRed;
+            vertices[o++] = builtGreen;
+            vertices[o++] = builtBlue;
+            vertices[o++] = pickColor.getRed();
+            vertices[o++] = pickColor.getGreen();
+            vertices[o++] = pickColor.getBlue();
+            vertices[o++] = nx;
+            vertices[o++] = ny;
+            vertices[o++] = nz;
+            vertices[o++] = batchTexture != 0 ? 1.0f : 0.0f;
+        }
+
+        dirty = false;
+        return true;
+    }
+
+    /**
+     * @return Cached vertices of the pane, valid after prepareVertices()
+     */
+    public float[] getVertices() {
+        return vertices;
+    }
 
-        return transformFloats;
+    /**
+     * @return Texture or atlas the pane is drawn with or 0, if the pane is not
+     *         textured. Valid after prepareVertices()
+     */
+    public int getBatchTexture() {
+        return batchTexture;
     }
 
     /**
@@ -334,7 +525,10 @@ public class GUIPane {
      * @param facingCamera Should the gui pane always facing the camera
      */
     public void setFacingCamera(boolean facingCamera) {
-        this.facingCamera = facingCamera;
+        if (this.facingCamera != facingCamera) {
+            this.facingCamera = facingCamera;
+            dirty = true;
+        }
     }
 
     /**
@@ -28,13 +28,14 @@
 package de.coreengine.rendering.renderable.gui;
 
 import de.coreengine.asset.AssetDatabase;
-import de.coreengine.rendering.model.Character;
 import de.coreengine.rendering.model.Color;
+import de.coreengine.rendering.model.Font;
 import de.coreengine.util.Configuration;
-import de.coreengine.util.Logger;
+import de.coreengine.util.gl.VertexArrayObject;
+import org.lwjgl.BufferUtils;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.FloatBuffer;
+import java.util.Objects;
 
 /**
  * Class that represents a renderable text
@@ -65,8 +66,18 @@ public class GUIText {
     // Color ofthe font
     private Color fontColor = new Color();
 
-    // Chars of the text to render
-    private GUIChar[] chars = new GUIChar[0];
+    // Layout of the text with the vertices of all chars
+    private final TextLayout layout = new TextLayout();
+
+    // Has the text to be laid out and uploaded again
+    private boolean dirty = true;
+
+    // Vao and vertex buffer of the text, created on first render
+    private VertexArrayObject vao = null;
+    private int vbo;
+
+    // Buffer to upload the vertices of the texts with
+    private static FloatBuffer uploadBuffer = BufferUtils.createFloatBuffer(0);
 
     // Padding at the border
     private float padding = DEFAULT_PADDING;
@@ -79,13 +90,15 @@ public class GUIText {
     }
 
     /**
-     * Setting text and recreating chars
+     * Setting text and marking it to be laid out again
      * 
      * @param text New text of the GUIText
      */
     public void setText(String text) {
-        this.text = text;
-        recreateChars();
+        if (!Objects.equals(this.text, text)) {
+            this.text = text;
+            invalidateLayout();
+        }
     }
 
     /**
@@ -96,13 +109,15 @@ public class GUIText {
     }
 
     /**
-     * Setting font of the text and recreating chars
+     * Setting font of the text and marking it to be laid out again
      * 
      * @param font New font of the text
      */
     public void setFont(String font) {
-        this.font = font;
-        recreateChars();
+        if (!Objects.equals(this.font, font)) {
+            this.font = font;
+            invalidateLayout();
+        }
     }
 
     /**
@@ -111,7 +126,10 @@ public class GUIText {
      * @param width New line width
      */
     void setLineWidth(float width) {
-        this.lineWidth = width;
+        if (this.lineWidth != width) {
+            this.lineWidth = width;
+            invalidateLayout();
+        }
     }
 
     /**
@@ -121,86 +139,75 @@ public class GUIText {
      * @param alignment New alignment
      */
     public void setAlignment(Alignment alignment) {
-        this.alignment = alignment;
-        recreateChars();
+        if (this.alignment != alignment) {
+            this.alignment = alignment;
+            invalidateLayout();
+        }
     }
 
     /**
-     * Recreating all characters to render
+     * Marks the text to be laid out again before the next render
      */
-    private void recreateChars() {
-        float cursor = 0;
-        float line = 0.0f;
-
-        List<GUIChar> lineChars = new LinkedList<>();
-        List<GUIChar> textChars = new LinkedList<>();
-
-        for (int i = 0; i < text.length(); i++) {
-            int ascii = text.charAt(i);
-            Character c = AssetDatabase.getFont(font).getCharacter(ascii);
-
-            // Check if char exist in font
-            if (c == null) {
-                Logger.warn("Char not found", "Character '" + text.charAt(i) + "' not found in the font! (Skipping)");
-                continue;
-            }
+    private void invalidateLayout() {
+        dirty = true;
+    }
 
-            // Next line?
-            if (cursor + c.getAdvancex() * fontSize > lineWidth - (padding * lineWidth) || ascii == 10) {
-                alignChars(lineChars, cursor);
+    /**
+     * Laying out the text and uploading its vertices, if the text changed since
+     * the last call. A text, whose font is not loaded yet, stays empty and is
+     * laid out again in the next call. Has to be called from the opengl thread
+     * before rendering.
+     */
+    public void prepareMesh() {
+        if (!dirty)
+            return;
 
-                line -= AssetDatabase.getFont(font).getLineHeight() * fontSize;
-                cursor = 0;
+        if (vao == null) {
+            vao = new VertexArrayObject();
+            vbo = vao.addInterleavedVertexBuffer(0, 2, 2);
+        }
 
-                lineChars.clear();
+        Font loadedFont = AssetDatabase.getFont(font);
+        layout.layout(loadedFont, text, fontSize, alignment, padding, lineWidth);
 
-                if (ascii == 10)
-                    continue;
-            }
+        // Upload vertices
+        int floats = layout.getVertexCount() * TextLayout.FLOATS_PER_VERTEX;
+        if (uploadBuffer.capacity() < floats)
+            uploadBuffer = BufferUtils.createFloatBuffer(floats);
+        uploadBuffer.clear();
+        uploadBuffer.put(layout.getVertices(), 0, floats);
+        uploadBuffer.flip();
+        vao.updateVertexBuffer(vbo, uploadBuffer);
 
-            // Transform char
-            GUIChar gc = new GUIChar();
-            gc.setIndex(c.getIndex());
-            gc.getOffset().set(cursor, line);
-            textChars.add(gc);
-            lineChars.add(gc);
+        dirty = loadedFont == null;
+    }
 
-            // Move cursor
-            cursor += c.getAdvancex() * fontSize;
-        }
+    /**
+     * Deleting the vao and vertex buffer of the text from opengl. They get
+     * created again, if the text is rendered again. Has to be called from the
+     * opengl thread, when the text is not used anymore.
+     */
+    public void clear() {
+        if (vao == null)
+            return;
 
-        // Center last line horizontal
-        alignChars(lineChars, cursor);
+        vao.delete();
+        vao = null;
+        dirty = true;
+    }
 
-        // Center all chars vertical
-        line -= AssetDatabase.getFont(font).getLineHeight() * fontSize;
-        chars = new GUIChar[textChars.size()];
-        for (int i = 0; i < textChars.size(); i++) {
-            textChars.get(i).getOffset().y -= line / 2.0f;
-            chars[i] = textChars.get(i);
-        }
+    /**
+     * @return Vao with the vertices of the text, valid after prepareMesh()
+     */
+    public VertexArrayObject getVao() {
+        return vao;
     }
 
     /**
-     * Align chars of a line horizontal, by the selected alignment.
-     * 
-     * @param lineChars Chars to align
-     * @param cursor    Cursor offset
+     * @return Count of vertices of the text, valid after prepareMesh()
      */
-    private void alignChars(List<GUIChar> lineChars, float cursor) {
-        for (GUIChar lineChar : lineChars) {
-            switch (alignment) {
-                case CENTER:
-                    lineChar.getOffset().x += cursor / -2.0f;
-                    break;
-                case LEFT:
-                    lineChar.getOffset().x += lineWidth / -2.0f + (padding * lineWidth) / 2.0f;
-                    break;
-                case RIGHT:
-                    lineChar.getOffset().x += -cursor - (padding * lineWidth) / 2.0f + lineWidth / 2.0f;
-                    break;
-            }
-        }
+    public int getVertexCount() {
+        return layout.getVertexCount();
     }
 
     /**
@@ -214,15 +221,10 @@ public class GUIText {
      * @param fontSize New size of the font
      */
     public void setFontSize(float fontSize) {
-        this.fontSize = fontSize;
-        recreateChars();
-    }
-
-    /**
-     * @return Characters of the text to render
-     */
-    public GUIChar[] getChars() {
-        return chars;
+        if (this.fontSize != fontSize) {
+            this.fontSize = fontSize;
+            invalidateLayout();
+        }
     }
 
     /**
@@ -236,8 +238,10 @@ public class GUIText {
      * @param padding Padding of the gui text to the pane border
      */
     public void setPadding(float padding) {
-        this.padding = padding;
-        recreateChars();
+        if (this.padding != padding) {
+            this.padding = padding;
+            invalidateLayout();
+        }
     }
 
     /**
@@ -0,0 +1,223 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderable.gui;
+
+import de.coreengine.rendering.model.Character;
+import de.coreengine.rendering.model.Font;
+import de.coreengine.util.Logger;
+
+/**
+ * Class that lays out a text with a font and builds the vertices of all its
+ * characters. Each character is a quad of two triangles, each vertex is stored
+ * interleaved as position (x, y) and texture coordinate (u, v). Does not need
+ * an opengl context and reuses its arrays between layouts.
+ *
+ * @author Darius Dinger
+ */
+public class TextLayout {
+    public static final int FLOATS_PER_VERTEX = 4;
+    public static final int VERTICES_PER_CHAR = 6;
+
+    private static final int FLOATS_PER_CHAR = FLOATS_PER_VERTEX * VERTICES_PER_CHAR;
+
+    // Laid out characters and their offsets
+    private Character[] chars = new Character[0];
+    private float[] offsets = new float[0];
+    private int charCount = 0;
+
+    // Interleaved vertex data of the laid out text
+    private float[] vertices = new float[0];
+
+    /**
+     * Laying out a text and rebuilding the vertices. Without a font or text the
+     * layout is empty.
+     *
+     * @param font      Font of the text, can be null
+     * @param text      Text to lay out, can be null
+     * @param fontSize  Size of the font
+     * @param alignment Horizontal alignment of the lines
+     * @param padding   Padding at the border relative to the line width
+     * @param lineWidth Width of a line, when to make a line break
+     */
+    public void layout(Font font, String text, float fontSize, GUIText.Alignment alignment, float padding,
+            float lineWidth) {
+        charCount = 0;
+        if (font == null || text == null)
+            return;
+        ensureCapacity(text.length());
+
+        float cursor = 0;
+        float line = 0.0f;
+        int lineStart = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            int ascii = text.charAt(i);
+            Character c = ascii == 10 ? null : font.getCharacter(ascii);
+
+            // Check if char exist in font
+            if (c == null && ascii != 10) {
+                Logger.warn("Char not found", "Character '" + text.charAt(i) + "' not found in the font! (Skipping)");
+                continue;
+            }
+
+            // Next line?
+            if (ascii == 10 || cursor + c.getAdvancex() * fontSize > lineWidth - (padding * lineWidth)) {
+                alignLine(lineStart, cursor, alignment, padding, lineWidth);
+
+                line -= font.getLineHeight() * fontSize;
+                cursor = 0;
+                lineStart = charCount;
+
+                if (ascii == 10)
+                    continue;
+            }
+
+            // Place char
+            chars[charCount] = c;
+            offsets[charCount * 2] = cursor;
+            offsets[charCount * 2 + 1] = line;
+            charCount++;
+
+            // Move cursor
+            cursor += c.getAdvancex() * fontSize;
+        }
+
+        // Align last line horizontal
+        alignLine(lineStart, cursor, alignment, padding, lineWidth);
+
+        // Center all chars vertical and build vertices
+        line -= font.getLineHeight() * fontSize;
+        for (int i = 0; i < charCount; i++) {
+            offsets[i * 2 + 1] -= line / 2.0f;
+            storeChar(i, fontSize);
+        }
+    }
+
+    /**
+     * Align chars of a line horizontal, by the selected alignment.
+     *
+     * @param lineStart First char of the line
+     * @param cursor    Cursor offset at the end of the line
+     * @param alignment Horizontal alignment
+     * @param padding   Padding at the border relative to the line width
+     * @param lineWidth Width of a line
+     */
+    private void alignLine(int lineStart, float cursor, GUIText.Alignment alignment, float padding,
+            float lineWidth) {
+        float shift = 0.0f;
+        switch (alignment) {
+            case CENTER:
+                shift = cursor / -2.0f;
+                break;
+            case LEFT:
+                shift = lineWidth / -2.0f + (padding * lineWidth) / 2.0f;
+                break;
+            case RIGHT:
+                shift = -cursor - (padding * lineWidth) / 2.0f + lineWidth / 2.0f;
+                break;
+        }
+
+        for (int i = lineStart; i < charCount; i++) {
+            offsets[i * 2] += shift;
+        }
+    }
+
+    /**
+     * Storing the quad vertices of a laid out char
+     *
+     * @param index    Index of the char
+     * @param fontSize Size of the font
+     */
+    private void storeChar(int index, float fontSize) {
+        Character c = chars[index];
+        float ox = offsets[index * 2], oy = offsets[index * 2 + 1];
+
+        float x0 = c.getOffsetx() * fontSize + ox;
+        float x1 = (c.getOffsetx() + c.getWidth()) * fontSize + ox;
+        float y0 = (-c.getOffsety() - c.getHeight()) * fontSize + oy;
+        float y1 = -c.getOffsety() * fontSize + oy;
+
+        float u0 = c.getTexx(), u1 = c.getTexx() + c.getTexWidth();
+        float v0 = c.getTexy(), v1 = c.getTexy() + c.getTexHeight();
+
+        int o = index * FLOATS_PER_CHAR;
+        o = storeVertex(o, x1, y0, u1, v1);
+        o = storeVertex(o, x1, y1, u1, v0);
+        o = storeVertex(o, x0, y0, u0, v1);
+        o = storeVertex(o, x0, y0, u0, v1);
+        o = storeVertex(o, x1, y1, u1, v0);
+        storeVertex(o, x0, y1, u0, v0);
+    }
+
+    /**
+     * Storing one vertex into the vertex array
+     *
+     * @param o Offset in the vertex array
+     * @param x X position
+     * @param y Y position
+     * @param u U texture coordinate
+     * @param v V texture coordinate
+     * @return Offset of the next vertex
+     */
+    private int storeVertex(int o, float x, float y, float u, float v) {
+        vertices[o] = x;
+        vertices[o + 1] = y;
+        vertices[o + 2] = u;
+        vertices[o + 3] = v;
+        return o + FLOATS_PER_VERTEX;
+    }
+
+    /**
+     * Growing the arrays, if they are to small for a count of chars
+     *
+     * @param count Count of chars
+     */
+    private void ensureCapacity(int count) {
+        if (chars.length >= count)
+            return;
+
+        chars = new Character[count];
+        offsets = new float[count * 2];
+        vertices = new float[count * FLOATS_PER_CHAR];
+    }
+
+    /**
+     * @return Interleaved vertex data (position, texture coordinate) of the laid
+     *         out text. Only the first getVertexCount() vertices are valid.
+     */
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * @return Count of valid vertices
+     */
+    public int getVertexCount() {
+        return charCount * VERTICES_PER_CHAR;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderable.light;
+
+import javax.vecmath.Matrix4f;
+
+/**
+ * One cascade of a shadow light. Stores the orthographic light space box, the
+ * cascade covers, and its view projection matrix.
+ *
+ * @author Darius Dinger
+ */
+public class ShadowCascade {
+
+    // View projection matrix of the cascade
+    private final Matrix4f vpMat = new Matrix4f();
+
+    // Rows of the light rotation (light space x, y and z axis in world space)
+    private float xx, xy, xz, yx, yy, yz, zx, zy, zz;
+
+    // Bounds of the cascade in light space
+    private float minX, maxX, minY, maxY, minZ, maxZ;
+
+    // View depth, where the cascade ends
+    private float splitDistance;
+
+    // Light space center and half size of the box
+    private float centerX, centerY, radius;
+
+    // Rows of the light rotation, the static shadows are cached with
+    private final float[] staticRotation = new float[9];
+
+    // Bounds of the bigger light space box, the static shadows are cached in
+    private float staticMinX, staticMaxX, staticMinY, staticMaxY, staticMinZ, staticMaxZ;
+
+    // Half size of the box, the static shadows were cached for
+    private float staticCascadeRadius;
+
+    // View projection matrix of the static shadow box
+    private final Matrix4f staticVpMat = new Matrix4f();
+
+    // Are the cached static shadows valid
+    private boolean staticValid = false;
+
+    // Transformation from this cascade into the static shadow box
+    // (uv scale, uv offset, depth scale, depth offset)
+    private float staticUvScale, staticUvOffsetX, staticUvOffsetY, staticDepthScale, staticDepthOffset;
+
+    /**
+     * Setting the light space box of the cascade and recalculating the view
+     * projection matrix.
+     *
+     * @param rotation      Rows of the light rotation (9 floats)
+     * @param centerX       Light space x center of the box
+     * @param centerY       Light space y center of the box
+     * @param radius        Half width and height of the box
+     * @param minZ          Minimum light space z (farthest from light)
+     * @param maxZ          Maximum light space z (nearest to light)
+     * @param splitDistance View depth, where the cascade ends
+     */
+    void set(float[] rotation, float centerX, float centerY, float radius, float minZ, float maxZ,
+            float splitDistance) {
+        xx = rotation[0];
+        xy = rotation[1];
+        xz = rotation[2];
+        yx = rotation[3];
+        yy = rotation[4];
+        yz = rotation[5];
+        zx = rotation[6];
+        zy = rotation[7];
+        zz = rotation[8];
+
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+
+        this.minX = centerX - radius;
+        this.maxX = centerX + radius;
+        this.minY = centerY - radius;
+        this.maxY = centerY + radius;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+        this.splitDistance = splitDistance;
+
+        calcVpMat(vpMat, centerX, centerY, radius, minZ, maxZ);
+    }
+
+    /**
+     * Calculating the orthographic projection of a light space box multiplied
+     * with the light rotation
+     *
+     * @param mat     Matrix to store the result in
+     * @param centerX Light space x center of the box
+     * @param centerY Light space y center of the box
+     * @param radius  Half width and height of the box
+     * @param minZ    Minimum light space z
+     * @param maxZ    Maximum light space z
+     */
+    private void calcVpMat(Matrix4f mat, float centerX, float centerY, float radius, float minZ, float maxZ) {
+        float depth = maxZ - minZ;
+        mat.m00 = xx / radius;
+        mat.m01 = xy / radius;
+        mat.m02 = xz / radius;
+        mat.m03 = -centerX / radius;
+        mat.m10 = yx / radius;
+        mat.m11 = yy / radius;
+        mat.m12 = yz / radius;
+        mat.m13 = -centerY / radius;
+        mat.m20 = -2.0f * zx / depth;
+        mat.m21 = -2.0f * zy / depth;
+        mat.m22 = -2.0f * zz / depth;
+        mat.m23 = (maxZ + minZ) / depth;
+        mat.m30 = 0.0f;
+        mat.m31 = 0.0f;
+        mat.m32 = 0.0f;
+        mat.m33 = 1.0f;
+    }
+
+    /**
+     * Checks if a sphere intersects the light space box of the cascade. Used to
+     * cull shadow casters, that can not cast a shadow into this cascade.
+     *
+     * @param x      World x position of the sphere center
+     * @param y      World y position of the sphere center
+     * @param z      World z position of the sphere center
+     * @param radius Radius of the sphere
+     * @return True, if the sphere intersects the box
+     */
+    public boolean intersectsSphere(float x, float y, float z, float radius) {
+        return intersectsBox(x, y, z, radius, minX, maxX, minY, maxY, minZ, maxZ);
+    }
+
+    /**
+     * Checks if a sphere intersects the light space box of the static shadows.
+     * Used to cull static shadow casters.
+     *
+     * @param x      World x position of the sphere center
+     * @param y      World y position of the sphere center
+     * @param z      World z position of the sphere center
+     * @param radius Radius of the sphere
+     * @return True, if the sphere intersects the static box
+     */
+    public boolean intersectsStaticSphere(float x, float y, float z, float radius) {
+        return intersectsBox(x, y, z, radius, staticMinX, staticMaxX, staticMinY, staticMaxY, staticMinZ,
+                staticMaxZ);
+    }
+
+    /**
+     * Checks if a sphere intersects a light space box
+     */
+    private boolean intersectsBox(float x, float y, float z, float radius, float minX, float maxX, float minY,
+            float maxY, float minZ, float maxZ) {
+        float lx = xx * x + xy * y + xz * z;
+        if (lx + radius < minX || lx - radius > maxX)
+            return false;
+
+        float ly = yx * x + yy * y + yz * z;
+        if (ly + radius < minY || ly - radius > maxY)
+            return false;
+
+        float lz = zx * x + zy * y + zz * z;
+        return lz + radius >= minZ && lz - radius <= maxZ;
+    }
+
+    /**
+     * Checks if the cached static shadows of the cascade have to be rendered
+     * again. This is the case, if they were invalidated, the light rotated, the
+     * cascade changed its size or the cascade left the static shadow box.
+     *
+     * @return True, if the static shadows have to be rendered
+     */
+    public boolean needsStaticUpdate() {
+        if (!staticValid || radius != staticCascadeRadius)
+            return true;
+
+        if (staticRotation[0] != xx || staticRotation[1] != xy || staticRotation[2] != xz
+                || staticRotation[3] != yx || staticRotation[4] != yy || staticRotation[5] != yz
+                || staticRotation[6] != zx || staticRotation[7] != zy || staticRotation[8] != zz)
+            return true;
+
+        return minX < staticMinX || maxX > staticMaxX || minY < staticMinY || maxY > staticMaxY
+                || minZ < staticMinZ || maxZ > staticMaxZ;
+    }
+
+    /**
+     * Placing the static shadow box around the current cascade. The static box
+     * is bigger than the cascade by the scale, so the cascade can move inside it
+     * without rendering the static shadows again. The static shadow map has to
+     * be scale times bigger than a cascade, so both have the same texel size.
+     *
+     * @param scale Size of the static box relative to the cascade
+     */
+    public void updateStaticBox(float scale) {
+        float staticRadius = radius * scale;
+        float margin = staticRadius - radius;
+
+        staticMinX = centerX - staticRadius;
+        staticMaxX = centerX + staticRadius;
+        staticMinY = centerY - staticRadius;
+        staticMaxY = centerY + staticRadius;
+        staticMinZ = minZ - margin;
+        staticMaxZ = maxZ + margin;
+        staticCascadeRadius = radius;
+
+        staticRotation[0] = xx;
+        staticRotation[1] = xy;
+        staticRotation[2] = xz;
+        staticRotation[3] = yx;
+        staticRotation[4] = yy;
+        staticRotation[5] = yz;
+        staticRotation[6] = zx;
+        staticRotation[7] = zy;
+        staticRotation[8] = zz;
+
+        calcVpMat(staticVpMat, centerX, centerY, staticRadius, staticMinZ, staticMaxZ);
+        staticValid = true;
+    }
+
+    /**
+     * Calculating the transformation from this cascades shadow map coordinates
+     * and depths into the static shadow map, so the cached shadows can be
+     * reprojected into the moved cascade.
+     */
+    public void updateStaticReprojection() {
+        float staticSize = staticMaxX - staticMinX;
+        staticUvScale = radius * 2.0f / staticSize;
+        staticUvOffsetX = (minX - staticMinX) / staticSize;
+        staticUvOffsetY = (minY - staticMinY) / staticSize;
+
+        // Both depths are linear in light space z
+        float depth = maxZ - minZ, staticDepth = staticMaxZ - staticMinZ;
+        staticDepthScale = staticDepth / depth;
+        staticDepthOffset = (maxZ + minZ - staticMaxZ - staticMinZ - staticDepth) / (2.0f * depth) + 0.5f;
+    }
+
+    /**
+     * Invalidates the cached static shadows, so they get rendered again
+     */
+    void invalidateStatic() {
+        staticValid = false;
+    }
+
+    /**
+     * @return View projection matrix of the static shadow box
+     */
+    public Matrix4f getStaticVpMat() {
+        return staticVpMat;
+    }
+
+    /**
+     * @return Scale from cascade to static shadow map coordinates
+     */
+    public float getStaticUvScale() {
+        return staticUvScale;
+    }
+
+    /**
+     * @return X offset from cascade to static shadow map coordinates
+     */
+    public float getStaticUvOffsetX() {
+        return staticUvOffsetX;
+    }
+
+    /**
+     * @return Y offset from cascade to static shadow map coordinates
+     */
+    public float getStaticUvOffsetY() {
+        return staticUvOffsetY;
+    }
+
+    /**
+     * @return Scale from static shadow map depth to cascade depth
+     */
+    public float getStaticDepthScale() {
+        return staticDepthScale;
+    }
+
+    /**
+     * @return Offset from static shadow map depth to cascade depth
+     */
+    public float getStaticDepthOffset() {
+        return staticDepthOffset;
+    }
+
+    /**
+     * @return View projection matrix of the cascade
+     */
+    public Matrix4f getVpMat() {
+        return vpMat;
+    }
+
+    /**
+     * @return View depth, where the cascade ends
+     */
+    public float getSplitDistance() {
+        return splitDistance;
+    }
+}
@@ -31,41 +31,81 @@ import de.coreengine.framework.Window;
 import de.coreengine.rendering.FrameBufferObject;
 import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.util.Configuration;
+import org.lwjgl.opengl.GL11;
 
 import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
 
 /**
  * Represents a shadow light in the scene. This light does not light objects up,
- * just creating a show behind the objects.
+ * just creating a show behind the objects.<br>
+ * The view frustum of the camera is split into cascades, wich are rendered side
+ * by side into one shadow map. Near cascades cover a small area with a high
+ * resolution, far cascades a big area with a lower resolution.
  *
  * @author Darius Dinger
  */
 public class ShadowLight {
+    public static final int MAX_CASCADES = 4; // Keep syncron with light shader!
+
     private static final float DEFAULT_QUALITY = Configuration.getValuef("SHADOW_DEFAULT_QUALITY");
-    private static final float[] DEFAULT_DIMENSION = Configuration.getValuefa("SHADOW_DEFAULT_FRUSTUM_DIMENSION");
+    private static final int DEFAULT_CASCADE_COUNT = Configuration.getValuei("SHADOW_DEFAULT_CASCADE_COUNT");
+    private static final float DEFAULT_SPLIT_LAMBDA = Configuration.getValuef("SHADOW_DEFAULT_SPLIT_LAMBDA");
+    private static final float DEFAULT_DISTANCE = Configuration.getValuef("SHADOW_DEFAULT_DISTANCE");
+    private static final float CASTER_OFFSET = Configuration.getValuef("SHADOW_CASTER_OFFSET");
+    private static final float STATIC_CACHE_SCALE = Configuration.getValuef("SHADOW_STATIC_CACHE_SCALE");
 
-    // Fbo that stores the actual shadow map from lights position
+    // Fbo that stores the shadow maps of all cascades side by side
     private FrameBufferObject shadowMap;
 
-    // Camera of the lights view
-    private Camera lightsView = new Camera();
+    // Fbos that cache the shadows of the static entities, one per cascade
+    private FrameBufferObject[] staticShadowMaps;
+
+    // Cascades of the shadow light
+    private final ShadowCascade[] cascades;
 
     // Quality of the shadows
     private float quality = DEFAULT_QUALITY;
 
-    // View projection matrix of the light
-    private Matrix4f vpMat = new Matrix4f();
+    // Resolution of one cascade in pixels
+    private int cascadeSize;
+
+    // Resolution of one static shadow map in pixels
+    private int staticSize;
+
+    // Blend factor between uniform (0) and logarithmic (1) cascade splits
+    private float splitLambda = DEFAULT_SPLIT_LAMBDA;
+
+    // View distance, the shadows are rendered to
+    private float distance = DEFAULT_DISTANCE;
+
+    // Rows of the light rotation
+    private final float[] rotation = new float[9];
 
-    // Dimensions of the shadow lights view frustum
-    private float width = DEFAULT_DIMENSION[0];
-    private float height = DEFAULT_DIMENSION[1];
-    private float far = DEFAULT_DIMENSION[2];
+    // View projection matrices and split distances of all cascades for the shader
+    private final float[] cascadeMatrices = new float[MAX_CASCADES * 16];
+    private final float[] cascadeSplits = new float[MAX_CASCADES];
+
+    /**
+     * Creating new shadow light with the default cascade count. Create shadow map
+     * fbo and recreating every window resize
+     */
+    public ShadowLight() {
+        this(DEFAULT_CASCADE_COUNT);
+    }
 
     /**
      * Creating new shadow light. Create shadow map fbo and recreating every window
      * resize
+     *
+     * @param cascadeCount Count of cascades (1 - MAX_CASCADES)
      */
-    public ShadowLight() {
+    public ShadowLight(int cascadeCount) {
+        cascades = new ShadowCascade[Math.max(1, Math.min(cascadeCount, MAX_CASCADES))];
+        for (int i = 0; i < cascades.length; i++) {
+            cascades[i] = new ShadowCascade();
+        }
+
         recreateFbo();
         Window.addWindowListener((x, y, aspect) -> recreateFbo());
     }
@@ -74,12 +114,50 @@ public class ShadowLight {
      * (Re)creating shadow map fbo
      */
     private void recreateFbo() {
-        shadowMap = new FrameBufferObject((int) (Window.getWidth() * quality), (int) (Window.getHeight() * quality),
-                false);
+        cascadeSize = Math.max(1, (int) (Window.getHeight() * quality));
+        shadowMap = new FrameBufferObject(cascadeSize * cascades.length, cascadeSize, false);
+
+        // Static shadow maps cover a bigger area with the same texel size
+        int maxSize = GL11.glGetInteger(GL11.GL_MAX_TEXTURE_SIZE);
+        staticSize = Math.min(maxSize, Math.max(cascadeSize, Math.round(cascadeSize * STATIC_CACHE_SCALE)));
+        staticShadowMaps = new FrameBufferObject[cascades.length];
+        for (int i = 0; i < cascades.length; i++) {
+            staticShadowMaps[i] = new FrameBufferObject(staticSize, staticSize, false);
+            setNearestFilter(staticShadowMaps[i].getDepthAttachment());
+        }
+        invalidateStaticShadows();
+
+        // Linear filtering would blend depths across cascade borders, the light
+        // shader filters the shadow map itself
+        setNearestFilter(shadowMap.getDepthAttachment());
     }
 
     /**
-     * Setting the quality of the shadows
+     * Setting the filter of a texture to nearest neighbour
+     *
+     * @param texture Texture to set filter of
+     */
+    private static void setNearestFilter(int texture) {
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, texture);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+    }
+
+    /**
+     * Invalidates the cached shadows of the static entities, so they get
+     * rendered again in the next frame. Called by the shadow map renderer, when
+     * the static entities changed.
+     */
+    public void invalidateStaticShadows() {
+        for (ShadowCascade cascade : cascades) {
+            cascade.invalidateStatic();
+        }
+    }
+
+    /**
+     * Setting the quality of the shadows. The resolution of each cascade is the
+     * window height multiplied with the quality.
      *
      * @param quality New shadow quality
      */
@@ -89,51 +167,218 @@ public class ShadowLight {
     }
 
     /**
-     * Getting the view camera of the shadow light
+     * Setting the split scheme of the cascades.
      *
-     * @return Read/Writeable camera of the lights view
+     * @param splitLambda Blend factor between uniform (0) and logarithmic (1)
+     *                    splits
      */
-    public Camera getLightsView() {
-        return lightsView;
+    public void setSplitLambda(float splitLambda) {
+        this.splitLambda = splitLambda;
     }
 
     /**
-     * Updating shadow maps view projection matrix
+     * @param distance New view distance, the shadows are rendered to
      */
-    public void updateVpMat() {
-        vpMat.setIdentity();
-        vpMat.m00 = 2.0f / width;
-        vpMat.m11 = 2.0f / height;
-        vpMat.m22 = -2.0f / far;
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+
+    /**
+     * Fitting the cascades around the view frustum of the camera. Every cascade
+     * gets fitted around the bounding sphere of its frustum slice, so its size
+     * does not change when the camera rotates, and is snapped to shadow map
+     * texels, to avoid shimmering when the camera moves. Does not allocate any
+     * memory.
+     *
+     * @param cam       Camera to fit the cascades to
+     * @param direction Direction of the light/shadows
+     */
+    public void update(Camera cam, Vector3f direction) {
+        calcRotation(direction);
+
+        // Camera basis from the inverse view matrix
+        Matrix4f invView = cam.getInverseViewMatrix();
+        float fx = -invView.m02, fy = -invView.m12, fz = -invView.m22;
+        float px = invView.m03, py = invView.m13, pz = invView.m23;
+
+        // Half extents of the frustum at a depth of 1
+        float tanX = 1.0f / cam.getProjectionMatrix().m00;
+        float tanY = 1.0f / cam.getProjectionMatrix().m11;
+
+        float near = cam.getNearPlane();
+        float far = Math.min(distance, cam.getFarPlane());
+        float splitNear = near;
 
-        lightsView.updateViewMatrix();
-        vpMat.mul(lightsView.getViewMatrix());
+        for (int i = 0; i < cascades.length; i++) {
+            float splitFar = calcSplit(i + 1, near, far);
+
+            // Bounding sphere of the frustum slice, rounded to avoid flickering
+            float center = (splitNear + splitFar) * 0.5f;
+            float radius = (float) Math.sqrt(Math.max(calcCornerDistanceSq(splitNear, center, tanX, tanY),
+                    calcCornerDistanceSq(splitFar, center, tanX, tanY)));
+            radius = (float) Math.ceil(radius * 16.0f) / 16.0f;
+
+            float cx = px + fx * center, cy = py + fy * center, cz = pz + fz * center;
+
+            // Center in light space snapped to the texel grid
+            float texel = radius * 2.0f / cascadeSize;
+            float lx = (float) Math.floor((rotation[0] * cx + rotation[1] * cy + rotation[2] * cz) / texel) * texel;
+            float ly = (float) Math.floor((rotation[3] * cx + rotation[4] * cy + rotation[5] * cz) / texel) * texel;
+            float lz = rotation[6] * cx + rotation[7] * cy + rotation[8] * cz;
+
+            cascades[i].set(rotation, lx, ly, radius, lz - radius, lz + radius + CASTER_OFFSET, splitFar);
+            storeMatrix(i, cascades[i].getVpMat());
+            cascadeSplits[i] = splitFar;
+
+            splitNear = splitFar;
+        }
     }
 
     /**
-     * @return View projection matrix of the shadow light
+     * Calculating the rows of the light rotation. The light looks along the
+     * direction.
+     *
+     * @param direction Direction of the light
      */
-    public Matrix4f getVpMat() {
-        return vpMat;
+    private void calcRotation(Vector3f direction) {
+        float length = direction.length();
+        float dx = direction.x / length, dy = direction.y / length, dz = direction.z / length;
+
+        // Up vector, that is not parallel to the direction
+        float ux = 0.0f, uy = 1.0f, uz = 0.0f;
+        if (Math.abs(dy) > 0.99f) {
+            ux = 1.0f;
+            uy = 0.0f;
+        }
+
+        // Side = direction x up
+        float sx = dy * uz - dz * uy, sy = dz * ux - dx * uz, sz = dx * uy - dy * ux;
+        float sLength = (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx /= sLength;
+        sy /= sLength;
+        sz /= sLength;
+
+        rotation[0] = sx;
+        rotation[1] = sy;
+        rotation[2] = sz;
+        rotation[3] = sy * dz - sz * dy;
+        rotation[4] = sz * dx - sx * dz;
+        rotation[5] = sx * dy - sy * dx;
+        rotation[6] = -dx;
+        rotation[7] = -dy;
+        rotation[8] = -dz;
     }
 
     /**
-     * @return Fbo that stores the actual shadow map from lights position
+     * Calculating the view depth of a cascade split
+     *
+     * @param split Index of the split (0 = near plane, cascade count = far)
+     * @param near  Near plane of the camera
+     * @param far   Shadow distance
+     * @return View depth of the split
      */
-    public FrameBufferObject getShadowMap() {
-        return shadowMap;
+    private float calcSplit(int split, float near, float far) {
+        float t = (float) split / cascades.length;
+        float log = near * (float) Math.pow(far / near, t);
+        float uniform = near + (far - near) * t;
+        return splitLambda * log + (1.0f - splitLambda) * uniform;
     }
 
     /**
-     * Changes the dimension of the shadow lights view frustum
+     * Calculating the squared distance from the center of a frustum slice to
+     * the corners of the slice at a specific depth.
      *
-     * @param w Width of the frustum
-     * @param h Height of the frustum
-     * @param f Far plane/Length of the frustum
-     */
-    public void setDimension(float w, float h, float f) {
-        this.width = w;
-        this.height = h;
-        this.far = f;
+     * @param depth  View depth of the corners
+     * @param center View depth of the slice center
+     * @param tanX   Horizontal half extent of the frustum at depth 1
+     * @param tanY   Vertical half extent of the frustum at depth 1
+     * @return Squared distance
+     */
+    private static float calcCornerDistanceSq(float depth, float center, float tanX, float tanY) {
+        float x = depth * tanX, y = depth * tanY, z = depth - center;
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Storing a cascade matrix column major into the cascade matrices array
+     *
+     * @param cascade Index of the cascade
+     * @param mat     Matrix to store
+     */
+    private void storeMatrix(int cascade, Matrix4f mat) {
+        int o = cascade * 16;
+        cascadeMatrices[o] = mat.m00;
+        cascadeMatrices[o + 1] = mat.m10;
+        cascadeMatrices[o + 2] = mat.m20;
+        cascadeMatrices[o + 3] = mat.m30;
+        cascadeMatrices[o + 4] = mat.m01;
+        cascadeMatrices[o + 5] = mat.m11;
+        cascadeMatrices[o + 6] = mat.m21;
+        cascadeMatrices[o + 7] = mat.m31;
+        cascadeMatrices[o + 8] = mat.m02;
+        cascadeMatrices[o + 9] = mat.m12;
+        cascadeMatrices[o + 10] = mat.m22;
+        cascadeMatrices[o + 11] = mat.m32;
+        cascadeMatrices[o + 12] = mat.m03;
+        cascadeMatrices[o + 13] = mat.m13;
+        cascadeMatrices[o + 14] = mat.m23;
+        cascadeMatrices[o + 15] = mat.m33;
+    }
+
+    /**
+     * @return Cascades of the shadow light
+     */
+    public ShadowCascade[] getCascades() {
+        return cascades;
+    }
+
+    /**
+     * @return Resolution of one cascade in the shadow map in pixels
+     */
+    public int getCascadeSize() {
+        return cascadeSize;
+    }
+
+    /**
+     * @return View projection matrices of all cascades, column major
+     */
+    public float[] getCascadeMatrices() {
+        return cascadeMatrices;
+    }
+
+    /**
+     * @return View depths, where the cascades end
+     */
+    public float[] getCascadeSplits() {
+        return cascadeSplits;
+    }
+
+    /**
+     * @param cascade Index of the cascade
+     * @return Fbo that caches the shadows of the static entities of the cascade
+     */
+    public FrameBufferObject getStaticShadowMap(int cascade) {
+        return staticShadowMaps[cascade];
+    }
+
+    /**
+     * @return Resolution of one static shadow map in pixels
+     */
+    public int getStaticSize() {
+        return staticSize;
+    }
+
+    /**
+     * @return Size of the static shadow boxes relative to their cascades
+     */
+    public float getStaticScale() {
+        return (float) staticSize / cascadeSize;
+    }
+
+    /**
+     * @return Fbo that stores the shadow maps of all cascades side by side
+     */
+    public FrameBufferObject getShadowMap() {
+        return shadowMap;
     }
 }
@@ -29,12 +29,15 @@ package de.coreengine.rendering.renderable.terrain;
 
 import com.bulletphysics.collision.shapes.CollisionShape;
 import de.coreengine.rendering.renderable.Grassland;
+import de.coreengine.asset.TextureData;
 import de.coreengine.util.Configuration;
 import de.coreengine.util.bullet.TerrainShapeCreator;
 
 import javax.vecmath.Matrix4f;
 import javax.vecmath.Vector2f;
 import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Class that represents a terrain in the scene
@@ -53,7 +56,10 @@ public class Terrain {
     private final Matrix4f transMat;
 
     // Terrains configuration
-    private TerrainConfig config = new TerrainConfig();
+    private TerrainConfig config;
+
+    // Neighbouring terrain tiles, the quadtree is stitched to
+    private Terrain neighbourLeft = null, neighbourRight = null, neighbourTop = null, neighbourBottom = null;
 
     // Grassland of the terrain
     private Grassland grassland = new Grassland();
@@ -64,10 +70,35 @@ public class Terrain {
     // Collision shape of the terrain
     private CollisionShape shape;
 
+    // Cached leafs of the quadtree, rebuilt when a node changes its split state
+    private final List<TerrainNode> leaves = new ArrayList<>();
+    private boolean leavesDirty = true;
+
+    // Position, transformation and lod ranges of the last alignment and the
+    // distance the position can move until the quadtree changes
+    private final Vector3f alignPos = new Vector3f();
+    private float alignScale, alignX, alignZ, alignMargin;
+    private float[] alignLodRanges = null;
+
+    // Cpu side height field and the height map it was decoded from
+    private TerrainHeightField heightField = null;
+    private TextureData heightFieldSource = null;
+
     /**
      * Creates a new terrain with default values, defined in the configuration file
      */
     public Terrain() {
+        this(new TerrainConfig());
+    }
+
+    /**
+     * Creates a new terrain with a configuration. The depth of the quadtree is
+     * defined by the lod ranges of this configuration.
+     * 
+     * @param config Configuration of the terrain
+     */
+    public Terrain(TerrainConfig config) {
+        this.config = config;
 
         // Prepare transformation matrix and set default size
         transMat = new Matrix4f();
@@ -105,12 +136,184 @@ public class Terrain {
 
     /**
      * Aligning the terrain quadtree to the position pos. At pos the terrain has the
-     * highest lod. From pos the lod decreases.
+     * highest lod. From pos the lod decreases.<br>
+     * The quadtree is only updated, if pos could have crossed a lod range since
+     * the last alignment or the terrain was moved or scaled.
      * 
      * @param pos Position to align to
      */
     public void alignTo(Vector3f pos) {
-        terrainQuadtree.alignTo(pos);
+        float dx = pos.x - alignPos.x, dz = pos.z - alignPos.z;
+        if (alignLodRanges == config.getLodRanges() && alignScale == getScale() && alignX == getX()
+                && alignZ == getZ() && dx * dx + dz * dz < alignMargin * alignMargin)
+            return;
+
+        alignMargin = terrainQuadtree.alignTo(pos);
+        alignPos.set(pos);
+        alignScale = getScale();
+        alignX = getX();
+        alignZ = getZ();
+        alignLodRanges = config.getLodRanges();
+    }
+
+    /**
+     * Getting the leafs of the terrain quadtree, that have to be rendered. The
+     * list and the leafs morph flags are cached and only rebuilt, when the
+     * quadtree changed since the last call.
+     * 
+     * @return Leafs of the terrain quadtree, do not modify
+     */
+    public List<TerrainNode> getLeaves() {
+        getHeightField();
+
+        if (leavesDirty) {
+            leaves.clear();
+            terrainQuadtree.collectLeaves(leaves);
+            leavesDirty = false;
+        }
+        return leaves;
+    }
+
+    /**
+     * Getting the cpu side height field of the terrain. It is decoded from the
+     * height map of the config, when a new height map was set, and the height
+     * bounds of the quadtree nodes are recalculated from it.
+     * 
+     * @return Height field of the current height map
+     */
+    public TerrainHeightField getHeightField() {
+        TextureData heightMap = config.getHeightMap();
+        if (heightMap != heightFieldSource) {
+            heightField = new TerrainHeightField(heightMap);
+            heightFieldSource = heightMap;
+            terrainQuadtree.calcHeightBounds(heightField, new float[2]);
+        }
+        return heightField;
+    }
+
+    /**
+     * Getting the bilinear interpolated terrain height at a world position.
+     * Positions outside the terrain are clamped to its border.
+     * 
+     * @param x World x position
+     * @param z World z position
+     * @return World y position of the terrain surface
+     */
+    public float getHeight(float x, float z) {
+        float scale = getScale();
+        float h = getHeightField().getHeight((x - getX()) / scale, (z - getZ()) / scale);
+        return getY() + h * config.getAmplitude() * scale;
+    }
+
+    /**
+     * Getting the terrain surface normal at a world position
+     * 
+     * @param x    World x position
+     * @param z    World z position
+     * @param dest Vector to store the normal in
+     * @return dest
+     */
+    public Vector3f getNormal(float x, float z, Vector3f dest) {
+        float scale = getScale();
+        return getHeightField().getNormal((x - getX()) / scale, (z - getZ()) / scale, config.getAmplitude(), dest);
+    }
+
+    /**
+     * Casting a ray in world space against the terrain surface. The direction
+     * does not need to be normalized, the returned distance is in units of the
+     * direction length. Not thread safe.
+     * 
+     * @param ox      Ray origin x
+     * @param oy      Ray origin y
+     * @param oz      Ray origin z
+     * @param dx      Ray direction x
+     * @param dy      Ray direction y
+     * @param dz      Ray direction z
+     * @param maxDist Max distance of the ray
+     * @return Distance to the nearest hit or a negative value, if nothing was hit
+     */
+    public float raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDist) {
+        TerrainHeightField field = getHeightField();
+        float scale = getScale();
+        float heightScale = config.getAmplitude() * scale;
+
+        // Flat terrain
+        if (heightScale == 0.0f) {
+            float t = (getY() - oy) / dy;
+            if (t < 0.0f || t > maxDist || Float.isNaN(t))
+                return -1.0f;
+
+            float u = (ox + dx * t - getX()) / scale, v = (oz + dz * t - getZ()) / scale;
+            return u >= 0.0f && u <= 1.0f && v >= 0.0f && v <= 1.0f ? t : -1.0f;
+        }
+
+        // Transform ray into texel space, the distance stays the same
+        float texelsX = field.getWidth() / scale, texelsZ = field.getHeight() / scale;
+        return field.raycastTexelSpace((ox - getX()) * texelsX - 0.5f, (oy - getY()) / heightScale,
+                (oz - getZ()) * texelsZ - 0.5f, dx * texelsX, dy / heightScale, dz * texelsZ, maxDist);
+    }
+
+    /**
+     * Setting the neighbouring terrain tiles of the same size. The lod of the
+     * quadtree leafs at the borders is then stitched to the neighbours leafs.
+     * Left is -x, top is +z.
+     * 
+     * @param left   Left neighbour or null
+     * @param right  Right neighbour or null
+     * @param top    Top neighbour or null
+     * @param bottom Bottom neighbour or null
+     */
+    public void setNeighbours(Terrain left, Terrain right, Terrain top, Terrain bottom) {
+        neighbourLeft = left;
+        neighbourRight = right;
+        neighbourTop = top;
+        neighbourBottom = bottom;
+        invalidateLeaves();
+    }
+
+    /**
+     * @return Left neighbour terrain tile or null
+     */
+    public Terrain getNeighbourLeft() {
+        return neighbourLeft;
+    }
+
+    /**
+     * @return Right neighbour terrain tile or null
+     */
+    public Terrain getNeighbourRight() {
+        return neighbourRight;
+    }
+
+    /**
+     * @return Top neighbour terrain tile or null
+     */
+    public Terrain getNeighbourTop() {
+        return neighbourTop;
+    }
+
+    /**
+     * @return Bottom neighbour terrain tile or null
+     */
+    public Terrain getNeighbourBottom() {
+        return neighbourBottom;
+    }
+
+    /**
+     * Marking the cached leaf list of this terrain and its neighbours as
+     * outdated, because the morph flags of their border leafs depend on each
+     * other
+     */
+    void invalidateLeaves() {
+        leavesDirty = true;
+        if (neighbourLeft != null)
+            neighbourLeft.leavesDirty = true;
+        if (neighbourRight != null)
+            neighbourRight.leavesDirty = true;
+        if (neighbourTop != null)
+            neighbourTop.leavesDirty = true;
+        if (neighbourBottom != null)
+            neighbourBottom.leavesDirty = true;
     }
 
     /**
@@ -213,7 +416,15 @@ public class Terrain {
     }
 
     /**
-     * Recalculate the terrain collision shape
+     * Recalculate the terrain collision shape as height field shape, that
+     * triangulates the height map on demand in full resolution
+     */
+    public void recalcCollisionShape() {
+        shape = TerrainShapeCreator.createHeightfieldShape(this);
+    }
+
+    /**
+     * Recalculate the terrain collision shape as triangle mesh with a bvh
      * 
      * @param resolution Number of quads per row/column of the shape
      */
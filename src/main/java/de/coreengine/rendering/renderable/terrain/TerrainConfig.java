@@ -86,6 +86,22 @@ public class TerrainConfig {
         heightMap.key = Material.TEXTURE_BLACK;
     }
 
+    /**
+     * Creates a copy of a terrain config. The texture pack and height map are
+     * shared, the lod ranges and tesselation area are copied.
+     * 
+     * @param base Config to copy
+     */
+    public TerrainConfig(TerrainConfig base) {
+        texturePack = base.texturePack;
+        lightMap = base.lightMap;
+        heightMap = base.heightMap;
+        blendMap = base.blendMap;
+        lodRanges = base.lodRanges.clone();
+        amplitude = base.amplitude;
+        tesselationArea.set(base.tesselationArea);
+    }
+
     /**
      * Getting this terrain lod stages as float[]
      * 
@@ -0,0 +1,475 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderable.terrain;
+
+import de.coreengine.asset.TextureData;
+
+import javax.vecmath.Vector3f;
+import java.nio.ByteBuffer;
+
+/**
+ * CPU side copy of a terrain height map for fast height queries. The height
+ * map is decoded once into floats and a min/max pyramid over its cells is
+ * built. A cell is the square between four neighbouring texel centers, so the
+ * height inside a cell is the bilinear interpolation of its corners, like the
+ * linear filtered height map on the gpu.<br>
+ * <br>
+ * Positions are in terrain space (0 - 1 on both axes), heights are height map
+ * values (0 - 1), that still have to be scaled by the terrain amplitude.
+ *
+ * @author Darius Dinger
+ */
+public class TerrainHeightField {
+
+    // Size of the height map in texels and count of cells per row/column
+    private final int width, height;
+    private final int cellsX, cellsY;
+
+    // Decoded height map values, row by row
+    private final float[] heights;
+
+    // Min and max height of the cells per pyramid level (level 0 = single cells)
+    private final float[][] minLevels, maxLevels;
+    private final int[] levelWidths, levelHeights;
+
+    // Ray of the current raycast in texel space, exit distance of the last box
+    // test and the nearest hit
+    private float rayOx, rayOy, rayOz, rayDx, rayDy, rayDz, rayInvX, rayInvY, rayInvZ, rayExit, rayBest;
+
+    // Children entry distances per pyramid level of the current raycast
+    private final int[][] childXs, childYs;
+    private final float[][] childTs;
+
+    /**
+     * Creating a height field from the red channel of a rgba height map. A height
+     * map without data results in a flat height field.
+     *
+     * @param heightMap Height map to decode
+     */
+    public TerrainHeightField(TextureData heightMap) {
+        this(decode(heightMap), heightMap.getData() == null ? 1 : heightMap.getWidth(),
+                heightMap.getData() == null ? 1 : heightMap.getHeight());
+    }
+
+    /**
+     * Creating a height field from height values
+     *
+     * @param heights Height values (0 - 1), row by row
+     * @param width   Height values per row
+     * @param height  Count of rows
+     */
+    public TerrainHeightField(float[] heights, int width, int height) {
+        if (width < 1 || height < 1 || heights.length < width * height)
+            throw new IllegalArgumentException("Height field needs at least width * height (> 0) values!");
+
+        this.heights = heights;
+        this.width = width;
+        this.height = height;
+        this.cellsX = Math.max(1, width - 1);
+        this.cellsY = Math.max(1, height - 1);
+
+        // Count pyramid levels
+        int levels = 1;
+        for (int w = cellsX, h = cellsY; w > 1 || h > 1; w = (w + 1) / 2, h = (h + 1) / 2) {
+            levels++;
+        }
+        minLevels = new float[levels][];
+        maxLevels = new float[levels][];
+        levelWidths = new int[levels];
+        levelHeights = new int[levels];
+        childXs = new int[levels][4];
+        childYs = new int[levels][4];
+        childTs = new float[levels][4];
+
+        // Level 0 from the cell corners
+        float[] min = new float[cellsX * cellsY], max = new float[cellsX * cellsY];
+        for (int y = 0; y < cellsY; y++) {
+            for (int x = 0; x < cellsX; x++) {
+                float h00 = getTexel(x, y), h10 = getTexel(x + 1, y);
+                float h01 = getTexel(x, y + 1), h11 = getTexel(x + 1, y + 1);
+                min[x + y * cellsX] = Math.min(Math.min(h00, h10), Math.min(h01, h11));
+                max[x + y * cellsX] = Math.max(Math.max(h00, h10), Math.max(h01, h11));
+            }
+        }
+        minLevels[0] = min;
+        maxLevels[0] = max;
+        levelWidths[0] = cellsX;
+        levelHeights[0] = cellsY;
+
+        // Higher levels from 2x2 cells of the level below
+        for (int l = 1; l < levels; l++) {
+            int pw = levelWidths[l - 1], ph = levelHeights[l - 1];
+            int w = (pw + 1) / 2, h = (ph + 1) / 2;
+            float[] pmin = minLevels[l - 1], pmax = maxLevels[l - 1];
+            min = new float[w * h];
+            max = new float[w * h];
+
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    float mn = Float.POSITIVE_INFINITY, mx = Float.NEGATIVE_INFINITY;
+                    for (int cy = y * 2; cy < Math.min(y * 2 + 2, ph); cy++) {
+                        for (int cx = x * 2; cx < Math.min(x * 2 + 2, pw); cx++) {
+                            mn = Math.min(mn, pmin[cx + cy * pw]);
+                            mx = Math.max(mx, pmax[cx + cy * pw]);
+                        }
+                    }
+                    min[x + y * w] = mn;
+                    max[x + y * w] = mx;
+                }
+            }
+
+            minLevels[l] = min;
+            maxLevels[l] = max;
+            levelWidths[l] = w;
+            levelHeights[l] = h;
+        }
+    }
+
+    /**
+     * Decoding the red channel of a rgba height map into floats
+     *
+     * @param heightMap Height map to decode
+     * @return Height values (0 - 1), row by row
+     */
+    private static float[] decode(TextureData heightMap) {
+        ByteBuffer data = heightMap.getData();
+        if (data == null)
+            return new float[1];
+
+        int count = heightMap.getWidth() * heightMap.getHeight();
+        float[] heights = new float[count];
+        for (int i = 0; i < count; i++) {
+            heights[i] = (data.get(i * 4) & 0xFF) / 255.0f;
+        }
+        return heights;
+    }
+
+    /**
+     * @param x Texel x, clamped to the height map
+     * @param y Texel y, clamped to the height map
+     * @return Height value of the texel
+     */
+    public float getTexel(int x, int y) {
+        x = Math.max(0, Math.min(width - 1, x));
+        y = Math.max(0, Math.min(height - 1, y));
+        return heights[x + y * width];
+    }
+
+    /**
+     * Getting the bilinear interpolated height at a terrain space position.
+     * Positions outside the terrain are clamped to its border.
+     *
+     * @param u Terrain space x position (0 - 1)
+     * @param v Terrain space z position (0 - 1)
+     * @return Height map value at the position (0 - 1)
+     */
+    public float getHeight(float u, float v) {
+        float fx = Math.max(0.0f, Math.min(width - 1, u * width - 0.5f));
+        float fy = Math.max(0.0f, Math.min(height - 1, v * height - 0.5f));
+        int x = Math.min((int) fx, cellsX - 1), y = Math.min((int) fy, cellsY - 1);
+        float lx = fx - x, ly = fy - y;
+
+        float h00 = getTexel(x, y), h10 = getTexel(x + 1, y);
+        float h01 = getTexel(x, y + 1), h11 = getTexel(x + 1, y + 1);
+        float h0 = h00 + (h10 - h00) * lx;
+        float h1 = h01 + (h11 - h01) * lx;
+        return h0 + (h1 - h0) * ly;
+    }
+
+    /**
+     * Calculating the surface normal at a terrain space position by central
+     * differences one texel apart
+     *
+     * @param u         Terrain space x position (0 - 1)
+     * @param v         Terrain space z position (0 - 1)
+     * @param amplitude Amplitude of the terrain
+     * @param dest      Vector to store the normalized normal in
+     * @return dest
+     */
+    public Vector3f getNormal(float u, float v, float amplitude, Vector3f dest) {
+        float eu = 1.0f / width, ev = 1.0f / height;
+        float dhdu = (getHeight(u + eu, v) - getHeight(u - eu, v)) / (2.0f * eu);
+        float dhdv = (getHeight(u, v + ev) - getHeight(u, v - ev)) / (2.0f * ev);
+
+        dest.set(-dhdu * amplitude, 1.0f, -dhdv * amplitude);
+        dest.normalize();
+        return dest;
+    }
+
+    /**
+     * Getting conservative bounds of the heights in a terrain space area. Uses
+     * the lowest pyramid level, where the area covers at most 2x2 cells.
+     *
+     * @param u0   Min terrain space x of the area
+     * @param v0   Min terrain space z of the area
+     * @param u1   Max terrain space x of the area
+     * @param v1   Max terrain space z of the area
+     * @param dest Array to store the min (index 0) and max (index 1) height in
+     * @return dest
+     */
+    public float[] getBounds(float u0, float v0, float u1, float v1, float[] dest) {
+        int x0 = toCell(u0 * width - 0.5f, cellsX), x1 = toCell(u1 * width - 0.5f, cellsX);
+        int y0 = toCell(v0 * height - 0.5f, cellsY), y1 = toCell(v1 * height - 0.5f, cellsY);
+
+        int l = 0;
+        while (l < minLevels.length - 1 && ((x1 >> l) - (x0 >> l) > 1 || (y1 >> l) - (y0 >> l) > 1)) {
+            l++;
+        }
+
+        float mn = Float.POSITIVE_INFINITY, mx = Float.NEGATIVE_INFINITY;
+        int w = levelWidths[l];
+        for (int y = y0 >> l; y <= y1 >> l; y++) {
+            for (int x = x0 >> l; x <= x1 >> l; x++) {
+                mn = Math.min(mn, minLevels[l][x + y * w]);
+                mx = Math.max(mx, maxLevels[l][x + y * w]);
+            }
+        }
+
+        dest[0] = mn;
+        dest[1] = mx;
+        return dest;
+    }
+
+    /**
+     * @param f     Texel space coordinate
+     * @param cells Count of cells on the axis
+     * @return Clamped index of the cell, that contains the coordinate
+     */
+    private static int toCell(float f, int cells) {
+        return Math.max(0, Math.min(cells - 1, (int) Math.floor(f)));
+    }
+
+    /**
+     * Casting a ray against the height field in texel space (x and z in texels
+     * from the first texel center, y in height map values). The pyramid is
+     * traversed front to back and only the cells the ray can hit are tested
+     * exactly against their bilinear surface. The half texel border outside the
+     * texel centers is not tested. Not thread safe.
+     *
+     * @param ox      Ray origin x
+     * @param oy      Ray origin y
+     * @param oz      Ray origin z
+     * @param dx      Ray direction x
+     * @param dy      Ray direction y
+     * @param dz      Ray direction z
+     * @param maxDist Max distance of the ray, in units of the direction length
+     * @return Distance to the nearest hit or a negative value, if nothing was hit
+     */
+    public float raycastTexelSpace(float ox, float oy, float oz, float dx, float dy, float dz, float maxDist) {
+        rayOx = ox;
+        rayOy = oy;
+        rayOz = oz;
+        rayDx = dx;
+        rayDy = dy;
+        rayDz = dz;
+        rayInvX = 1.0f / dx;
+        rayInvY = 1.0f / dy;
+        rayInvZ = 1.0f / dz;
+        rayBest = maxDist;
+
+        int top = minLevels.length - 1;
+        boolean hit = false;
+        if (enterNode(top, 0, 0) <= maxDist)
+            hit = raycastNode(top, 0, 0);
+        return hit ? rayBest : -1.0f;
+    }
+
+    /**
+     * Intersecting the current ray with a pyramid node and its children
+     *
+     * @param l Level of the node
+     * @param x X index of the node in its level
+     * @param y Y index of the node in its level
+     * @return True, if a hit nearer than the previous best was found
+     */
+    private boolean raycastNode(int l, int x, int y) {
+        if (l == 0)
+            return raycastCell(x, y);
+
+        // Entry distances of the existing children
+        int cl = l - 1, cw = levelWidths[cl], ch = levelHeights[cl];
+        int[] childX = childXs[l], childY = childYs[l];
+        float[] childT = childTs[l];
+        int count = 0;
+        for (int cy = y * 2; cy < Math.min(y * 2 + 2, ch); cy++) {
+            for (int cx = x * 2; cx < Math.min(x * 2 + 2, cw); cx++) {
+                float t = enterNode(cl, cx, cy);
+                if (t > rayBest)
+                    continue;
+
+                // Insert sorted by entry distance
+                int i = count++;
+                while (i > 0 && childT[i - 1] > t) {
+                    childT[i] = childT[i - 1];
+                    childX[i] = childX[i - 1];
+                    childY[i] = childY[i - 1];
+                    i--;
+                }
+                childT[i] = t;
+                childX[i] = cx;
+                childY[i] = cy;
+            }
+        }
+
+        // Front to back, the first hit is the nearest of all farther children
+        boolean hit = false;
+        for (int i = 0; i < count; i++) {
+            if (childT[i] > rayBest)
+                break;
+            hit |= raycastNode(cl, childX[i], childY[i]);
+        }
+        return hit;
+    }
+
+    /**
+     * Calculating the entry distance of the current ray into the bounding box of
+     * a pyramid node
+     *
+     * @param l Level of the node
+     * @param x X index of the node in its level
+     * @param y Y index of the node in its level
+     * @return Entry distance or positive infinity, if the ray misses the box
+     */
+    private float enterNode(int l, int x, int y) {
+        float minX = x << l, maxX = Math.min((x + 1) << l, cellsX);
+        float minZ = y << l, maxZ = Math.min((y + 1) << l, cellsY);
+        int i = x + y * levelWidths[l];
+        return enterBox(minX, minLevels[l][i], minZ, maxX, maxLevels[l][i], maxZ);
+    }
+
+    /**
+     * Slab test of the current ray against a box. The exit distance is stored in
+     * rayExit. An axis the ray is parallel to does not limit the distance, if the
+     * origin is inside the slab of the axis, otherwise the box is missed.
+     *
+     * @param minX Min x of the box
+     * @param minY Min y of the box
+     * @param minZ Min z of the box
+     * @param maxX Max x of the box
+     * @param maxY Max y of the box
+     * @param maxZ Max z of the box
+     * @return Entry distance or positive infinity, if the ray misses the box
+     */
+    private float enterBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float enter = 0.0f, leave = Float.POSITIVE_INFINITY;
+
+        if (rayDx != 0.0f) {
+            float t0 = (minX - rayOx) * rayInvX, t1 = (maxX - rayOx) * rayInvX;
+            enter = Math.max(enter, Math.min(t0, t1));
+            leave = Math.min(leave, Math.max(t0, t1));
+        } else if (rayOx < minX || rayOx > maxX)
+            return Float.POSITIVE_INFINITY;
+
+        if (rayDy != 0.0f) {
+            float t0 = (minY - rayOy) * rayInvY, t1 = (maxY - rayOy) * rayInvY;
+            enter = Math.max(enter, Math.min(t0, t1));
+            leave = Math.min(leave, Math.max(t0, t1));
+        } else if (rayOy < minY || rayOy > maxY)
+            return Float.POSITIVE_INFINITY;
+
+        if (rayDz != 0.0f) {
+            float t0 = (minZ - rayOz) * rayInvZ, t1 = (maxZ - rayOz) * rayInvZ;
+            enter = Math.max(enter, Math.min(t0, t1));
+            leave = Math.min(leave, Math.max(t0, t1));
+        } else if (rayOz < minZ || rayOz > maxZ)
+            return Float.POSITIVE_INFINITY;
+
+        rayExit = leave;
+        return enter <= leave ? enter : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Intersecting the current ray with the bilinear surface of a cell. Along the
+     * ray the surface height is a quadratic function, so the intersection is
+     * solved exactly.
+     *
+     * @param x X index of the cell
+     * @param y Y index of the cell
+     * @return True, if a hit nearer than the previous best was found
+     */
+    private boolean raycastCell(int x, int y) {
+        int i = x + y * cellsX;
+        float t0 = enterBox(x, minLevels[0][i], y, x + 1, maxLevels[0][i], y + 1);
+        float t1 = Math.min(rayExit, rayBest);
+        if (t0 > t1)
+            return false;
+
+        // Height in the cell: a + b * lx + c * ly + d * lx * ly
+        float h00 = getTexel(x, y), h10 = getTexel(x + 1, y);
+        float h01 = getTexel(x, y + 1), h11 = getTexel(x + 1, y + 1);
+        float a = h00, b = h10 - h00, c = h01 - h00, d = h00 - h10 - h01 + h11;
+
+        // Ray height minus surface height: q2 * t^2 + q1 * t + q0
+        float lx = rayOx - x, ly = rayOz - y;
+        float q2 = -d * rayDx * rayDz;
+        float q1 = rayDy - (b * rayDx + c * rayDz + d * (lx * rayDz + ly * rayDx));
+        float q0 = rayOy - (a + b * lx + c * ly + d * lx * ly);
+
+        // Ray already below the surface when entering the cell
+        if (q0 + t0 * (q1 + t0 * q2) <= 0.0f) {
+            rayBest = t0;
+            return true;
+        }
+
+        float t;
+        if (Math.abs(q2) < 1e-12f) {
+            if (q1 == 0.0f)
+                return false;
+            t = -q0 / q1;
+        } else {
+            float disc = q1 * q1 - 4.0f * q2 * q0;
+            if (disc < 0.0f)
+                return false;
+
+            float sqrt = (float) Math.sqrt(disc);
+            float r0 = (-q1 - sqrt) / (2.0f * q2), r1 = (-q1 + sqrt) / (2.0f * q2);
+            float first = Math.min(r0, r1), second = Math.max(r0, r1);
+            t = first >= t0 ? first : second;
+        }
+
+        if (t < t0 || t > t1)
+            return false;
+
+        rayBest = t;
+        return true;
+    }
+
+    /**
+     * @return Width of the height map in texels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Height of the height map in texels
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -28,11 +28,17 @@
 package de.coreengine.rendering.renderable.terrain;
 
 import de.coreengine.asset.FileLoader;
+import de.coreengine.asset.ResourceCache;
 import de.coreengine.rendering.model.singletons.TerrainMesh;
-import de.coreengine.util.Toolbox;
+import de.coreengine.util.Logger;
 import de.coreengine.util.gl.IndexBuffer;
 import de.coreengine.util.gl.VertexArrayObject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * Class that loading the terrain mesh and its morphing levels
  *
@@ -40,102 +46,123 @@ import de.coreengine.util.gl.VertexArrayObject;
  */
 public class TerrainMeshLoader {
     private static final String MESH_FILE = "res/DefaultTerrainMesh";
+    private static final int CACHE_FORMAT = 1;
+
+    // Line prefixes of the vertices and the index lists of the morphing levels
+    private static final String[] PREFIXES = { "v", "f", "b", "t", "l", "r", "bl", "br", "tl", "tr" };
 
     /**
      * Parsing a terrain mesh from a file into a terrain mesh object with all
-     * morphing variants
+     * morphing variants. The parsed file is cached as binary blob.
      * 
      * @return Generated terrain mesh
      */
     public static TerrainMesh loadTerrainMesh() {
 
-        // Loading file into String array
-        String[] data = FileLoader.getResource(MESH_FILE, false);
-
-        // Generate empty mesh
-        VertexArrayObject meshData = new VertexArrayObject();
-
-        // Prepare data arrays
-        float[] verticesArr = new float[0];
-        int[] fullArr = new int[0];
-        int[] bottomArr = new int[0];
-        int[] topArr = new int[0];
-        int[] leftArr = new int[0];
-        int[] rightArr = new int[0];
-        int[] bottomleftArr = new int[0];
-        int[] bottomrightArr = new int[0];
-        int[] topleftArr = new int[0];
-        int[] toprightArr = new int[0];
-
-        // Parsing data lines to data arrays
-        for (String line : data) {
-            if (line.startsWith("v "))
-                verticesArr = addLineToArray(verticesArr, line);
-            else if (line.startsWith("f "))
-                fullArr = addLineToArray(fullArr, line);
-            else if (line.startsWith("b "))
-                bottomArr = addLineToArray(bottomArr, line);
-            else if (line.startsWith("t "))
-                topArr = addLineToArray(topArr, line);
-            else if (line.startsWith("l "))
-                leftArr = addLineToArray(leftArr, line);
-            else if (line.startsWith("r "))
-                rightArr = addLineToArray(rightArr, line);
-            else if (line.startsWith("bl "))
-                bottomleftArr = addLineToArray(bottomleftArr, line);
-            else if (line.startsWith("br "))
-                bottomrightArr = addLineToArray(bottomrightArr, line);
-            else if (line.startsWith("tl "))
-                topleftArr = addLineToArray(topleftArr, line);
-            else if (line.startsWith("tr "))
-                toprightArr = addLineToArray(toprightArr, line);
+        // Load vertices and index lists of the morphing levels
+        float[] verticesArr;
+        int[][] indexArrs = new int[PREFIXES.length - 1][];
+        try {
+            verticesArr = ResourceCache.load(MESH_FILE, CACHE_FORMAT, FileLoader.getResourceBytes(MESH_FILE),
+                    TerrainMeshLoader::convert, data -> decode(data, indexArrs));
+        } catch (IOException e) {
+            Logger.err("Error by loading terrain mesh", "The terrain mesh '" + MESH_FILE + "' could not be loaded!");
+            return null;
         }
 
         // Adding parsed data into mesh data vao
+        VertexArrayObject meshData = new VertexArrayObject();
         meshData.addVertexBuffer(verticesArr, 2, 0);
-        IndexBuffer full = meshData.addIndexBuffer(fullArr);
-        IndexBuffer bottom = meshData.addIndexBuffer(bottomArr);
-        IndexBuffer top = meshData.addIndexBuffer(topArr);
-        IndexBuffer left = meshData.addIndexBuffer(leftArr);
-        IndexBuffer right = meshData.addIndexBuffer(rightArr);
-        IndexBuffer bottomleft = meshData.addIndexBuffer(bottomleftArr);
-        IndexBuffer bottomright = meshData.addIndexBuffer(bottomrightArr);
-        IndexBuffer topleft = meshData.addIndexBuffer(topleftArr);
-        IndexBuffer topright = meshData.addIndexBuffer(toprightArr);
+        IndexBuffer full = meshData.addIndexBuffer(indexArrs[0]);
+        IndexBuffer bottom = meshData.addIndexBuffer(indexArrs[1]);
+        IndexBuffer top = meshData.addIndexBuffer(indexArrs[2]);
+        IndexBuffer left = meshData.addIndexBuffer(indexArrs[3]);
+        IndexBuffer right = meshData.addIndexBuffer(indexArrs[4]);
+        IndexBuffer bottomleft = meshData.addIndexBuffer(indexArrs[5]);
+        IndexBuffer bottomright = meshData.addIndexBuffer(indexArrs[6]);
+        IndexBuffer topleft = meshData.addIndexBuffer(indexArrs[7]);
+        IndexBuffer topright = meshData.addIndexBuffer(indexArrs[8]);
 
         // return new meshdata object with its vao and index buffers
         return new TerrainMesh(meshData, full, top, bottom, right, left, topleft, topright, bottomleft, bottomright);
     }
 
     /**
-     * Adding a line of floats, seperated with spaces into a float array<br>
-     * chars before the first space will be ignored!
-     * 
-     * @param openArr Array to add floats
-     * @param line    Line to split and add
-     * @return Array with added floats
+     * Converting the lines of a terrain mesh file into the binary blob.<br>
+     * <br>
+     * Format:<br>
+     * VertexCount (int) | Vertices (float[]) | FullCount (int) | Full (int[]) |
+     * BottomCount (int) | ... in the order of the prefixes
+     *
+     * @param lines Lines of the terrain mesh file
+     * @return Binary blob of the terrain mesh
+     * @throws IOException Throws if the blob could not be written
+     */
+    private static byte[] convert(String[] lines) throws IOException {
+
+        // Split lines once and count values per prefix
+        String[][] tokens = new String[lines.length][];
+        int[] prefixIds = new int[lines.length];
+        int[] counts = new int[PREFIXES.length];
+        for (int i = 0; i < lines.length; i++) {
+            tokens[i] = lines[i].split(" ");
+            prefixIds[i] = prefixId(tokens[i][0]);
+            if (prefixIds[i] >= 0)
+                counts[prefixIds[i]] += tokens[i].length - 1;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        // Write values per prefix in order of the lines
+        for (int p = 0; p < PREFIXES.length; p++) {
+            out.writeInt(counts[p]);
+            for (int i = 0; i < lines.length; i++) {
+                if (prefixIds[i] != p)
+                    continue;
+
+                for (int t = 1; t < tokens[i].length; t++) {
+                    if (p == 0)
+                        out.writeFloat(Float.parseFloat(tokens[i][t]));
+                    else
+                        out.writeInt(Integer.parseInt(tokens[i][t]));
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decoding the vertices and index lists of the morphing levels from the binary
+     * blob with bulk reads
+     *
+     * @param data      Binary blob of the terrain mesh
+     * @param indexArrs Array to store the index lists of the morphing levels in
+     * @return Decoded vertices
      */
-    private static float[] addLineToArray(float[] openArr, String line) {
-        String[] data = line.split(" ");
-        for (int i = 1; i < data.length; i++) {
-            openArr = Toolbox.addElement(openArr, Float.parseFloat(data[i]));
+    private static float[] decode(ByteBuffer data, int[][] indexArrs) {
+        float[] vertices = new float[ResourceCache.getCount(data, 4)];
+        data.asFloatBuffer().get(vertices);
+        data.position(data.position() + vertices.length * 4);
+
+        for (int i = 0; i < indexArrs.length; i++) {
+            indexArrs[i] = new int[ResourceCache.getCount(data, 4)];
+            data.asIntBuffer().get(indexArrs[i]);
+            data.position(data.position() + indexArrs[i].length * 4);
         }
-        return openArr;
+        return vertices;
     }
 
     /**
-     * Adding a line of integers, seperated with spaces into a integer array<br>
-     * chars before the first space will be ignored!
-     * 
-     * @param openArr Array to add integers
-     * @param line    Line to split and add
-     * @return Array with added integers
+     * @param prefix Prefix of a line
+     * @return Index of the prefix or -1, if the line is no data line
      */
-    private static int[] addLineToArray(int[] openArr, String line) {
-        String[] data = line.split(" ");
-        for (int i = 1; i < data.length; i++) {
-            openArr = Toolbox.addElement(openArr, Integer.parseInt(data[i]));
+    private static int prefixId(String prefix) {
+        for (int i = 0; i < PREFIXES.length; i++) {
+            if (PREFIXES[i].equals(prefix))
+                return i;
         }
-        return openArr;
+        return -1;
     }
 }
@@ -29,6 +29,7 @@ package de.coreengine.rendering.renderable.terrain;
 
 import javax.vecmath.Vector2f;
 import javax.vecmath.Vector3f;
+import java.util.List;
 
 /**
  * Class that represents one node of the terrain quadtree
@@ -40,6 +41,11 @@ public class TerrainNode {
         BL, BR, TL, TR
     }
 
+    /**
+     * Morph flags of a leaf, set if the neighbour on that side has a lower lod
+     */
+    public static final int MORPH_LEFT = 1, MORPH_RIGHT = 2, MORPH_TOP = 4, MORPH_BOTTOM = 8;
+
     // Position of the node in world space
     private final Vector2f position;
 
@@ -73,6 +79,12 @@ public class TerrainNode {
     // Buffer variables for update method
     private final Vector2f toCam = new Vector2f(), worldPos = new Vector2f();
 
+    // Min and max height map value (0 - 1) in the area of the node
+    private float minHeight = 0.0f, maxHeight = 0.0f;
+
+    // Morph flags of the node, when its a leaf
+    private int morphFlags = 0;
+
     /**
      * Creates a new terrain node and sets its position, size and lod
      * 
@@ -117,46 +129,112 @@ public class TerrainNode {
      * splits
      * 
      * @param pos Position to align to
+     * @return Distance pos can move, before a node of this subtree could change
+     *         its split state
      */
-    void alignTo(Vector3f pos) {
+    float alignTo(Vector3f pos) {
 
         // Check if the node is in the last level of the quad tree (then it cant split
         // anymore)
-        if (!lastLevel) {
+        if (lastLevel)
+            return Float.POSITIVE_INFINITY;
+
+        // Get Vector from terrain node center to camera
+        toCam.set(pos.x, pos.z);
+        worldPos.set(centerPosition);
+        worldPos.scale(terrain.getScale());
+        worldPos.x += terrain.getX();
+        worldPos.y += terrain.getZ();
+        toCam.sub(worldPos);
+
+        // Calc length of this vector (camera distance to node center) squared
+        // (performance)
+        float distanceSquared = (toCam.x * toCam.x) + (toCam.y * toCam.y);
+        float range = terrain.getConfig().getLodRanges()[lod];
+        float margin = Math.abs((float) Math.sqrt(distanceSquared) - range);
+
+        // check if distance squared exceed the lod limits squared
+        boolean wasLeaf = leaf;
+        if (distanceSquared < range * range) {
+            leaf = false;
+
+            for (TerrainNode child : childs) {
+                margin = Math.min(margin, child.alignTo(pos));
+            }
+        } else
+            leaf = true;
+
+        if (wasLeaf != leaf)
+            terrain.invalidateLeaves();
+        return margin;
+    }
 
-            // Get Vector from terrain node center to camera
-            toCam.set(pos.x, pos.z);
-            worldPos.set(centerPosition);
-            worldPos.scale(terrain.getScale());
-            worldPos.x += terrain.getX();
-            worldPos.y += terrain.getZ();
-            toCam.sub(worldPos);
-
-            // Calc length of this vector (camera distance to node center) squared
-            // (performance)
-            float distanceSquared = (toCam.x * toCam.x) + (toCam.y * toCam.y);
-
-            // check if distance squared exceed the lod limits squared
-            if (distanceSquared < terrain.getConfig().getLodRanges()[lod] * terrain.getConfig().getLodRanges()[lod]) {
-                leaf = false;
-
-                for (TerrainNode child : childs) {
-                    child.alignTo(pos);
-                }
-            } else
-                leaf = true;
+    /**
+     * Adding all leafs of this subtree to a list and calculating their morph flags
+     * 
+     * @param leaves List to add the leafs to
+     */
+    void collectLeaves(List<TerrainNode> leaves) {
+        if (!leaf) {
+            for (TerrainNode child : childs) {
+                child.collectLeaves(leaves);
+            }
+            return;
         }
+
+        // Check if neighbours lod levels are greater than the own
+        morphFlags = 0;
+        if (isLowerLod(getNeighboursGeLeft()))
+            morphFlags |= MORPH_LEFT;
+        if (isLowerLod(getNeighboursGeRight()))
+            morphFlags |= MORPH_RIGHT;
+        if (isLowerLod(getNeighboursGeTop()))
+            morphFlags |= MORPH_TOP;
+        if (isLowerLod(getNeighboursGeBottom()))
+            morphFlags |= MORPH_BOTTOM;
+
+        leaves.add(this);
+    }
+
+    /**
+     * @param neighbour Greater or equal neighbour node or null
+     * @return True, if the neighbour exists and has a lower lod than this node
+     */
+    private boolean isLowerLod(TerrainNode neighbour) {
+        return neighbour != null && neighbour.getLod() < lod;
     }
 
     /**
-     * Gets the greater or equal top neighbour node<br>
-     * returns null if its root node or neighbour is smaller
+     * Setting the min and max height map value of this subtree from the min/max
+     * pyramid of the height field
+     * 
+     * @param heightField Height field of the terrain
+     * @param bounds      Buffer array for the bounds (min, max)
+     */
+    void calcHeightBounds(TerrainHeightField heightField, float[] bounds) {
+        heightField.getBounds(position.x, position.y, position.x + size, position.y + size, bounds);
+        minHeight = bounds[0];
+        maxHeight = bounds[1];
+
+        if (!lastLevel) {
+            for (TerrainNode child : childs) {
+                child.calcHeightBounds(heightField, bounds);
+            }
+        }
+    }
+
+    /**
+     * Gets the greater or equal top neighbour node, also in the neighbouring
+     * terrain tile<br>
+     * returns null if there is no neighbour or neighbour is smaller
      * 
      * @return Top neighbour node or null
      */
     public TerrainNode getNeighboursGeTop() {
-        if (getParent() == null)
-            return null;
+        if (getParent() == null) {
+            Terrain neighbour = terrain.getNeighbourTop();
+            return neighbour == null ? null : neighbour.getTerrainQuadtree();
+        }
 
         if (getDirection() == TerrainNode.Direction.BL)
             return getParent().getChilds()[2];
@@ -174,14 +252,17 @@ public class TerrainNode {
     }
 
     /**
-     * Gets the greater or equal bottom neighbour node<br>
-     * returns null if its root node or neighbour is smaller
+     * Gets the greater or equal bottom neighbour node, also in the neighbouring
+     * terrain tile<br>
+     * returns null if there is no neighbour or neighbour is smaller
      * 
      * @return Bottom neighbour node or null
      */
     public TerrainNode getNeighboursGeBottom() {
-        if (getParent() == null)
-            return null;
+        if (getParent() == null) {
+            Terrain neighbour = terrain.getNeighbourBottom();
+            return neighbour == null ? null : neighbour.getTerrainQuadtree();
+        }
 
         if (getDirection() == TerrainNode.Direction.TL)
             return getParent().getChilds()[0];
@@ -199,14 +280,17 @@ public class TerrainNode {
     }
 
     /**
-     * Gets the greater or equal left neighbour node<br>
-     * returns null if its root node or neighbour is smaller
+     * Gets the greater or equal left neighbour node, also in the neighbouring
+     * terrain tile<br>
+     * returns null if there is no neighbour or neighbour is smaller
      * 
      * @return Left neighbour node or null
      */
     public TerrainNode getNeighboursGeLeft() {
-        if (getParent() == null)
-            return null;
+        if (getParent() == null) {
+            Terrain neighbour = terrain.getNeighbourLeft();
+            return neighbour == null ? null : neighbour.getTerrainQuadtree();
+        }
 
         if (getDirection() == TerrainNode.Direction.TR)
             return getParent().getChilds()[2];
@@ -224,14 +308,17 @@ public class TerrainNode {
     }
 
     /**
-     * Gets the greater or equal right neighbour node<br>
-     * returns null if its root node or neighbour is smaller
+     * Gets the greater or equal right neighbour node, also in the neighbouring
+     * terrain tile<br>
+     * returns null if there is no neighbour or neighbour is smaller
      * 
      * @return Right neighbour node or null
      */
     public TerrainNode getNeighboursGeRight() {
-        if (getParent() == null)
-            return null;
+        if (getParent() == null) {
+            Terrain neighbour = terrain.getNeighbourRight();
+            return neighbour == null ? null : neighbour.getTerrainQuadtree();
+        }
 
         if (getDirection() == TerrainNode.Direction.TL)
             return getParent().getChilds()[3];
@@ -302,6 +389,28 @@ public class TerrainNode {
         return dir;
     }
 
+    /**
+     * @return Min height map value (0 - 1) in the area of the node
+     */
+    public float getMinHeight() {
+        return minHeight;
+    }
+
+    /**
+     * @return Max height map value (0 - 1) in the area of the node
+     */
+    public float getMaxHeight() {
+        return maxHeight;
+    }
+
+    /**
+     * @return Morph flags (MORPH_LEFT, MORPH_RIGHT, MORPH_TOP, MORPH_BOTTOM) of the
+     *         node, calculated when the leaf list of the terrain was built
+     */
+    public int getMorphFlags() {
+        return morphFlags;
+    }
+
     /**
      * @return Parent node
      */
@@ -34,14 +34,13 @@ import de.coreengine.rendering.model.Mesh;
 import de.coreengine.rendering.programs.entity.AnimatedEntityShader;
 import de.coreengine.rendering.renderable.AnimatedEntity;
 import de.coreengine.rendering.renderable.Camera;
+import de.coreengine.util.BatchMap;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.opengl.GL11;
 
 import javax.vecmath.Matrix4f;
 import javax.vecmath.Point3f;
-import javax.vecmath.Vector4f;
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -53,29 +52,45 @@ public class AnimatedEntityRenderer {
 
     private AnimatedEntityShader shader = new AnimatedEntityShader();
 
+    // Reused objects for the skeleton debug rendering
+    private final Matrix4f skeletonMVP = new Matrix4f();
+    private final Point3f jointPos = new Point3f();
+
+    /**
+     * Uploading the skinning palettes of all animated entities of the frame. Must
+     * be called once per frame before the first render pass.
+     *
+     * @param entities Entity list of the frame
+     */
+    void uploadSkinningPalettes(BatchMap<Mesh, List<AnimatedEntity>> entities) {
+        shader.uploadSkinningPalettes(entities);
+    }
+
     /**
      * Renders a list of animated entities into the bound framebuffer
      *
      * @param entities  Entity list to render
      * @param cam       Camera to render from
-     * @param clipPlane Clip plane of the entities
      */
-    void render(HashMap<Mesh, List<AnimatedEntity>> entities, Camera cam, Vector4f clipPlane) {
+    void render(BatchMap<Mesh, List<AnimatedEntity>> entities, Camera cam) {
 
         // DEBUG ENABLE SKELETON RENDERING
         if (Keyboard.isKeyPressed(GLFW.GLFW_KEY_P)) {
-            for (Mesh mesh : entities.keySet())
-                for (AnimatedEntity entity : entities.get(mesh))
+            for (int m = 0; m < entities.size(); m++)
+                for (AnimatedEntity entity : entities.getValue(m))
                     renderSkeleton(entity.getSkeleton(), cam, entity.getTransform().getTransMat());
             return;
         }
 
         // Setup shader
         shader.start();
-        shader.setCamera(cam);
-        shader.setClipPlane(clipPlane.x, clipPlane.y, clipPlane.z, clipPlane.w);
+        shader.prepareSkinningPalettes();
 
-        for (Mesh mesh : entities.keySet()) {
+        for (int m = 0; m < entities.size(); m++) {
+            Mesh mesh = entities.getKey(m);
+            List<AnimatedEntity> batch = entities.getValue(m);
+            if (batch.isEmpty())
+                continue;
 
             // Bind mesh data
             mesh.getVao().bind();
@@ -86,7 +101,8 @@ public class AnimatedEntityRenderer {
             shader.prepareMaterial(mesh.getMaterial());
 
             // Iterate instanced entities
-            for (AnimatedEntity entity : entities.get(mesh)) {
+            for (int e = 0; e < batch.size(); e++) {
+                AnimatedEntity entity = batch.get(e);
 
                 // Prepare entity
                 shader.prepareEntity(entity);
@@ -113,45 +129,50 @@ public class AnimatedEntityRenderer {
     private void renderSkeleton(Joint skeleton, Camera cam, Matrix4f modelMatrix) {
 
         // calc mvp matrix of the entity
-        Matrix4f mvp = new Matrix4f(cam.getViewProjectionMatrix());
-        mvp.mul(modelMatrix);
+        skeletonMVP.set(cam.getViewProjectionMatrix());
+        skeletonMVP.mul(modelMatrix);
 
         // Setup gl
         GL11.glMatrixMode(GL11.GL_MODELVIEW);
-        GL11.glLoadMatrixf(Toolbox.matrixToFloatArray(mvp));
+        GL11.glLoadMatrixf(Toolbox.matrixToFloatArray(skeletonMVP));
 
         // Render skeleton
-        renderNode(skeleton, null);
+        renderNode(skeleton, false, 0, 0, 0);
     }
 
     /**
      * Render node and all child nodes recursively of a skeleton
      *
-     * @param node Node to render
+     * @param node      Node to render
+     * @param hasParent Has the node a parent to draw a bone to
+     * @param px        X position of the parent joint
+     * @param py        Y position of the parent joint
+     * @param pz        Z position of the parent joint
      */
-    private void renderNode(Joint node, Point3f parent) {
+    private void renderNode(Joint node, boolean hasParent, float px, float py, float pz) {
 
-        Point3f pos = new Point3f(0, 0, 0);
-        node.getPose().transform(pos);
+        jointPos.set(0, 0, 0);
+        node.getPose().transform(jointPos);
+        float x = jointPos.x, y = jointPos.y, z = jointPos.z;
 
         // Render joint in blue
         GL11.glColor3f(0, 0, 1);
         GL11.glPointSize(10.0f);
         GL11.glBegin(GL11.GL_POINTS);
-        GL11.glVertex3f(pos.x, pos.y, pos.z);
+        GL11.glVertex3f(x, y, z);
         GL11.glEnd();
 
         // Render bone in green
-        if (parent != null) {
+        if (hasParent) {
             GL11.glColor3f(0, 1, 0);
             GL11.glBegin(GL11.GL_LINES);
-            GL11.glVertex3f(parent.x, parent.y, parent.z);
-            GL11.glVertex3f(pos.x, pos.y, pos.z);
+            GL11.glVertex3f(px, py, pz);
+            GL11.glVertex3f(x, y, z);
             GL11.glEnd();
         }
 
         // Render all children
         for (Joint child : node.getChildren())
-            renderNode(child, pos);
+            renderNode(child, true, x, y, z);
     }
 }
@@ -28,6 +28,7 @@
 package de.coreengine.rendering.renderer;
 
 import de.coreengine.rendering.GBuffer;
+import de.coreengine.rendering.LightClusters;
 import de.coreengine.rendering.model.Mesh;
 import de.coreengine.rendering.model.singletons.Quad2D;
 import de.coreengine.rendering.programs.DeferredShader;
@@ -46,6 +47,9 @@ public class DeferredRenderer {
 
     private DeferredShader shader = new DeferredShader();
 
+    // Clusters to assign point and spot lights to
+    private final LightClusters clusters = new LightClusters();
+
     /**
      * Rendering lights into a gbuffer using deferred rendering
      * 
@@ -54,13 +58,17 @@ public class DeferredRenderer {
      * @param spotLights        Spot lights to render
      * @param ambientLights     Ambient lights to render
      * @param directionalLights Directional lights to render
-     * @param cam               Camera to use for lighting calculation
+     * @param cam               Camera to cluster the lights for
      * @param shadowLight       Shadow light to render shadows from
      */
     void render(GBuffer gBuffer, List<PointLight> pointLights, List<SpotLight> spotLights,
             List<AmbientLight> ambientLights, List<DirectionalLight> directionalLights, Camera cam,
             ShadowLight shadowLight) {
 
+        // Assign point and spot lights to the clusters of the camera frustum
+        clusters.update(pointLights, spotLights, cam.getViewMatrix(), cam.getProjectionMatrix(), cam.getNearPlane(),
+                cam.getFarPlane());
+
         Mesh quad = Quad2D.getInstance();
 
         shader.start();
@@ -69,8 +77,8 @@ public class DeferredRenderer {
         quad.getIndexBuffer().bind();
 
         shader.setGBuffer(gBuffer);
-        shader.setCameraPosition(cam.getPosition());
-        shader.setLightSources(pointLights, spotLights, ambientLights, directionalLights);
+        shader.setLightSources(ambientLights, directionalLights);
+        shader.setLightClusters(clusters);
         shader.setShadowLight(shadowLight);
 
         GL11.glDrawElements(GL11.GL_TRIANGLES, quad.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
@@ -27,16 +27,30 @@
  */
 package de.coreengine.rendering.renderer;
 
+import de.coreengine.rendering.Frustum;
+import de.coreengine.rendering.IndirectCommandBuilder;
+import de.coreengine.rendering.OcclusionBuffer;
+import de.coreengine.rendering.model.ArenaRange;
+import de.coreengine.rendering.model.Color;
+import de.coreengine.rendering.model.Material;
 import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.MeshArena;
 import de.coreengine.rendering.programs.entity.EntityShader;
 import de.coreengine.rendering.programs.entity.EntityShaderAdvanced;
 import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.Entity;
-
+import de.coreengine.util.BatchMap;
+import de.coreengine.util.gl.DrawIndirectBuffer;
+import de.coreengine.util.gl.TextureBufferObject;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL43;
 
-import javax.vecmath.Vector4f;
-import java.util.HashMap;
+import javax.vecmath.Vector3f;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -48,64 +62,297 @@ public class EntityRenderer {
     public static final EntityShader ADVANCED_SHADER = new EntityShaderAdvanced();
     public static final EntityShader DEFAULT_SHADER = new EntityShader();
 
+    // Center of the bounding sphere of the current entity
+    private final Vector3f boundingCenter = new Vector3f();
+
+    // Draw commands and per instance data of the indirect static geometry draws
+    private final IndirectCommandBuilder commandBuilder = new IndirectCommandBuilder();
+    private final DrawIndirectBuffer commandBuffer = new DrawIndirectBuffer();
+    private final TextureBufferObject instanceData = new TextureBufferObject(GL30.GL_RGBA32F);
+    private IntBuffer commandUploadBuffer = BufferUtils.createIntBuffer(0);
+    private FloatBuffer instanceUploadBuffer = BufferUtils.createFloatBuffer(0);
+
+    // Materials of the indirect draw groups of the current shader
+    private final List<Material> groupMaterials = new ArrayList<>();
+
+    /**
+     * Renders a list of entities into the bound framebuffer. Entities outside the
+     * frustum are skipped.
+     * 
+     * @param entities Entity map to render
+     * @param cam      Camera to render from
+     * @param frustum  Frustum of the render pass to cull entities with
+     */
+    void render(BatchMap<EntityShader, BatchMap<Mesh, List<Entity>>> entities, Camera cam, Frustum frustum) {
+        render(entities, cam, frustum, null);
+    }
+
     /**
-     * Renders a list of entities into the bound framebuffer
+     * Rasterizing all occluder entities inside the frustum into the occlusion
+     * buffer
+     * 
+     * @param entities  Entity map to rasterize the occluders of
+     * @param frustum   Frustum of the render pass
+     * @param occlusion Cleared occlusion buffer of the render pass
+     */
+    void rasterizeOccluders(BatchMap<EntityShader, BatchMap<Mesh, List<Entity>>> entities, Frustum frustum,
+            OcclusionBuffer occlusion) {
+        for (int s = 0; s < entities.size(); s++) {
+            BatchMap<Mesh, List<Entity>> entityBatch = entities.getValue(s);
+            for (int m = 0; m < entityBatch.size(); m++) {
+                Mesh mesh = entityBatch.getKey(m);
+                if (mesh.getOccluderVertices() == null)
+                    continue;
+
+                List<Entity> batch = entityBatch.getValue(m);
+                for (int e = 0; e < batch.size(); e++) {
+                    Entity entity = batch.get(e);
+                    if (entity.isOccluder() && !entity.isRotateWithCam() && isVisible(mesh, entity, frustum, null))
+                        occlusion.addOccluder(entity.getTransform().getTransMat(), mesh.getOccluderVertices(),
+                                mesh.getOccluderIndices());
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a list of entities into the bound framebuffer. Entities outside the
+     * frustum or hidden behind occluders are skipped.
      * 
      * @param entities  Entity map to render
      * @param cam       Camera to render from
-     * @param clipPlane Clip plane of the entities
+     * @param frustum   Frustum of the render pass to cull entities with
+     * @param occlusion Occlusion buffer of the render pass or null
      */
-    void render(HashMap<EntityShader, HashMap<Mesh, List<Entity>>> entities, Camera cam, Vector4f clipPlane) {
-        for (EntityShader shader : entities.keySet()) {
-            HashMap<Mesh, List<Entity>> entityBatch = entities.get(shader);
+    void render(BatchMap<EntityShader, BatchMap<Mesh, List<Entity>>> entities, Camera cam, Frustum frustum,
+            OcclusionBuffer occlusion) {
+        for (int s = 0; s < entities.size(); s++) {
+            EntityShader shader = entities.getKey(s);
+            BatchMap<Mesh, List<Entity>> entityBatch = entities.getValue(s);
 
             // Setup shader
             shader.start();
-            shader.setCamera(cam, false);
-            shader.setClipPlane(clipPlane.x, clipPlane.y, clipPlane.z, clipPlane.w);
-
-            for (Mesh mesh : entityBatch.keySet()) {
 
-                // Bind mesh data
-                mesh.getVao().bind();
-                mesh.getVao().enableAttributes();
-                mesh.getIndexBuffer().bind();
+            // Draw static entities of arena meshes indirect
+            boolean indirect = shader.isIndirectSupported() && MeshArena.isEnabled();
+            if (indirect)
+                renderIndirect(shader, entityBatch, frustum, occlusion);
 
-                // Load material into shader
-                shader.prepareMaterial(mesh.getMaterial());
+            for (int m = 0; m < entityBatch.size(); m++) {
+                Mesh mesh = entityBatch.getKey(m);
+                List<Entity> batch = entityBatch.getValue(m);
+                boolean bound = false;
+                int boundLod = 0;
 
                 // Iterate instanced entities
-                for (Entity entity : entityBatch.get(mesh)) {
+                for (int e = 0; e < batch.size(); e++) {
+                    Entity entity = batch.get(e);
+                    if ((indirect && isIndirect(mesh, entity)) || !isVisible(mesh, entity, frustum, occlusion))
+                        continue;
 
-                    // Prepare entity
-                    shader.prepareEntity(entity);
+                    // Bind mesh data and load material into shader
+                    if (!bound) {
+                        mesh.getVao().bind();
+                        mesh.getVao().enableAttributes();
+                        mesh.getIndexBuffer(entity.getLod()).bind();
+                        shader.prepareMaterial(mesh.getMaterial());
+                        boundLod = entity.getLod();
+                        bound = true;
+                    } else if (boundLod != entity.getLod()) {
+                        mesh.getIndexBuffer(entity.getLod()).bind();
+                        boundLod = entity.getLod();
+                    }
 
-                    // Should entity rot with cam
-                    if (entity.isRotateWithCam())
-                        shader.setCamera(cam, true);
+                    // Prepare entity
+                    shader.prepareEntity(entity, cam);
 
                     if (!entity.isCullFaces())
                         GL11.glDisable(GL11.GL_CULL_FACE);
 
                     // Render entity
-                    GL11.glDrawElements(GL11.GL_TRIANGLES, mesh.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
+                    GL11.glDrawElements(GL11.GL_TRIANGLES, mesh.getIndexBuffer(boundLod).getSize(), GL11.GL_UNSIGNED_INT,
+                            0);
 
                     if (!entity.isCullFaces())
                         GL11.glEnable(GL11.GL_CULL_FACE);
-
-                    // Undo cam rotation, when entity rot with cam
-                    if (entity.isRotateWithCam())
-                        shader.setCamera(cam, false);
                 }
 
                 // Unbind mesh data
-                mesh.getIndexBuffer().unbind();
-                mesh.getVao().disableAttributes();
-                mesh.getVao().unbind();
+                if (bound) {
+                    mesh.getIndexBuffer().unbind();
+                    mesh.getVao().disableAttributes();
+                    mesh.getVao().unbind();
+                }
             }
 
             // Stop shader
             shader.stop();
         }
     }
+
+    /**
+     * Rendering all visible static entities, whose mesh is stored in the mesh
+     * arena, with indirect multi draws. Each level of detail of a mesh becomes a
+     * draw command for all its visible instances, meshes with compatible
+     * materials are submitted in the same multi draw.
+     *
+     * @param shader      Started shader to render with
+     * @param entityBatch Entities of the shader by mesh
+     * @param frustum     Frustum of the render pass to cull entities with
+     * @param occlusion   Occlusion buffer of the render pass or null
+     */
+    private void renderIndirect(EntityShader shader, BatchMap<Mesh, List<Entity>> entityBatch, Frustum frustum,
+            OcclusionBuffer occlusion) {
+        commandBuilder.clear();
+        groupMaterials.clear();
+        int maxInstances = MeshArena.getInstance().getMaxInstances();
+
+        for (int m = 0; m < entityBatch.size(); m++) {
+            Mesh mesh = entityBatch.getKey(m);
+            List<Entity> batch = entityBatch.getValue(m);
+            ArenaRange range = mesh.getArenaRange();
+            if (range == null)
+                continue;
+            int group = getGroup(mesh.getMaterial());
+            int lastLod = range.getLodCount() - 1;
+
+            for (int lod = 0; lod <= lastLod; lod++) {
+                commandBuilder.beginCommand(group, range.getIndexCount(lod), range.getFirstIndex(lod),
+                        range.getBaseVertex());
+
+                for (int e = 0; e < batch.size(); e++) {
+                    Entity entity = batch.get(e);
+                    if (!isIndirect(mesh, entity) || Integer.min(entity.getLod(), lastLod) != lod
+                            || !isVisible(mesh, entity, frustum, occlusion))
+                        continue;
+
+                    // Submit, if the instance ids are used up
+                    if (commandBuilder.getInstanceCount() == maxInstances) {
+                        flushIndirect(shader);
+                        commandBuilder.beginCommand(group, range.getIndexCount(lod), range.getFirstIndex(lod),
+                                range.getBaseVertex());
+                    }
+
+                    Color pickColor = entity.getPickColor();
+                    commandBuilder.addInstance(entity.getTransform().getTransMatArr(), pickColor.getRed(),
+                            pickColor.getGreen(), pickColor.getBlue());
+                }
+            }
+        }
+
+        flushIndirect(shader);
+    }
+
+    /**
+     * Uploading the built draw commands and instance data and submitting one multi
+     * draw per material group
+     *
+     * @param shader Started shader to render with
+     */
+    private void flushIndirect(EntityShader shader) {
+        commandBuilder.finish();
+        if (commandBuilder.getCommandCount() == 0) {
+            commandBuilder.clear();
+            return;
+        }
+
+        // Upload instance data
+        int instanceFloats = commandBuilder.getInstanceCount() * IndirectCommandBuilder.INSTANCE_SIZE;
+        if (instanceUploadBuffer.capacity() < instanceFloats)
+            instanceUploadBuffer = BufferUtils.createFloatBuffer(instanceFloats * 2);
+        instanceUploadBuffer.clear();
+        instanceUploadBuffer.put(commandBuilder.getInstanceData(), 0, instanceFloats);
+        instanceUploadBuffer.flip();
+        instanceData.update(instanceUploadBuffer);
+
+        // Upload draw commands
+        int commandInts = commandBuilder.getCommandCount() * IndirectCommandBuilder.COMMAND_SIZE;
+        if (commandUploadBuffer.capacity() < commandInts)
+            commandUploadBuffer = BufferUtils.createIntBuffer(commandInts * 2);
+        commandUploadBuffer.clear();
+        commandUploadBuffer.put(commandBuilder.getCommands(), 0, commandInts);
+        commandUploadBuffer.flip();
+        commandBuffer.update(commandUploadBuffer);
+
+        // Bind arena and commands
+        MeshArena arena = MeshArena.getInstance();
+        shader.prepareIndirect(true, instanceData.getTexture());
+        arena.getVao().bind();
+        arena.getVao().enableAttributes();
+        arena.getIndexBuffer().bind();
+        commandBuffer.bind();
+
+        // Submit one multi draw per material
+        for (int g = 0; g < commandBuilder.getGroupCount(); g++) {
+            int count = commandBuilder.getGroupCommandCount(g);
+            if (count == 0)
+                continue;
+
+            shader.prepareMaterial(groupMaterials.get(g));
+            GL43.glMultiDrawElementsIndirect(GL11.GL_TRIANGLES, GL11.GL_UNSIGNED_INT,
+                    (long) commandBuilder.getGroupFirstCommand(g) * IndirectCommandBuilder.COMMAND_SIZE * 4, count, 0);
+        }
+
+        // Unbind and switch back to single draws
+        commandBuffer.unbind();
+        arena.getIndexBuffer().unbind();
+        arena.getVao().disableAttributes();
+        arena.getVao().unbind();
+        shader.prepareIndirect(false, 0);
+
+        commandBuilder.clear();
+    }
+
+    /**
+     * Getting the draw group of a material. Materials, that are batch compatible
+     * to a material of an existing group, share its group.
+     *
+     * @param material Material to get group for
+     * @return Index of the group
+     */
+    private int getGroup(Material material) {
+        for (int i = 0; i < groupMaterials.size(); i++) {
+            if (groupMaterials.get(i).isBatchCompatible(material))
+                return i;
+        }
+
+        groupMaterials.add(material);
+        return groupMaterials.size() - 1;
+    }
+
+    /**
+     * @param mesh   Mesh of the entity
+     * @param entity Entity to check
+     * @return Is the entity drawn indirect from the mesh arena
+     */
+    private boolean isIndirect(Mesh mesh, Entity entity) {
+        return mesh.getArenaRange() != null && entity.isStatic() && entity.isCullFaces() && !entity.isRotateWithCam();
+    }
+
+    /**
+     * Checks if an entity is inside the frustum and not hidden behind occluders.
+     * Entities, that rotate with the camera or have no known bounds, are always
+     * visible.
+     *
+     * @param mesh      Mesh of the entity
+     * @param entity    Entity to check
+     * @param frustum   Frustum to check
+     * @param occlusion Occlusion buffer to check or null
+     * @return True, if the entity has to be rendered
+     */
+    private boolean isVisible(Mesh mesh, Entity entity, Frustum frustum, OcclusionBuffer occlusion) {
+        if (entity.isRotateWithCam())
+            return true;
+
+        float radius = entity.getWorldBoundingSphere(mesh, boundingCenter);
+        if (radius < 0.0f)
+            return true;
+        if (!frustum.intersectsSphere(boundingCenter.x, boundingCenter.y, boundingCenter.z, radius))
+            return false;
+
+        // Test the box around the bounding sphere against the occluders
+        return occlusion == null || !occlusion.isOccluded(boundingCenter.x - radius, boundingCenter.y - radius,
+                boundingCenter.z - radius, boundingCenter.x + radius, boundingCenter.y + radius,
+                boundingCenter.z + radius);
+    }
 }
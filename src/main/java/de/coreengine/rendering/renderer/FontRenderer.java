@@ -27,12 +27,11 @@
  */
 package de.coreengine.rendering.renderer;
 
-import de.coreengine.asset.AssetDatabase;
 import de.coreengine.framework.Window;
 import de.coreengine.rendering.programs.FontShader;
 import de.coreengine.rendering.renderable.Camera;
-import de.coreengine.rendering.renderable.gui.GUIChar;
 import de.coreengine.rendering.renderable.gui.GUIPane;
+import de.coreengine.rendering.renderable.gui.GUIText;
 import org.lwjgl.opengl.GL11;
 
 import java.util.List;
@@ -62,27 +61,26 @@ public class FontRenderer {
         else
             shader.setVPMat(Window.getOrthoMatrix());
 
-        panesWithText.forEach(t -> {
+        for (int i = 0; i < panesWithText.size(); i++) {
+            GUIPane t = panesWithText.get(i);
             if (t.renderText() && t.getText().getFont() != null) {
-                AssetDatabase.getFont(t.getText().getFont()).getVao().bind();
-                AssetDatabase.getFont(t.getText().getFont()).getVao().enableAttributes();
+                GUIText text = t.getText();
+                text.prepareMesh();
+                if (text.getVertexCount() == 0)
+                    continue;
 
-                shader.prepareText(t, cam);
-
-                for (GUIChar c : t.getText().getChars()) {
-                    c.getIndex().bind();
+                text.getVao().bind();
+                text.getVao().enableAttributes();
 
-                    shader.prepareChar(c);
-
-                    GL11.glDrawElements(GL11.GL_TRIANGLES, c.getIndex().getSize(), GL11.GL_UNSIGNED_INT, 0);
+                shader.prepareText(t, cam);
 
-                    c.getIndex().unbind();
-                }
+                // Render all chars of the text at once
+                GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, text.getVertexCount());
 
-                AssetDatabase.getFont(t.getText().getFont()).getVao().disableAttributes();
-                AssetDatabase.getFont(t.getText().getFont()).getVao().unbind();
+                text.getVao().disableAttributes();
+                text.getVao().unbind();
             }
-        });
+        }
 
         shader.stop();
     }
@@ -0,0 +1,191 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderer;
+
+import de.coreengine.rendering.renderable.Camera;
+import de.coreengine.rendering.renderable.gui.GUIPane;
+import de.coreengine.util.gl.VertexArrayObject;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * Retained vertex buffer of a gui pane list. The vertices are only rebuilt and
+ * uploaded, if the submitted panes or one of their cached vertices changed
+ * since the last frame. Consecutive panes with the same texture are grouped
+ * into one batch.
+ *
+ * @author Darius Dinger
+ */
+class GUIBatchBuffer {
+
+    // Vao and streamed vertex buffer of the batches
+    private final VertexArrayObject vao = new VertexArrayObject();
+    private final int vbo = vao.addInterleavedVertexBuffer(0, 3, 2, 3, 3, 3, 1);
+
+    // Vertices of all panes and the buffer to upload them with
+    private float[] vertices = new float[GUIPane.FLOATS_PER_PANE * 64];
+    private FloatBuffer vertexBuffer = BufferUtils.createFloatBuffer(vertices.length);
+
+    // Panes submitted last frame
+    private GUIPane[] panes = new GUIPane[64];
+    private int paneCount = 0;
+
+    // Texture, first pane and pane count of the batches
+    private int[] batchTextures = new int[16];
+    private int[] batchFirst = new int[16];
+    private int[] batchCount = new int[16];
+    private int batches = 0;
+
+    /**
+     * Updating the retained vertices with the submitted panes of this frame.
+     * Nothing is rebuilt or uploaded, if nothing changed.
+     * 
+     * @param guis Panes to render this frame in draw order
+     * @param cam  Camera for camera facing panes
+     */
+    void update(List<GUIPane> guis, Camera cam) {
+        boolean changed = guis.size() != paneCount;
+        if (guis.size() > panes.length) {
+            GUIPane[] newPanes = new GUIPane[Math.max(guis.size(), panes.length * 2)];
+            System.arraycopy(panes, 0, newPanes, 0, paneCount);
+            panes = newPanes;
+        }
+
+        // Check for changed panes
+        int i = 0;
+        for (; i < guis.size(); i++) {
+            GUIPane gui = guis.get(i);
+            if (panes[i] != gui) {
+                panes[i] = gui;
+                changed = true;
+            }
+            if (gui.prepareVertices(cam))
+                changed = true;
+        }
+        for (int j = i; j < paneCount; j++)
+            panes[j] = null;
+        paneCount = i;
+
+        if (changed)
+            rebuild();
+    }
+
+    /**
+     * Rebuilding batches and uploading the vertices of all panes
+     */
+    private void rebuild() {
+        int floats = paneCount * GUIPane.FLOATS_PER_PANE;
+        if (vertices.length < floats)
+            vertices = new float[Math.max(floats, vertices.length * 2)];
+
+        batches = 0;
+        for (int i = 0; i < paneCount; i++) {
+            GUIPane pane = panes[i];
+            System.arraycopy(pane.getVertices(), 0, vertices, i * GUIPane.FLOATS_PER_PANE,
+                    GUIPane.FLOATS_PER_PANE);
+
+            // Untextured panes join every batch, textured panes only with the
+            // same texture
+            int texture = pane.getBatchTexture();
+            if (batches > 0 && (texture == 0 || batchTextures[batches - 1] == 0
+                    || batchTextures[batches - 1] == texture)) {
+                if (texture != 0)
+                    batchTextures[batches - 1] = texture;
+                batchCount[batches - 1]++;
+            } else {
+                if (batches == batchTextures.length) {
+                    batchTextures = grow(batchTextures);
+                    batchFirst = grow(batchFirst);
+                    batchCount = grow(batchCount);
+                }
+                batchTextures[batches] = texture;
+                batchFirst[batches] = i;
+                batchCount[batches] = 1;
+                batches++;
+            }
+        }
+
+        // Upload vertices
+        if (vertexBuffer.capacity() < floats)
+            vertexBuffer = BufferUtils.createFloatBuffer(vertices.length);
+        vertexBuffer.clear();
+        vertexBuffer.put(vertices, 0, floats);
+        vertexBuffer.flip();
+        vao.updateVertexBuffer(vbo, vertexBuffer);
+    }
+
+    /**
+     * @param arr Array to grow
+     * @return Array with doubled length and the values of arr
+     */
+    private static int[] grow(int[] arr) {
+        int[] result = new int[arr.length * 2];
+        System.arraycopy(arr, 0, result, 0, arr.length);
+        return result;
+    }
+
+    /**
+     * @return Vao with the vertices of all panes
+     */
+    VertexArrayObject getVao() {
+        return vao;
+    }
+
+    /**
+     * @return Count of batches
+     */
+    int getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * @param batch Index of the batch
+     * @return Texture of the batch or 0, if no pane of the batch is textured
+     */
+    int getBatchTexture(int batch) {
+        return batchTextures[batch];
+    }
+
+    /**
+     * @param batch Index of the batch
+     * @return First vertex of the batch
+     */
+    int getBatchFirstVertex(int batch) {
+        return batchFirst[batch] * GUIPane.VERTICES_PER_PANE;
+    }
+
+    /**
+     * @param batch Index of the batch
+     * @return Vertex count of the batch
+     */
+    int getBatchVertexCount(int batch) {
+        return batchCount[batch] * GUIPane.VERTICES_PER_PANE;
+    }
+}
@@ -28,8 +28,6 @@
 package de.coreengine.rendering.renderer;
 
 import de.coreengine.framework.Window;
-import de.coreengine.rendering.model.Mesh;
-import de.coreengine.rendering.model.singletons.Quad2D;
 import de.coreengine.rendering.programs.GUIShader;
 import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.gui.GUIPane;
@@ -38,7 +36,10 @@ import org.lwjgl.opengl.GL11;
 import java.util.List;
 
 /**
- * Class that can render 2d/3d gui elements/panes
+ * Class that can render 2d/3d gui elements/panes. The panes are retained in a
+ * vertex buffer, that is only rebuilt when a pane changed, and consecutive
+ * panes sharing a texture, an atlas or having no texture are rendered in one
+ * batch.
  *
  * @author Darius Dinger
  */
@@ -46,16 +47,24 @@ public class GUIRenderer {
 
     private GUIShader shader = new GUIShader();
 
+    // Retained vertices of the 2d and 3d guis
+    private final GUIBatchBuffer batches2D = new GUIBatchBuffer();
+    private final GUIBatchBuffer batches3D = new GUIBatchBuffer();
+
     /**
-     * Rendering a gui onto the bound framebuffer
+     * Rendering a gui onto the bound framebuffer. Draw order of the panes is
+     * preserved.
      *
      * @param guis  GUIs to render
      * @param cam   Camera to render from for 3d guis
      * @param world Place the gui into the 3d world
      */
     void render(List<GUIPane> guis, Camera cam, boolean world) {
+        GUIBatchBuffer batches = world ? batches3D : batches2D;
+        batches.update(guis, cam);
 
-        Mesh model = Quad2D.getInstance();
+        if (batches.getBatchCount() == 0)
+            return;
 
         shader.start();
 
@@ -65,20 +74,14 @@ public class GUIRenderer {
         else
             shader.setVPMat(Window.getOrthoMatrix());
 
-        model.getVao().bind();
-        model.getVao().enableAttributes();
-        model.getIndexBuffer().bind();
-
-        guis.forEach(gui -> {
-
-            // Render pane
-            shader.prepareGui(gui, cam);
-            GL11.glDrawElements(GL11.GL_TRIANGLES, model.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
-        });
-
-        model.getIndexBuffer().unbind();
-        model.getVao().disableAttributes();
-        model.getVao().unbind();
+        batches.getVao().bind();
+        batches.getVao().enableAttributes();
+        for (int i = 0; i < batches.getBatchCount(); i++) {
+            shader.setTexture(batches.getBatchTexture(i));
+            GL11.glDrawArrays(GL11.GL_TRIANGLES, batches.getBatchFirstVertex(i), batches.getBatchVertexCount(i));
+        }
+        batches.getVao().disableAttributes();
+        batches.getVao().unbind();
 
         shader.stop();
     }
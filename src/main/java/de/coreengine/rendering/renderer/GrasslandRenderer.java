@@ -28,7 +28,6 @@
 package de.coreengine.rendering.renderer;
 
 import de.coreengine.rendering.programs.GrasslandShader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.terrain.Terrain;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL31;
@@ -48,16 +47,15 @@ public class GrasslandRenderer {
      * Rendering a grassland using a grassland shader
      * 
      * @param terrains Terrains that contains the grasslands
-     * @param camera   Camera to render from
      */
-    void renderGrassland(List<Terrain> terrains, Camera camera) {
+    void renderGrassland(List<Terrain> terrains) {
         GL11.glDisable(GL11.GL_CULL_FACE);
 
         // Start shader and bind vao and indices
         shader.start();
-        shader.setcamera(camera);
 
-        terrains.forEach(terrain -> {
+        for (int i = 0; i < terrains.size(); i++) {
+            Terrain terrain = terrains.get(i);
             if (terrain.isGrasslandEnabled()) {
                 terrain.getGrassland().getMesh().getVao().bind();
                 terrain.getGrassland().getMesh().getVao().enableAttributes();
@@ -78,7 +76,7 @@ public class GrasslandRenderer {
                 terrain.getGrassland().getMesh().getVao().disableAttributes();
                 terrain.getGrassland().getMesh().getVao().unbind();
             }
-        });
+        }
 
         shader.stop();
 
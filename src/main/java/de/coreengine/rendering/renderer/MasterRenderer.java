@@ -31,26 +31,42 @@ import de.coreengine.asset.AssetDatabase;
 import de.coreengine.framework.Keyboard;
 import de.coreengine.framework.Mouse;
 import de.coreengine.framework.Window;
+import de.coreengine.rendering.Frustum;
 import de.coreengine.rendering.GBuffer;
+import de.coreengine.rendering.LodSelector;
+import de.coreengine.rendering.OcclusionBuffer;
+import de.coreengine.rendering.ParticleBatch;
+import de.coreengine.rendering.PickResult;
+import de.coreengine.rendering.Picker;
+import de.coreengine.rendering.model.AnimatedModel;
 import de.coreengine.rendering.model.Color;
 import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.Model;
+import de.coreengine.rendering.programs.PassUniforms;
 import de.coreengine.rendering.programs.entity.EntityShader;
 import de.coreengine.rendering.renderable.*;
 import de.coreengine.rendering.renderable.gui.GUIPane;
 import de.coreengine.rendering.renderable.light.*;
 import de.coreengine.rendering.renderable.terrain.Terrain;
+import de.coreengine.util.AllocationCounter;
+import de.coreengine.util.BatchMap;
+import de.coreengine.util.Configuration;
+import de.coreengine.util.Logger;
 import de.coreengine.util.Toolbox;
+import de.coreengine.util.gl.PixelPackBuffer;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL30;
 
+import javax.vecmath.Vector3f;
 import javax.vecmath.Vector4f;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class that manage the whole rendering system and is the contact class for
@@ -65,9 +81,19 @@ public class MasterRenderer {
     private static GBuffer GBUFFER;
     private static GBuffer OUTPUT_GBUFFER;
 
-    // Mouse picking
+    // Mouse picking on the cpu or asynchronous from the picking buffers
+    private static final boolean CPU_PICKING = Configuration.getValues("PICKING_MODE").equals("CPU");
+    private static final Picker PICKER = new Picker();
+    private static final PickResult MOUSE_PICK = new PickResult();
+    private static boolean mousePickValid = false;
+
+    // Gpu picking, the picking buffers are read into alternating pixel pack
+    // buffers and fetched one frame later
     private static final Color PICKED_COLOR = new Color();
-    private static final FloatBuffer PICK_DATA = BufferUtils.createFloatBuffer(4);
+    private static final FloatBuffer PICK_DATA = BufferUtils.createFloatBuffer(8);
+    private static final PixelPackBuffer[] PICK_BUFFERS = { new PixelPackBuffer(32), new PixelPackBuffer(32) };
+    private static int pickBufferIndex = 0;
+    private static boolean pickRequested = false, pickPending = false;
 
     // All renderer instances
     private static final TerrainRenderer TERRAIN_RENDERER = new TerrainRenderer();
@@ -84,6 +110,24 @@ public class MasterRenderer {
     private static final ParticleRenderer PARTICLE_RENDERER = new ParticleRenderer();
     private static final ShadowMapRenderer SHADOW_MAP_RENDERER = new ShadowMapRenderer();
 
+    // Scheduler of the water reflection and refraction passes
+    private static final WaterPassScheduler WATER_SCHEDULER = new WaterPassScheduler();
+
+    // Frustum of the current render pass to cull with
+    private static final Frustum FRUSTUM = new Frustum();
+
+    // Cpu occlusion buffer of the main pass
+    private static final boolean OCCLUSION_CULLING = Configuration.getValuei("OCCLUSION_CULLING") == 1;
+    private static final OcclusionBuffer OCCLUSION_BUFFER = new OcclusionBuffer(
+            Configuration.getValuei("OCCLUSION_BUFFER_WIDTH"), Configuration.getValuei("OCCLUSION_BUFFER_HEIGHT"));
+
+    // Center of the bounding sphere for the lod selection
+    private static final Vector3f LOD_CENTER = new Vector3f();
+
+    // Allocation check of the render loop
+    private static final boolean ALLOCATION_CHECK = Configuration.getValuei("RENDER_ALLOCATION_CHECK") == 1;
+    private static long frameAllocatedBytes = 0, maxFrameAllocatedBytes = 0;
+
     // Singleton render stuff
     private static Camera camera = new Camera();
     private static Sun sun = null;
@@ -93,25 +137,31 @@ public class MasterRenderer {
     private static ShadowLight shadowLight = null;
 
     // Lists/maps that contains the stuff to render in the next frame
-    private static final HashMap<EntityShader, HashMap<Mesh, List<Entity>>> ENTITIES = new HashMap<>();
-    private static final HashMap<Mesh, List<AnimatedEntity>> ANIMATED_ENTITIES = new HashMap<>();
-    private static final HashMap<String, List<Particle>> PARTICLES = new HashMap<>();
-    private static final List<Terrain> TERRAINS = new LinkedList<>();
-    private static final List<Water> WATERS = new LinkedList<>();
-    private static final List<GUIPane> GUIS_2D = new LinkedList<>();
-    private static final List<GUIPane> GUIS_3D = new LinkedList<>();
+    private static final BatchMap<EntityShader, BatchMap<Mesh, List<Entity>>> ENTITIES = new BatchMap<>();
+    private static final BatchMap<Mesh, List<AnimatedEntity>> ANIMATED_ENTITIES = new BatchMap<>();
+    private static final BatchMap<String, ParticleBatch> PARTICLES = new BatchMap<>();
+    private static final List<Terrain> TERRAINS = new ArrayList<>();
+    private static final List<Water> WATERS = new ArrayList<>();
+    private static final List<GUIPane> GUIS_2D = new ArrayList<>();
+    private static final List<GUIPane> GUIS_3D = new ArrayList<>();
+
+    // Static entities of the current and the last frame, to detect added and
+    // removed static entities
+    private static Set<Entity> staticEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static Set<Entity> lastStaticEntities = Collections.newSetFromMap(new IdentityHashMap<>());
 
     // Lists of lights to render in the next frame
-    private static final List<PointLight> POINT_LIGHTS = new LinkedList<>();
-    private static final List<SpotLight> SPOT_LIGHTS = new LinkedList<>();
-    private static final List<AmbientLight> AMBIENT_LIGHTS = new LinkedList<>();
-    private static final List<DirectionalLight> DIRECTIONAL_LIGHTS = new LinkedList<>();
+    private static final List<PointLight> POINT_LIGHTS = new ArrayList<>();
+    private static final List<SpotLight> SPOT_LIGHTS = new ArrayList<>();
+    private static final List<AmbientLight> AMBIENT_LIGHTS = new ArrayList<>();
+    private static final List<DirectionalLight> DIRECTIONAL_LIGHTS = new ArrayList<>();
 
     /**
      * Initialize the master renderer
      */
     public static void init() {
         recreateGBuffers();
+        PassUniforms.init();
         Window.addWindowListener((int x, int y, float aspect) -> recreateGBuffers());
 
         GL11.glEnable(GL11.GL_DEPTH_TEST);
@@ -136,6 +186,7 @@ public class MasterRenderer {
      * Rendering all from the renderlists and clear renderlists
      */
     public static void render() {
+        long allocatedBytes = ALLOCATION_CHECK ? AllocationCounter.getAllocatedBytes() : -1;
 
         // Adding sun light sources to lights
         if (sun != null)
@@ -145,6 +196,9 @@ public class MasterRenderer {
         if (moon != null)
             moon.addLights();
 
+        // Upload skinning palettes for all passes
+        ANIMATED_ENTITY_RENDERER.uploadSkinningPalettes(ANIMATED_ENTITIES);
+
         preRender();
 
         // DEBUG - ENABLE LINE RENDER MODE
@@ -163,7 +217,29 @@ public class MasterRenderer {
 
         render2D();
 
-        getPickColor();
+        if (!CPU_PICKING)
+            getPickColor();
+
+        // Make rendered objects pickable
+        PICKER.swap();
+        mousePickValid = false;
+
+        if (allocatedBytes != -1)
+            checkAllocations(allocatedBytes);
+    }
+
+    /**
+     * Storing the bytes allocated while rendering the frame and warn, if a frame
+     * allocated more than all frames before
+     *
+     * @param startBytes Allocated bytes of the render thread at frame start
+     */
+    private static void checkAllocations(long startBytes) {
+        frameAllocatedBytes = AllocationCounter.getAllocatedBytes() - startBytes;
+        if (frameAllocatedBytes > maxFrameAllocatedBytes) {
+            maxFrameAllocatedBytes = frameAllocatedBytes;
+            Logger.warn("Render allocations", "Rendering a frame allocated " + frameAllocatedBytes + " bytes");
+        }
     }
 
     /**
@@ -172,9 +248,12 @@ public class MasterRenderer {
      */
     private static void preRender() {
 
-        // Prerender waters reflection and refraction textures
+        // Prerender reflection and refraction textures of the scheduled waters
+        WATER_SCHEDULER.schedule(WATERS);
         GL11.glEnable(GL30.GL_CLIP_DISTANCE0);
-        WATERS.forEach((w) -> {
+        List<Water> scheduledWaters = WATER_SCHEDULER.getScheduledWaters();
+        for (int i = 0; i < scheduledWaters.size(); i++) {
+            Water w = scheduledWaters.get(i);
 
             w.getClipPlane().y = (1);
             float clipDistance = w.getClipPlane().w;
@@ -189,13 +268,16 @@ public class MasterRenderer {
             clear();
 
             if (w.isReflectionEnabled()) {
-                TERRAIN_RENDERER.render(TERRAINS, camera, w.getClipPlane());
-                ENTITY_RENDERER.render(ENTITIES, camera, w.getClipPlane());
-                ANIMATED_ENTITY_RENDERER.render(ANIMATED_ENTITIES, camera, w.getClipPlane());
+                PassUniforms.update(camera, w.getClipPlane());
+                FRUSTUM.update(camera.getViewProjectionMatrix(), w.getClipPlane());
+
+                TERRAIN_RENDERER.render(TERRAINS, FRUSTUM);
+                ENTITY_RENDERER.render(ENTITIES, camera, FRUSTUM);
+                ANIMATED_ENTITY_RENDERER.render(ANIMATED_ENTITIES, camera);
 
                 // Rendring skybox
                 if (skybox != null)
-                    SKYBOX_RENDERER.render(skybox, camera);
+                    SKYBOX_RENDERER.render(skybox);
             }
 
             w.getReflectionFbo().unbind();
@@ -211,18 +293,21 @@ public class MasterRenderer {
             clear();
 
             if (w.isRefractionEnabled()) {
-                TERRAIN_RENDERER.render(TERRAINS, camera, w.getClipPlane());
-                ENTITY_RENDERER.render(ENTITIES, camera, w.getClipPlane());
-                ANIMATED_ENTITY_RENDERER.render(ANIMATED_ENTITIES, camera, w.getClipPlane());
+                PassUniforms.update(camera, w.getClipPlane());
+                FRUSTUM.update(camera.getViewProjectionMatrix(), w.getClipPlane());
+
+                TERRAIN_RENDERER.render(TERRAINS, FRUSTUM);
+                ENTITY_RENDERER.render(ENTITIES, camera, FRUSTUM);
+                ANIMATED_ENTITY_RENDERER.render(ANIMATED_ENTITIES, camera);
 
                 // Rendring skybox
                 if (skybox != null)
-                    SKYBOX_RENDERER.render(skybox, camera);
+                    SKYBOX_RENDERER.render(skybox);
             }
 
             w.getRefractionFbo().unbind();
             w.getClipPlane().w = (clipDistance);
-        });
+        }
         GL11.glDisable(GL30.GL_CLIP_DISTANCE0);
 
         // Prerender shadow map
@@ -236,6 +321,10 @@ public class MasterRenderer {
      */
     private static void render3D() {
 
+        // Upload per pass constants of the main pass
+        PassUniforms.update(camera, CLIP_PLANE_RENDER_ALL);
+        FRUSTUM.update(camera.getViewProjectionMatrix());
+
         // Binding gBuffer and starting lighted section
         // Render all what should be lighted
         GBUFFER.bind(GL30.GL_COLOR_ATTACHMENT0);
@@ -262,24 +351,24 @@ public class MasterRenderer {
 
         // Rendring skybox
         if (skybox != null) {
-            SKYBOX_RENDERER.render(skybox, camera);
+            SKYBOX_RENDERER.render(skybox);
 
             // Render skybox again into fbo
             GBUFFER.unbind();
             skybox.getSkyboxFbo().bind(GL30.GL_COLOR_ATTACHMENT0);
             clear();
-            SKYBOX_RENDERER.render(skybox, camera);
+            SKYBOX_RENDERER.render(skybox);
             skybox.getSkyboxFbo().unbind();
             GBUFFER.bind(GL30.GL_COLOR_ATTACHMENT0);
         }
 
         // Rendering terrains
-        TERRAIN_RENDERER.render(TERRAINS, camera, CLIP_PLANE_RENDER_ALL);
-        GRASSLAND_RENDERER.renderGrassland(TERRAINS, camera);
+        TERRAIN_RENDERER.render(TERRAINS, FRUSTUM);
+        GRASSLAND_RENDERER.renderGrassland(TERRAINS);
         TERRAINS.clear();
 
         // Rendering waters
-        WATER_RENDERER.render(WATERS, camera);
+        WATER_RENDERER.render(WATERS, WATER_SCHEDULER);
         WATERS.clear();
 
         // Rendering 3d guis
@@ -287,17 +376,22 @@ public class MasterRenderer {
         FONT_RENDERER.render(GUIS_3D, camera, true);
         GUIS_3D.clear();
 
-        // Rendering entities
-        ENTITY_RENDERER.render(ENTITIES, camera, CLIP_PLANE_RENDER_ALL);
-        ENTITIES.clear();
+        // Rendering entities, that are not hidden behind occluders
+        if (OCCLUSION_CULLING) {
+            OCCLUSION_BUFFER.clear(camera.getViewProjectionMatrix());
+            ENTITY_RENDERER.rasterizeOccluders(ENTITIES, FRUSTUM, OCCLUSION_BUFFER);
+            ENTITY_RENDERER.render(ENTITIES, camera, FRUSTUM, OCCLUSION_BUFFER);
+        } else
+            ENTITY_RENDERER.render(ENTITIES, camera, FRUSTUM);
+        clearEntityBatches();
 
         // Rendering animated entities
-        ANIMATED_ENTITY_RENDERER.render(ANIMATED_ENTITIES, camera, CLIP_PLANE_RENDER_ALL);
-        ANIMATED_ENTITIES.clear();
+        ANIMATED_ENTITY_RENDERER.render(ANIMATED_ENTITIES, camera);
+        clearBatches(ANIMATED_ENTITIES);
 
         // Rendering particles
         PARTICLE_RENDERER.render(PARTICLES, camera);
-        PARTICLES.clear();
+        clearParticleBatches();
 
         // Rendering sun
         if (sun != null)
@@ -371,53 +465,100 @@ public class MasterRenderer {
     }
 
     /**
-     * Getting color under mouse cursor of gbuffer and output gbuffer and store into
-     * picked color
+     * Reading the color under the mouse cursor of gbuffer and output gbuffer
+     * asynchronously into a pixel pack buffer and storing the color read in the
+     * last frame into picked color. Only runs, if the picked color was queried.
      */
     private static void getPickColor() {
+        if (!pickRequested) {
+            pickPending = false;
+            return;
+        }
+        pickRequested = false;
+
+        // Fetch color read in the last frame
+        if (pickPending) {
+            PICK_DATA.clear();
+            PICK_BUFFERS[pickBufferIndex ^ 1].getData(0, PICK_DATA);
+
+            // Set picked color of gbuffer, or of output, if not black
+            int offset = PICK_DATA.get(4) != 0.0f && PICK_DATA.get(5) != 0.0f && PICK_DATA.get(6) != 0.0f ? 4 : 0;
+            PICKED_COLOR.setRed(PICK_DATA.get(offset));
+            PICKED_COLOR.setGreen(PICK_DATA.get(offset + 1));
+            PICKED_COLOR.setBlue(PICK_DATA.get(offset + 2));
+        }
 
-        // Bind picking attachment of gbuffer
-        GBUFFER.bind(GL30.GL_COLOR_ATTACHMENT5);
-
-        // Get picked color of gbuffer
-        GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
-        PICK_DATA.clear();
-        GL11.glReadPixels((int) (Mouse.getPosx()), (int) ((Window.getHeight() - Mouse.getPosy())), 1, 1, GL11.GL_RGBA,
-                GL11.GL_FLOAT, PICK_DATA);
-
-        // Set picked color
-        PICKED_COLOR.setRed(PICK_DATA.get(0));
-        PICKED_COLOR.setGreen(PICK_DATA.get(1));
-        PICKED_COLOR.setBlue(PICK_DATA.get(2));
+        int x = (int) (Mouse.getPosx()), y = (int) ((Window.getHeight() - Mouse.getPosy()));
 
+        // Read picking attachment of gbuffer
+        GBUFFER.bind(GL30.GL_COLOR_ATTACHMENT5);
+        PICK_BUFFERS[pickBufferIndex].readPixels(x, y, 1, 1, 0);
         GBUFFER.unbind();
 
-        // Bind picking attachment of output gbuffer
+        // Read picking attachment of output gbuffer
         OUTPUT_GBUFFER.bind(GL30.GL_COLOR_ATTACHMENT5);
-
-        // Get picked color of output
-        GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
-        PICK_DATA.clear();
-        GL11.glReadPixels((int) (Mouse.getPosx()), (int) ((Window.getHeight() - Mouse.getPosy())), 1, 1, GL11.GL_RGBA,
-                GL11.GL_FLOAT, PICK_DATA);
-
-        // Set picked color, if not black
-        if (PICK_DATA.get(0) != 0.0f && PICK_DATA.get(1) != 0.0f && PICK_DATA.get(2) != 0.0f) {
-            PICKED_COLOR.setRed(PICK_DATA.get(0));
-            PICKED_COLOR.setGreen(PICK_DATA.get(1));
-            PICKED_COLOR.setBlue(PICK_DATA.get(2));
-        }
-
+        PICK_BUFFERS[pickBufferIndex].readPixels(x, y, 1, 1, 16);
         OUTPUT_GBUFFER.unbind();
+
+        pickPending = true;
+        pickBufferIndex ^= 1;
     }
 
     /**
-     * @return Color thats get picked by the mouse
+     * @return Color thats get picked by the mouse, one frame delayed. Requests
+     *         the gpu picking for the next frame.
      */
     public static Color getPickedColor() {
+        pickRequested = true;
         return PICKED_COLOR;
     }
 
+    /**
+     * Picking the object under the mouse cursor on the cpu. The pick is only
+     * calculated once per frame on the first query.
+     * 
+     * @return Pick result of the mouse cursor
+     */
+    public static PickResult getMousePick() {
+        if (!mousePickValid) {
+            float x = Mouse.getPosx() / Window.getWidth() * 2.0f - 1.0f;
+            float y = 1.0f - Mouse.getPosy() / Window.getHeight() * 2.0f;
+            PICKER.pickScreen(camera, x, y, MOUSE_PICK);
+            mousePickValid = true;
+        }
+        return MOUSE_PICK;
+    }
+
+    /**
+     * @return Occlusion buffer of the main pass with the culling stats of the
+     *         last frame
+     */
+    public static OcclusionBuffer getOcclusionBuffer() {
+        return OCCLUSION_BUFFER;
+    }
+
+    /**
+     * @return Cpu picking service with the objects rendered in the last frame
+     */
+    public static Picker getPicker() {
+        return PICKER;
+    }
+
+    /**
+     * Checks if an object is under the mouse cursor. Uses the cpu picking or the
+     * gpu picking depending on the configured picking mode.
+     * 
+     * @param object    Entity, animated entity or gui pane to check
+     * @param pickColor Picking color of the object
+     * @return True, if the object is under the mouse cursor
+     */
+    public static boolean isMouseOver(Object object, Color pickColor) {
+        if (CPU_PICKING)
+            return getMousePick().getObject() == object;
+        else
+            return pickColor.compare(getPickedColor());
+    }
+
     /**
      * Rendering 2 dimensional gui and all its components onto the screen
      * 
@@ -425,6 +566,7 @@ public class MasterRenderer {
      */
     public static void renderGui2D(GUIPane gui) {
         GUIS_2D.add(gui);
+        PICKER.addGui2D(gui);
     }
 
     /**
@@ -434,6 +576,7 @@ public class MasterRenderer {
      */
     public static void renderGui3D(GUIPane gui) {
         GUIS_3D.add(gui);
+        PICKER.addGui3D(gui);
     }
 
     /**
@@ -530,9 +673,30 @@ public class MasterRenderer {
      * @param entity Entity to add
      */
     public static void renderEntity(Entity entity) {
-        HashMap<Mesh, List<Entity>> shaderBatch = ENTITIES.computeIfAbsent(entity.getShader(), k -> new HashMap<>());
+        Model model = AssetDatabase.getModel(entity.getModel());
+        if (model == null)
+            return; // Model not loaded (yet)
+
+        // Track changed and newly added static entities
+        if (entity.isStatic()) {
+            entity.checkStaticChanges(model);
+            if (staticEntities.add(entity) && !lastStaticEntities.contains(entity))
+                Entity.invalidateStatic();
+        }
 
-        for (Mesh mesh : AssetDatabase.getModel(entity.getModel()).getMeshes()) {
+        PICKER.addEntity(entity);
+        BatchMap<Mesh, List<Entity>> shaderBatch = ENTITIES.computeIfAbsent(entity.getShader(), k -> new BatchMap<>());
+
+        // Select level of detail from the projected size of the model
+        if (model.getLodCount() > 1 && !entity.isRotateWithCam()) {
+            float radius = entity.getWorldBoundingSphere(model, LOD_CENTER);
+            if (radius >= 0.0f) {
+                float size = LodSelector.getScreenSize(camera, LOD_CENTER.x, LOD_CENTER.y, LOD_CENTER.z, radius);
+                entity.setLod(LodSelector.select(size, entity.getLod(), model.getLodCount()));
+            }
+        }
+
+        for (Mesh mesh : model.getMeshes()) {
 
             // Get batch for this mesh, if null -> create, then add entity to batch
             List<Entity> meshBatch = shaderBatch.computeIfAbsent(mesh, k -> new ArrayList<>());
@@ -547,7 +711,12 @@ public class MasterRenderer {
      * @param entity Entity to add
      */
     public static void renderAnimatedEntity(AnimatedEntity entity) {
-        for (Mesh mesh : AssetDatabase.getAnimatedModel(entity.getModel()).getMeshes()) {
+        AnimatedModel model = AssetDatabase.getAnimatedModel(entity.getModel());
+        if (model == null)
+            return; // Model not loaded (yet)
+
+        PICKER.addAnimatedEntity(entity);
+        for (Mesh mesh : model.getMeshes()) {
 
             // Get batch for this mesh, if null -> create, then add entity to batch
             List<AnimatedEntity> batch = ANIMATED_ENTITIES.computeIfAbsent(mesh, k -> new ArrayList<>());
@@ -567,9 +736,8 @@ public class MasterRenderer {
 
     /**
      * Adding a new point light to the point light renderlist. So it will be
-     * rendered in the next frame.<br>
-     * Maximum lights is defined by the DeferredShader.MAX_LIGHTS variable. All
-     * extra lights will not be rendered
+     * rendered in the next frame. Point lights are assigned to light clusters,
+     * so there is no limit of lights.
      * 
      * @param light Point light to add
      */
@@ -579,9 +747,8 @@ public class MasterRenderer {
 
     /**
      * Adding a new spot light to the spot light renderlist. So it will be rendered
-     * in the next frame.<br>
-     * Maximum lights is defined by the DeferredShader.MAX_LIGHTS variable. All
-     * extra lights will not be rendered
+     * in the next frame. Spot lights are assigned to light clusters, so there is
+     * no limit of lights.
      * 
      * @param light Spot light to add
      */
@@ -620,10 +787,72 @@ public class MasterRenderer {
      * @param particle Particle to add
      */
     public static void renderParticle(Particle particle) {
-        if (!PARTICLES.containsKey(particle.getTexture())) {
-            PARTICLES.put(particle.getTexture(), new ArrayList<>());
+        PARTICLES.computeIfAbsent(particle.getTexture(), k -> new ParticleBatch()).add(particle);
+    }
+
+    /**
+     * Adding particles, that are already in the particle vertex layout (see
+     * ParticleBatch), to the particle renderlist. So they will be rendered in the
+     * next frame
+     *
+     * @param texture       Texture of the particles
+     * @param particles     Vertex data of the particles
+     * @param particleCount Count of particles to add
+     */
+    public static void renderParticles(String texture, float[] particles, int particleCount) {
+        PARTICLES.computeIfAbsent(texture, k -> new ParticleBatch()).add(particles, particleCount);
+    }
+
+    /**
+     * Clearing the particle batches for the next frame. Batches, that were not used
+     * in the last frame, are removed.
+     */
+    private static void clearParticleBatches() {
+        for (int i = PARTICLES.size() - 1; i >= 0; i--) {
+            ParticleBatch batch = PARTICLES.getValue(i);
+            if (batch.getCount() == 0)
+                PARTICLES.remove(i);
+            else
+                batch.clear();
+        }
+    }
+
+    /**
+     * Clearing the entity batches for the next frame. The batch lists are kept with
+     * their capacity, so refilling them does not allocate.
+     */
+    private static void clearEntityBatches() {
+
+        // No static entity was added, so one was removed, if the count differs
+        if (staticEntities.size() != lastStaticEntities.size())
+            Entity.invalidateStatic();
+        Set<Entity> swap = lastStaticEntities;
+        lastStaticEntities = staticEntities;
+        staticEntities = swap;
+        staticEntities.clear();
+
+        for (int i = ENTITIES.size() - 1; i >= 0; i--) {
+            BatchMap<Mesh, List<Entity>> shaderBatch = ENTITIES.getValue(i);
+            clearBatches(shaderBatch);
+            if (shaderBatch.isEmpty())
+                ENTITIES.remove(i);
+        }
+    }
+
+    /**
+     * Clearing the batch lists of a render list for the next frame. Batches, that
+     * were not used in the last frame, are removed.
+     *
+     * @param batches Batches to clear
+     */
+    private static <K, T> void clearBatches(BatchMap<K, List<T>> batches) {
+        for (int i = batches.size() - 1; i >= 0; i--) {
+            List<T> batch = batches.getValue(i);
+            if (batch.isEmpty())
+                batches.remove(i);
+            else
+                batch.clear();
         }
-        PARTICLES.get(particle.getTexture()).add(particle);
     }
 
     /**
@@ -640,6 +869,14 @@ public class MasterRenderer {
         return GBUFFER;
     }
 
+    /**
+     * @return Bytes allocated by the render thread in the last frame, only counted
+     *         if RENDER_ALLOCATION_CHECK is enabled
+     */
+    public static long getFrameAllocatedBytes() {
+        return frameAllocatedBytes;
+    }
+
     /**
      * @return Current camera, the scene gets rendered from
      */
@@ -25,57 +25,88 @@
  * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-
 package de.coreengine.rendering.renderer;
 
 import de.coreengine.asset.AssetDatabase;
-import de.coreengine.rendering.model.Mesh;
-import de.coreengine.rendering.model.singletons.Quad2D;
+import de.coreengine.rendering.ParticleBatch;
 import de.coreengine.rendering.programs.ParticleShader;
 import de.coreengine.rendering.renderable.Camera;
-import de.coreengine.rendering.renderable.Particle;
+import de.coreengine.util.BatchMap;
+import de.coreengine.util.Configuration;
+import de.coreengine.util.RadixSorter;
+import de.coreengine.util.gl.VertexArrayObject;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 
-import java.util.HashMap;
-import java.util.List;
+import java.nio.FloatBuffer;
 
 /**
- * Renderer that can render 3d particles
+ * Renderer that can render 3d particles. All particles of a frame are streamed
+ * into one vertex buffer and drawn with one call per texture.
  */
 public class ParticleRenderer {
+    private static final boolean SORTING = Configuration.getValuei("PARTICLE_SORTING") == 1;
 
     private ParticleShader shader = new ParticleShader();
 
+    // Streamed vertex buffer of the particles
+    private final VertexArrayObject vao = new VertexArrayObject();
+    private final int vbo = vao.addInterleavedVertexBuffer(0, 3, 2, 4, 1);
+    private FloatBuffer uploadBuffer = BufferUtils.createFloatBuffer(0);
+
+    // Sorter for back to front sorting
+    private final RadixSorter sorter = new RadixSorter();
+
     /**
      * Rendering a batch of particles sortet by texture
      *
      * @param particles Particle batches, sortet by textures
      * @param cam       Camera to render particles from
      */
-    public void render(HashMap<String, List<Particle>> particles, Camera cam) {
+    public void render(BatchMap<String, ParticleBatch> particles, Camera cam) {
 
-        Mesh model = Quad2D.getInstance();
+        // Sort and collect vertex data of all batches
+        int particleCount = 0;
+        for (int i = 0; i < particles.size(); i++) {
+            ParticleBatch batch = particles.getValue(i);
+            if (SORTING)
+                batch.sortBackToFront(cam.getPosition(), sorter);
+            particleCount += batch.getCount();
+        }
+        if (particleCount == 0)
+            return;
+
+        int floats = particleCount * ParticleBatch.FLOATS_PER_PARTICLE;
+        if (uploadBuffer.capacity() < floats)
+            uploadBuffer = BufferUtils.createFloatBuffer(floats * 2);
+        uploadBuffer.clear();
+        for (int i = 0; i < particles.size(); i++) {
+            ParticleBatch batch = particles.getValue(i);
+            uploadBuffer.put(batch.getData(), 0, batch.getCount() * ParticleBatch.FLOATS_PER_PARTICLE);
+        }
+        uploadBuffer.flip();
+        vao.updateVertexBuffer(vbo, uploadBuffer);
 
         shader.start();
         shader.prepareCam(cam);
 
-        model.getVao().bind();
-        model.getVao().enableAttributes();
+        vao.bind();
+        vao.enableAttributes();
 
-        // Iterate particle textures
-        for (String tex : particles.keySet()) {
-            int texId = AssetDatabase.getTexture(tex);
-            shader.prepareParticles(texId);
+        // Draw each texture in one call
+        int first = 0;
+        for (int i = 0; i < particles.size(); i++) {
+            int count = particles.getValue(i).getCount();
+            if (count == 0)
+                continue;
 
-            // Iterate particles for texture
-            for (Particle particle : particles.get(tex)) {
-                shader.setNextTransform(particle.getSize(), particle.getPosition());
-                GL11.glDrawArrays(GL11.GL_POINTS, 0, 1);
-            }
+            shader.prepareParticles(AssetDatabase.getTexture(particles.getKey(i)));
+            GL11.glDrawArrays(GL11.GL_POINTS, first, count);
+            first += count;
         }
 
-        model.getVao().disableAttributes();
-        model.getVao().unbind();
+        vao.disableAttributes();
+        vao.unbind();
 
         shader.stop();
     }
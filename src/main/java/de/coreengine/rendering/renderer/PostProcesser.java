@@ -35,7 +35,7 @@ import de.coreengine.rendering.renderer.ppeffects.PostProcessingEffect;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL30;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -46,7 +46,7 @@ import java.util.List;
 public class PostProcesser {
 
     // List of all active effect for the next frame
-    private static List<PostProcessingEffect> effects = new LinkedList<>();
+    private static List<PostProcessingEffect> effects = new ArrayList<>();
 
     // Input and output fbo
     private static FrameBufferObject input;
@@ -83,7 +83,8 @@ public class PostProcesser {
         model.getVao().enableAttributes();
         model.getIndexBuffer().bind();
 
-        for (PostProcessingEffect effect : effects) {
+        for (int i = 0; i < effects.size(); i++) {
+            PostProcessingEffect effect = effects.get(i);
 
             effect.prepare(input.getColorAttachment0(), input.getDepthAttachment());
 
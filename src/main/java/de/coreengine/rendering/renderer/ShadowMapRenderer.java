@@ -29,69 +29,200 @@
 package de.coreengine.rendering.renderer;
 
 import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.singletons.Quad2D;
+import de.coreengine.rendering.programs.ShadowCacheShader;
 import de.coreengine.rendering.programs.ShadowMapShader;
 import de.coreengine.rendering.programs.entity.EntityShader;
 import de.coreengine.rendering.renderable.Entity;
 import de.coreengine.rendering.renderable.gui.GUIPane;
+import de.coreengine.rendering.renderable.light.ShadowCascade;
 import de.coreengine.rendering.renderable.light.ShadowLight;
+import de.coreengine.util.BatchMap;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL30;
 
-import java.util.HashMap;
+import javax.vecmath.Vector3f;
+
 import java.util.List;
 
 public class ShadowMapRenderer {
 
     private ShadowMapShader shader = new ShadowMapShader();
+    private ShadowCacheShader cacheShader = new ShadowCacheShader();
+
+    // Static entity version, the static shadows were cached with
+    private int lastStaticVersion = -1;
+
+    // Center of the bounding sphere of the current entity
+    private final Vector3f boundingCenter = new Vector3f();
 
     /**
      * Rendering a list of entities and 3d GUIs into the shadow map of the shadow
-     * light. Only the depth information will be rendered!
+     * light. Every cascade is rendered into its own area of the shadow map and
+     * only with the entities, that can cast a shadow into it.<br>
+     * Static entities are rendered into a cached shadow map per cascade, that
+     * covers a bigger area than the cascade. It is only updated when the cascade
+     * left that area, the light rotated or the static entities changed. The
+     * cached depth gets reprojected into the cascade and the dynamic entities
+     * are rendered on top. Only the depth information will be rendered!
      *
      * @param entities    Entities to render
      * @param guis        3 Dimensional GUIs to render
      * @param shadowLight Shadow Light to render from
      */
-    void render(HashMap<EntityShader, HashMap<Mesh, List<Entity>>> entities, List<GUIPane> guis,
+    void render(BatchMap<EntityShader, BatchMap<Mesh, List<Entity>>> entities, List<GUIPane> guis,
             ShadowLight shadowLight) {
         GL11.glCullFace(GL11.GL_FRONT);
+
+        // Invalidate static shadows, if static entities were changed, added or
+        // removed
+        if (Entity.getStaticVersion() != lastStaticVersion) {
+            shadowLight.invalidateStaticShadows();
+            lastStaticVersion = Entity.getStaticVersion();
+        }
+
+        int size = shadowLight.getCascadeSize();
+        ShadowCascade[] cascades = shadowLight.getCascades();
+
+        // Update cached static shadows of invalidated cascades or cascades, that
+        // left their static shadow box
+        shader.start();
+        for (int i = 0; i < cascades.length; i++) {
+            if (!cascades[i].needsStaticUpdate())
+                continue;
+
+            cascades[i].updateStaticBox(shadowLight.getStaticScale());
+            shadowLight.getStaticShadowMap(i).bind(GL30.GL_COLOR_ATTACHMENT0);
+            GL11.glClear(GL11.GL_DEPTH_BUFFER_BIT);
+            renderCascade(entities, cascades[i], true);
+            shadowLight.getStaticShadowMap(i).unbind();
+        }
+        shader.stop();
+
         shadowLight.getShadowMap().bind(GL30.GL_COLOR_ATTACHMENT0);
         GL11.glClearColor(0, 0, 0, 1);
         GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
 
-        for (EntityShader currenShader : entities.keySet()) {
-            HashMap<Mesh, List<Entity>> entityBatch = entities.get(currenShader);
+        // Reproject static shadows into the cascades
+        Mesh quad = Quad2D.getInstance();
+        GL11.glCullFace(GL11.GL_BACK);
+        GL11.glDepthFunc(GL11.GL_ALWAYS);
+        cacheShader.start();
+        quad.getVao().bind();
+        quad.getVao().enableAttributes();
+        quad.getIndexBuffer().bind();
+        for (int i = 0; i < cascades.length; i++) {
+            cascades[i].updateStaticReprojection();
+            cacheShader.setCascade(shadowLight.getStaticShadowMap(i).getDepthAttachment(), cascades[i]);
+            GL11.glViewport(i * size, 0, size, size);
+            GL11.glDrawElements(GL11.GL_TRIANGLES, quad.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
+        }
+        quad.getIndexBuffer().unbind();
+        quad.getVao().disableAttributes();
+        quad.getVao().unbind();
+        cacheShader.stop();
+        GL11.glDepthFunc(GL11.GL_LESS);
+        GL11.glCullFace(GL11.GL_FRONT);
+
+        // Render dynamic entities on top
+        shader.start();
+        for (int i = 0; i < cascades.length; i++) {
+            GL11.glViewport(i * size, 0, size, size);
+            renderCascade(entities, cascades[i], false);
+        }
+        shader.stop();
+        shadowLight.getShadowMap().unbind();
 
-            shader.start();
-            shader.setVPMat(shadowLight.getVpMat());
+        GL11.glCullFace(GL11.GL_BACK);
+    }
 
-            for (Mesh mesh : entityBatch.keySet()) {
+    /**
+     * Rendering the static or dynamic entities into a cascade
+     *
+     * @param entities   Entities to render
+     * @param cascade    Cascade to render into
+     * @param staticPass Render static (true) or dynamic (false) entities
+     */
+    private void renderCascade(BatchMap<EntityShader, BatchMap<Mesh, List<Entity>>> entities,
+            ShadowCascade cascade, boolean staticPass) {
+        shader.setVPMat(staticPass ? cascade.getStaticVpMat() : cascade.getVpMat());
+
+        for (int s = 0; s < entities.size(); s++) {
+            BatchMap<Mesh, List<Entity>> entityBatch = entities.getValue(s);
+            for (int m = 0; m < entityBatch.size(); m++) {
+                renderMesh(entityBatch.getKey(m), entityBatch.getValue(m), cascade, staticPass);
+            }
+        }
+    }
 
-                // Bind mesh data
+    /**
+     * Rendering all static or dynamic entities of a mesh, that intersect the
+     * cascade. The mesh data is only bound, if at least one entity is visible.
+     *
+     * @param mesh       Mesh of the entities
+     * @param entities   Entities to render
+     * @param cascade    Cascade to render into
+     * @param staticPass Render static (true) or dynamic (false) entities
+     */
+    private void renderMesh(Mesh mesh, List<Entity> entities, ShadowCascade cascade, boolean staticPass) {
+        boolean bound = false;
+        int boundLod = 0;
+
+        // Iterate instanced entities
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            if (entity.isStatic() != staticPass || !isCasterVisible(mesh, entity, cascade, staticPass))
+                continue;
+
+            // Cached static shadows are rendered with full detail, because the
+            // selected lod changes with the camera
+            int lod = staticPass ? 0 : entity.getLod();
+
+            // Bind mesh data
+            if (!bound) {
                 mesh.getVao().bind();
                 mesh.getVao().enableAttributes();
-                mesh.getIndexBuffer().bind();
-
-                // Iterate instanced entities
-                for (Entity entity : entityBatch.get(mesh)) {
-
-                    // Prepare entity
-                    shader.prepareEntity(entity);
+                mesh.getIndexBuffer(lod).bind();
+                boundLod = lod;
+                bound = true;
+            } else if (boundLod != lod) {
+                mesh.getIndexBuffer(lod).bind();
+                boundLod = lod;
+            }
 
-                    // Render entity
-                    GL11.glDrawElements(GL11.GL_TRIANGLES, mesh.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
-                }
+            // Prepare entity
+            shader.prepareEntity(entity);
 
-                // Unbind mesh data
-                mesh.getIndexBuffer().unbind();
-                mesh.getVao().disableAttributes();
-                mesh.getVao().unbind();
-            }
+            // Render entity
+            GL11.glDrawElements(GL11.GL_TRIANGLES, mesh.getIndexBuffer(boundLod).getSize(), GL11.GL_UNSIGNED_INT, 0);
+        }
 
-            shader.stop();
+        // Unbind mesh data
+        if (bound) {
+            mesh.getIndexBuffer().unbind();
+            mesh.getVao().disableAttributes();
+            mesh.getVao().unbind();
         }
+    }
 
-        shadowLight.getShadowMap().unbind();
-        GL11.glCullFace(GL11.GL_BACK);
+    /**
+     * Checks if the world space bounding sphere of an entity intersects the
+     * cascade or its static shadow box. Entities without known bounds are always
+     * visible.
+     *
+     * @param mesh       Mesh of the entity
+     * @param entity     Entity to check
+     * @param cascade    Cascade to check
+     * @param staticPass Check against the static shadow box
+     * @return True, if the entity can cast a shadow into the cascade
+     */
+    private boolean isCasterVisible(Mesh mesh, Entity entity, ShadowCascade cascade, boolean staticPass) {
+        float radius = entity.getWorldBoundingSphere(mesh, boundingCenter);
+        if (radius < 0.0f)
+            return true;
+        else if (staticPass)
+            return cascade.intersectsStaticSphere(boundingCenter.x, boundingCenter.y, boundingCenter.z, radius);
+        else
+            return cascade.intersectsSphere(boundingCenter.x, boundingCenter.y, boundingCenter.z, radius);
     }
 }
@@ -30,7 +30,6 @@ package de.coreengine.rendering.renderer;
 import de.coreengine.rendering.model.Mesh;
 import de.coreengine.rendering.model.singletons.Cube3D;
 import de.coreengine.rendering.programs.SkyboxShader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.Skybox;
 import de.coreengine.util.Configuration;
 import org.lwjgl.opengl.GL11;
@@ -55,9 +54,8 @@ public class SkyboxRenderer {
      * Rendering skybox onto the bound framebuffer
      * 
      * @param skybox Skybox to render
-     * @param cam    Camera to render skyboc from
      */
-    void render(Skybox skybox, Camera cam) {
+    void render(Skybox skybox) {
         GL11.glDisable(GL11.GL_CULL_FACE);
 
         Mesh model = Cube3D.getInstance();
@@ -68,7 +66,6 @@ public class SkyboxRenderer {
         model.getVao().enableAttributes();
         model.getIndexBuffer().bind();
 
-        shader.setCamera(cam);
         shader.prepareSkybox(skybox);
 
         GL11.glDrawElements(GL11.GL_TRIANGLES, model.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
@@ -27,16 +27,15 @@
  */
 package de.coreengine.rendering.renderer;
 
+import de.coreengine.rendering.Frustum;
 import de.coreengine.rendering.model.singletons.TerrainMesh;
 import de.coreengine.rendering.programs.TerrainShader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.terrain.Terrain;
 import de.coreengine.rendering.renderable.terrain.TerrainNode;
 import de.coreengine.util.gl.IndexBuffer;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL40;
 
-import javax.vecmath.Vector4f;
 import java.util.List;
 
 /**
@@ -49,35 +48,38 @@ public class TerrainRenderer {
     private final TerrainShader shader = new TerrainShader();
 
     /**
-     * Rendering a terrain using a TerrainShader
+     * Rendering a terrain using a TerrainShader. Only the leafs of the terrain
+     * quadtree inside the frustum are rendered.
      * 
-     * @param terrains  Terrains to render
-     * @param camera    Camera to render from
-     * @param clipPlane Clipplane to clip terrain
+     * @param terrains Terrains to render
+     * @param frustum  Frustum of the render pass to cull terrain nodes with
      */
-    void render(List<Terrain> terrains, Camera camera, Vector4f clipPlane) {
+    void render(List<Terrain> terrains, Frustum frustum) {
 
         TerrainMesh mesh = TerrainMesh.getInstance();
 
         // Prepare shader
         shader.start();
-        shader.setViewProjectionMatrix(camera.getViewProjectionMatrix());
-        shader.setCameraPosition(camera.getPosition());
-        shader.setClipPlane(clipPlane.x, clipPlane.y, clipPlane.z, clipPlane.w);
 
         // Bind terrain mesh data and index buffer
         mesh.getVao().bind();
         mesh.getVao().enableAttributes();
 
-        terrains.forEach(terrain -> {
+        for (int t = 0; t < terrains.size(); t++) {
+            Terrain terrain = terrains.get(t);
 
             // Prepare shader for next terrain
             shader.setTerrainTransform(terrain.getTransMat());
             shader.setTerrainConfig(terrain.getConfig());
 
-            // Render terrain nodes
-            renderNode(terrain.getTerrainQuadtree(), mesh);
-        });
+            // Render visible terrain leafs
+            List<TerrainNode> leaves = terrain.getLeaves();
+            for (int i = 0; i < leaves.size(); i++) {
+                TerrainNode leaf = leaves.get(i);
+                if (isVisible(terrain, leaf, frustum))
+                    renderNode(leaf, mesh);
+            }
+        }
 
         // Stop shader and unbind terrain mesh data and index buffer
         mesh.getVao().disableAttributes();
@@ -86,47 +88,56 @@ public class TerrainRenderer {
     }
 
     /**
-     * Rendering a node from the terrain quad tree
+     * Rendering a leaf from the terrain quad tree
      * 
-     * @param node Node to render
+     * @param node Leaf node to render
      * @param mesh Mesh1 to use for render
      */
     private void renderNode(TerrainNode node, TerrainMesh mesh) {
 
-        // Render node if its a leaf
-        if (node.isLeaf()) {
-
-            // Get greater or euqal neightbor nodes
-            TerrainNode neighbourLeft = node.getNeighboursGeLeft();
-            TerrainNode neighbourRight = node.getNeighboursGeRight();
-            TerrainNode neighbourTop = node.getNeighboursGeTop();
-            TerrainNode neighbourBottom = node.getNeighboursGeBottom();
-
-            // Check if neighbours lod levels are greater than the own
-            boolean morphLeft = (neighbourLeft != null && neighbourLeft.getLod() < node.getLod());
-            boolean morphRight = (neighbourRight != null && neighbourRight.getLod() < node.getLod());
-            boolean morphBottom = (neighbourBottom != null && neighbourBottom.getLod() < node.getLod());
-            boolean morphTop = (neighbourTop != null && neighbourTop.getLod() < node.getLod());
+        // Check if neighbours lod levels are greater than the own
+        int morph = node.getMorphFlags();
+        boolean morphLeft = (morph & TerrainNode.MORPH_LEFT) != 0;
+        boolean morphRight = (morph & TerrainNode.MORPH_RIGHT) != 0;
+        boolean morphBottom = (morph & TerrainNode.MORPH_BOTTOM) != 0;
+        boolean morphTop = (morph & TerrainNode.MORPH_TOP) != 0;
 
-            // Select and bind selected index buffer
-            IndexBuffer index = getMorphingBuffer(morphLeft, morphRight, morphTop, morphBottom, mesh);
-            index.bind();
+        // Select and bind selected index buffer
+        IndexBuffer index = getMorphingBuffer(morphLeft, morphRight, morphTop, morphBottom, mesh);
+        index.bind();
 
-            // Prepare shader/loading offset, size
-            shader.setChunkData(node.getPosition(), node.getSize());
+        // Prepare shader/loading offset, size
+        shader.setChunkData(node.getPosition(), node.getSize());
 
-            // Render node
-            GL11.glDrawElements(GL40.GL_PATCHES, index.getSize(), GL11.GL_UNSIGNED_INT, 0);
+        // Render node
+        GL11.glDrawElements(GL40.GL_PATCHES, index.getSize(), GL11.GL_UNSIGNED_INT, 0);
 
-            // Unbind index buffer and return
-            index.unbind();
-            return;
-        }
+        // Unbind index buffer
+        index.unbind();
+    }
 
-        // Render all childs of this node, if node isnt a leaf
-        for (TerrainNode child : node.getChilds()) {
-            renderNode(child, mesh);
-        }
+    /**
+     * Checks if the world space bounding box of a terrain node, built from its
+     * height map bounds, intersects the frustum
+     * 
+     * @param terrain Terrain of the node
+     * @param node    Node to check
+     * @param frustum Frustum to check
+     * @return True, if the node is (partly) visible
+     */
+    private boolean isVisible(Terrain terrain, TerrainNode node, Frustum frustum) {
+        float scale = terrain.getScale();
+        float heightScale = terrain.getConfig().getAmplitude() * scale;
+
+        float x0 = terrain.getX() + node.getPosition().x * scale;
+        float x1 = x0 + node.getSize() * scale;
+        float z0 = terrain.getZ() + node.getPosition().y * scale;
+        float z1 = z0 + node.getSize() * scale;
+        float y0 = terrain.getY() + node.getMinHeight() * heightScale;
+        float y1 = terrain.getY() + node.getMaxHeight() * heightScale;
+
+        return frustum.intersectsBox(Math.min(x0, x1), Math.min(y0, y1), Math.min(z0, z1), Math.max(x0, x1),
+                Math.max(y0, y1), Math.max(z0, z1));
     }
 
     /**
@@ -0,0 +1,188 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderer;
+
+import de.coreengine.rendering.FrameBufferObject;
+import de.coreengine.rendering.renderable.Water;
+import de.coreengine.util.Configuration;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Class that decides, which waters get their reflection and refraction
+ * textures rendered in a frame. Coplanar waters with the same quality and
+ * settings share the textures of one water, and the water passes are spread
+ * round robin over several frames.
+ *
+ * @author Darius Dinger
+ */
+public class WaterPassScheduler {
+    private static final int UPDATE_INTERVAL = Configuration.getValuei("WATER_UPDATE_INTERVAL");
+    private static final int MAX_UPDATES_PER_FRAME = Configuration.getValuei("WATER_MAX_UPDATES_PER_FRAME");
+    private static final float COPLANAR_TOLERANCE = Configuration.getValuef("WATER_COPLANAR_TOLERANCE");
+
+    // Waters, that render their own reflection and refraction textures
+    private final List<Water> sources = new ArrayList<>();
+
+    // Source water, each water gets its textures from
+    private final IdentityHashMap<Water, Water> passSources = new IdentityHashMap<>();
+
+    // Source waters, that have valid textures, with the fbo they were rendered in,
+    // and the map of the last frame to keep only current sources
+    private IdentityHashMap<Water, FrameBufferObject> rendered = new IdentityHashMap<>();
+    private IdentityHashMap<Water, FrameBufferObject> lastRendered = new IdentityHashMap<>();
+
+    // Source waters to render in this frame
+    private final List<Water> scheduled = new ArrayList<>();
+
+    // Round robin position in the source waters
+    private int cursor = 0;
+
+    /**
+     * Grouping the waters of this frame and scheduling the source waters, whose
+     * textures have to be rendered in this frame. Waters, that were never
+     * rendered before, are always scheduled.
+     *
+     * @param waters Waters of this frame
+     */
+    void schedule(List<Water> waters) {
+        sources.clear();
+        passSources.clear();
+        scheduled.clear();
+
+        // Group coplanar waters
+        for (int i = 0; i < waters.size(); i++) {
+            Water water = waters.get(i);
+            Water source = findSource(water);
+            if (source == null) {
+                source = water;
+                sources.add(water);
+            }
+            passSources.put(water, source);
+        }
+        retainRenderedSources();
+
+        if (sources.isEmpty())
+            return;
+
+        // Schedule new waters
+        for (int i = 0; i < sources.size(); i++) {
+            Water source = sources.get(i);
+            if (!isRendered(source))
+                scheduled.add(source);
+        }
+
+        // Schedule round robin, so every water gets updated every interval frames
+        int updates = (sources.size() + Math.max(1, UPDATE_INTERVAL) - 1) / Math.max(1, UPDATE_INTERVAL);
+        if (MAX_UPDATES_PER_FRAME > 0)
+            updates = Math.min(updates, MAX_UPDATES_PER_FRAME);
+        updates = Math.max(0, updates - scheduled.size());
+
+        for (int i = 0; i < sources.size() && updates > 0; i++) {
+            Water source = sources.get((cursor + i) % sources.size());
+            if (isRendered(source)) {
+                scheduled.add(source);
+                updates--;
+            }
+        }
+        cursor = (cursor + scheduled.size()) % sources.size();
+
+        for (int i = 0; i < scheduled.size(); i++) {
+            Water source = scheduled.get(i);
+            rendered.put(source, source.getReflectionFbo());
+        }
+    }
+
+    /**
+     * Removing the rendered entries of waters, that are no sources anymore, by
+     * moving the entries of the current sources into the map of the last frame
+     */
+    private void retainRenderedSources() {
+        IdentityHashMap<Water, FrameBufferObject> swap = lastRendered;
+        lastRendered = rendered;
+        rendered = swap;
+        rendered.clear();
+
+        for (int i = 0; i < sources.size(); i++) {
+            FrameBufferObject fbo = lastRendered.get(sources.get(i));
+            if (fbo != null)
+                rendered.put(sources.get(i), fbo);
+        }
+        lastRendered.clear();
+    }
+
+    /**
+     * Checks if the textures of a source water were rendered since its fbos were
+     * (re)created
+     *
+     * @param source Source water to check
+     * @return True, if the textures are valid
+     */
+    private boolean isRendered(Water source) {
+        return rendered.get(source) == source.getReflectionFbo();
+    }
+
+    /**
+     * Searching a source water, that is coplanar to the water and has the same
+     * quality and settings.
+     *
+     * @param water Water to search source for
+     * @return Found source water or null
+     */
+    private Water findSource(Water water) {
+        for (int i = 0; i < sources.size(); i++) {
+            Water source = sources.get(i);
+            if (Math.abs(source.getY() - water.getY()) <= COPLANAR_TOLERANCE
+                    && source.getQuality() == water.getQuality()
+                    && source.isReflectionEnabled() == water.isReflectionEnabled()
+                    && source.isRefractionEnabled() == water.isRefractionEnabled())
+                return source;
+        }
+        return null;
+    }
+
+    /**
+     * @return Source waters, whose textures have to be rendered in this frame
+     */
+    List<Water> getScheduledWaters() {
+        return scheduled;
+    }
+
+    /**
+     * Getting the water, whose reflection and refraction textures should be used
+     * for a water
+     *
+     * @param water Water to get source of
+     * @return Source water of the water
+     */
+    Water getPassSource(Water water) {
+        return passSources.getOrDefault(water, water);
+    }
+}
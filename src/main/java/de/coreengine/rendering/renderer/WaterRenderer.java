@@ -30,7 +30,6 @@ package de.coreengine.rendering.renderer;
 import de.coreengine.rendering.model.Mesh;
 import de.coreengine.rendering.model.singletons.Quad2D;
 import de.coreengine.rendering.programs.WaterShader;
-import de.coreengine.rendering.renderable.Camera;
 import de.coreengine.rendering.renderable.Water;
 import org.lwjgl.opengl.GL11;
 
@@ -48,25 +47,26 @@ public class WaterRenderer {
     /**
      * Rendering water using a water shader
      * 
-     * @param waters Waters to render
-     * @param camera Camera to render from
+     * @param waters    Waters to render
+     * @param scheduler Scheduler, that assigned the reflection and refraction
+     *                  textures to the waters
      */
-    void render(List<Water> waters, Camera camera) {
+    void render(List<Water> waters, WaterPassScheduler scheduler) {
 
         Mesh model = Quad2D.getInstance();
 
         shader.start();
-        shader.setCamera(camera);
 
         model.getVao().bind();
         model.getVao().enableAttributes();
         model.getIndexBuffer().bind();
 
-        waters.forEach(water -> {
-            shader.prepareWater(water);
+        for (int i = 0; i < waters.size(); i++) {
+            Water water = waters.get(i);
+            shader.prepareWater(water, scheduler.getPassSource(water));
 
             GL11.glDrawElements(GL11.GL_TRIANGLES, model.getIndexBuffer().getSize(), GL11.GL_UNSIGNED_INT, 0);
-        });
+        }
 
         model.getIndexBuffer().unbind();
         model.getVao().disableAttributes();
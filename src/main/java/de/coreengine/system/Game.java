@@ -27,6 +27,7 @@
  */
 package de.coreengine.system;
 
+import de.coreengine.asset.AsyncAssetLoader;
 import de.coreengine.asset.TextureData;
 import de.coreengine.framework.GLFW;
 import de.coreengine.framework.Keyboard;
@@ -168,6 +169,9 @@ public class Game {
     public static void tick() {
         Scene curScene = getCurrentScene();
 
+        // Upload asynchronous loaded assets
+        AsyncAssetLoader.update();
+
         // Tick current scene
         if (curScene != null) {
 
@@ -87,17 +87,20 @@ public class Animated extends GameObject {
      * Reposing the skeleton to the current animation pose
      */
     private void reposeSkeleton() {
-        if (currentAnimation == null)
+        Animation animation = getCurrentAnimation();
+        if (animation == null || animatedEntity.getSkeleton() == null)
             return;
-        Animator.applyAnimation(animatedEntity.getSkeleton(), getCurrentAnimation(), currentTime);
+        Animator.applyAnimation(animatedEntity.getSkeleton(), animation, currentTime,
+                animatedEntity.getSkinningPalette());
     }
 
     @Override
     public void onUpdate() {
 
-        // If animation is paused or no animation or entity set, update children and
-        // return
-        if (pause || animatedEntity == null || currentAnimation == null) {
+        // If animation is paused or no animation, entity or loaded model set, update
+        // children and return
+        Animation curAnimation = pause ? null : getCurrentAnimation();
+        if (curAnimation == null) {
             super.onUpdate();
             return;
         }
@@ -106,7 +109,6 @@ public class Animated extends GameObject {
         currentTime += FrameTimer.getTslf() * animationSpeed;
 
         // Is animation finished
-        Animation curAnimation = getCurrentAnimation();
         if (currentTime >= curAnimation.getLength()) {
             if (loop)
                 currentTime %= curAnimation.getLength();
@@ -123,10 +125,24 @@ public class Animated extends GameObject {
     }
 
     /**
-     * @return Current playing animation or null, if no animation selected
+     * @return Current playing animation or null, if no animation selected or the
+     *         model is not loaded (yet)
      */
     private Animation getCurrentAnimation() {
-        return AssetDatabase.getAnimatedModel(animatedEntity.getModel()).getAnimations().get(currentAnimation);
+        AnimatedModel model = getModel();
+        if (model == null || currentAnimation == null)
+            return null;
+        return model.getAnimations().get(currentAnimation);
+    }
+
+    /**
+     * @return Model of the animated entity or null, if no entity set or the model
+     *         is not loaded (yet)
+     */
+    private AnimatedModel getModel() {
+        if (animatedEntity == null || animatedEntity.getModel() == null)
+            return null;
+        return AssetDatabase.getAnimatedModel(animatedEntity.getModel());
     }
 
     /**
@@ -142,10 +158,11 @@ public class Animated extends GameObject {
      * @return All available animations
      */
     public Set<String> getAnimations() {
-        if (animatedEntity == null)
+        AnimatedModel model = getModel();
+        if (model == null)
             return new HashSet<>();
         else
-            return AssetDatabase.getAnimatedModel(animatedEntity.getModel()).getAnimations().keySet();
+            return model.getAnimations().keySet();
     }
 
     @Override
@@ -185,18 +202,19 @@ public class Animated extends GameObject {
     }
 
     /**
-     * Setting the animation, that should be played. If the animation doesnt exist
-     * or the anmated entity isnt set, animation will not be setted and this method
-     * returns false. Pass null to unset animation
+     * Setting the animation, that should be played. If the animation doesnt exist,
+     * the anmated entity isnt set or its model is not loaded yet, animation will
+     * not be setted and this method returns false. For asynchronous loaded models
+     * set the animation in AssetHandle.whenDone. Pass null to unset animation
      *
      * @param animation Animation to play
      * 
-     * @return Animation not setted (Animation dont exist or animated entitiy isnt
-     *         set)
+     * @return Animation not setted (Animation dont exist, animated entitiy isnt
+     *         set or model not loaded)
      */
     public boolean setAnimation(String animation) {
-        AnimatedModel model = AssetDatabase.getAnimatedModel(animatedEntity.getModel());
-        if (animatedEntity != null && model.getAnimations().containsKey(animation)) {
+        AnimatedModel model = getModel();
+        if (model != null && model.getAnimations().containsKey(animation)) {
             this.currentAnimation = animation;
             stop();
             return true;
@@ -0,0 +1,477 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects;
+
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.linearmath.Transform;
+import de.coreengine.asset.AssetDatabase;
+import de.coreengine.asset.TextureData;
+import de.coreengine.rendering.renderable.terrain.Terrain;
+import de.coreengine.rendering.renderable.terrain.TerrainConfig;
+import de.coreengine.rendering.renderer.MasterRenderer;
+import de.coreengine.system.GameObject;
+import de.coreengine.util.Configuration;
+import de.coreengine.util.Logger;
+import de.coreengine.util.bullet.Physics;
+import de.coreengine.util.gl.MemoryDumper;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Game object of a terrain world, that is larger than one height map. The world
+ * is a grid of square terrain tiles. The tiles around the focus position are
+ * loaded asynchronously and the tiles outside the load radius are unloaded, so
+ * the memory stays bounded, no matter how large the world is.<br>
+ * <br>
+ * Every tile has its own height map file in the world directory, named
+ * "x_z.raw" after the tile coordinates. It contains resolution * resolution
+ * unsigned 8 bit heights row by row and is read memory mapped. Neighbouring
+ * tiles have to share their border heights. Tiles without a file are holes in
+ * the world.<br>
+ * <br>
+ * Worker threads decode the height map, build the height field and the
+ * collision shape of a tile. The main thread uploads the height map and adds
+ * the tiles rigid body to the physics world, with a limited count of tiles per
+ * frame. The lod of loaded neighbouring tiles is stitched at their borders.
+ *
+ * @author Darius Dinger
+ */
+public class TerrainWorld extends GameObject {
+    private static final float DEFAULT_TILE_SIZE = Configuration.getValuef("TERRAIN_WORLD_DEFAULT_TILE_SIZE");
+    private static final int DEFAULT_LOAD_RADIUS = Configuration.getValuei("TERRAIN_WORLD_DEFAULT_LOAD_RADIUS");
+    private static final int LOADER_THREADS = Configuration.getValuei("TERRAIN_WORLD_LOADER_THREADS");
+    private static final int UPLOADS_PER_FRAME = Configuration.getValuei("TERRAIN_WORLD_UPLOADS_PER_FRAME");
+
+    /**
+     * Tile of the terrain world and its loading state
+     */
+    private static class Tile {
+        private final int x, z;
+
+        // Terrain and rigid body of the tile, when loaded, null if there is no
+        // height map file
+        private Terrain terrain = null;
+        private RigidBody rigidBody = null;
+
+        // Is the tile uploaded
+        private boolean uploaded = false;
+
+        // Tile was unloaded, while it was loading
+        private volatile boolean cancelled = false;
+
+        // Loading the tile failed, it is a hole until it is requested again
+        private volatile boolean failed = false;
+
+        private Tile(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+    }
+
+    // Directory of the height map files
+    private final String directory;
+
+    // Configuration all tiles are created with
+    private final TerrainConfig tileConfig;
+
+    // World size of a tile and radius of tiles around the focus to keep loaded
+    private final float tileSize;
+    private final int loadRadius;
+
+    // World y position of the tiles
+    private volatile float y = 0.0f;
+
+    // Position to load the tiles around and to align the tiles lod to
+    private final Vector3f focus = new Vector3f();
+
+    // All requested tiles by tile key and the tiles, that finished loading
+    private final HashMap<Long, Tile> tiles = new HashMap<>();
+    private final ConcurrentLinkedQueue<Tile> loadedTiles = new ConcurrentLinkedQueue<>();
+
+    // Loaded and uploaded terrains for rendering
+    private final List<Terrain> terrains = new ArrayList<>();
+
+    // Worker threads for loading tiles, created with the first request and shut
+    // down, when the world is removed
+    private ExecutorService loader = null;
+
+    /**
+     * Creating new terrain world with the default tile size and load radius
+     *
+     * @param directory  Directory of the height map files
+     * @param tileConfig Configuration all tiles are created with, the height map
+     *                   is replaced by the tiles height map
+     */
+    public TerrainWorld(String directory, TerrainConfig tileConfig) {
+        this(directory, tileConfig, DEFAULT_TILE_SIZE, DEFAULT_LOAD_RADIUS);
+    }
+
+    /**
+     * Creating new terrain world
+     *
+     * @param directory  Directory of the height map files
+     * @param tileConfig Configuration all tiles are created with, the height map
+     *                   is replaced by the tiles height map
+     * @param tileSize   World size of a tile
+     * @param loadRadius Radius of tiles around the focus tile to keep loaded
+     */
+    public TerrainWorld(String directory, TerrainConfig tileConfig, float tileSize, int loadRadius) {
+        this.directory = directory;
+        this.tileConfig = tileConfig;
+        this.tileSize = tileSize;
+        this.loadRadius = loadRadius;
+    }
+
+    @Override
+    public void onUpdate() {
+        super.onUpdate();
+
+        int focusX = (int) Math.floor(focus.x / tileSize), focusZ = (int) Math.floor(focus.z / tileSize);
+
+        // Unload tiles outside the radius (one tile hysteresis)
+        Iterator<Tile> it = tiles.values().iterator();
+        while (it.hasNext()) {
+            Tile tile = it.next();
+            if (Math.abs(tile.x - focusX) > loadRadius + 1 || Math.abs(tile.z - focusZ) > loadRadius + 1) {
+                unloadTile(tile);
+                it.remove();
+            }
+        }
+
+        // Request missing tiles in the radius
+        if (loader == null)
+            loader = createLoader();
+        for (int z = focusZ - loadRadius; z <= focusZ + loadRadius; z++) {
+            for (int x = focusX - loadRadius; x <= focusX + loadRadius; x++) {
+                long key = getKey(x, z);
+                if (!tiles.containsKey(key)) {
+                    Tile tile = new Tile(x, z);
+                    tiles.put(key, tile);
+                    loader.execute(() -> loadTile(tile));
+                }
+            }
+        }
+
+        // Upload loaded tiles
+        for (int i = 0; i < UPLOADS_PER_FRAME && !loadedTiles.isEmpty(); i++) {
+            Tile tile = loadedTiles.poll();
+            if (!tile.cancelled)
+                uploadTile(tile);
+        }
+
+        // Align lod of the uploaded tiles
+        for (int i = 0; i < terrains.size(); i++) {
+            terrains.get(i).alignTo(focus);
+        }
+    }
+
+    @Override
+    public void onRender() {
+        super.onRender();
+
+        for (int i = 0; i < terrains.size(); i++) {
+            MasterRenderer.renderTerrain(terrains.get(i));
+        }
+    }
+
+    @Override
+    protected void onRemove() {
+        for (Tile tile : tiles.values()) {
+            unloadTile(tile);
+        }
+        tiles.clear();
+        loadedTiles.clear();
+
+        // Queued loads of the cancelled tiles return immediately
+        if (loader != null) {
+            loader.shutdown();
+            loader = null;
+        }
+    }
+
+    /**
+     * @return New thread pool for loading tiles
+     */
+    private static ExecutorService createLoader() {
+        return Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "TerrainWorldLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loading a tile on a worker thread. Decodes the memory mapped height map,
+     * builds the height field and the collision shape. If this fails, the tile is
+     * marked as failed and still handed to the main thread as a hole.
+     *
+     * @param tile Tile to load
+     */
+    private void loadTile(Tile tile) {
+        if (tile.cancelled)
+            return;
+
+        File file = new File(directory, tile.x + "_" + tile.z + ".raw");
+        if (file.isFile()) {
+            try {
+                TerrainConfig config = new TerrainConfig(tileConfig);
+                config.setHeightMap(readHeightMap(file));
+
+                Terrain terrain = new Terrain(config);
+                terrain.setScale(tileSize);
+                terrain.setX(tile.x * tileSize);
+                terrain.setY(y);
+                terrain.setZ(tile.z * tileSize);
+                terrain.getHeightField();
+                terrain.recalcCollisionShape();
+
+                tile.terrain = terrain;
+            } catch (IOException | RuntimeException e) {
+                tile.failed = true;
+                Logger.warn("Error loading terrain tile", "The height map " + file.getPath()
+                        + " could not be loaded: " + e.getMessage());
+            }
+        }
+
+        loadedTiles.add(tile);
+    }
+
+    /**
+     * Reading a raw 8 bit height map memory mapped into rgba texture data, the
+     * height is stored in the red channel
+     *
+     * @param file Raw height map file
+     * @return Texture data of the height map
+     * @throws IOException If the file could not be read
+     */
+    private static TextureData readHeightMap(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            int size = (int) channel.size();
+            int resolution = (int) Math.sqrt(size);
+            if (resolution < 2 || resolution * resolution != size)
+                throw new IllegalArgumentException("Height map is not square");
+
+            MappedByteBuffer heights = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer data = BufferUtils.createByteBuffer(size * 4);
+            for (int i = 0; i < size; i++) {
+                byte h = heights.get(i);
+                data.put(h).put(h).put(h).put((byte) 255);
+            }
+            data.flip();
+
+            TextureData heightMap = new TextureData();
+            heightMap.data = data;
+            heightMap.width = resolution;
+            heightMap.height = resolution;
+            return heightMap;
+        }
+    }
+
+    /**
+     * Uploading a loaded tile on the main thread and stitching it to its loaded
+     * neighbours
+     *
+     * @param tile Tile to upload
+     */
+    private void uploadTile(Tile tile) {
+        tile.uploaded = true;
+        if (tile.terrain == null)
+            return;
+
+        // Upload height map, clamped so the tile borders are not blended with the
+        // opposite border
+        TextureData heightMap = tile.terrain.getConfig().getHeightMap();
+        heightMap.generateKey(getTextureKey(tile), false, GL11.GL_LINEAR);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, AssetDatabase.getTexture(heightMap.getKey()));
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+
+        // Only the height field is kept on the cpu
+        heightMap.data = null;
+
+        // Add static rigid body
+        Matrix4f transform = new Matrix4f();
+        transform.setIdentity();
+        transform.setTranslation(new Vector3f(tile.terrain.getX(), tile.terrain.getY(), tile.terrain.getZ()));
+        tile.rigidBody = Physics.createRigidBody(0.0f, tile.terrain.getShape(), false);
+        tile.rigidBody.setWorldTransform(new Transform(transform));
+        if (getScene() != null)
+            addRigidBodyToWorld(tile.rigidBody);
+
+        terrains.add(tile.terrain);
+        updateNeighbours(tile.x, tile.z);
+    }
+
+    /**
+     * Unloading a tile, deleting its height map texture and removing its rigid
+     * body
+     *
+     * @param tile Tile to unload
+     */
+    private void unloadTile(Tile tile) {
+        tile.cancelled = true;
+        if (!tile.uploaded || tile.terrain == null)
+            return;
+
+        int texture = AssetDatabase.removeTexture(getTextureKey(tile));
+        if (texture != 0) {
+            GL11.glDeleteTextures(texture);
+            MemoryDumper.removeTexture(texture);
+        }
+
+        if (getScene() != null)
+            getScene().getPhysicWorld().removeRigidBody(tile.rigidBody);
+
+        terrains.remove(tile.terrain);
+        tile.terrain.setNeighbours(null, null, null, null);
+        tile.uploaded = false;
+        updateNeighbours(tile.x, tile.z);
+    }
+
+    /**
+     * Updating the neighbour links of a tile and its four neighbours
+     *
+     * @param x X coordinate of the tile
+     * @param z Z coordinate of the tile
+     */
+    private void updateNeighbours(int x, int z) {
+        linkNeighbours(x, z);
+        linkNeighbours(x - 1, z);
+        linkNeighbours(x + 1, z);
+        linkNeighbours(x, z + 1);
+        linkNeighbours(x, z - 1);
+    }
+
+    /**
+     * Setting the uploaded neighbours of a tile
+     *
+     * @param x X coordinate of the tile
+     * @param z Z coordinate of the tile
+     */
+    private void linkNeighbours(int x, int z) {
+        Terrain terrain = getUploadedTerrain(x, z);
+        if (terrain != null)
+            terrain.setNeighbours(getUploadedTerrain(x - 1, z), getUploadedTerrain(x + 1, z),
+                    getUploadedTerrain(x, z + 1), getUploadedTerrain(x, z - 1));
+    }
+
+    /**
+     * @param x X coordinate of the tile
+     * @param z Z coordinate of the tile
+     * @return Terrain of the tile, if it is uploaded, else null
+     */
+    private Terrain getUploadedTerrain(int x, int z) {
+        Tile tile = tiles.get(getKey(x, z));
+        return tile != null && tile.uploaded ? tile.terrain : null;
+    }
+
+    /**
+     * @param tile Tile to get the key for
+     * @return Asset database key of the tiles height map
+     */
+    private String getTextureKey(Tile tile) {
+        return "terrainWorld:" + directory + ":" + tile.x + "_" + tile.z;
+    }
+
+    /**
+     * @param x X coordinate of the tile
+     * @param z Z coordinate of the tile
+     * @return Key of the tile in the tile map
+     */
+    private static long getKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return Read/writeable position to load the tiles around and to align the
+     *         tiles lod to, usually the camera position
+     */
+    public Vector3f getFocus() {
+        return focus;
+    }
+
+    /**
+     * Setting the world y position of the tiles, that are loaded afterwards
+     *
+     * @param y World y position of the tiles
+     */
+    public void setY(float y) {
+        this.y = y;
+    }
+
+    /**
+     * @return Loaded terrain tiles, do not modify
+     */
+    public List<Terrain> getTerrains() {
+        return terrains;
+    }
+
+    /**
+     * @return Count of requested tiles, whose height map could not be loaded.
+     *         They are loaded again, after they left the load radius.
+     */
+    public int getFailedTileCount() {
+        int count = 0;
+        for (Tile tile : tiles.values()) {
+            if (tile.failed)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Getting the terrain height at a world position
+     *
+     * @param x World x position
+     * @param z World z position
+     * @return World y position of the terrain surface or NaN, if the tile is not
+     *         loaded
+     */
+    public float getHeight(float x, float z) {
+        Terrain terrain = getUploadedTerrain((int) Math.floor(x / tileSize), (int) Math.floor(z / tileSize));
+        return terrain == null ? Float.NaN : terrain.getHeight(x, z);
+    }
+}
@@ -135,6 +135,12 @@ public class Button extends GameObject {
         MasterRenderer.renderGui2D(pane);
     }
 
+    @Override
+    protected void onRemove() {
+        pane.clear();
+        super.onRemove();
+    }
+
     /**
      * @return Is the button get clicked
      */
@@ -166,6 +166,7 @@ public class List extends GameObject {
      * Clear list
      */
     public void clear() {
+        items.forEach(GUIPane::clear);
         items.clear();
         offset = 0.0f;
     }
@@ -187,6 +188,7 @@ public class List extends GameObject {
         for (GUIPane i : items) {
             if (i.getText().getText().equals(item)) {
                 items.remove(i);
+                i.clear();
 
                 recalcPositions();
                 getVisibleItems();
@@ -290,6 +292,12 @@ public class List extends GameObject {
         super.onRender();
     }
 
+    @Override
+    protected void onRemove() {
+        background.clear();
+        super.onRemove();
+    }
+
     /**
      * @return Read/Writeable color of a selected item
      */
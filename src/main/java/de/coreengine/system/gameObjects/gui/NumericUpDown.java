@@ -194,6 +194,12 @@ public class NumericUpDown extends GameObject {
         super.onInit();
     }
 
+    @Override
+    protected void onRemove() {
+        pane.clear();
+        super.onRemove();
+    }
+
     /**
      * @return Frame pane component
      */
@@ -195,6 +195,12 @@ public class TextField extends GameObject {
         super.onRender();
     }
 
+    @Override
+    protected void onRemove() {
+        pane.clear();
+        super.onRemove();
+    }
+
     /**
      * @param listener New listener of the textfield or null to remove listener
      */
@@ -0,0 +1,106 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Accelerating the particles towards a point. The acceleration fades out
+ * linear to zero at the radius. A negative strength repels the particles.
+ *
+ * @author Darius Dinger
+ */
+public class AttractorAffector implements ParticleAffector {
+
+    // Position of the attractor
+    private final Vector3f position = new Vector3f();
+
+    // Acceleration at the attractor position and radius of the attraction
+    private float strength;
+    private float radius;
+
+    /**
+     * Creating new attractor affector
+     *
+     * @param position Position of the attractor
+     * @param strength Acceleration at the attractor position
+     * @param radius   Radius of the attraction
+     */
+    public AttractorAffector(Vector3f position, float strength, float radius) {
+        this.position.set(position);
+        this.strength = strength;
+        this.radius = radius;
+    }
+
+    @Override
+    public void prepare(float tslf) {
+    }
+
+    @Override
+    public void affect(ParticleData particles, int from, int to, float tslf) {
+        float[] posX = particles.getPosX(), posY = particles.getPosY(), posZ = particles.getPosZ();
+        float[] velX = particles.getVelX(), velY = particles.getVelY(), velZ = particles.getVelZ();
+        float px = position.x, py = position.y, pz = position.z;
+        float radiusSq = radius * radius, invRadius = 1.0f / radius;
+        float acc = strength * tslf;
+
+        for (int i = from; i < to; i++) {
+            float dx = px - posX[i], dy = py - posY[i], dz = pz - posZ[i];
+            float distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq >= radiusSq || distSq == 0.0f)
+                continue;
+
+            float dist = (float) Math.sqrt(distSq);
+            float scale = acc * (1.0f - dist * invRadius) / dist;
+            velX[i] += dx * scale;
+            velY[i] += dy * scale;
+            velZ[i] += dz * scale;
+        }
+    }
+
+    /**
+     * @return Read/writeable position of the attractor
+     */
+    public Vector3f getPosition() {
+        return position;
+    }
+
+    /**
+     * @param strength Acceleration at the attractor position, negative to repel
+     */
+    public void setStrength(float strength) {
+        this.strength = strength;
+    }
+
+    /**
+     * @param radius Radius of the attraction
+     */
+    public void setRadius(float radius) {
+        this.radius = radius;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.util.FastRandom;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Spawning particles uniformly in an axis aligned box
+ *
+ * @author Darius Dinger
+ */
+public class BoxEmitterShape implements EmitterShape {
+
+    // Min and max corner of the box
+    private final Vector3f min = new Vector3f(), max = new Vector3f();
+
+    /**
+     * Creating new box emitter shape
+     *
+     * @param min Min corner of the box
+     * @param max Max corner of the box
+     */
+    public BoxEmitterShape(Vector3f min, Vector3f max) {
+        this.min.set(min);
+        this.max.set(max);
+    }
+
+    @Override
+    public void sample(FastRandom random, Vector3f dest) {
+        random.nextVector(min, max, dest);
+    }
+
+    /**
+     * @return Read/writeable min corner of the box
+     */
+    public Vector3f getMin() {
+        return min;
+    }
+
+    /**
+     * @return Read/writeable max corner of the box
+     */
+    public Vector3f getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+/**
+ * Setting the particles color channels from curves over their lifetime. A
+ * channel without curve keeps its spawn value.
+ *
+ * @author Darius Dinger
+ */
+public class ColorOverLifetimeAffector implements ParticleAffector {
+
+    // Curves of the color channels, can be null
+    private final ParticleCurve red, green, blue, alpha;
+
+    /**
+     * Creating new color over lifetime affector
+     *
+     * @param red   Curve of the red channel or null
+     * @param green Curve of the green channel or null
+     * @param blue  Curve of the blue channel or null
+     * @param alpha Curve of the alpha channel or null
+     */
+    public ColorOverLifetimeAffector(ParticleCurve red, ParticleCurve green, ParticleCurve blue,
+            ParticleCurve alpha) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.alpha = alpha;
+    }
+
+    @Override
+    public void prepare(float tslf) {
+    }
+
+    @Override
+    public void affect(ParticleData particles, int from, int to, float tslf) {
+        if (red != null)
+            affect(particles, particles.getColorR(), red, from, to);
+        if (green != null)
+            affect(particles, particles.getColorG(), green, from, to);
+        if (blue != null)
+            affect(particles, particles.getColorB(), blue, from, to);
+        if (alpha != null)
+            affect(particles, particles.getColorA(), alpha, from, to);
+    }
+
+    /**
+     * Setting one color channel of the particles in a range
+     *
+     * @param particles Particles to affect
+     * @param channel   Color channel array to set
+     * @param curve     Curve of the channel
+     * @param from      First particle to affect
+     * @param to        Particle after the last particle to affect
+     */
+    private void affect(ParticleData particles, float[] channel, ParticleCurve curve, int from, int to) {
+        for (int i = from; i < to; i++) {
+            channel[i] = curve.evaluate(particles.getAge(i));
+        }
+    }
+}
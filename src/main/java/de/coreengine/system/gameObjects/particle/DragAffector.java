@@ -0,0 +1,75 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+/**
+ * Slowing down the particles frame rate independent<br>
+ * Formula: velocity * drag ^ tslf
+ *
+ * @author Darius Dinger
+ */
+public class DragAffector implements ParticleAffector {
+
+    // Part of the velocity, that is left after one second
+    private float drag;
+
+    // Velocity factor of the current frame
+    private float factor = 1.0f;
+
+    /**
+     * Creating new drag affector
+     *
+     * @param drag Part of the velocity, that is left after one second (0 - 1)
+     */
+    public DragAffector(float drag) {
+        this.drag = drag;
+    }
+
+    @Override
+    public void prepare(float tslf) {
+        factor = (float) Math.pow(drag, tslf);
+    }
+
+    @Override
+    public void affect(ParticleData particles, int from, int to, float tslf) {
+        float[] velX = particles.getVelX(), velY = particles.getVelY(), velZ = particles.getVelZ();
+
+        for (int i = from; i < to; i++) {
+            velX[i] *= factor;
+            velY[i] *= factor;
+            velZ[i] *= factor;
+        }
+    }
+
+    /**
+     * @param drag Part of the velocity, that is left after one second (0 - 1)
+     */
+    public void setDrag(float drag) {
+        this.drag = drag;
+    }
+}
@@ -25,47 +25,25 @@
  * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
  * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-package de.coreengine.rendering.renderable.gui;
+package de.coreengine.system.gameObjects.particle;
 
-import de.coreengine.util.gl.IndexBuffer;
+import de.coreengine.util.FastRandom;
 
-import javax.vecmath.Vector2f;
+import javax.vecmath.Vector3f;
 
 /**
- * Class that represent a renderable character
+ * Shape, new particles of a particle system are spawned in
  *
  * @author Darius Dinger
  */
-public class GUIChar {
-
-    // Index buffer of this character
-    private IndexBuffer index;
-
-    // Offset of this particular char
-    private Vector2f offset = new Vector2f();
-
-    // Package only constructor
-    GUIChar() {
-    }
-
-    /**
-     * @return Offset of this particular char
-     */
-    public Vector2f getOffset() {
-        return offset;
-    }
-
-    /**
-     * @param index Index buffer of this character
-     */
-    public void setIndex(IndexBuffer index) {
-        this.index = index;
-    }
+public interface EmitterShape {
 
     /**
-     * @return Index buffer of this character
+     * Generating a random spawn position in the shape
+     *
+     * @param random Generator to use for the random position
+     * @param dest   Vector to store the spawn offset from the particle system
+     *               position in
      */
-    public IndexBuffer getIndex() {
-        return index;
-    }
+    void sample(FastRandom random, Vector3f dest);
 }
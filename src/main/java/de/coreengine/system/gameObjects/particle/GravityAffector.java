@@ -0,0 +1,64 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.util.bullet.Physics;
+
+/**
+ * Accelerating the particles downwards, scaled by their mass<br>
+ * Formula: velocity.y + mass * gravity * tslf
+ *
+ * @author Darius Dinger
+ */
+public class GravityAffector implements ParticleAffector {
+
+    // Gravity acceleration per mass unit
+    private float gravity = Physics.GRAVITY_OF_EARTH;
+
+    @Override
+    public void prepare(float tslf) {
+    }
+
+    @Override
+    public void affect(ParticleData particles, int from, int to, float tslf) {
+        float[] velY = particles.getVelY(), mass = particles.getMass();
+        float g = gravity * tslf;
+
+        for (int i = from; i < to; i++) {
+            velY[i] += mass[i] * g;
+        }
+    }
+
+    /**
+     * @param gravity New gravity acceleration per mass unit (negative is
+     *                downwards)
+     */
+    public void setGravity(float gravity) {
+        this.gravity = gravity;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.rendering.model.Mesh;
+import de.coreengine.util.FastRandom;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Spawning particles uniformly on the surface of a triangle mesh. Triangles are
+ * chosen by their area, so big triangles get more particles than small ones.
+ *
+ * @author Darius Dinger
+ */
+public class MeshEmitterShape implements EmitterShape {
+
+    // Vertex positions and triangle indices of the mesh
+    private final float[] vertices;
+    private final int[] indices;
+
+    // Accumulated triangle areas
+    private final float[] areas;
+
+    /**
+     * Creating new mesh emitter shape from the cpu geometry of a mesh, which uses
+     * the full resolution indices
+     *
+     * @param mesh Mesh to spawn the particles on
+     */
+    public MeshEmitterShape(Mesh mesh) {
+        this(mesh.getOccluderVertices(), mesh.getOccluderIndices());
+    }
+
+    /**
+     * Creating new mesh emitter shape from the full resolution mesh data
+     *
+     * @param meshData Mesh data to spawn the particles on
+     */
+    public MeshEmitterShape(MeshData meshData) {
+        this(meshData.vertices, meshData.indices);
+    }
+
+    /**
+     * Creating new mesh emitter shape
+     *
+     * @param vertices Vertex positions of the mesh (x, y, z)
+     * @param indices  Triangle indices of the mesh
+     */
+    public MeshEmitterShape(float[] vertices, int[] indices) {
+        if (vertices == null || indices == null || indices.length < 3)
+            throw new IllegalArgumentException("A mesh emitter shape needs at least one triangle!");
+
+        this.vertices = vertices;
+        this.indices = indices;
+
+        // Accumulate the triangle areas
+        areas = new float[indices.length / 3];
+        float sum = 0.0f;
+        for (int t = 0; t < areas.length; t++) {
+            int i0 = indices[t * 3] * 3, i1 = indices[t * 3 + 1] * 3, i2 = indices[t * 3 + 2] * 3;
+            float ax = vertices[i1] - vertices[i0], ay = vertices[i1 + 1] - vertices[i0 + 1],
+                    az = vertices[i1 + 2] - vertices[i0 + 2];
+            float bx = vertices[i2] - vertices[i0], by = vertices[i2 + 1] - vertices[i0 + 1],
+                    bz = vertices[i2 + 2] - vertices[i0 + 2];
+            float cx = ay * bz - az * by, cy = az * bx - ax * bz, cz = ax * by - ay * bx;
+            sum += 0.5f * (float) Math.sqrt(cx * cx + cy * cy + cz * cz);
+            areas[t] = sum;
+        }
+    }
+
+    @Override
+    public void sample(FastRandom random, Vector3f dest) {
+
+        // Find triangle by area
+        float value = random.nextFloat(0.0f, areas[areas.length - 1]);
+        int low = 0, high = areas.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (areas[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        // Uniform point in the triangle
+        float u = random.nextFloat(), v = random.nextFloat();
+        if (u + v > 1.0f) {
+            u = 1.0f - u;
+            v = 1.0f - v;
+        }
+        float w = 1.0f - u - v;
+
+        int i0 = indices[low * 3] * 3, i1 = indices[low * 3 + 1] * 3, i2 = indices[low * 3 + 2] * 3;
+        dest.set(vertices[i0] * w + vertices[i1] * u + vertices[i2] * v,
+                vertices[i0 + 1] * w + vertices[i1 + 1] * u + vertices[i2 + 1] * v,
+                vertices[i0 + 2] * w + vertices[i1 + 2] * u + vertices[i2 + 2] * v);
+    }
+}
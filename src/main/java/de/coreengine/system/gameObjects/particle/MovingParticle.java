@@ -52,10 +52,10 @@ public class MovingParticle extends GameObject {
     // Particles velocity
     private Vector3f velocity = new Vector3f(DEFAULT_VELOCITY);
 
-    // Particles time to live
-    private float ttl = DEFAULT_TTL;
+    // Particles time to live and time to live at spawn
+    private float ttl = DEFAULT_TTL, spawnTtl = DEFAULT_TTL;
 
-    // Particles damping factor per frame
+    // Part of the particles velocity, that is left after one second
     private float damping = DEFAULT_DAMPING;
 
     /**
@@ -68,23 +68,26 @@ public class MovingParticle extends GameObject {
 
     /**
      * Setting up particle behavior and physics<br>
-     * Gravity formula: mass * Physics.GRAVITY_OF_EARTH * FrameTimer.getTslf()
+     * Gravity formula: velocity.y + mass * Physics.GRAVITY_OF_EARTH *
+     * FrameTimer.getTslf()
      *
      * @param mass     Particles mass
-     * @param velocity Particles velocity/move direction
+     * @param velocity Particles velocity/move direction in units per second
      * @param ttl      Particles time to live (in seconds)
      */
     public void setup(float mass, Vector3f velocity, float ttl) {
         this.mass = mass;
         this.velocity = velocity;
         this.ttl = ttl;
+        this.spawnTtl = ttl;
     }
 
     /**
-     * Setting damping of the particle. Will be multiplied every frame to the
-     * velocity.
+     * Setting damping of the particle. The part of the velocity, that is left
+     * after one second.<br>
+     * Formula: velocity * damping ^ FrameTimer.getTslf()
      *
-     * @param damping New damping factor
+     * @param damping New damping factor (0 - 1)
      */
     public void setDamping(float damping) {
         this.damping = damping;
@@ -95,12 +98,14 @@ public class MovingParticle extends GameObject {
         super.onUpdate();
 
         // Move particle
-        particle.getPosition().add(velocity);
-        velocity.scale(damping);
-        particle.getPosition().y += mass * Physics.GRAVITY_OF_EARTH * FrameTimer.getTslf();
+        float tslf = FrameTimer.getTslf();
+        velocity.y += mass * Physics.GRAVITY_OF_EARTH * tslf;
+        velocity.scale((float) Math.pow(damping, tslf));
+        particle.getPosition().scaleAdd(tslf, velocity, particle.getPosition());
 
         // Decrease ttl
-        this.ttl -= FrameTimer.getTslf();
+        this.ttl -= tslf;
+        particle.setAge(spawnTtl > 0.0f ? Math.min(1.0f, 1.0f - ttl / spawnTtl) : 1.0f);
     }
 
     /**
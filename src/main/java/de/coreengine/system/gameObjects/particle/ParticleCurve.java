@@ -0,0 +1,85 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+/**
+ * Piecewise linear curve over the lifetime of a particle, defined by keys with
+ * a time between 0 (spawned) and 1 (dead) and a value
+ *
+ * @author Darius Dinger
+ */
+public class ParticleCurve {
+
+    // Times and values of the keys, sorted by time
+    private final float[] times;
+    private final float[] values;
+
+    /**
+     * Creating a new curve
+     *
+     * @param times  Times of the keys between 0 and 1, ascending
+     * @param values Values of the keys
+     */
+    public ParticleCurve(float[] times, float[] values) {
+        if (times.length == 0 || times.length != values.length)
+            throw new IllegalArgumentException("A particle curve needs the same count (> 0) of times and values!");
+
+        this.times = times;
+        this.values = values;
+    }
+
+    /**
+     * Creating a curve, that goes linear from start to end over the lifetime
+     *
+     * @param start Value at spawn
+     * @param end   Value at death
+     * @return Created curve
+     */
+    public static ParticleCurve linear(float start, float end) {
+        return new ParticleCurve(new float[] { 0.0f, 1.0f }, new float[] { start, end });
+    }
+
+    /**
+     * Evaluating the curve
+     *
+     * @param time Time between 0 and 1
+     * @return Interpolated value of the curve at time
+     */
+    public float evaluate(float time) {
+        if (time <= times[0])
+            return values[0];
+
+        for (int k = 1; k < times.length; k++) {
+            if (time < times[k]) {
+                float blend = (time - times[k - 1]) / (times[k] - times[k - 1]);
+                return values[k - 1] + (values[k] - values[k - 1]) * blend;
+            }
+        }
+        return values[values.length - 1];
+    }
+}
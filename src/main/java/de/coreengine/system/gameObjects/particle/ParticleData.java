@@ -0,0 +1,297 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import java.util.Arrays;
+
+/**
+ * Alive particles of a particle system, stored as structure of arrays. Every
+ * attribute has its own primitive array, so the particles can be updated in
+ * tight loops over the arrays. Dead particles are removed by moving the last
+ * particle into their slot, so the order of the particles is not stable.
+ *
+ * @author Darius Dinger
+ */
+public class ParticleData {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Particle attributes
+    private float[] posX = new float[INITIAL_CAPACITY], posY = new float[INITIAL_CAPACITY],
+            posZ = new float[INITIAL_CAPACITY];
+    private float[] velX = new float[INITIAL_CAPACITY], velY = new float[INITIAL_CAPACITY],
+            velZ = new float[INITIAL_CAPACITY];
+    private float[] mass = new float[INITIAL_CAPACITY];
+    private float[] size = new float[INITIAL_CAPACITY], spawnSize = new float[INITIAL_CAPACITY];
+    private float[] colorR = new float[INITIAL_CAPACITY], colorG = new float[INITIAL_CAPACITY],
+            colorB = new float[INITIAL_CAPACITY], colorA = new float[INITIAL_CAPACITY];
+    private float[] ttl = new float[INITIAL_CAPACITY], spawnTtl = new float[INITIAL_CAPACITY];
+
+    // Count of alive particles
+    private int count = 0;
+
+    /**
+     * Adding a new particle
+     *
+     * @param x    X spawn position
+     * @param y    Y spawn position
+     * @param z    Z spawn position
+     * @param vx   X velocity
+     * @param vy   Y velocity
+     * @param vz   Z velocity
+     * @param mass Mass of the particle
+     * @param ttl  Time to live of the particle in seconds
+     * @param size Size of the particle
+     * @param r    Red channel of the particle color
+     * @param g    Green channel of the particle color
+     * @param b    Blue channel of the particle color
+     * @param a    Alpha channel of the particle color
+     * @return Index of the new particle
+     */
+    public int add(float x, float y, float z, float vx, float vy, float vz, float mass, float ttl, float size,
+            float r, float g, float b, float a) {
+        if (count == posX.length)
+            grow(count * 2);
+
+        int i = count++;
+        posX[i] = x;
+        posY[i] = y;
+        posZ[i] = z;
+        velX[i] = vx;
+        velY[i] = vy;
+        velZ[i] = vz;
+        this.mass[i] = mass;
+        this.ttl[i] = ttl;
+        spawnTtl[i] = ttl;
+        this.size[i] = size;
+        spawnSize[i] = size;
+        colorR[i] = r;
+        colorG[i] = g;
+        colorB[i] = b;
+        colorA[i] = a;
+        return i;
+    }
+
+    /**
+     * Removing particle at index, by moving the last particle into its slot
+     *
+     * @param i Index of the particle to remove
+     */
+    public void remove(int i) {
+        int last = --count;
+        if (i == last)
+            return;
+
+        posX[i] = posX[last];
+        posY[i] = posY[last];
+        posZ[i] = posZ[last];
+        velX[i] = velX[last];
+        velY[i] = velY[last];
+        velZ[i] = velZ[last];
+        mass[i] = mass[last];
+        ttl[i] = ttl[last];
+        spawnTtl[i] = spawnTtl[last];
+        size[i] = size[last];
+        spawnSize[i] = spawnSize[last];
+        colorR[i] = colorR[last];
+        colorG[i] = colorG[last];
+        colorB[i] = colorB[last];
+        colorA[i] = colorA[last];
+    }
+
+    /**
+     * Removing all particles with an expired time to live
+     *
+     * @return Count of removed particles
+     */
+    public int removeDead() {
+        int removed = 0;
+        int i = 0;
+        while (i < count) {
+            if (ttl[i] <= 0.0f) {
+                remove(i);
+                removed++;
+            } else
+                i++;
+        }
+        return removed;
+    }
+
+    /**
+     * Removing all particles
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Resizing all attribute arrays to the new capacity
+     *
+     * @param capacity New capacity
+     */
+    private void grow(int capacity) {
+        capacity = Math.max(capacity, INITIAL_CAPACITY);
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        posZ = Arrays.copyOf(posZ, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        velZ = Arrays.copyOf(velZ, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        ttl = Arrays.copyOf(ttl, capacity);
+        spawnTtl = Arrays.copyOf(spawnTtl, capacity);
+        size = Arrays.copyOf(size, capacity);
+        spawnSize = Arrays.copyOf(spawnSize, capacity);
+        colorR = Arrays.copyOf(colorR, capacity);
+        colorG = Arrays.copyOf(colorG, capacity);
+        colorB = Arrays.copyOf(colorB, capacity);
+        colorA = Arrays.copyOf(colorA, capacity);
+    }
+
+    /**
+     * Calculating the age of a particle from its ttl
+     *
+     * @param i Index of the particle
+     * @return Age of the particle from 0 (spawned) to 1 (dead)
+     */
+    public float getAge(int i) {
+        return spawnTtl[i] > 0.0f ? Math.min(1.0f, 1.0f - ttl[i] / spawnTtl[i]) : 1.0f;
+    }
+
+    /**
+     * @return Count of alive particles, only the first count entries of the
+     *         attribute arrays are valid
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return Read/writeable x positions
+     */
+    public float[] getPosX() {
+        return posX;
+    }
+
+    /**
+     * @return Read/writeable y positions
+     */
+    public float[] getPosY() {
+        return posY;
+    }
+
+    /**
+     * @return Read/writeable z positions
+     */
+    public float[] getPosZ() {
+        return posZ;
+    }
+
+    /**
+     * @return Read/writeable x velocities
+     */
+    public float[] getVelX() {
+        return velX;
+    }
+
+    /**
+     * @return Read/writeable y velocities
+     */
+    public float[] getVelY() {
+        return velY;
+    }
+
+    /**
+     * @return Read/writeable z velocities
+     */
+    public float[] getVelZ() {
+        return velZ;
+    }
+
+    /**
+     * @return Read/writeable masses
+     */
+    public float[] getMass() {
+        return mass;
+    }
+
+    /**
+     * @return Read/writeable remaining times to live in seconds
+     */
+    public float[] getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return Read/writeable times to live at spawn in seconds
+     */
+    public float[] getSpawnTtl() {
+        return spawnTtl;
+    }
+
+    /**
+     * @return Read/writeable sizes
+     */
+    public float[] getSize() {
+        return size;
+    }
+
+    /**
+     * @return Read/writeable sizes at spawn
+     */
+    public float[] getSpawnSize() {
+        return spawnSize;
+    }
+
+    /**
+     * @return Read/writeable red channels of the colors
+     */
+    public float[] getColorR() {
+        return colorR;
+    }
+
+    /**
+     * @return Read/writeable green channels of the colors
+     */
+    public float[] getColorG() {
+        return colorG;
+    }
+
+    /**
+     * @return Read/writeable blue channels of the colors
+     */
+    public float[] getColorB() {
+        return colorB;
+    }
+
+    /**
+     * @return Read/writeable alpha channels of the colors
+     */
+    public float[] getColorA() {
+        return colorA;
+    }
+}
@@ -28,19 +28,35 @@
 
 package de.coreengine.system.gameObjects.particle;
 
+import de.coreengine.rendering.ParticleBatch;
+import de.coreengine.rendering.model.Color;
 import de.coreengine.rendering.model.Material;
+import de.coreengine.rendering.renderer.MasterRenderer;
 import de.coreengine.system.GameObject;
 import de.coreengine.util.Configuration;
+import de.coreengine.util.FastRandom;
 import de.coreengine.util.FrameTimer;
 import de.coreengine.util.Logger;
-import de.coreengine.util.Toolbox;
 
 import javax.vecmath.Vector3f;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.stream.IntStream;
 
+/**
+ * Game object, that generates and simulates particles. The particles are stored
+ * as structure of arrays (see ParticleData). New particles are spawned in the
+ * emitter shape, and every frame the affectors (by default gravity and drag) are
+ * applied to the particle arrays, before the particles are moved by their
+ * velocity. Large particle counts are split across all cores. Only when a
+ * custom particle class is set, every particle is its own game object.
+ *
+ * @author Darius Dinger
+ */
 public class ParticleSystem extends GameObject {
+    private static final int PARALLEL_THRESHOLD = Configuration.getValuei("PARTICLE_SYSTEM_PARALLEL_THRESHOLD");
+    private static final float DEFAULT_DRAG = Configuration.getValuef("MOVING_PARTICLE_DEFAULT_DAMPING");
     private static final float DEFAULT_GENERATION_SPEED = Configuration
             .getValuef("PARTICLE_SYSTEM_DEFAULT_GENERATION_TIME");
     private static final float[] DEFAULT_TTL_RANGE = Configuration.getValuefa("PARTICLE_SYSTEM_DEFAULT_TTL_RANGE");
@@ -58,10 +74,9 @@ public class ParticleSystem extends GameObject {
     // Particle generation ranges settings
     private float particleMinSize = DEFAULT_SIZE_RANGE[0];
     private float particleMaxSize = DEFAULT_SIZE_RANGE[1];
-    private Vector3f spawnRangeMin = new Vector3f(DEFAULT_SPAWN_RANGE[0], DEFAULT_SPAWN_RANGE[1],
-            DEFAULT_SPAWN_RANGE[2]);
-    private Vector3f spawnRangeMax = new Vector3f(DEFAULT_SPAWN_RANGE[3], DEFAULT_SPAWN_RANGE[4],
-            DEFAULT_SPAWN_RANGE[5]);
+    private EmitterShape emitterShape = new BoxEmitterShape(
+            new Vector3f(DEFAULT_SPAWN_RANGE[0], DEFAULT_SPAWN_RANGE[1], DEFAULT_SPAWN_RANGE[2]),
+            new Vector3f(DEFAULT_SPAWN_RANGE[3], DEFAULT_SPAWN_RANGE[4], DEFAULT_SPAWN_RANGE[5]));
     private Vector3f velocityMin = new Vector3f(DEFAULT_VELOCITY_RANGE[0], DEFAULT_VELOCITY_RANGE[1],
             DEFAULT_VELOCITY_RANGE[2]);
     private Vector3f velocityMax = new Vector3f(DEFAULT_VELOCITY_RANGE[3], DEFAULT_VELOCITY_RANGE[4],
@@ -70,6 +85,7 @@ public class ParticleSystem extends GameObject {
     private float particleMinMass = DEFAULT_MASS_RANGE[0], particleMaxMass = DEFAULT_MASS_RANGE[1];
     private int generationCountMin = (int) DEFAULT_GENERATION_COUNT_RANGE[0];
     private int generationCountMax = (int) DEFAULT_GENERATION_COUNT_RANGE[1];
+    private float particleR = 1.0f, particleG = 1.0f, particleB = 1.0f, particleA = 1.0f;
 
     // Position of the fountain
     private Vector3f position = new Vector3f();
@@ -78,52 +94,179 @@ public class ParticleSystem extends GameObject {
     private float generationCounter = 0.0f;
     private float generationSpeed = DEFAULT_GENERATION_SPEED;
 
-    // List that contains all alive particles
+    // Affectors, that are applied every frame
+    private final List<ParticleAffector> affectors = new ArrayList<>();
+
+    // Alive particles and their vertex data for the renderer
+    private final ParticleData data = new ParticleData();
+    private float[] vertices = new float[0];
+
+    // Spawn offset of the next generated particle
+    private final Vector3f spawnOffset = new Vector3f();
+
+    // Random generator of the particle system
+    private final FastRandom random = new FastRandom(FastRandom.current().nextLong());
+
+    // List that contains all alive particle game objects, if a custom particle
+    // class is used
     private List<MovingParticle> particles = new ArrayList<>();
 
     // Class to instantiate when creating new particle game objects
     private Class<? extends MovingParticle> particleClass = MovingParticle.class;
 
+    /**
+     * Creating new particle system with a gravity and a drag affector
+     */
+    public ParticleSystem() {
+        affectors.add(new GravityAffector());
+        affectors.add(new DragAffector(DEFAULT_DRAG));
+    }
+
     @Override
     public void onUpdate() {
         super.onUpdate();
+        float tslf = FrameTimer.getTslf();
+
+        // Move particles and remove dead ones
+        if (particleClass == MovingParticle.class) {
+            updateParticles(tslf);
+            data.removeDead();
+        }
 
         // Check if its time to generate new particle
-        generationCounter += FrameTimer.getTslf();
+        generationCounter += tslf;
         if (generationCounter >= generationSpeed) {
             generationCounter = 0.0f;
 
             // Generate random count of particles
-            int count = Toolbox.randomInt(generationCountMin, generationCountMax);
+            int count = random.nextInt(generationCountMin, generationCountMax);
             for (int i = 0; i < count; i++) {
                 generateParticle();
             }
         }
 
-        // Remove dead particles from scene
-        ListIterator<? extends MovingParticle> pIt = particles.listIterator();
-        while (pIt.hasNext()) {
-            MovingParticle cur = pIt.next();
-            if (cur.shouldDie()) {
-                pIt.remove();
-                removeChild(cur);
+        // Remove dead particle game objects from scene
+        if (particleClass != MovingParticle.class) {
+            ListIterator<? extends MovingParticle> pIt = particles.listIterator();
+            while (pIt.hasNext()) {
+                MovingParticle cur = pIt.next();
+                if (cur.shouldDie()) {
+                    pIt.remove();
+                    removeChild(cur);
+                }
             }
         }
     }
 
+    @Override
+    public void onRender() {
+        super.onRender();
+
+        int count = data.getCount();
+        if (count == 0)
+            return;
+
+        if (vertices.length < count * ParticleBatch.FLOATS_PER_PARTICLE)
+            vertices = new float[count * 2 * ParticleBatch.FLOATS_PER_PARTICLE];
+
+        float[] posX = data.getPosX(), posY = data.getPosY(), posZ = data.getPosZ();
+        float[] size = data.getSize();
+        float[] colorR = data.getColorR(), colorG = data.getColorG(), colorB = data.getColorB(),
+                colorA = data.getColorA();
+        for (int i = 0, v = 0; i < count; i++, v += ParticleBatch.FLOATS_PER_PARTICLE) {
+            vertices[v] = posX[i];
+            vertices[v + 1] = posY[i];
+            vertices[v + 2] = posZ[i];
+            vertices[v + 3] = size[i];
+            vertices[v + 4] = size[i];
+            vertices[v + 5] = colorR[i];
+            vertices[v + 6] = colorG[i];
+            vertices[v + 7] = colorB[i];
+            vertices[v + 8] = colorA[i];
+            vertices[v + 9] = data.getAge(i);
+        }
+        MasterRenderer.renderParticles(texture, vertices, count);
+    }
+
+    /**
+     * Applying the affectors to all alive particles, moving them and decreasing
+     * their ttl. Large particle counts are split into one range per core.
+     *
+     * @param tslf Time since last frame in seconds
+     */
+    private void updateParticles(float tslf) {
+        for (int a = 0; a < affectors.size(); a++) {
+            affectors.get(a).prepare(tslf);
+        }
+
+        int count = data.getCount();
+        if (PARALLEL_THRESHOLD > 0 && count >= PARALLEL_THRESHOLD) {
+            int ranges = Runtime.getRuntime().availableProcessors();
+            int rangeSize = (count + ranges - 1) / ranges;
+            IntStream.range(0, ranges).parallel()
+                    .forEach(r -> updateParticles(r * rangeSize, Math.min(count, (r + 1) * rangeSize), tslf));
+        } else
+            updateParticles(0, count, tslf);
+    }
+
+    /**
+     * Applying the affectors to the particles in a range, moving them and
+     * decreasing their ttl<br>
+     * Formula: position + velocity * tslf
+     *
+     * @param from First particle to update
+     * @param to   Particle after the last particle to update
+     * @param tslf Time since last frame in seconds
+     */
+    private void updateParticles(int from, int to, float tslf) {
+        float[] posX = data.getPosX(), posY = data.getPosY(), posZ = data.getPosZ();
+        float[] velX = data.getVelX(), velY = data.getVelY(), velZ = data.getVelZ();
+        float[] ttl = data.getTtl();
+
+        for (int a = 0; a < affectors.size(); a++) {
+            affectors.get(a).affect(data, from, to, tslf);
+        }
+
+        for (int i = from; i < to; i++) {
+            posX[i] += velX[i] * tslf;
+            posY[i] += velY[i] * tslf;
+            posZ[i] += velZ[i] * tslf;
+            ttl[i] -= tslf;
+        }
+    }
+
     /**
      * Generating new random particle The initial values of the particle will be
      * between the ranges
      */
     private void generateParticle() {
+        if (particleClass == MovingParticle.class) {
+            emitterShape.sample(random, spawnOffset);
+            data.add(position.x + spawnOffset.x, position.y + spawnOffset.y, position.z + spawnOffset.z,
+                    random.nextFloat(velocityMin.x, velocityMax.x),
+                    random.nextFloat(velocityMin.y, velocityMax.y),
+                    random.nextFloat(velocityMin.z, velocityMax.z),
+                    random.nextFloat(particleMinMass, particleMaxMass),
+                    random.nextFloat(particleMinTTL, particleMaxTTL),
+                    random.nextFloat(particleMinSize, particleMaxSize), particleR, particleG, particleB,
+                    particleA);
+        } else
+            generateParticleObject();
+    }
 
+    /**
+     * Generating new random particle game object of the particle class. The
+     * initial values of the particle will be between the ranges
+     */
+    private void generateParticleObject() {
         // Generate random values for next particle
-        Vector3f spawnPosition = Toolbox.randomVector(spawnRangeMin, spawnRangeMax);
+        Vector3f spawnPosition = new Vector3f();
+        emitterShape.sample(random, spawnPosition);
         spawnPosition.add(position);
-        float size = Toolbox.randomFloat(particleMinSize, particleMaxSize);
-        Vector3f velocity = Toolbox.randomVector(velocityMin, velocityMax);
-        float mass = Toolbox.randomFloat(particleMinMass, particleMaxMass);
-        float ttl = Toolbox.randomFloat(particleMinTTL, particleMaxTTL);
+        float size = random.nextFloat(particleMinSize, particleMaxSize);
+        Vector3f velocity = random.nextVector(velocityMin, velocityMax, new Vector3f());
+        float mass = random.nextFloat(particleMinMass, particleMaxMass);
+        float ttl = random.nextFloat(particleMinTTL, particleMaxTTL);
 
         // Generate particle
         try {
@@ -136,6 +279,8 @@ public class ParticleSystem extends GameObject {
             particle.getParticle().getSize().set(size, size);
             particle.getParticle().getPosition().set(spawnPosition);
             particle.getParticle().setTexture(texture);
+            particle.getParticle().getColor().set(particleR, particleG, particleB);
+            particle.getParticle().setAlpha(particleA);
 
             // Add particle to scene
             addChild(particle);
@@ -155,7 +300,9 @@ public class ParticleSystem extends GameObject {
     }
 
     /**
-     * @param texture TextureData for next generated particles
+     * @param texture TextureData of the particles. Without a custom particle class
+     *                it applies to all alive particles, otherwise only to the next
+     *                generated particles
      */
     public void setTexture(String texture) {
         this.texture = texture;
@@ -174,7 +321,8 @@ public class ParticleSystem extends GameObject {
 
     /**
      * Setting the range of new particles mass<br>
-     * Gravity formula: mass * Physics.GRAVITY_OF_EARTH * FrameTimer.getTslf()
+     * Gravity formula: velocity.y + mass * Physics.GRAVITY_OF_EARTH *
+     * FrameTimer.getTslf()
      *
      * @param min Minimum mass
      * @param max Maximum mass
@@ -204,19 +352,91 @@ public class ParticleSystem extends GameObject {
 
     /**
      * Setting class to instantiate when creating new particles. The class must
-     * expand from the MovingParticle class and must have an empty constructor.
+     * expand from the MovingParticle class and must have an empty constructor.<br>
+     * Every particle of a custom class is its own game object, which is much slower
+     * than the default MovingParticle.class, that is simulated as structure of
+     * arrays.<br>
+     * Changing between the default and a custom class removes all alive
+     * particles, because both are stored differently.
      *
      * @param particleClass Class to instantiate when creating new particles
      */
     public void setParticleClass(Class<? extends MovingParticle> particleClass) {
+        boolean wasDefault = this.particleClass == MovingParticle.class;
         this.particleClass = particleClass;
+        if (wasDefault == (particleClass == MovingParticle.class))
+            return;
+
+        // Remove the particles of the old mode
+        data.clear();
+        for (int i = 0; i < particles.size(); i++) {
+            removeChild(particles.get(i));
+        }
+        particles.clear();
+    }
+
+    /**
+     * Setting the color of new particles
+     *
+     * @param color Color of new particles
+     * @param alpha Alpha value of new particles
+     */
+    public void setColor(Color color, float alpha) {
+        this.particleR = color.getRed();
+        this.particleG = color.getGreen();
+        this.particleB = color.getBlue();
+        this.particleA = alpha;
+    }
+
+    /**
+     * Setting the shape, new particles are spawned in. The spawn offset is added
+     * to the system position.
+     *
+     * @param emitterShape New emitter shape
+     */
+    public void setEmitterShape(EmitterShape emitterShape) {
+        this.emitterShape = emitterShape;
+    }
+
+    /**
+     * Affectors, that are applied to the particles every frame in list order. By
+     * default a GravityAffector and a DragAffector. They are not applied to
+     * particles of a custom particle class.
+     *
+     * @return Read/writeable list of the particle affectors
+     */
+    public List<ParticleAffector> getAffectors() {
+        return affectors;
+    }
+
+    /**
+     * Resetting the random generator of the particle system. Particle systems with
+     * the same seed and settings generate the same particles.
+     *
+     * @param seed New seed of the random generator
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * @return Alive particles, if no custom particle class is used
+     */
+    ParticleData getData() {
+        return data;
+    }
+
+    /**
+     * @return Count of alive particles
+     */
+    public int getParticleCount() {
+        return particleClass == MovingParticle.class ? data.getCount() : particles.size();
     }
 
     /**
-     * Setting the range of new particles velocity (direction and speed).<br>
-     * The velocity will be added every frame to the position and then multiplied by
-     * particles damping.<br>
-     * Formula: position + (velocity * damping)
+     * Setting the range of new particles velocity (direction and speed) in units
+     * per second.<br>
+     * Formula: position + velocity * FrameTimer.getTslf()
      *
      * @param min Minimum velocity
      * @param max Maximum velocity
@@ -227,15 +447,15 @@ public class ParticleSystem extends GameObject {
     }
 
     /**
-     * Setting the range of new particles spawn offset.<br>
+     * Setting the range of new particles spawn offset, by setting a box emitter
+     * shape.<br>
      * The offset will be added to the system position
      *
      * @param min Minimum offset
      * @param max Maximum offset
      */
     public void setSpawnOffsetRange(Vector3f min, Vector3f max) {
-        this.spawnRangeMin = min;
-        this.spawnRangeMax = max;
+        this.emitterShape = new BoxEmitterShape(min, max);
     }
 
     /**
@@ -0,0 +1,61 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+/**
+ * Scaling the particles spawn size by a curve over their lifetime
+ *
+ * @author Darius Dinger
+ */
+public class SizeOverLifetimeAffector implements ParticleAffector {
+
+    // Size factor over the lifetime
+    private final ParticleCurve curve;
+
+    /**
+     * Creating new size over lifetime affector
+     *
+     * @param curve Factor of the spawn size over the lifetime
+     */
+    public SizeOverLifetimeAffector(ParticleCurve curve) {
+        this.curve = curve;
+    }
+
+    @Override
+    public void prepare(float tslf) {
+    }
+
+    @Override
+    public void affect(ParticleData particles, int from, int to, float tslf) {
+        float[] size = particles.getSize(), spawnSize = particles.getSpawnSize();
+
+        for (int i = from; i < to; i++) {
+            size[i] = spawnSize[i] * curve.evaluate(particles.getAge(i));
+        }
+    }
+}
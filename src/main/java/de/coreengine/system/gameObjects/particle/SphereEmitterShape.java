@@ -0,0 +1,88 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.util.FastRandom;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Spawning particles uniformly in or on a sphere around the particle system
+ * position
+ *
+ * @author Darius Dinger
+ */
+public class SphereEmitterShape implements EmitterShape {
+
+    // Radius of the sphere
+    private float radius;
+
+    // Spawn only on the surface of the sphere
+    private boolean surface;
+
+    /**
+     * Creating new sphere emitter shape
+     *
+     * @param radius  Radius of the sphere
+     * @param surface Spawn only on the surface of the sphere
+     */
+    public SphereEmitterShape(float radius, boolean surface) {
+        this.radius = radius;
+        this.surface = surface;
+    }
+
+    @Override
+    public void sample(FastRandom random, Vector3f dest) {
+
+        // Uniform direction from uniform z and angle
+        float z = random.nextFloat(-1.0f, 1.0f);
+        float angle = random.nextFloat(0.0f, (float) (Math.PI * 2.0));
+        float r = (float) Math.sqrt(1.0f - z * z);
+        dest.set(r * (float) Math.cos(angle), r * (float) Math.sin(angle), z);
+
+        // Uniform distance in the volume grows with the cube root
+        if (surface)
+            dest.scale(radius);
+        else
+            dest.scale(radius * (float) Math.cbrt(random.nextFloat()));
+    }
+
+    /**
+     * @param radius New radius of the sphere
+     */
+    public void setRadius(float radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * @param surface Spawn only on the surface of the sphere
+     */
+    public void setSurface(boolean surface) {
+        this.surface = surface;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Pulling the particles velocity towards the velocity of a wind field. The wind
+ * field is a constant wind, that is distorted by a position and time dependent
+ * turbulence.
+ *
+ * @author Darius Dinger
+ */
+public class WindAffector implements ParticleAffector {
+
+    // Constant wind velocity
+    private final Vector3f wind = new Vector3f();
+
+    // How fast the particles take over the wind velocity per second
+    private float coupling;
+
+    // Strength and spatial frequency of the turbulence
+    private float turbulence = 0.0f;
+    private float turbulenceScale = 0.5f;
+
+    // Time for the turbulence animation
+    private float time = 0.0f;
+
+    /**
+     * Creating new wind affector
+     *
+     * @param wind     Wind velocity
+     * @param coupling How fast the particles take over the wind velocity per
+     *                 second
+     */
+    public WindAffector(Vector3f wind, float coupling) {
+        this.wind.set(wind);
+        this.coupling = coupling;
+    }
+
+    @Override
+    public void prepare(float tslf) {
+        time += tslf;
+    }
+
+    @Override
+    public void affect(ParticleData particles, int from, int to, float tslf) {
+        float[] posX = particles.getPosX(), posY = particles.getPosY(), posZ = particles.getPosZ();
+        float[] velX = particles.getVelX(), velY = particles.getVelY(), velZ = particles.getVelZ();
+        float blend = Math.min(1.0f, coupling * tslf);
+
+        if (turbulence == 0.0f) {
+            for (int i = from; i < to; i++) {
+                velX[i] += (wind.x - velX[i]) * blend;
+                velY[i] += (wind.y - velY[i]) * blend;
+                velZ[i] += (wind.z - velZ[i]) * blend;
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                float wx = wind.x + turbulence * (float) Math.sin(posY[i] * turbulenceScale + time);
+                float wy = wind.y + turbulence * (float) Math.sin(posZ[i] * turbulenceScale + time * 1.3f);
+                float wz = wind.z + turbulence * (float) Math.sin(posX[i] * turbulenceScale + time * 0.7f);
+                velX[i] += (wx - velX[i]) * blend;
+                velY[i] += (wy - velY[i]) * blend;
+                velZ[i] += (wz - velZ[i]) * blend;
+            }
+        }
+    }
+
+    /**
+     * @return Read/writeable wind velocity
+     */
+    public Vector3f getWind() {
+        return wind;
+    }
+
+    /**
+     * @param coupling How fast the particles take over the wind velocity per
+     *                 second
+     */
+    public void setCoupling(float coupling) {
+        this.coupling = coupling;
+    }
+
+    /**
+     * Setting the turbulence of the wind field
+     *
+     * @param turbulence Max velocity the turbulence adds to the wind
+     * @param scale      Spatial frequency of the turbulence
+     */
+    public void setTurbulence(float turbulence, float scale) {
+        this.turbulence = turbulence;
+        this.turbulenceScale = scale;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import java.util.Arrays;
+
+/**
+ * Class that packs rectangles into a texture atlas using shelves. The
+ * rectangles are sorted by height and placed row by row into the smallest power
+ * of two atlas, they fit in. Does not need an opengl context.
+ *
+ * @author Darius Dinger
+ */
+public class AtlasPacker {
+
+    // Max width/height of the atlas in pixels
+    private final int maxSize;
+
+    // Free pixels between the rectangles
+    private final int padding;
+
+    // Positions of the packed rectangles
+    private int[] xs = new int[0], ys = new int[0];
+
+    // Dimension of the atlas
+    private int width = 0, height = 0;
+
+    /**
+     * Creating new atlas packer
+     *
+     * @param maxSize Max width/height of the atlas in pixels
+     * @param padding Free pixels between the rectangles
+     */
+    public AtlasPacker(int maxSize, int padding) {
+        this.maxSize = maxSize;
+        this.padding = padding;
+    }
+
+    /**
+     * Packing rectangles into the atlas. The positions can be get by getX() and
+     * getY() with the index of the rectangle.
+     *
+     * @param widths  Widths of the rectangles
+     * @param heights Heights of the rectangles
+     * @return True, if all rectangles fit into an atlas of the max size
+     */
+    public boolean pack(int[] widths, int[] heights) {
+        int count = widths.length;
+        xs = new int[count];
+        ys = new int[count];
+
+        // Sort rectangles by height, highest first
+        Integer[] order = new Integer[count];
+        long area = 0;
+        int maxWidth = 1;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            area += (long) (widths[i] + padding) * (heights[i] + padding);
+            maxWidth = Math.max(maxWidth, widths[i] + padding * 2);
+        }
+        Arrays.sort(order, (a, b) -> heights[b] - heights[a]);
+
+        // Try power of two widths, starting at the smallest possible one
+        int tryWidth = nextPowerOfTwo(Math.max(maxWidth, (int) Math.ceil(Math.sqrt(area))));
+        for (; tryWidth <= maxSize; tryWidth *= 2) {
+            int usedHeight = packShelves(order, widths, heights, tryWidth);
+            if (usedHeight <= maxSize) {
+                width = tryWidth;
+                height = nextPowerOfTwo(usedHeight);
+                return true;
+            }
+        }
+
+        width = 0;
+        height = 0;
+        return false;
+    }
+
+    /**
+     * Placing the sorted rectangles in shelves into an atlas of a specific width
+     *
+     * @param order   Indices of the rectangles sorted by height
+     * @param widths  Widths of the rectangles
+     * @param heights Heights of the rectangles
+     * @param width   Width of the atlas
+     * @return Used height of the atlas
+     */
+    private int packShelves(Integer[] order, int[] widths, int[] heights, int width) {
+        int x = padding, y = padding, shelfHeight = 0;
+
+        for (int i : order) {
+
+            // Open next shelf, if rectangle does not fit into the current one
+            if (x + widths[i] + padding > width) {
+                x = padding;
+                y += shelfHeight + padding;
+                shelfHeight = 0;
+            }
+
+            xs[i] = x;
+            ys[i] = y;
+            x += widths[i] + padding;
+            shelfHeight = Math.max(shelfHeight, heights[i]);
+        }
+
+        return Math.max(1, y + shelfHeight + padding);
+    }
+
+    /**
+     * @param value Value to round up
+     * @return Next power of two greater or equal the value
+     */
+    private static int nextPowerOfTwo(int value) {
+        int result = 1;
+        while (result < value) {
+            result *= 2;
+        }
+        return result;
+    }
+
+    /**
+     * @param index Index of the rectangle
+     * @return X position of the packed rectangle
+     */
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * @param index Index of the rectangle
+     * @return Y position of the packed rectangle
+     */
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * @return Width of the packed atlas
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Height of the packed atlas
+     */
+    public int getHeight() {
+        return height;
+    }
+}
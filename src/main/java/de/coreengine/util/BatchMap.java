@@ -0,0 +1,132 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Function;
+
+/**
+ * Map of render batches, that can be iterated by index. Iterating a hash map
+ * creates an iterator every time, so render lists, that are iterated every
+ * frame, are stored in this map to keep the render loop allocation free.
+ * Removing an entry moves the last entry into its index.
+ *
+ * @author Darius Dinger
+ * @param <K> Type of the batch keys
+ * @param <V> Type of the batches
+ */
+public class BatchMap<K, V> {
+
+    // Key to batch lookup
+    private final HashMap<K, V> map = new HashMap<>();
+
+    // Keys and batches by index
+    private final ArrayList<K> keys = new ArrayList<>();
+    private final ArrayList<V> values = new ArrayList<>();
+
+    /**
+     * @param key Key of the batch
+     * @return Batch of the key or null
+     */
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Getting the batch of a key and creating it, if it does not exist yet
+     *
+     * @param key     Key of the batch
+     * @param factory Function to create a new batch for the key
+     * @return Batch of the key
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        V value = map.get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            map.put(key, value);
+            keys.add(key);
+            values.add(value);
+        }
+        return value;
+    }
+
+    /**
+     * @param index Index of the batch
+     * @return Key of the batch at the index
+     */
+    public K getKey(int index) {
+        return keys.get(index);
+    }
+
+    /**
+     * @param index Index of the batch
+     * @return Batch at the index
+     */
+    public V getValue(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Removing the batch at an index. The last batch is moved into the index, so
+     * remove while iterating backwards.
+     *
+     * @param index Index of the batch to remove
+     */
+    public void remove(int index) {
+        map.remove(keys.get(index));
+        int last = keys.size() - 1;
+        keys.set(index, keys.get(last));
+        values.set(index, values.get(last));
+        keys.remove(last);
+        values.remove(last);
+    }
+
+    /**
+     * @return Count of batches
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return True, if the map contains no batches
+     */
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    /**
+     * Removing all batches
+     */
+    public void clear() {
+        map.clear();
+        keys.clear();
+        values.clear();
+    }
+}
@@ -83,6 +83,19 @@ public class BufferUtils {
         return buffer;
     }
 
+    /**
+     * Mapping a file read only into memory
+     *
+     * @param file File path relative to application
+     * @return Mapped file
+     * @throws IOException If an IO Error occurs or the file could not be found
+     */
+    public static ByteBuffer mapFile(String file) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file); FileChannel fc = fis.getChannel()) {
+            return fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+        }
+    }
+
     /**
      * Resizing buffer
      * 
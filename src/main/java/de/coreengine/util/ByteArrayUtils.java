@@ -52,9 +52,10 @@ public class ByteArrayUtils {
         for (byte[] b : in)
             newSize += b.length;
         byte[] out = new byte[newSize];
-        for (byte[] ba : in)
-            for (byte b : ba)
-                out[counter++] = b;
+        for (byte[] ba : in) {
+            System.arraycopy(ba, 0, out, counter, ba.length);
+            counter += ba.length;
+        }
         return out;
     }
 
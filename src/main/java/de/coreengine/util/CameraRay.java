@@ -43,6 +43,9 @@ public class CameraRay {
 
     private Vector2f offset = new Vector2f();
 
+    // Buffer for the ray calculation
+    private static final Vector4f COORDS = new Vector4f();
+
     /**
      * Recalculate the current camera ray
      * 
@@ -50,15 +53,31 @@ public class CameraRay {
      * @param inversePMat Inverse projection matrix of the camera
      */
     public void recalcRay(Matrix4f inverseVMat, Matrix4f inversePMat) {
-        Vector4f coords = new Vector4f(offset.x, offset.y, -1.0f, 1.0f);
+        calcRay(inverseVMat, inversePMat, offset.x, offset.y, ray);
+    }
+
+    /**
+     * Calculating the world space direction of a ray through a point on the
+     * screen
+     * 
+     * @param inverseVMat Inverse view matrix of the camera
+     * @param inversePMat Inverse projection matrix of the camera
+     * @param x           X coordinate of the point in normalized device
+     *                    coordinates
+     * @param y           Y coordinate of the point in normalized device
+     *                    coordinates
+     * @param dest        Vector to store the normalized direction in
+     */
+    public static void calcRay(Matrix4f inverseVMat, Matrix4f inversePMat, float x, float y, Vector3f dest) {
+        COORDS.set(x, y, -1.0f, 1.0f);
 
-        inversePMat.transform(coords);
-        coords.z = (-1.0f);
-        coords.w = (0.0f);
+        inversePMat.transform(COORDS);
+        COORDS.z = (-1.0f);
+        COORDS.w = (0.0f);
 
-        inverseVMat.transform(coords);
-        ray.set(coords.x, coords.y, coords.z);
-        ray.normalize();
+        inverseVMat.transform(COORDS);
+        dest.set(COORDS.x, COORDS.y, COORDS.z);
+        dest.normalize();
     }
 
     /**
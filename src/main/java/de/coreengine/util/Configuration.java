@@ -28,7 +28,12 @@
 package de.coreengine.util;
 
 import de.coreengine.asset.FileLoader;
+import de.coreengine.asset.ResourceCache;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 /**
@@ -39,6 +44,7 @@ import java.util.HashMap;
 public class Configuration {
 
     private static final String ARRAY_LIMITER = ";";
+    private static final int CACHE_FORMAT = 1;
 
     // Configuration File location
     private static final String CONFIG_FILE = "res/config.ini";
@@ -50,7 +56,7 @@ public class Configuration {
     /**
      * Initializing the configuration and (re)loading the config file
      */
-    private static void reloadConfig() {
+    public static void reloadConfig() {
 
         // Creating config map
         config = new HashMap<>();
@@ -65,24 +71,73 @@ public class Configuration {
     }
 
     /**
-     * Loading a config file
+     * Loading a config file. The parsed file is cached as binary blob.
      */
     private static void reloadConfig(String file) {
 
-        // Load config file and split into lines
-        String[] configLines = FileLoader.getResource(file, false);
+        HashMap<String, String> settings;
+        try {
+            settings = ResourceCache.load(file, CACHE_FORMAT, FileLoader.getResourceBytes(file),
+                    Configuration::convert, Configuration::decode);
+        } catch (IOException e) {
+            Logger.err("Error by loading configuration", "The config file '" + file + "' could not be loaded!");
+            return;
+        }
+
+        // Put settings into configuration
+        config.putAll(settings);
+    }
+
+    /**
+     * Converting the lines of a config file into the binary blob.<br>
+     * <br>
+     * Format:<br>
+     * SettingCount (int) | Key0 (string) | Value0 (string) | Key1 (string) | ...
+     *
+     * @param configLines Lines of the config file
+     * @return Binary blob of the settings
+     * @throws IOException Throws if the blob could not be written
+     */
+    private static byte[] convert(String[] configLines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
 
         // Iterate lines
+        int count = 0;
         for (String line : configLines) {
             // Check if line is empty or comment
             if (line != null && !line.equals("") && !line.startsWith("//") && !line.startsWith("#")) {
 
-                // Get Setting key and value and put into configuration
+                // Get Setting key and value and write into blob
                 String[] pair = line.split("=");
-                if (pair.length >= 2)
-                    config.put(pair[0], pair[1]);
+                if (pair.length >= 2) {
+                    ResourceCache.putString(out, pair[0]);
+                    ResourceCache.putString(out, pair[1]);
+                    count++;
+                }
             }
         }
+
+        // Write setting count in front
+        byte[] result = bytes.toByteArray();
+        ByteBuffer.wrap(result).putInt(0, count);
+        return result;
+    }
+
+    /**
+     * Decoding the settings of a config file from its binary blob
+     *
+     * @param data Binary blob of the settings
+     * @return Decoded settings
+     */
+    private static HashMap<String, String> decode(ByteBuffer data) {
+        int count = ResourceCache.getCount(data, 8);
+        HashMap<String, String> settings = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            settings.put(ResourceCache.getString(data), ResourceCache.getString(data));
+        }
+        return settings;
     }
 
     /**
@@ -0,0 +1,167 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import javax.vecmath.Vector2f;
+import javax.vecmath.Vector3f;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast, seedable and not thread safe pseudo random number generator
+ * (xoroshiro128+, seeded with SplitMix64). Every thread has its own generator
+ * (see current()), so generating numbers does not contend on a shared lock,
+ * and with the same seed the same sequence is generated.
+ *
+ * @author Darius Dinger
+ */
+public class FastRandom {
+
+    // Golden ratio increment of SplitMix64
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Seed source for the generators of new threads
+    private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(System.nanoTime());
+
+    // Generator of the current thread
+    private static final ThreadLocal<FastRandom> CURRENT = ThreadLocal
+            .withInitial(() -> new FastRandom(SEED_UNIQUIFIER.addAndGet(GOLDEN_GAMMA)));
+
+    // State of the generator
+    private long s0, s1;
+
+    /**
+     * Creating new generator with a seed
+     *
+     * @param seed Seed of the generator
+     */
+    public FastRandom(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * @return Generator of the current thread
+     */
+    public static FastRandom current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Resetting the generator to a seed
+     *
+     * @param seed New seed of the generator
+     */
+    public void setSeed(long seed) {
+        s0 = splitMix(seed += GOLDEN_GAMMA);
+        s1 = splitMix(seed + GOLDEN_GAMMA);
+
+        // All zero state would only generate zeros
+        if (s0 == 0 && s1 == 0)
+            s1 = GOLDEN_GAMMA;
+    }
+
+    /**
+     * Mixing function of SplitMix64
+     *
+     * @param z Value to mix
+     * @return Mixed value
+     */
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return Next random long
+     */
+    public long nextLong() {
+        long a = s0, b = s1;
+        long result = a + b;
+
+        b ^= a;
+        s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+        s1 = Long.rotateLeft(b, 37);
+
+        return result;
+    }
+
+    /**
+     * @return Random float between 0 (inclusive) and 1 (exclusive)
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * Generating a random float between min and max
+     *
+     * @param min Min value of the float
+     * @param max Max value of the float
+     * @return Generated value
+     */
+    public float nextFloat(float min, float max) {
+        return min + nextFloat() * (max - min);
+    }
+
+    /**
+     * Generating a random integer between min (inclusive) and max (exclusive)
+     *
+     * @param min Min value of the integer
+     * @param max Max value of the integer
+     * @return Generated value
+     */
+    public int nextInt(int min, int max) {
+        return min + (int) (nextFloat() * (max - min));
+    }
+
+    /**
+     * Generating random vector between min and max
+     *
+     * @param min  Min vector values
+     * @param max  Max vector values
+     * @param dest Vector to store the result in
+     * @return dest
+     */
+    public Vector3f nextVector(Vector3f min, Vector3f max, Vector3f dest) {
+        dest.set(nextFloat(min.x, max.x), nextFloat(min.y, max.y), nextFloat(min.z, max.z));
+        return dest;
+    }
+
+    /**
+     * Generating random vector between min and max
+     *
+     * @param min  Min vector values
+     * @param max  Max vector values
+     * @param dest Vector to store the result in
+     * @return dest
+     */
+    public Vector2f nextVector(Vector2f min, Vector2f max, Vector2f dest) {
+        dest.set(nextFloat(min.x, max.x), nextFloat(min.y, max.y));
+        return dest;
+    }
+}
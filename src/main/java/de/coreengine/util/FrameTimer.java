@@ -37,6 +37,12 @@ public class FrameTimer {
     // Time since last frame
     private static float tslf = 0.017f;
 
+    // Fixed time since last frame, 0 if the time is measured
+    private static float fixedTslf = 0.0f;
+
+    // Time since first frame
+    private static float time = 0.0f;
+
     // Last second fps
     private static int fps;
 
@@ -57,7 +63,11 @@ public class FrameTimer {
         frames++;
 
         long currentFrame = System.nanoTime();
-        tslf = (float) (currentFrame - lastFrame) / 1000000000.0f;
+        tslf = fixedTslf > 0.0f ? fixedTslf : (float) (currentFrame - lastFrame) / 1000000000.0f;
+
+        // First frame has no valid predecessor
+        if (lastFrame != 0)
+            time += tslf;
         lastFrame = currentFrame;
 
         if (currentFrame >= fpsStamp + 1000000000.0f) {
@@ -89,6 +99,25 @@ public class FrameTimer {
         return tslf;
     }
 
+    /**
+     * @return Time (seconds) since the first frame
+     */
+    public static float getTime() {
+        return time;
+    }
+
+    /**
+     * Setting a fixed time since last frame, that is used instead of the measured
+     * time, e.g. to simulate deterministic steps without a game loop
+     * 
+     * @param fixedTslf Fixed time (seconds) since last frame or 0 to measure it
+     */
+    public static void setFixedTslf(float fixedTslf) {
+        FrameTimer.fixedTslf = fixedTslf;
+        if (fixedTslf > 0.0f)
+            tslf = fixedTslf;
+    }
+
     /**
      * If smooth fps is enabled, the fps will be calculated by the average of the
      * last fps (fps = (fps + newFps) / 2)
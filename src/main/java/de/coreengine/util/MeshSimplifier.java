@@ -0,0 +1,430 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Mesh simplifier, that reduces the triangles of a mesh by collapsing edges
+ * with the least quadric error. Vertices are only moved onto existing vertices,
+ * so the simplified mesh is just a new index buffer for the same vertices.
+ * Vertices with the same position (uv/normal seams and hard edges) are collapsed
+ * together, each copy onto the copy of the target it shares an edge with, so
+ * seams can only move along themselves and the texture mapping stays intact.
+ * Vertices on open borders are locked to keep the shape.
+ *
+ * @author Darius Dinger
+ */
+public class MeshSimplifier {
+
+    // Components of a quadric (symmetric 4x4 matrix)
+    private static final int QUADRIC_SIZE = 10;
+
+    /**
+     * Simplifying the triangles of a mesh down to a target index count. The
+     * result can contain more indices, if no more edge can be collapsed.
+     * 
+     * @param vertices         Vertex positions of the mesh (x, y, z)
+     * @param indices          Triangle indices of the mesh
+     * @param targetIndexCount Index count to reduce to
+     * @return Indices of the simplified mesh
+     */
+    public static int[] simplify(float[] vertices, int[] indices, int targetIndexCount) {
+        int vertexCount = vertices.length / 3;
+        int triCount = indices.length / 3;
+        int[] tris = indices.clone();
+        boolean[] dead = new boolean[triCount];
+        int aliveTris = triCount;
+
+        // Weld vertices with the same position and list the copies of each
+        // position. Positions are identified by their first vertex.
+        int[] weld = weldPositions(vertices, vertexCount);
+        int[] copyStart = new int[vertexCount + 1];
+        int[] copies = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++)
+            copyStart[weld[v] + 1]++;
+        for (int v = 0; v < vertexCount; v++)
+            copyStart[v + 1] += copyStart[v];
+        int[] copyFill = Arrays.copyOf(copyStart, vertexCount);
+        for (int v = 0; v < vertexCount; v++)
+            copies[copyFill[weld[v]]++] = v;
+
+        // Lock positions on open borders
+        boolean[] locked = new boolean[vertexCount];
+        HashMap<Long, Integer> edgeUse = new HashMap<>();
+        for (int t = 0; t < triCount; t++) {
+            for (int e = 0; e < 3; e++) {
+                int a = weld[tris[t * 3 + e]], b = weld[tris[t * 3 + (e + 1) % 3]];
+                edgeUse.merge(edgeKey(a, b, vertexCount), 1, Integer::sum);
+            }
+        }
+        for (int t = 0; t < triCount; t++) {
+            for (int e = 0; e < 3; e++) {
+                int a = weld[tris[t * 3 + e]], b = weld[tris[t * 3 + (e + 1) % 3]];
+                if (edgeUse.get(edgeKey(a, b, vertexCount)) == 1) {
+                    locked[a] = true;
+                    locked[b] = true;
+                }
+            }
+        }
+
+        // Quadrics of the welded positions
+        double[] quadrics = new double[vertexCount * QUADRIC_SIZE];
+        for (int t = 0; t < triCount; t++)
+            addTriangleQuadric(vertices, tris, weld, t, quadrics);
+
+        int[] adjacencyStart = new int[vertexCount + 1];
+        int[] adjacency = new int[tris.length];
+        boolean[] touched = new boolean[vertexCount];
+        int[] copyTargets = new int[vertexCount];
+
+        while (aliveTris * 3 > targetIndexCount) {
+
+            // Build vertex to triangle adjacency
+            Arrays.fill(adjacencyStart, 0);
+            for (int t = 0; t < triCount; t++)
+                if (!dead[t])
+                    for (int c = 0; c < 3; c++)
+                        adjacencyStart[tris[t * 3 + c] + 1]++;
+            for (int v = 0; v < vertexCount; v++)
+                adjacencyStart[v + 1] += adjacencyStart[v];
+            int[] fill = Arrays.copyOf(adjacencyStart, vertexCount);
+            for (int t = 0; t < triCount; t++)
+                if (!dead[t])
+                    for (int c = 0; c < 3; c++)
+                        adjacency[fill[tris[t * 3 + c]]++] = t;
+
+            // Collect and sort collapse candidates (source -> target position) by
+            // error
+            long[] candidates = new long[aliveTris * 3];
+            int[] sources = new int[aliveTris * 3], targets = new int[aliveTris * 3];
+            int candidateCount = 0;
+            for (int t = 0; t < triCount; t++) {
+                if (dead[t])
+                    continue;
+                for (int e = 0; e < 3; e++) {
+                    int u = weld[tris[t * 3 + e]], v = weld[tris[t * 3 + (e + 1) % 3]];
+                    if (u == v)
+                        continue;
+                    for (int dir = 0; dir < 2; dir++) {
+                        int src = dir == 0 ? u : v, trg = dir == 0 ? v : u;
+                        if (locked[src])
+                            continue;
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                            sources = Arrays.copyOf(sources, candidateCount * 2);
+                            targets = Arrays.copyOf(targets, candidateCount * 2);
+                        }
+                        float cost = (float) Math.max(0.0, collapseError(quadrics, src, trg, vertices));
+                        sources[candidateCount] = src;
+                        targets[candidateCount] = trg;
+                        candidates[candidateCount] = ((long) Float.floatToIntBits(cost) << 32) | candidateCount;
+                        candidateCount++;
+                    }
+                }
+            }
+            if (candidateCount == 0)
+                break;
+            Arrays.sort(candidates, 0, candidateCount);
+
+            // Collapse cheapest edges, every position only once per pass
+            Arrays.fill(touched, false);
+            int collapsed = 0;
+            for (int i = 0; i < candidateCount && aliveTris * 3 > targetIndexCount; i++) {
+                int candidate = (int) candidates[i];
+                int src = sources[candidate], trg = targets[candidate];
+                if (touched[src] || touched[trg])
+                    continue;
+                if (!findCopyTargets(tris, dead, weld, adjacency, adjacencyStart, copies, copyStart[src],
+                        copyStart[src + 1], trg, copyTargets))
+                    continue;
+
+                // Check all copies for flipped triangles
+                boolean flips = false;
+                for (int c = copyStart[src]; c < copyStart[src + 1] && !flips; c++) {
+                    int copy = copies[c];
+                    flips = copyTargets[copy] >= 0 && flipsTriangle(vertices, tris, dead, weld, adjacency,
+                            adjacencyStart[copy], adjacencyStart[copy + 1], copy, copyTargets[copy], trg);
+                }
+                if (flips)
+                    continue;
+
+                // Move every copy of src onto its copy of trg
+                for (int c = copyStart[src]; c < copyStart[src + 1]; c++) {
+                    int copy = copies[c], copyTarget = copyTargets[copy];
+                    if (copyTarget < 0)
+                        continue;
+
+                    for (int a = adjacencyStart[copy]; a < adjacencyStart[copy + 1]; a++) {
+                        int t = adjacency[a];
+                        if (dead[t])
+                            continue;
+                        boolean degenerate = false;
+                        for (int corner = 0; corner < 3; corner++) {
+                            if (weld[tris[t * 3 + corner]] == trg)
+                                degenerate = true;
+                        }
+                        if (degenerate) {
+                            dead[t] = true;
+                            aliveTris--;
+                        } else {
+                            for (int corner = 0; corner < 3; corner++) {
+                                if (tris[t * 3 + corner] == copy)
+                                    tris[t * 3 + corner] = copyTarget;
+                            }
+                        }
+                    }
+                }
+                for (int q = 0; q < QUADRIC_SIZE; q++)
+                    quadrics[trg * QUADRIC_SIZE + q] += quadrics[src * QUADRIC_SIZE + q];
+
+                touched[src] = true;
+                touched[trg] = true;
+                collapsed++;
+            }
+
+            if (collapsed == 0)
+                break;
+        }
+
+        // Compact remaining triangles
+        int[] result = new int[aliveTris * 3];
+        int r = 0;
+        for (int t = 0; t < triCount; t++) {
+            if (dead[t])
+                continue;
+            result[r++] = tris[t * 3];
+            result[r++] = tris[t * 3 + 1];
+            result[r++] = tris[t * 3 + 2];
+        }
+        return result;
+    }
+
+    /**
+     * Finding the copy of the target position, every copy of the source position
+     * gets moved onto. A copy can only be moved onto a target copy, that it
+     * shares a triangle with, so its attributes match. Copies without remaining
+     * triangles get no target (-1).
+     *
+     * @param tris        Triangle indices
+     * @param dead        Removed triangles
+     * @param weld        Welded position of every vertex
+     * @param adjacency   Vertex to triangle adjacency
+     * @param adjStart    Start of every vertex in the adjacency
+     * @param copies      Copies of all positions
+     * @param start       Start of the source copies
+     * @param end         End of the source copies
+     * @param trg         Target position
+     * @param copyTargets Array to store the target of every source copy in
+     * @return True, if every source copy with triangles has exactly one target
+     */
+    private static boolean findCopyTargets(int[] tris, boolean[] dead, int[] weld, int[] adjacency,
+            int[] adjStart, int[] copies, int start, int end, int trg, int[] copyTargets) {
+        for (int c = start; c < end; c++) {
+            int copy = copies[c];
+            int target = -1;
+            boolean hasTris = false;
+
+            for (int a = adjStart[copy]; a < adjStart[copy + 1]; a++) {
+                int t = adjacency[a];
+                if (dead[t])
+                    continue;
+                hasTris = true;
+
+                for (int corner = 0; corner < 3; corner++) {
+                    int v = tris[t * 3 + corner];
+                    if (weld[v] != trg)
+                        continue;
+
+                    // Copy touches two different target copies
+                    if (target >= 0 && target != v)
+                        return false;
+                    target = v;
+                }
+            }
+
+            // Copy is not connected to the target, moving it would stretch its
+            // attributes
+            if (hasTris && target < 0)
+                return false;
+            copyTargets[copy] = target;
+        }
+        return true;
+    }
+
+    /**
+     * Mapping every vertex to the first vertex with the same position
+     * 
+     * @param vertices    Vertex positions
+     * @param vertexCount Count of vertices
+     * @return Welded vertex of every vertex
+     */
+    private static int[] weldPositions(float[] vertices, int vertexCount) {
+        Integer[] order = new Integer[vertexCount];
+        for (int v = 0; v < vertexCount; v++)
+            order[v] = v;
+        Arrays.sort(order, (a, b) -> {
+            for (int c = 0; c < 3; c++) {
+                int cmp = Float.compare(vertices[a * 3 + c], vertices[b * 3 + c]);
+                if (cmp != 0)
+                    return cmp;
+            }
+            return Integer.compare(a, b);
+        });
+
+        int[] weld = new int[vertexCount];
+        int first = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            int v = order[i];
+            int f = order[first];
+            if (vertices[v * 3] != vertices[f * 3] || vertices[v * 3 + 1] != vertices[f * 3 + 1]
+                    || vertices[v * 3 + 2] != vertices[f * 3 + 2])
+                first = i;
+            weld[v] = order[first];
+        }
+        return weld;
+    }
+
+    /**
+     * @return Direction independent key of an edge
+     */
+    private static long edgeKey(int a, int b, int vertexCount) {
+        return (long) Math.min(a, b) * vertexCount + Math.max(a, b);
+    }
+
+    /**
+     * Adding the area weighted plane quadric of a triangle to its positions
+     * 
+     * @param vertices Vertex positions
+     * @param tris     Triangle indices
+     * @param weld     Welded position of every vertex
+     * @param t        Triangle
+     * @param quadrics Quadrics of the welded positions
+     */
+    private static void addTriangleQuadric(float[] vertices, int[] tris, int[] weld, int t, double[] quadrics) {
+        int a = tris[t * 3] * 3, b = tris[t * 3 + 1] * 3, c = tris[t * 3 + 2] * 3;
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1],
+                e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1],
+                e2z = vertices[c + 2] - vertices[a + 2];
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length == 0.0)
+            return;
+
+        // Plane and area
+        double area = length * 0.5;
+        nx /= length;
+        ny /= length;
+        nz /= length;
+        double d = -(nx * vertices[a] + ny * vertices[a + 1] + nz * vertices[a + 2]);
+
+        for (int corner = 0; corner < 3; corner++) {
+            int o = weld[tris[t * 3 + corner]] * QUADRIC_SIZE;
+            quadrics[o] += area * nx * nx;
+            quadrics[o + 1] += area * nx * ny;
+            quadrics[o + 2] += area * nx * nz;
+            quadrics[o + 3] += area * nx * d;
+            quadrics[o + 4] += area * ny * ny;
+            quadrics[o + 5] += area * ny * nz;
+            quadrics[o + 6] += area * ny * d;
+            quadrics[o + 7] += area * nz * nz;
+            quadrics[o + 8] += area * nz * d;
+            quadrics[o + 9] += area * d * d;
+        }
+    }
+
+    /**
+     * Calculating the quadric error of moving a vertex onto another one
+     * 
+     * @param quadrics Quadrics of the vertices
+     * @param src      Vertex to move
+     * @param trg      Vertex to move onto
+     * @param vertices Vertex positions
+     * @return Quadric error of the collapse
+     */
+    private static double collapseError(double[] quadrics, int src, int trg, float[] vertices) {
+        double x = vertices[trg * 3], y = vertices[trg * 3 + 1], z = vertices[trg * 3 + 2];
+        int s = src * QUADRIC_SIZE, t = trg * QUADRIC_SIZE;
+        double q0 = quadrics[s] + quadrics[t], q1 = quadrics[s + 1] + quadrics[t + 1],
+                q2 = quadrics[s + 2] + quadrics[t + 2], q3 = quadrics[s + 3] + quadrics[t + 3],
+                q4 = quadrics[s + 4] + quadrics[t + 4], q5 = quadrics[s + 5] + quadrics[t + 5],
+                q6 = quadrics[s + 6] + quadrics[t + 6], q7 = quadrics[s + 7] + quadrics[t + 7],
+                q8 = quadrics[s + 8] + quadrics[t + 8], q9 = quadrics[s + 9] + quadrics[t + 9];
+
+        return q0 * x * x + 2 * q1 * x * y + 2 * q2 * x * z + 2 * q3 * x + q4 * y * y + 2 * q5 * y * z + 2 * q6 * y
+                + q7 * z * z + 2 * q8 * z + q9;
+    }
+
+    /**
+     * Checks if moving a vertex onto another one flips the normal of one of its
+     * remaining triangles. Triangles with the target position get removed and
+     * are skipped.
+     * 
+     * @return True, if a triangle would flip
+     */
+    private static boolean flipsTriangle(float[] vertices, int[] tris, boolean[] dead, int[] weld, int[] adjacency,
+            int start, int end, int src, int trg, int trgPosition) {
+        for (int a = start; a < end; a++) {
+            int t = adjacency[a];
+            if (dead[t])
+                continue;
+
+            int srcCorner = -1;
+            boolean hasTrg = false;
+            for (int c = 0; c < 3; c++) {
+                if (tris[t * 3 + c] == src)
+                    srcCorner = c;
+                if (weld[tris[t * 3 + c]] == trgPosition)
+                    hasTrg = true;
+            }
+            if (hasTrg || srcCorner < 0)
+                continue;
+
+            int p1 = tris[t * 3 + (srcCorner + 1) % 3] * 3, p2 = tris[t * 3 + (srcCorner + 2) % 3] * 3;
+            int p0 = src * 3, n0 = trg * 3;
+
+            // Normal before and after the collapse
+            float ax = vertices[p1] - vertices[p0], ay = vertices[p1 + 1] - vertices[p0 + 1],
+                    az = vertices[p1 + 2] - vertices[p0 + 2];
+            float bx = vertices[p2] - vertices[p0], by = vertices[p2 + 1] - vertices[p0 + 1],
+                    bz = vertices[p2 + 2] - vertices[p0 + 2];
+            float cx = vertices[p1] - vertices[n0], cy = vertices[p1 + 1] - vertices[n0 + 1],
+                    cz = vertices[p1 + 2] - vertices[n0 + 2];
+            float dx = vertices[p2] - vertices[n0], dy = vertices[p2 + 1] - vertices[n0 + 1],
+                    dz = vertices[p2 + 2] - vertices[n0 + 2];
+
+            float nx0 = ay * bz - az * by, ny0 = az * bx - ax * bz, nz0 = ax * by - ay * bx;
+            float nx1 = cy * dz - cz * dy, ny1 = cz * dx - cx * dz, nz1 = cx * dy - cy * dx;
+            if (nx0 * nx1 + ny0 * ny1 + nz0 * nz1 <= 0.0f)
+                return true;
+        }
+        return false;
+    }
+}
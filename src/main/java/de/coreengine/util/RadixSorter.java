@@ -0,0 +1,108 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import java.util.Arrays;
+
+/**
+ * Least significant digit radix sort for non negative int keys (like the bits of
+ * non negative floats, which keep their order as ints). Sorts in four passes of
+ * 8 bits and keeps its buffers between calls, so sorting does not allocate once
+ * the buffers are big enough.
+ *
+ * @author Darius Dinger
+ */
+public class RadixSorter {
+
+    // Keys and indices of the current and the next pass
+    private int[] keys = new int[0], keysTmp = new int[0];
+    private int[] order = new int[0], orderTmp = new int[0];
+
+    // Histogram of the current pass
+    private final int[] counts = new int[256];
+
+    /**
+     * Sorting keys ascending. The keys array is not modified, the sorted order is
+     * returned as indices into the keys.
+     *
+     * @param sortKeys Keys to sort, must be non negative
+     * @param count    Count of keys to sort
+     * @return Indices of the keys in ascending key order, valid until the next sort
+     */
+    public int[] sort(int[] sortKeys, int count) {
+        if (keys.length < count) {
+            keys = new int[count];
+            keysTmp = new int[count];
+            order = new int[count];
+            orderTmp = new int[count];
+        }
+
+        System.arraycopy(sortKeys, 0, keys, 0, count);
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+        if (count == 0)
+            return order;
+
+        for (int shift = 0; shift < 32; shift += 8) {
+
+            // Count digits
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < count; i++)
+                counts[(keys[i] >>> shift) & 0xFF]++;
+
+            // Skip pass, if all keys have the same digit
+            if (counts[(keys[0] >>> shift) & 0xFF] == count)
+                continue;
+
+            // Prefix sums to start positions
+            int sum = 0;
+            for (int d = 0; d < 256; d++) {
+                int c = counts[d];
+                counts[d] = sum;
+                sum += c;
+            }
+
+            // Scatter stable into the tmp arrays
+            for (int i = 0; i < count; i++) {
+                int target = counts[(keys[i] >>> shift) & 0xFF]++;
+                keysTmp[target] = keys[i];
+                orderTmp[target] = order[i];
+            }
+
+            // Swap buffers
+            int[] swap = keys;
+            keys = keysTmp;
+            keysTmp = swap;
+            swap = order;
+            order = orderTmp;
+            orderTmp = swap;
+        }
+
+        return order;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import java.util.Arrays;
+
+/**
+ * Allocator, that sub allocates ranges from a linear storage of a fixed
+ * capacity (like a big gpu buffer). Free ranges are kept sorted by offset and
+ * merged with their neighbours, when a range gets freed. Allocations use the
+ * first free range, that is big enough.
+ *
+ * @author Darius Dinger
+ */
+public class RangeAllocator {
+
+    // Capacity of the storage
+    private final int capacity;
+
+    // Free ranges sorted by offset
+    private int[] freeOffsets = new int[8], freeSizes = new int[8];
+    private int freeCount = 0;
+
+    /**
+     * Creates new allocator with the whole storage free
+     *
+     * @param capacity Capacity of the storage
+     */
+    public RangeAllocator(int capacity) {
+        this.capacity = capacity;
+        if (capacity > 0)
+            insertFree(0, 0, capacity);
+    }
+
+    /**
+     * Allocating a range of the storage
+     *
+     * @param size Size of the range
+     * @return Offset of the allocated range or -1, if no free range is big enough
+     */
+    public int allocate(int size) {
+        if (size <= 0)
+            return -1;
+
+        for (int i = 0; i < freeCount; i++) {
+            if (freeSizes[i] < size)
+                continue;
+
+            int offset = freeOffsets[i];
+            if (freeSizes[i] == size)
+                removeFree(i);
+            else {
+                freeOffsets[i] += size;
+                freeSizes[i] -= size;
+            }
+            return offset;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Freeing an allocated range and merging it with adjacent free ranges
+     *
+     * @param offset Offset of the range
+     * @param size   Size of the range
+     */
+    public void free(int offset, int size) {
+        if (size <= 0)
+            return;
+
+        // Find insert position
+        int i = 0;
+        while (i < freeCount && freeOffsets[i] < offset)
+            i++;
+
+        boolean mergePrev = i > 0 && freeOffsets[i - 1] + freeSizes[i - 1] == offset;
+        boolean mergeNext = i < freeCount && offset + size == freeOffsets[i];
+
+        if (mergePrev && mergeNext) {
+            freeSizes[i - 1] += size + freeSizes[i];
+            removeFree(i);
+        } else if (mergePrev) {
+            freeSizes[i - 1] += size;
+        } else if (mergeNext) {
+            freeOffsets[i] = offset;
+            freeSizes[i] += size;
+        } else
+            insertFree(i, offset, size);
+    }
+
+    /**
+     * Inserting a free range at an index of the free list
+     *
+     * @param index  Index in the free list
+     * @param offset Offset of the free range
+     * @param size   Size of the free range
+     */
+    private void insertFree(int index, int offset, int size) {
+        if (freeCount == freeOffsets.length) {
+            freeOffsets = Arrays.copyOf(freeOffsets, freeCount * 2);
+            freeSizes = Arrays.copyOf(freeSizes, freeCount * 2);
+        }
+
+        System.arraycopy(freeOffsets, index, freeOffsets, index + 1, freeCount - index);
+        System.arraycopy(freeSizes, index, freeSizes, index + 1, freeCount - index);
+        freeOffsets[index] = offset;
+        freeSizes[index] = size;
+        freeCount++;
+    }
+
+    /**
+     * Removing a free range from the free list
+     *
+     * @param index Index in the free list
+     */
+    private void removeFree(int index) {
+        System.arraycopy(freeOffsets, index + 1, freeOffsets, index, freeCount - index - 1);
+        System.arraycopy(freeSizes, index + 1, freeSizes, index, freeCount - index - 1);
+        freeCount--;
+    }
+
+    /**
+     * @return Capacity of the storage
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Size of all free ranges together
+     */
+    public int getFreeSize() {
+        int size = 0;
+        for (int i = 0; i < freeCount; i++)
+            size += freeSizes[i];
+        return size;
+    }
+
+    /**
+     * @return Size of the biggest free range, the biggest possible allocation
+     */
+    public int getLargestFreeRange() {
+        int size = 0;
+        for (int i = 0; i < freeCount; i++)
+            size = Integer.max(size, freeSizes[i]);
+        return size;
+    }
+
+    /**
+     * @return Count of the free ranges, a measure of fragmentation
+     */
+    public int getFreeRangeCount() {
+        return freeCount;
+    }
+}
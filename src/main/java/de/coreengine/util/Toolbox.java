@@ -72,6 +72,25 @@ public class Toolbox {
         return array;
     }
 
+    /**
+     * Removing the first occurrence of an int element from an int array
+     * 
+     * @param array   Array where the element should be removed
+     * @param element Element to remove from the array
+     * @return New array with element removed or the array, if it does not contain
+     *         the element
+     */
+    public static int[] removeElement(int[] array, int element) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == element) {
+                int[] result = Arrays.copyOf(array, array.length - 1);
+                System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+                return result;
+            }
+        }
+        return array;
+    }
+
     /**
      * Adding an float element to an float array
      * 
@@ -108,10 +127,11 @@ public class Toolbox {
      */
     public static Color generateRandomColor() {
         Color result = new Color();
+        FastRandom random = FastRandom.current();
 
-        result.setRed((float) Math.random());
-        result.setGreen((float) Math.random());
-        result.setBlue((float) Math.random());
+        result.setRed(random.nextFloat());
+        result.setGreen(random.nextFloat());
+        result.setBlue(random.nextFloat());
 
         return result;
     }
@@ -196,25 +216,27 @@ public class Toolbox {
     }
 
     /**
-     * Generating a random float between min and max
+     * Generating a random float between min and max with the generator of the
+     * current thread
      *
      * @param min Min value of the float
      * @param max Max value of the float
      * @return Generated value
      */
     public static float randomFloat(float min, float max) {
-        return min + ((float) Math.random() * (max - min));
+        return FastRandom.current().nextFloat(min, max);
     }
 
     /**
-     * Generating a random integer between min and max
+     * Generating a random integer between min and max with the generator of the
+     * current thread
      *
      * @param min Min value of the integer
      * @param max Max value of the integer
      * @return Generated value
      */
     public static int randomInt(int min, int max) {
-        return min + (int) ((float) Math.random() * (max - min));
+        return FastRandom.current().nextInt(min, max);
     }
 
     /**
@@ -225,7 +247,20 @@ public class Toolbox {
      * @return Generated vector
      */
     public static Vector3f randomVector(Vector3f min, Vector3f max) {
-        return new Vector3f(randomFloat(min.x, max.x), randomFloat(min.y, max.y), randomFloat(min.z, max.z));
+        return randomVector(min, max, new Vector3f());
+    }
+
+    /**
+     * Generating random vector between min and max, without allocating a new
+     * vector
+     *
+     * @param min  Min vector values
+     * @param max  Max vector values
+     * @param dest Vector to store the result in
+     * @return dest
+     */
+    public static Vector3f randomVector(Vector3f min, Vector3f max, Vector3f dest) {
+        return FastRandom.current().nextVector(min, max, dest);
     }
 
     /**
@@ -236,7 +271,20 @@ public class Toolbox {
      * @return Generated vector
      */
     public static Vector2f randomVector(Vector2f min, Vector2f max) {
-        return new Vector2f(randomFloat(min.x, max.x), randomFloat(min.y, max.y));
+        return randomVector(min, max, new Vector2f());
+    }
+
+    /**
+     * Generating random vector between min and max, without allocating a new
+     * vector
+     *
+     * @param min  Min vector values
+     * @param max  Max vector values
+     * @param dest Vector to store the result in
+     * @return dest
+     */
+    public static Vector2f randomVector(Vector2f min, Vector2f max, Vector2f dest) {
+        return FastRandom.current().nextVector(min, max, dest);
     }
 
     /**
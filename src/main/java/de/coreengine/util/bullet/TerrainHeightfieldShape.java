@@ -0,0 +1,318 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.bullet;
+
+import com.bulletphysics.collision.broadphase.BroadphaseNativeType;
+import com.bulletphysics.collision.narrowphase.TriangleRaycastCallback;
+import com.bulletphysics.collision.shapes.ConcaveShape;
+import com.bulletphysics.collision.shapes.TriangleCallback;
+import com.bulletphysics.linearmath.Transform;
+import de.coreengine.rendering.renderable.terrain.TerrainHeightField;
+
+import javax.vecmath.Vector3f;
+
+/**
+ * Static concave collision shape of a terrain, that triangulates the height
+ * field on demand inside the queried area. The height field is shared with the
+ * terrain, so the shape needs no own memory per sample and no build time. The
+ * shared height field costs about 15 bytes per sample, 4 for the height and
+ * about 11 for its min/max pyramid.
+ * The vertices lie on the texel centers, the half texel border is stretched to
+ * the terrain edges, like the gpu samples the height map. Shape space x and z
+ * go from 0 to 1 and y is the height value times the amplitude, all multiplied
+ * by the local scaling. Only for static objects!
+ *
+ * @author Darius Dinger
+ */
+public class TerrainHeightfieldShape extends ConcaveShape {
+
+    // Height values of the shape and their amplitude
+    private final TerrainHeightField heightField;
+    private final float amplitude;
+
+    // Texels per row/column of the height field
+    private final int width, height;
+
+    // Min and max shape space height before scaling
+    private final float minHeight, maxHeight;
+
+    private final Vector3f localScaling = new Vector3f(1.0f, 1.0f, 1.0f);
+
+    // Triangle passed to the callbacks, reused to prevent allocations
+    private final Vector3f[] triangle = { new Vector3f(), new Vector3f(), new Vector3f() };
+
+    // Clipped ray parameter range and aabb center/extent, reused to prevent
+    // allocations
+    private final float[] rayRange = new float[2];
+    private final Vector3f aabbCenter = new Vector3f(), aabbExtent = new Vector3f();
+
+    /**
+     * Creating a shape for a height field
+     *
+     * @param heightField Height values of the shape
+     * @param amplitude   Amplitude of the heights
+     */
+    public TerrainHeightfieldShape(TerrainHeightField heightField, float amplitude) {
+        this.heightField = heightField;
+        this.amplitude = amplitude;
+        this.width = heightField.getWidth();
+        this.height = heightField.getHeight();
+
+        float[] bounds = heightField.getBounds(0.0f, 0.0f, 1.0f, 1.0f, new float[2]);
+        this.minHeight = Math.min(bounds[0] * amplitude, bounds[1] * amplitude);
+        this.maxHeight = Math.max(bounds[0] * amplitude, bounds[1] * amplitude);
+    }
+
+    @Override
+    public void processAllTriangles(TriangleCallback callback, Vector3f aabbMin, Vector3f aabbMax) {
+
+        // Rays only need the cells along the ray
+        if (callback instanceof TriangleRaycastCallback) {
+            processRayTriangles((TriangleRaycastCallback) callback);
+            return;
+        }
+
+        float minY = aabbMin.y / localScaling.y, maxY = aabbMax.y / localScaling.y;
+        if (Math.min(minY, maxY) > maxHeight || Math.max(minY, maxY) < minHeight)
+            return;
+
+        float minX = Math.min(aabbMin.x / localScaling.x, aabbMax.x / localScaling.x);
+        float maxX = Math.max(aabbMin.x / localScaling.x, aabbMax.x / localScaling.x);
+        float minZ = Math.min(aabbMin.z / localScaling.z, aabbMax.z / localScaling.z);
+        float maxZ = Math.max(aabbMin.z / localScaling.z, aabbMax.z / localScaling.z);
+        if (minX > 1.0f || maxX < 0.0f || minZ > 1.0f || maxZ < 0.0f)
+            return;
+
+        // Cells touched by the aabb
+        int x0 = toCell(minX * width, width), x1 = toCell(maxX * width, width);
+        int z0 = toCell(minZ * height, height), z1 = toCell(maxZ * height, height);
+
+        for (int z = z0; z <= z1; z++) {
+            for (int x = x0; x <= x1; x++) {
+                processCell(callback, x, z, aabbMin.y, aabbMax.y);
+            }
+        }
+    }
+
+    /**
+     * Walking the cells along the ray of a raycast callback front to back, until
+     * the nearest hit so far lies before the next cell
+     *
+     * @param callback Raycast callback to pass the triangles to
+     */
+    private void processRayTriangles(TriangleRaycastCallback callback) {
+
+        // Ray in grid space, where cell i spans from i to i + 1 (border cells are
+        // half cells)
+        float fx = callback.from.x / localScaling.x * width + 0.5f;
+        float fz = callback.from.z / localScaling.z * height + 0.5f;
+        float fy = callback.from.y / localScaling.y;
+        float dx = callback.to.x / localScaling.x * width + 0.5f - fx;
+        float dz = callback.to.z / localScaling.z * height + 0.5f - fz;
+        float dy = callback.to.y / localScaling.y - fy;
+
+        // Clip ray to the bounds of the shape
+        float[] t = rayRange;
+        t[0] = 0.0f;
+        t[1] = 1.0f;
+        if (!clip(fx, dx, 0.5f, width + 0.5f, t) || !clip(fz, dz, 0.5f, height + 0.5f, t)
+                || !clip(fy, dy, minHeight, maxHeight, t))
+            return;
+
+        // Start cell and traversal steps
+        int x = toGridCell(fx + dx * t[0], width), z = toGridCell(fz + dz * t[0], height);
+        int stepX = dx > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        float deltaX = dx != 0 ? Math.abs(1.0f / dx) : Float.POSITIVE_INFINITY;
+        float deltaZ = dz != 0 ? Math.abs(1.0f / dz) : Float.POSITIVE_INFINITY;
+        float nextX = dx != 0 ? ((dx > 0 ? x + 1 : x) - fx) / dx : Float.POSITIVE_INFINITY;
+        float nextZ = dz != 0 ? ((dz > 0 ? z + 1 : z) - fz) / dz : Float.POSITIVE_INFINITY;
+
+        float minY = Math.min(callback.from.y, callback.to.y), maxY = Math.max(callback.from.y, callback.to.y);
+        while (true) {
+            processCell(callback, x, z, minY, maxY);
+
+            // Stop, if the nearest hit is inside this cell or the ray left the shape
+            float exit = Math.min(nextX, nextZ);
+            if (exit >= t[1] || callback.hitFraction <= exit)
+                return;
+
+            if (nextX < nextZ) {
+                x += stepX;
+                nextX += deltaX;
+                if (x < 0 || x > width)
+                    return;
+            } else {
+                z += stepZ;
+                nextZ += deltaZ;
+                if (z < 0 || z > height)
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Clipping a ray parameter range against a slab
+     *
+     * @param o   Origin of the ray on the axis
+     * @param d   Direction of the ray on the axis
+     * @param min Min of the slab
+     * @param max Max of the slab
+     * @param t   Parameter range to clip (index 0 = enter, index 1 = exit)
+     * @return False, if the range is empty after clipping
+     */
+    private static boolean clip(float o, float d, float min, float max, float[] t) {
+        if (d == 0)
+            return o >= min && o <= max;
+
+        float t0 = (min - o) / d, t1 = (max - o) / d;
+        t[0] = Math.max(t[0], Math.min(t0, t1));
+        t[1] = Math.min(t[1], Math.max(t0, t1));
+        return t[0] <= t[1];
+    }
+
+    /**
+     * @param f     Shape space coordinate multiplied by the texel count
+     * @param cells Texels on the axis
+     * @return Clamped index of the cell, that contains the coordinate
+     */
+    private static int toCell(float f, int cells) {
+        return toGridCell(f + 0.5f, cells);
+    }
+
+    /**
+     * @param g     Grid space coordinate
+     * @param cells Texels on the axis
+     * @return Clamped index of the cell, that contains the coordinate
+     */
+    private static int toGridCell(float g, int cells) {
+        return Math.max(0, Math.min(cells, (int) Math.floor(g)));
+    }
+
+    /**
+     * Passing the two triangles of a cell to a callback, if they can intersect
+     * the height range
+     *
+     * @param callback Callback to pass the triangles to
+     * @param x        Cell x (0 - width)
+     * @param z        Cell z (0 - height)
+     * @param minY     Min scaled height of the query
+     * @param maxY     Max scaled height of the query
+     */
+    private void processCell(TriangleCallback callback, int x, int z, float minY, float maxY) {
+        float x0 = vertexPos(x, width) * localScaling.x, x1 = vertexPos(x + 1, width) * localScaling.x;
+        float z0 = vertexPos(z, height) * localScaling.z, z1 = vertexPos(z + 1, height) * localScaling.z;
+        float h00 = heightField.getTexel(x - 1, z - 1) * amplitude * localScaling.y;
+        float h10 = heightField.getTexel(x, z - 1) * amplitude * localScaling.y;
+        float h11 = heightField.getTexel(x, z) * amplitude * localScaling.y;
+        float h01 = heightField.getTexel(x - 1, z) * amplitude * localScaling.y;
+
+        float cellMin = Math.min(Math.min(h00, h10), Math.min(h01, h11));
+        float cellMax = Math.max(Math.max(h00, h10), Math.max(h01, h11));
+        if (cellMin > maxY + collisionMargin || cellMax < minY - collisionMargin)
+            return;
+
+        int index = (x + z * (width + 1)) * 2;
+
+        triangle[0].set(x0, h00, z0);
+        triangle[1].set(x1, h10, z0);
+        triangle[2].set(x1, h11, z1);
+        callback.processTriangle(triangle, 0, index);
+
+        triangle[0].set(x1, h11, z1);
+        triangle[1].set(x0, h01, z1);
+        triangle[2].set(x0, h00, z0);
+        callback.processTriangle(triangle, 0, index + 1);
+    }
+
+    /**
+     * @param i      Vertex index on the axis (0 - texels + 1)
+     * @param texels Texels on the axis
+     * @return Unscaled shape space position of the vertex
+     */
+    private static float vertexPos(int i, int texels) {
+        if (i <= 0)
+            return 0.0f;
+        if (i > texels)
+            return 1.0f;
+        return (i - 0.5f) / texels;
+    }
+
+    @Override
+    public void getAabb(Transform t, Vector3f aabbMin, Vector3f aabbMax) {
+
+        // Local box center and half extent (with margin), transformed like
+        // AabbUtil2.transformAabb, but without temporary vectors
+        float cx = localScaling.x * 0.5f, cy = (minHeight + maxHeight) * 0.5f * localScaling.y,
+                cz = localScaling.z * 0.5f;
+        float ex = Math.abs(localScaling.x) * 0.5f + collisionMargin;
+        float ey = Math.abs((maxHeight - minHeight) * localScaling.y) * 0.5f + collisionMargin;
+        float ez = Math.abs(localScaling.z) * 0.5f + collisionMargin;
+
+        aabbCenter.set(cx, cy, cz);
+        t.transform(aabbCenter);
+        aabbExtent.x = Math.abs(t.basis.m00) * ex + Math.abs(t.basis.m01) * ey + Math.abs(t.basis.m02) * ez;
+        aabbExtent.y = Math.abs(t.basis.m10) * ex + Math.abs(t.basis.m11) * ey + Math.abs(t.basis.m12) * ez;
+        aabbExtent.z = Math.abs(t.basis.m20) * ex + Math.abs(t.basis.m21) * ey + Math.abs(t.basis.m22) * ez;
+
+        aabbMin.sub(aabbCenter, aabbExtent);
+        aabbMax.add(aabbCenter, aabbExtent);
+    }
+
+    @Override
+    public BroadphaseNativeType getShapeType() {
+        return BroadphaseNativeType.TERRAIN_SHAPE_PROXYTYPE;
+    }
+
+    @Override
+    public void setLocalScaling(Vector3f scaling) {
+        localScaling.set(scaling);
+    }
+
+    @Override
+    public Vector3f getLocalScaling(Vector3f out) {
+        out.set(localScaling);
+        return out;
+    }
+
+    @Override
+    public void calculateLocalInertia(float mass, Vector3f inertia) {
+        inertia.set(0.0f, 0.0f, 0.0f);
+    }
+
+    @Override
+    public String getName() {
+        return "TerrainHeightfield";
+    }
+
+    /**
+     * @return Height field, the shape triangulates
+     */
+    public TerrainHeightField getHeightField() {
+        return heightField;
+    }
+}
@@ -29,9 +29,9 @@ package de.coreengine.util.bullet;
 
 import com.bulletphysics.collision.shapes.BvhTriangleMeshShape;
 import de.coreengine.rendering.renderable.terrain.Terrain;
+import de.coreengine.rendering.renderable.terrain.TerrainHeightField;
 
 import javax.vecmath.Vector3f;
-import java.nio.ByteBuffer;
 
 /**
  * Class that can create a terrain collision shape
@@ -41,7 +41,25 @@ import java.nio.ByteBuffer;
 public class TerrainShapeCreator {
 
     /**
-     * Creating a static collision shape for a terrain with a specific resolution.
+     * Creating a static collision shape for a terrain, that triangulates the
+     * height field of the terrain on demand in full resolution. Needs no build
+     * time and shares the height values with the terrain.
+     *
+     * @param terr Terrain to create the shape for
+     * @return Created static terrain shape
+     */
+    public static TerrainHeightfieldShape createHeightfieldShape(Terrain terr) {
+        TerrainHeightfieldShape shape = new TerrainHeightfieldShape(terr.getHeightField(),
+                terr.getConfig().getAmplitude());
+        shape.setLocalScaling(new Vector3f(terr.getScale(), terr.getScale(), terr.getScale()));
+
+        return shape;
+    }
+
+    /**
+     * Creating a static triangle mesh collision shape for a terrain with a
+     * specific resolution. Slow to build and memory intensive for high
+     * resolutions, prefer {@link #createHeightfieldShape(Terrain)}.
      * 
      * @param terr     Terrain to create the shape for
      * @param numQuads Quads of the shape per row/column
@@ -56,9 +74,7 @@ public class TerrainShapeCreator {
 
         float triSize = 1.0f / numQuads; // Size of one triangle
 
-        ByteBuffer heights = terr.getConfig().getHeightMap().getData();
-        int width = terr.getConfig().getHeightMap().getWidth();
-        int height = terr.getConfig().getHeightMap().getHeight();
+        TerrainHeightField heights = terr.getHeightField();
         float amplitude = terr.getConfig().getAmplitude();
 
         // Generate vertices
@@ -68,7 +84,7 @@ public class TerrainShapeCreator {
 
                 float posX = x * triSize;
                 float posZ = z * triSize;
-                float posY = getHeightAt(posX, posZ, heights, width, height, amplitude);
+                float posY = heights.getHeight(posX, posZ) * amplitude;
 
                 vertices[c++] = posX;
                 vertices[c++] = posY;
@@ -102,28 +118,4 @@ public class TerrainShapeCreator {
 
         return shape;
     }
-
-    /**
-     * @param x         X texture coordinate of the heightmap
-     * @param y         Y texture coordinate of the heightmap
-     * @param heights   Bytebuffer of the terrain heightmap texture
-     * @param width     Width of the terrain height map texture in pixels
-     * @param height    Height of the terrain height map texture in pixels
-     * @param amplitude Amplitude of the terrain
-     * @return Height of a specific point on the terrain
-     */
-    private static float getHeightAt(float x, float y, ByteBuffer heights, int width, int height, float amplitude) {
-        if (heights == null)
-            return 0;
-
-        int pixX = Integer.min((int) (x * width), width - 1);
-        int pixY = Integer.min((int) (y * height), height - 1);
-
-        int pixelIndex = (pixX + pixY * width) * 4;
-
-        float h = (float) (heights.get(pixelIndex) & 0xFF) / 255.0f;
-        h *= amplitude;
-
-        return h;
-    }
 }
@@ -0,0 +1,81 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.gl;
+
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL40;
+
+import java.nio.IntBuffer;
+
+/**
+ * Class that represent an opengl draw indirect buffer, that stores the draw
+ * commands of indirect draw calls
+ *
+ * @author Darius Dinger
+ */
+public class DrawIndirectBuffer {
+
+    // Id of the buffer
+    private final int buffer;
+
+    /**
+     * Creates new draw indirect buffer in opengl
+     */
+    public DrawIndirectBuffer() {
+        buffer = GL15.glGenBuffers();
+
+        // Add buffer to memory dumper to delete after exit
+        MemoryDumper.addVbo(buffer);
+    }
+
+    /**
+     * Replacing the commands of the buffer. The old data store gets orphaned, so
+     * the upload does not have to wait for the gpu.
+     * 
+     * @param commands Commands to upload, from position to limit
+     */
+    public void update(IntBuffer commands) {
+        GL15.glBindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, buffer);
+        GL15.glBufferData(GL40.GL_DRAW_INDIRECT_BUFFER, commands, GL15.GL_STREAM_DRAW);
+        GL15.glBindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, 0);
+    }
+
+    /**
+     * Binds the buffer as draw indirect buffer
+     */
+    public void bind() {
+        GL15.glBindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, buffer);
+    }
+
+    /**
+     * Unbinds the draw indirect buffer (bind 0)
+     */
+    public void unbind() {
+        GL15.glBindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, 0);
+    }
+}
@@ -53,6 +53,18 @@ public class IndexBuffer {
         this.size = size;
     }
 
+    /**
+     * Replacing a part of the indices of the buffer
+     *
+     * @param offset  Index to write the indices at
+     * @param indices Indices to write
+     */
+    public void update(int offset, int[] indices) {
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, id);
+        GL15.glBufferSubData(GL15.GL_ELEMENT_ARRAY_BUFFER, (long) offset * 4, indices);
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
     /**
      * Binds IndexBuffer to opengl
      */
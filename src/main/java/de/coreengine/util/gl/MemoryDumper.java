@@ -98,6 +98,24 @@ public class MemoryDumper {
         VBOS = Toolbox.addElement(VBOS, vboId);
     }
 
+    /**
+     * Removing vao from the vaos to dump, because it was already deleted
+     * 
+     * @param vaoId Vao, that was deleted
+     */
+    static void removeVao(int vaoId) {
+        VAOS = Toolbox.removeElement(VAOS, vaoId);
+    }
+
+    /**
+     * Removing vbo from the vbos to dump, because it was already deleted
+     * 
+     * @param vboId Vbo, that was deleted
+     */
+    static void removeVbo(int vboId) {
+        VBOS = Toolbox.removeElement(VBOS, vboId);
+    }
+
     /**
      * Adding shader program to dump after program exits
      * 
@@ -143,6 +161,15 @@ public class MemoryDumper {
         TEXTURES = Toolbox.addElement(TEXTURES, textureId);
     }
 
+    /**
+     * Removing texture from the textures to dump, because it was already deleted
+     * 
+     * @param textureId TextureData id, that was deleted
+     */
+    public static void removeTexture(int textureId) {
+        TEXTURES = Toolbox.removeElement(TEXTURES, textureId);
+    }
+
     /**
      * Adding audio buffer to dump after programm exits
      * 
@@ -0,0 +1,92 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.gl;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL21;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Class that represent an opengl pixel pack buffer. Pixels read into a pixel
+ * pack buffer are copied asynchronously by the gpu, so the read does not stall
+ * the pipeline as long as the data is fetched a frame later.
+ *
+ * @author Darius Dinger
+ */
+public class PixelPackBuffer {
+
+    // Id of the buffer
+    private final int buffer;
+
+    /**
+     * Creates new pixel pack buffer with a fixed size in opengl
+     * 
+     * @param size Size of the buffer in bytes
+     */
+    public PixelPackBuffer(int size) {
+        buffer = GL15.glGenBuffers();
+
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, buffer);
+        GL15.glBufferData(GL21.GL_PIXEL_PACK_BUFFER, size, GL15.GL_STREAM_READ);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+
+        // Add buffer to memory dumper to delete after exit
+        MemoryDumper.addVbo(buffer);
+    }
+
+    /**
+     * Starting an asynchronous read of float rgba pixels from the bound read
+     * framebuffer into the buffer
+     * 
+     * @param x      X coordinate of the first pixel
+     * @param y      Y coordinate of the first pixel
+     * @param width  Width of the area to read
+     * @param height Height of the area to read
+     * @param offset Offset in the buffer in bytes
+     */
+    public void readPixels(int x, int y, int width, int height, long offset) {
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, buffer);
+        GL11.glReadPixels(x, y, width, height, GL11.GL_RGBA, GL11.GL_FLOAT, offset);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    /**
+     * Getting the data of the buffer. Waits for pending reads into the buffer, so
+     * it should be called a frame after the read.
+     * 
+     * @param offset Offset in the buffer in bytes
+     * @param dest   Buffer to store the data in, from position to limit
+     */
+    public void getData(long offset, FloatBuffer dest) {
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, buffer);
+        GL15.glGetBufferSubData(GL21.GL_PIXEL_PACK_BUFFER, offset, dest);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+    }
+}
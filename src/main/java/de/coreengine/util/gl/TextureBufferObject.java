@@ -0,0 +1,111 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.gl;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Class that represent an opengl buffer texture. A buffer texture is a texture,
+ * that is using the data store of a buffer object as texel array. It can be used
+ * to access big dynamic data arrays in a shader (samplerBuffer).
+ *
+ * @author Darius Dinger
+ */
+public class TextureBufferObject {
+
+    // Id of the data buffer and the texture
+    private final int buffer, texture;
+
+    /**
+     * Creates new buffer texture and its data buffer in opengl
+     * 
+     * @param internalFormat Internal format of the texels (GL_RGBA32F, GL_R32I,
+     *                       ...)
+     */
+    public TextureBufferObject(int internalFormat) {
+        buffer = GL15.glGenBuffers();
+        texture = GL11.glGenTextures();
+
+        // Create initial data store
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, buffer);
+        GL15.glBufferData(GL31.GL_TEXTURE_BUFFER, 16, GL15.GL_STREAM_DRAW);
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, 0);
+
+        // Attach data buffer to texture
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, texture);
+        GL31.glTexBuffer(GL31.GL_TEXTURE_BUFFER, internalFormat, buffer);
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, 0);
+
+        // Add buffer and texture to memory dumper to delete after exit
+        MemoryDumper.addVbo(buffer);
+        MemoryDumper.addTexture(texture);
+    }
+
+    /**
+     * Replacing the data store of the buffer with new data. The old data store
+     * gets orphaned, so the upload does not have to wait for the gpu.
+     * 
+     * @param data Data to upload, from position to limit
+     */
+    public void update(FloatBuffer data) {
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, buffer);
+        GL15.glBufferData(GL31.GL_TEXTURE_BUFFER, data, GL15.GL_STREAM_DRAW);
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, 0);
+    }
+
+    /**
+     * Replacing the data store of the buffer with new data. The old data store
+     * gets orphaned, so the upload does not have to wait for the gpu.
+     * 
+     * @param data Data to upload, from position to limit
+     */
+    public void update(IntBuffer data) {
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, buffer);
+        GL15.glBufferData(GL31.GL_TEXTURE_BUFFER, data, GL15.GL_STREAM_DRAW);
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, 0);
+    }
+
+    /**
+     * @return Id of the buffer texture, to bind as GL_TEXTURE_BUFFER
+     */
+    public int getTexture() {
+        return texture;
+    }
+
+    /**
+     * @return Id of the data buffer
+     */
+    public int getBuffer() {
+        return buffer;
+    }
+}
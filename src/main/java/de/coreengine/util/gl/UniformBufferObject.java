@@ -0,0 +1,117 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.gl;
+
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Class that represent an opengl uniform buffer object (ubo)
+ *
+ * @author Darius Dinger
+ */
+public class UniformBufferObject {
+
+    // Id of the uniform buffer
+    private final int id;
+
+    // Size of the uniform buffer in bytes
+    private final int size;
+
+    /**
+     * Creates new uniform buffer and allocates its storage in opengl
+     *
+     * @param size Size of the uniform buffer in bytes
+     */
+    public UniformBufferObject(int size) {
+        this.size = size;
+
+        id = GL15.glGenBuffers();
+
+        // Allocate storage, data gets updated every frame
+        bind();
+        GL15.glBufferData(GL31.GL_UNIFORM_BUFFER, size, GL15.GL_DYNAMIC_DRAW);
+        unbind();
+
+        // Add new buffer to memory dumper to delete after exit
+        MemoryDumper.addVbo(id);
+    }
+
+    /**
+     * Uploading data into the uniform buffer, starting at the first byte
+     *
+     * @param data Data to upload, from position to limit
+     */
+    public void update(FloatBuffer data) {
+        bind();
+        GL15.glBufferSubData(GL31.GL_UNIFORM_BUFFER, 0, data);
+        unbind();
+    }
+
+    /**
+     * Binding the uniform buffer to an indexed uniform block binding point. All
+     * shader programs, that are using the binding point are reading from this
+     * buffer now.
+     *
+     * @param bindingPoint Binding point to bind the buffer to
+     */
+    public void bindToBindingPoint(int bindingPoint) {
+        GL30.glBindBufferBase(GL31.GL_UNIFORM_BUFFER, bindingPoint, id);
+    }
+
+    /**
+     * Binds uniform buffer to opengl
+     */
+    public void bind() {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, id);
+    }
+
+    /**
+     * Unbinds uniform buffer from opengl (bind 0)
+     */
+    public void unbind() {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+    }
+
+    /**
+     * @return Uniform buffers id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return Uniform buffers size in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+}
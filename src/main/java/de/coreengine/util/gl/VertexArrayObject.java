@@ -30,6 +30,9 @@ package de.coreengine.util.gl;
 import de.coreengine.util.Toolbox;
 import org.lwjgl.opengl.*;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
  * Class that represent an opengl vao
  *
@@ -43,6 +46,9 @@ public class VertexArrayObject {
     // Rows/attributes of the vao
     private int[] attribs = new int[0];
 
+    // Vertex and index buffers of the vao
+    private int[] vbos = new int[0];
+
     /**
      * Creates new VertexArrayObject and generate one in opengl
      */
@@ -77,6 +83,7 @@ public class VertexArrayObject {
 
         // Add new buffer to buffers and row to attributes
         MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
         attribs = Toolbox.addElement(attribs, row);
     }
 
@@ -106,9 +113,104 @@ public class VertexArrayObject {
 
         // Add new buffer to buffers and row to attributes
         MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
+        attribs = Toolbox.addElement(attribs, row);
+    }
+
+    /**
+     * Adding new VertexBufferObject (VBO) to the VAO from a direct buffer, without
+     * copying it on the java side
+     *
+     * @param values    Direct buffer with the values in native byte order
+     * @param type      Type of the values (GL_FLOAT or GL_INT)
+     * @param dimension Dimension of the values
+     * @param row       Row to store the buffer in the vao
+     */
+    public void addVertexBuffer(ByteBuffer values, int type, int dimension, int row) {
+
+        // Bind VAO
+        bind();
+
+        // Generate vertex buffer
+        int vbo = GL15.glGenBuffers();
+
+        // Fill and seperate data in buffer
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, values, GL15.GL_STATIC_DRAW);
+        if (type == GL11.GL_FLOAT)
+            GL20.glVertexAttribPointer(row, dimension, type, false, 0, 0);
+        else
+            GL30.glVertexAttribIPointer(row, dimension, type, 0, 0);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+
+        // Unbind VAO
+        unbind();
+
+        // Add new buffer to buffers and row to attributes
+        MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
+        attribs = Toolbox.addElement(attribs, row);
+    }
+
+    /**
+     * Adding new VertexBufferObject (VBO) to the VAO, that changes per instance
+     *
+     * @param values    Values to fill into the buffer
+     * @param dimension Dimension of the values
+     * @param row       Row to store the buffer in the vao
+     */
+    public void addInstancedVertexBuffer(int[] values, int dimension, int row) {
+
+        // Bind VAO
+        bind();
+
+        // Generate vertex buffer
+        int vbo = GL15.glGenBuffers();
+
+        // Fill data in buffer and set divisor to 1 (per instance)
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, values, GL15.GL_STATIC_DRAW);
+        GL30.glVertexAttribIPointer(row, dimension, GL11.GL_INT, 0, 0);
+        GL33.glVertexAttribDivisor(row, 1);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+
+        // Unbind VAO
+        unbind();
+
+        // Add new buffer to buffers and row to attributes
+        MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
         attribs = Toolbox.addElement(attribs, row);
     }
 
+    /**
+     * Creates new empty IndexBuffer with a fixed size and adding it to the vao.
+     * The indices can be set with IndexBuffer.update().
+     *
+     * @param size Count of indices the buffer can store
+     * @return IndexBuffer that was created
+     */
+    public IndexBuffer addIndexBuffer(int size) {
+
+        // Bind VAO
+        bind();
+
+        // Generate index buffer and allocate data store
+        int vbo = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, (long) size * 4, GL15.GL_STATIC_DRAW);
+
+        // Unbind VAO and index buffer
+        unbind();
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+
+        // Add new buffer to memory dumper
+        MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
+
+        return new IndexBuffer(vbo, size);
+    }
+
     /**
      * Creates new IndexBuffer and adding it to the vao
      * 
@@ -133,6 +235,7 @@ public class VertexArrayObject {
 
         // Add new buffer to memory dumper to delete after exit
         MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
 
         // Create and return new index buffer
         return new IndexBuffer(vbo, indices.length);
@@ -181,6 +284,7 @@ public class VertexArrayObject {
 
         // Add new buffer to memory dumper and rows to attributes
         MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
         for (int i = firstRow; i < firstRow + rowCount; i++) {
             attribs = Toolbox.addElement(attribs, i);
         }
@@ -188,6 +292,90 @@ public class VertexArrayObject {
         return vbo;
     }
 
+    /**
+     * Adding an empty VertexBufferObject (VBO) to the VAO, that stores several
+     * attributes interleaved per vertex. The data can be updated with
+     * updateVertexBuffer().
+     *
+     * @param firstRow   Row of the first attribute
+     * @param dimensions Dimensions of the attributes in the order they are stored
+     * @return VBO id of the interleaved vertex buffer
+     */
+    public int addInterleavedVertexBuffer(int firstRow, int... dimensions) {
+
+        // Bind VAO
+        bind();
+
+        // Generate vertex buffer
+        int vbo = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+
+        // Size of one vertex in the vertex buffer
+        int strideBytes = 0;
+        for (int dimension : dimensions) {
+            strideBytes += dimension * 4;
+        }
+
+        // Add pointer for each attribute
+        int offsetBytes = 0;
+        for (int i = 0; i < dimensions.length; i++) {
+            GL20.glVertexAttribPointer(firstRow + i, dimensions[i], GL11.GL_FLOAT, false, strideBytes, offsetBytes);
+            offsetBytes += dimensions[i] * 4;
+        }
+
+        // Unbind vertex buffer and VAO
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        unbind();
+
+        // Add new buffer to memory dumper and rows to attributes
+        MemoryDumper.addVbo(vbo);
+        vbos = Toolbox.addElement(vbos, vbo);
+        for (int i = 0; i < dimensions.length; i++) {
+            attribs = Toolbox.addElement(attribs, firstRow + i);
+        }
+
+        return vbo;
+    }
+
+    /**
+     * Replacing the data of a vertex buffer of the VAO. The old data store gets
+     * orphaned, so the upload does not have to wait for the gpu.
+     *
+     * @param vbo  VBO id of the vertex buffer
+     * @param data Data to upload, from position to limit
+     */
+    public void updateVertexBuffer(int vbo, FloatBuffer data) {
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, data, GL15.GL_DYNAMIC_DRAW);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Allocating a data store of a fixed size for a vertex buffer of the VAO. Parts
+     * of the data can be set with updateVertexBuffer(vbo, offset, data).
+     *
+     * @param vbo       VBO id of the vertex buffer
+     * @param sizeBytes Size of the data store in bytes
+     */
+    public void allocateVertexBuffer(int vbo, long sizeBytes) {
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, sizeBytes, GL15.GL_STATIC_DRAW);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Replacing a part of the data of a vertex buffer of the VAO
+     *
+     * @param vbo         VBO id of the vertex buffer
+     * @param offsetBytes Offset in bytes to write the data at
+     * @param data        Data to upload
+     */
+    public void updateVertexBuffer(int vbo, long offsetBytes, float[] data) {
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, offsetBytes, data);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
+
     /**
      * Enable all rows of the VAO
      */
@@ -231,6 +419,23 @@ public class VertexArrayObject {
         GL30.glBindVertexArray(id);
     }
 
+    /**
+     * Deleting the VAO and all its vertex and index buffers from opengl. The VAO
+     * can not be used anymore afterwards.
+     */
+    public void delete() {
+        GL15.glDeleteBuffers(vbos);
+        GL30.glDeleteVertexArrays(id);
+
+        for (int vbo : vbos) {
+            MemoryDumper.removeVbo(vbo);
+        }
+        MemoryDumper.removeVao(id);
+
+        vbos = new int[0];
+        attribs = new int[0];
+    }
+
     /**
      * Unbind VAO from opengl (bind 0)
      */
@@ -8,7 +8,12 @@ in vec4 pos_frag_in;
 
 out vec4 out_Color[8];
 
-uniform vec3 camPos;
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
 
 uniform sampler2D diffuseMap;
 uniform sampler2D normalMap;
@@ -1,7 +1,5 @@
 #version 400 core
 
-const int MAX_JOINTS = 50;
-
 in vec3 position;
 in vec2 texCoord;
 in vec3 normal;
@@ -15,15 +13,27 @@ out vec3 bit_frag_in;
 out vec3 nrm_frag_in;
 out vec4 pos_frag_in;
 
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
+
 uniform mat4 transMat;
-uniform mat4 vpMat;
 
-uniform mat4 jointMat[MAX_JOINTS];
+uniform samplerBuffer jointData;
+uniform int jointOffset;
 uniform int jointCount;
 
 uniform float tiling;
 
-uniform vec4 clipPlane;
+//Get skinning matrix of a joint from the palette (4 column texels per joint)
+mat4 getJointMatrix(int joint){
+    int texel = jointOffset + clamp(joint, 0, jointCount -1) * 4;
+    return mat4(texelFetch(jointData, texel), texelFetch(jointData, texel +1),
+                texelFetch(jointData, texel +2), texelFetch(jointData, texel +3));
+}
 
 void main(void){
     tex_frag_in = texCoord * tiling;
@@ -34,7 +44,7 @@ void main(void){
 
     //Iterate through effected joints
     for(int i = 0; i < 4; i++){
-        mat4 jointTrans = jointMat[joints[i]];
+        mat4 jointTrans = getJointMatrix(joints[i]);
 
         //Interpolate position
         vec4 pos = jointTrans * vec4(position, 1.0);
@@ -3,18 +3,16 @@
 in vec2 tex_frag_in;
 in vec3 nrm_frag_in;
 in vec4 pos_frag_in;
+flat in vec3 pick_frag_in;
 
 out vec4 out_Color[8];
 
-uniform vec3 camPos;
-
 uniform sampler2D diffuseMap;
 
 uniform float shininess;
 uniform float shineDamper;
 
 uniform vec3 diffuseColor;
-uniform vec3 pickingColor;
 uniform vec3 glowColor;
 
 const float disp_offset = 0.01f;
@@ -40,7 +38,7 @@ void main(void){
 	out_Color[2] = vec4(nrm_frag_in, 1.0);
 	out_Color[3] = vec4(shininess, shineDamper, 0, 1);
 	out_Color[4] = vec4(1.0, 1.0, 1.0, 1.0);
-	out_Color[5] = vec4(pickingColor, 1.0);
+	out_Color[5] = vec4(pick_frag_in, 1.0);
 	out_Color[6] = vec4(glowColor, 1.0);
 	out_Color[7] = vec4(0, 0, 0, 1);
 }
\ No newline at end of file
@@ -5,10 +5,16 @@ in vec3 tan_frag_in;
 in vec3 bit_frag_in;
 in vec3 nrm_frag_in;
 in vec4 pos_frag_in;
+flat in vec3 pick_frag_in;
 
 out vec4 out_Color[8];
 
-uniform vec3 camPos;
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
 
 uniform sampler2D diffuseMap;
 uniform sampler2D normalMap;
@@ -22,7 +28,6 @@ uniform float shininess;
 uniform float shineDamper;
 
 uniform vec3 diffuseColor;
-uniform vec3 pickingColor;
 uniform vec3 glowColor;
 
 const float disp_offset = 0.01f;
@@ -78,7 +83,7 @@ void main(void){
 	out_Color[2] = getNormal(texCoords, tbnMat);
 	out_Color[3] = vec4(getSpecular(texCoords), 0, 1);
 	out_Color[4] = vec4(1.0, 1.0, getAo(texCoords), 1.0);
-	out_Color[5] = vec4(pickingColor, 1.0);
+	out_Color[5] = vec4(pick_frag_in, 1.0);
 	out_Color[6] = getGlowing(texCoords);
 	out_Color[7] = vec4(0, 0, 0, 1);
 }
\ No newline at end of file
@@ -3,23 +3,43 @@
 in vec3 position;
 in vec2 texCoord;
 in vec3 normal;
+in int instanceId;
 
 out vec2 tex_frag_in;
 out vec3 nrm_frag_in;
 out vec4 pos_frag_in;
+flat out vec3 pick_frag_in;
+
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
 
 uniform mat4 transMat;
-uniform mat4 vpMat;
+uniform vec3 pickingColor;
 
-uniform float tiling;
+//Per instance data of indirect draws (transformation and picking color)
+uniform bool indirect;
+uniform samplerBuffer instanceData;
 
-uniform vec4 clipPlane;
+uniform float tiling;
 
 void main(void){
+	mat4 modelMat = transMat;
+	pick_frag_in = pickingColor;
+	if(indirect){
+		int texel = instanceId * 5;
+		modelMat = mat4(texelFetch(instanceData, texel), texelFetch(instanceData, texel +1),
+						texelFetch(instanceData, texel +2), texelFetch(instanceData, texel +3));
+		pick_frag_in = texelFetch(instanceData, texel +4).rgb;
+	}
+
 	tex_frag_in = texCoord * tiling;
-	pos_frag_in = transMat * vec4(position, 1.0);
+	pos_frag_in = modelMat * vec4(position, 1.0);
 	
-	nrm_frag_in = normalize((transMat * vec4(normal, 0.0)).xyz);
+	nrm_frag_in = normalize((modelMat * vec4(normal, 0.0)).xyz);
 	 
 	gl_ClipDistance[0] = dot(pos_frag_in, clipPlane);
 	gl_Position = vpMat * pos_frag_in;
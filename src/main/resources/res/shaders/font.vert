@@ -7,8 +7,6 @@ out vec2 tex_frag_in;
 out vec3 pos_frag_in;
 out vec3 norm_frag_in;
 
-uniform vec2 offset;
-uniform float scale;
 uniform vec2 additionalScale;
 
 uniform mat4 mMatText;
@@ -26,7 +24,7 @@ void main(void){
 	tex_frag_in = texCoord;
 	norm_frag_in = normalize((transMat * vec4(0, 0, -1, 1)).xyz);
 	
-	vec2 charPos = (position * scale + offset) * additionalScale;
+	vec2 charPos = position * additionalScale;
 	
 	pos_frag_in = (transMat * vec4(charPos, 0.1, 1.0)).xyz;
 	
@@ -8,8 +8,12 @@ out vec3 nrm_frag_in;
 out vec4 pos_frag_in; //W = AO
 out float vis_frag_in;
 
-uniform mat4 vpMat;
-uniform vec3 camPos;
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
 
 uniform sampler2D densityMap;
 uniform vec2 area;
@@ -3,18 +3,17 @@
 in vec2 tex_frag_in;
 in vec3 pos_frag_in;
 in vec3 norm_frag_in;
+flat in vec3 color_frag_in;
+flat in vec3 pickColor_frag_in;
+flat in float textured_frag_in;
 
 out vec4 out_Color[8];
 
 uniform sampler2D colorTexture;
-uniform float textureSet;
-
-uniform vec3 color;
-uniform vec3 pickColor;
 
 void main(void){
-	if(textureSet == 1) out_Color[0] = texture(colorTexture, tex_frag_in) * vec4(color, 1.0);
-	else out_Color[0] = vec4(color, 1.0);
+	if(textured_frag_in == 1) out_Color[0] = texture(colorTexture, tex_frag_in) * vec4(color_frag_in, 1.0);
+	else out_Color[0] = vec4(color_frag_in, 1.0);
 	
     if(out_Color[0].a < 0.5f) discard;
 	
@@ -22,7 +21,7 @@ void main(void){
 	out_Color[2] = vec4(norm_frag_in, 1.0);
 	out_Color[3] = vec4(0, 0, 0, 1);
 	out_Color[4] = vec4(1.0);
-	out_Color[5] = vec4(pickColor, 1);
+	out_Color[5] = vec4(pickColor_frag_in, 1);
 	out_Color[6] = vec4(0, 0, 0, 1);
 	out_Color[7] = vec4(0, 0, 0, 1);
 }
\ No newline at end of file
@@ -1,20 +1,29 @@
 #version 400 core
 
-in vec2 position;
+in vec3 position;
+in vec2 texCoord;
+in vec3 color;
+in vec3 pickColor;
+in vec3 normal;
+in float textured;
 
 out vec2 tex_frag_in;
 out vec3 pos_frag_in;
 out vec3 norm_frag_in;
+flat out vec3 color_frag_in;
+flat out vec3 pickColor_frag_in;
+flat out float textured_frag_in;
 
-uniform mat4 transMat;
 uniform mat4 vpMat;
-uniform vec2 additionalScale;
 
 void main(void){
-	tex_frag_in = position * vec2(0.5, -0.5) +0.5;
-	norm_frag_in = normalize((transMat * vec4(0, 0, 1, 1)).xyz);
+	tex_frag_in = texCoord;
+	norm_frag_in = normal;
+	color_frag_in = color;
+	pickColor_frag_in = pickColor;
+	textured_frag_in = textured;
 	
-	pos_frag_in = (transMat * vec4(position * additionalScale, 0, 1)).xyz;
+	pos_frag_in = position;
 	
 	gl_Position = vpMat * vec4(pos_frag_in, 1.0);
 }
\ No newline at end of file
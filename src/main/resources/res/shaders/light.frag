@@ -1,6 +1,7 @@
 #version 400 core
 
 const int MAX_LIGHTS = 25; //Keep syncron with deferred renderer!
+const int MAX_CASCADES = 4; //Keep syncron with shadow light!
 
 out vec4 out_Color;
 
@@ -13,9 +14,11 @@ uniform sampler2D normalBuffer;
 uniform sampler2D variable0Buffer;
 uniform sampler2D variable1Buffer;
 
-//Shadow Light
+//Shadow Light (cascades side by side in the shadow map)
 uniform sampler2D shadowMap;
-uniform mat4 toShadowMapSpace;
+uniform mat4 toShadowMapSpace[MAX_CASCADES];
+uniform float cascadeSplits[MAX_CASCADES];
+uniform int cascadeCount;
 uniform float enableShadows;
 
 //Ambient Lights
@@ -29,23 +32,19 @@ uniform float dlIntensities[MAX_LIGHTS];
 uniform vec3 dlDirections[MAX_LIGHTS];
 uniform int dlCount;
 
-//Point Lights
-uniform vec3 plColors[MAX_LIGHTS];
-uniform float plIntensities[MAX_LIGHTS];
-uniform vec3 plPositions[MAX_LIGHTS];
-uniform vec2 plAttenuations[MAX_LIGHTS];
-uniform int plCount;
+//Clustered Point And Spot Lights (4 texels per light)
+uniform samplerBuffer lightData;
+uniform isamplerBuffer clusterData;
+uniform isamplerBuffer lightIndices;
+uniform vec3 clusterCount;
+uniform vec2 clusterDepth; //x = near plane, y = slices / log(far / near)
 
-//Spot Lights
-uniform vec3 slColors[MAX_LIGHTS];
-uniform float slIntensities[MAX_LIGHTS];
-uniform vec3 slPositions[MAX_LIGHTS];
-uniform vec2 slAttenuations[MAX_LIGHTS];
-uniform vec3 slDirections[MAX_LIGHTS];
-uniform vec2 slLightCones[MAX_LIGHTS];
-uniform int slCount;
-
-uniform vec3 camPos;
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
 
 //Diffuse factor of ambient lights
 vec3 getAmbientDiffuse(){
@@ -70,92 +69,79 @@ vec3 getDirectionalDiffuse(vec3 normal){
 	return dlDiffuse;
 }
 
-//Diffuse and Specular factor of point lights
-vec3[2] getPointDiffuseSpecular(
-	vec3 normal, vec3 position, vec3 toCam, float reflectivity, float shineDamper, float useFakeDiffuseLighting){
-	
-	vec3 plDiffuse = vec3(0.0f);
-	vec3 plSpecular = vec3(0.0f);
-	
-	for(int i = 0; i < plCount; i++){
-	
-		vec3 toLight = plPositions[i] -position;
-		float toLightDistance = length(toLight);
-		toLight /= toLightDistance;
-		
-		float attenuation = plIntensities[i] + plAttenuations[i].x * toLightDistance + 
-			plAttenuations[i].y * toLightDistance * toLightDistance;
-		
-		//Diffuse
-		float brightness;
-		if(useFakeDiffuseLighting == 1.0){
-			brightness = max(dot(toLight, vec3(0, 1, 0)), 0.0);
-			plDiffuse += (plColors[i] * brightness) / attenuation;
-		}else{
-			brightness = max(dot(toLight, normal), 0.0);
-			plDiffuse += (plColors[i] * brightness) / attenuation;
-		}
-		
-		//Specular
-		vec3 reflectVec = reflect(-toLight, normal);
-		brightness = max(dot(reflectVec, toCam), 0.0);
-		plSpecular += (plColors[i] * reflectivity * pow(brightness, shineDamper)) / attenuation;
-	}
+//Index of the cluster, the fragment is located in
+int getCluster(vec3 position){
+	float viewDepth = (vpMat * vec4(position, 1.0)).w;
 	
-	vec3 result[2];
-	result[0] = plDiffuse;
-	result[1] = plSpecular;
+	float slice = clamp(floor(log(viewDepth / clusterDepth.x) * clusterDepth.y), 0.0, clusterCount.z -1.0);
+	vec2 tile = clamp(floor(tex_frag_in * clusterCount.xy), vec2(0.0), clusterCount.xy -1.0);
 	
-	return result;
+	return int((slice * clusterCount.y + tile.y) * clusterCount.x + tile.x);
 }
 
-//Diffuse and Specular factor of spot lights
-vec3[2] getSpotDiffuseSpecular(
+//Diffuse and Specular factor of the point and spot lights in the fragments cluster
+vec3[2] getClusteredDiffuseSpecular(
 	vec3 normal, vec3 position, vec3 toCam, float reflectivity, float shineDamper, float useFakeDiffuseLighting){
 	
-	vec3 slDiffuse = vec3(0.0f);
-	vec3 slSpecular = vec3(0.0f);
+	vec3 diffuse = vec3(0.0f);
+	vec3 specular = vec3(0.0f);
 	
-	for(int i = 0; i < slCount; i++){
+	ivec2 cluster = texelFetch(clusterData, getCluster(position)).xy;
+	
+	for(int i = 0; i < cluster.y; i++){
+		int light = texelFetch(lightIndices, cluster.x +i).r * 4;
+		
+		vec4 positionIntensity 	= texelFetch(lightData, light);
+		vec4 colorType 			= texelFetch(lightData, light +1);
+		vec4 attenuationCone 	= texelFetch(lightData, light +2);
+		vec4 directionRadius 	= texelFetch(lightData, light +3);
 		
-		vec3 toLight = slPositions[i] -position;
+		vec3 toLight = positionIntensity.xyz -position;
 		float toLightDistance = length(toLight);
-		toLight /= toLightDistance;
 		
-		float attenuation = slIntensities[i] + slAttenuations[i].x * toLightDistance + 
-			slAttenuations[i].y * toLightDistance * toLightDistance;
+		if(toLightDistance > directionRadius.w){
+			continue;
+		}
+		toLight /= toLightDistance;
 		
-		vec3 lightDir = normalize(slDirections[i]);
-		float coneIntense = max(dot(lightDir, -toLight), 0.0f);
+		float attenuation = positionIntensity.w + attenuationCone.x * toLightDistance + 
+			attenuationCone.y * toLightDistance * toLightDistance;
 		
-		if(coneIntense < slLightCones[i].y){
-			continue;
-		}else if(coneIntense < slLightCones[i].x){
-			float diff = slLightCones[i].x -slLightCones[i].y;
-			coneIntense = (coneIntense -slLightCones[i].y) / diff;
-		}else{
-			coneIntense = 1.0f;
+		//Spot light cone
+		float coneIntense = 1.0f;
+		if(colorType.w == 1.0f){
+			vec3 lightDir = normalize(directionRadius.xyz);
+			coneIntense = max(dot(lightDir, -toLight), 0.0f);
+			
+			if(coneIntense < attenuationCone.w){
+				continue;
+			}else if(coneIntense < attenuationCone.z){
+				float diff = attenuationCone.z -attenuationCone.w;
+				coneIntense = (coneIntense -attenuationCone.w) / diff;
+			}else{
+				coneIntense = 1.0f;
+			}
 		}
 		
 		//Diffuse
 		float brightness;
 		if(useFakeDiffuseLighting == 1.0){
 			brightness = max(dot(toLight, vec3(0, 1, 0)), 0.0) * coneIntense;
-			slDiffuse += (slColors[i] * brightness) / attenuation;
+			diffuse += (colorType.rgb * brightness) / attenuation;
 		}else{
 			brightness = max(dot(toLight, normal), 0.0) * coneIntense;
-			slDiffuse += (slColors[i] * brightness) / attenuation;
+			diffuse += (colorType.rgb * brightness) / attenuation;
 		}
 		
 		//Specular
 		vec3 reflectVec = reflect(-toLight, normal);
 		brightness = max(dot(reflectVec, toCam), 0.0) * coneIntense;
-		slSpecular += (slColors[i] * reflectivity * pow(brightness, shineDamper)) / attenuation;
+		specular += (colorType.rgb * reflectivity * pow(brightness, shineDamper)) / attenuation;
 	}
 	
 	vec3 result[2];
-	result[0] = slDiffuse;
-	result[1] = slSpecular;
+	result[0] = diffuse;
+	result[1] = specular;
 	
 	return result;
 }
@@ -164,17 +150,36 @@ vec3[2] getSpotDiffuseSpecular(
 float getShadowFactor(vec3 position){
 	if(enableShadows == 0.0f) return 0.0f;
 
+	//Get cascade of the view depth
+	float viewDepth = (vpMat * vec4(position, 1.0)).w;
+	int cascade = 0;
+	while(cascade < cascadeCount && viewDepth > cascadeSplits[cascade]){
+		cascade++;
+	}
+	if(cascade == cascadeCount) return 0.0f;
+
 	//Get position on shadowmap
-	vec3 shadowMapPos = (0.5 + (0.5 * toShadowMapSpace * vec4(position, 1.0))).xyz;
+	vec3 shadowMapPos = (0.5 + (0.5 * toShadowMapSpace[cascade] * vec4(position, 1.0))).xyz;
 
-	//Calculate shadow map value
+	//Calculate shadow map value with 3x3 pcf, samples are clamped half a texel
+	//inside the cascade tile, so they never read the neighbouring cascade
 	float shadowFactor = 0;
 	if(shadowMapPos.x >= 0 && shadowMapPos.x <= 1 && shadowMapPos.y >= 0 && shadowMapPos.y <= 1){
-		float shadowMapColor = texture(shadowMap, shadowMapPos.xy).r;
-
-		//Check if texel is in shadow
-		if(shadowMapPos.z -0.0002f > shadowMapColor){
-			shadowFactor -= 0.1f;
+		vec2 texelSize = 1.0 / vec2(textureSize(shadowMap, 0));
+		vec2 tileMin = vec2(float(cascade) / cascadeCount, 0.0) + texelSize * 0.5;
+		vec2 tileMax = vec2(float(cascade + 1) / cascadeCount, 1.0) - texelSize * 0.5;
+		vec2 atlasPos = vec2((cascade + shadowMapPos.x) / cascadeCount, shadowMapPos.y);
+
+		for(int x = -1; x <= 1; x++){
+			for(int y = -1; y <= 1; y++){
+				vec2 samplePos = clamp(atlasPos + vec2(x, y) * texelSize, tileMin, tileMax);
+				float shadowMapColor = texture(shadowMap, samplePos).r;
+
+				//Check if texel is in shadow
+				if(shadowMapPos.z -0.0002f > shadowMapColor){
+					shadowFactor -= 0.1f / 9.0f;
+				}
+			}
 		}
 	}
 
@@ -203,14 +208,12 @@ void main(void){
 	
 	vec3 toCam = normalize(camPos -position);
 	
-	vec3[] pointDiffuseSpecular = getPointDiffuseSpecular(
-		normal, position, toCam, reflectivity, shineDamper, useFakeDiffuseLighting);
-	vec3[] spotDiffuseSpecular 	= getSpotDiffuseSpecular(
+	vec3[] clusteredDiffuseSpecular = getClusteredDiffuseSpecular(
 		normal, position, toCam, reflectivity, shineDamper, useFakeDiffuseLighting);
 	
 	vec3 diffuseFactor 	= (getAmbientDiffuse() +getDirectionalDiffuse(normal) +
-		pointDiffuseSpecular[0] +spotDiffuseSpecular[0]) * ao;
-	vec3 specularFactor = (pointDiffuseSpecular[1] +spotDiffuseSpecular[1]) * ao;
+		clusteredDiffuseSpecular[0]) * ao;
+	vec3 specularFactor = clusteredDiffuseSpecular[1] * ao;
 
 	float shadowFactor = getShadowFactor(position);
 
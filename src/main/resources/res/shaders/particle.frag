@@ -2,13 +2,15 @@
 
 in vec2 tex_frag_in;
 in vec3 pos_frag_in;
+in vec4 color_frag_in;
+in float age_frag_in;
 
 out vec4 out_Color[8];
 
 uniform sampler2D colorTexture;
 
 void main(void){
-	out_Color[0] = texture(colorTexture, tex_frag_in);
+	out_Color[0] = texture(colorTexture, tex_frag_in) * color_frag_in;
 	if(out_Color[0].a < 0.5f) discard;
 
 	out_Color[1] = vec4(pos_frag_in, 1.0);
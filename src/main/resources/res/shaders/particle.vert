@@ -1,9 +1,17 @@
 #version 400 core
 
 in vec3 position;
+in vec2 size;
+in vec4 color;
+in float age;
 
-out vec2 tex_frag_in;
+out vec2 size_geo_in;
+out vec4 color_geo_in;
+out float age_geo_in;
 
 void main(void){
+	size_geo_in = size;
+	color_geo_in = color;
+	age_geo_in = age;
 	gl_Position = vec4(position, 1.0f);
-}
\ No newline at end of file
+}
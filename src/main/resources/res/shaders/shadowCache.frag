@@ -0,0 +1,16 @@
+#version 400 core
+
+in vec2 tex_frag_in;
+
+out vec4 out_Color;
+
+//Cached static shadows of the cascade
+uniform sampler2D staticShadowMap;
+uniform vec3 uvTransform; //x = scale, yz = offset into the static shadow map
+uniform vec2 depthTransform; //x = scale, y = offset from static to cascade depth
+
+void main(void){
+	float depth = texture(staticShadowMap, tex_frag_in * uvTransform.x + uvTransform.yz).r;
+	gl_FragDepth = clamp(depth * depthTransform.x + depthTransform.y, 0.0, 1.0);
+	out_Color = vec4(1.0);
+}
@@ -4,11 +4,16 @@ in vec3 position;
 
 out vec3 tex_frag_in;
 
-uniform mat4 vpMat;
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
+
 uniform mat4 transMat;
 
 uniform float size;
-uniform vec3 camPos;
 
 void main(void){
     tex_frag_in = position;
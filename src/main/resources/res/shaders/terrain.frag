@@ -8,7 +8,12 @@ out vec4 out_Color[8];
 uniform sampler2D blendMap;
 uniform sampler2D lightMap;
 
-uniform vec3 camPos;
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
 
 uniform float tiling;
 uniform float tilingR;
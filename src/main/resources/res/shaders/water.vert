@@ -7,11 +7,16 @@ out vec4 csp_frag_in;
 out vec3 tcam_frag_in;
 out vec3 pos_frag_in;
 
+layout(std140) uniform PassData {
+    mat4 vpMat;
+    vec3 camPos;
+    float time;
+    vec4 clipPlane;
+};
+
 uniform mat4 mMat;
-uniform mat4 vpMat;
 
 uniform float tiling;
-uniform vec3 camPos;
 
 void main(void){
 	
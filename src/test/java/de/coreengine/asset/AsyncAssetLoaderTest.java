@@ -0,0 +1,233 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.animation.Joint;
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.asset.dataStructures.ModelData;
+import de.coreengine.rendering.model.AnimatedModel;
+import de.coreengine.rendering.model.Material;
+import de.coreengine.rendering.model.Mesh;
+import de.coreengine.rendering.model.MeshArena;
+import de.coreengine.rendering.renderable.AnimatedEntity;
+import de.coreengine.system.gameObjects.Animated;
+import de.coreengine.util.gl.StubGL;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.lwjgl.opengl.GL11;
+
+import javax.vecmath.Matrix4f;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the asynchronous loading of assets, the upload budget, preparing model
+ * instances on a loader thread and entities waiting for their model against a
+ * stubbed opengl layer
+ *
+ * @author Darius Dinger
+ */
+public class AsyncAssetLoaderTest {
+
+    private static StubGL gl;
+
+    @BeforeClass
+    public static void setUp() {
+        gl = StubGL.create();
+        Material.init();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (gl != null)
+            gl.free();
+    }
+
+    /**
+     * Updating the loader until the asset is done
+     */
+    private static void updateUntilDone(AssetHandle handle) throws InterruptedException {
+        for (int i = 0; i < 2000 && !handle.isDone(); i++) {
+            AsyncAssetLoader.update();
+            Thread.sleep(1);
+        }
+        assertTrue("Asset not done", handle.isDone());
+    }
+
+    /**
+     * Creating a model of a single quad
+     */
+    private static ModelData createQuad() {
+        MeshData mesh = new MeshData();
+        mesh.vertices = new float[] { 0, 0, 0, 2, 0, 0, 2, 0, 2, 0, 0, 2 };
+        mesh.texCoords = new float[] { 0, 0, 1, 0, 1, 1, 0, 1 };
+        mesh.normals = new float[] { 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0 };
+        mesh.tangents = new float[] { 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0 };
+        mesh.indices = new int[] { 0, 2, 1, 0, 3, 2 };
+        mesh.shape = "sphere/1";
+
+        ModelData model = new ModelData();
+        model.meshes = new MeshData[] { mesh };
+        return model;
+    }
+
+    @Test
+    public void failedTextureRemovesPlaceholder() throws Exception {
+        String file = "asyncAssetLoaderTest/missing.png";
+
+        AssetHandle handle = AsyncAssetLoader.loadTexture(file, false, GL11.GL_LINEAR, false);
+        assertEquals(AssetDatabase.getTexture(Material.TEXTURE_WHITE), AssetDatabase.getTexture(file));
+        updateUntilDone(handle);
+
+        assertFalse(handle.isReady());
+        assertEquals(0, AssetDatabase.getTexture(file));
+        assertEquals(0, AsyncAssetLoader.getPendingCount());
+
+        // The load can be retried
+        AssetHandle retry = AsyncAssetLoader.loadTexture(file, false, GL11.GL_LINEAR, false);
+        assertFalse(retry.isDone());
+        updateUntilDone(retry);
+    }
+
+    @Test
+    public void preparedInstanceMatchesInstance() {
+        ModelData prepared = createQuad(), direct = createQuad();
+        prepared.prepareInstance(MeshArena.isEnabled());
+
+        Mesh preparedMesh = prepared.getInstance("", true).getMeshes()[0];
+        Mesh directMesh = direct.getInstance("", true).getMeshes()[0];
+
+        assertEquals(directMesh.getBoundingX(), preparedMesh.getBoundingX(), 0.0f);
+        assertEquals(directMesh.getBoundingY(), preparedMesh.getBoundingY(), 0.0f);
+        assertEquals(directMesh.getBoundingZ(), preparedMesh.getBoundingZ(), 0.0f);
+        assertEquals(directMesh.getBoundingRadius(), preparedMesh.getBoundingRadius(), 0.0f);
+        assertNotNull(preparedMesh.getBVH());
+        assertSame(directMesh.getShape().getClass(), preparedMesh.getShape().getClass());
+        assertEquals(directMesh.getArenaRange() == null, preparedMesh.getArenaRange() == null);
+
+        // The prepared data is used only once
+        Mesh second = prepared.getInstance("", true).getMeshes()[0];
+        assertNotSame(preparedMesh.getBVH(), second.getBVH());
+        assertNotSame(preparedMesh.getShape(), second.getShape());
+
+        preparedMesh.delete();
+        directMesh.delete();
+        second.delete();
+    }
+
+    @Test
+    public void repeatedRequestsShareHandle() throws Exception {
+        String file = "asyncAssetLoaderTest/shared.png";
+
+        AssetHandle first = AsyncAssetLoader.loadTexture(file, false, GL11.GL_LINEAR, false);
+        AssetHandle second = AsyncAssetLoader.loadTexture(file, false, GL11.GL_LINEAR, false);
+        assertSame(first, second);
+        assertEquals(1, AsyncAssetLoader.getPendingCount());
+
+        // Callbacks of both requests run once
+        AtomicInteger callbacks = new AtomicInteger();
+        first.whenDone(callbacks::incrementAndGet);
+        second.whenDone(callbacks::incrementAndGet);
+        updateUntilDone(first);
+        assertEquals(2, callbacks.get());
+    }
+
+    /**
+     * Queuing stub uploads, that count their runs and take a time
+     */
+    private static void queueUploads(int count, AtomicInteger uploads, long nanos) {
+        for (int i = 0; i < count; i++) {
+            AsyncAssetLoader.queue(() -> {
+                long start = System.nanoTime();
+                while (System.nanoTime() - start < nanos) {
+                    // Busy wait, as sleeping can take much longer
+                }
+                uploads.incrementAndGet();
+            });
+        }
+    }
+
+    @Test
+    public void updateUploadsAtLeastOneAsset() {
+        AsyncAssetLoader.update(Long.MAX_VALUE);
+        AtomicInteger uploads = new AtomicInteger();
+        queueUploads(3, uploads, 0);
+
+        AsyncAssetLoader.update(0);
+        assertEquals(1, uploads.get());
+        AsyncAssetLoader.update(0);
+        assertEquals(2, uploads.get());
+        AsyncAssetLoader.update(Long.MAX_VALUE);
+        assertEquals(3, uploads.get());
+    }
+
+    @Test
+    public void updateStopsWhenBudgetIsUsed() {
+        AsyncAssetLoader.update(Long.MAX_VALUE);
+        AtomicInteger uploads = new AtomicInteger();
+
+        // Each upload takes 2 ms, so a 5 ms budget is used after at most 3 uploads
+        queueUploads(10, uploads, 2000000);
+        AsyncAssetLoader.update(5000000);
+        int first = uploads.get();
+        assertTrue("Uploads " + first, first >= 1 && first <= 3);
+
+        AsyncAssetLoader.update(5000000);
+        assertTrue(uploads.get() > first);
+        AsyncAssetLoader.update(Long.MAX_VALUE);
+        assertEquals(10, uploads.get());
+    }
+
+    @Test
+    public void animatedEntityWaitsForModel() {
+        String file = "asyncAssetLoaderTest/animated.cea";
+        AnimatedEntity entity = new AnimatedEntity();
+        entity.setModel(file);
+        assertNull(entity.getSkeleton());
+        assertEquals(0, entity.getSkinningPalette().length);
+
+        Animated animated = new Animated();
+        animated.setAnimatedEntity(entity);
+        assertFalse(animated.setAnimation("walk"));
+        assertTrue(animated.getAnimations().isEmpty());
+        animated.play();
+        animated.onUpdate();
+
+        // Skeleton is created, once the model is uploaded
+        Matrix4f identity = new Matrix4f();
+        identity.setIdentity();
+        AssetDatabase.addAnimatedModel(file,
+                new AnimatedModel(new Mesh[0], new Joint(0, "root", identity, identity), new HashMap<>()));
+        assertNotNull(entity.getSkeleton());
+        assertEquals(16, entity.getSkinningPalette().length);
+        animated.onUpdate();
+    }
+}
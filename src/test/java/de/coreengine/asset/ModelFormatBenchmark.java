@@ -0,0 +1,169 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.asset.dataStructures.MaterialData;
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.asset.dataStructures.ModelData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark of loading cem model data in the first format version (v1) and
+ * the memory mappable format (v2), that runs without an opengl context. Every
+ * load reads all attributes of the model, so the mapped sections of v2 are not
+ * measured as untouched.<br>
+ * Usage: ModelFormatBenchmark [meshCount] [verticesPerMesh] [iterations]
+ *
+ * @author Darius Dinger
+ */
+public class ModelFormatBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int meshCount = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int vertexCount = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        ModelData model = createModel(meshCount, vertexCount);
+        File v1 = File.createTempFile("modelFormatBenchmark", ".v1.cem");
+        File v2 = File.createTempFile("modelFormatBenchmark", ".v2.cem");
+        v1.deleteOnExit();
+        v2.deleteOnExit();
+        CemLoader.saveModelData(v1.getPath(), model, true);
+        CemLoader.saveModelData(v2.getPath(), model, false);
+
+        long expected = checksum(model);
+        for (File file : new File[] { v1, v2 }) {
+            long best = Long.MAX_VALUE, sum = 0;
+            ModelData loaded = null;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                loaded = CemLoader.loadModelData(file.getPath(), false);
+                sum = checksum(loaded);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+
+            // Loaded cpu side data must match
+            boolean matches = loaded != null && loaded.meshes.length == meshCount;
+            for (int m = 0; matches && m < meshCount; m++) {
+                matches = Arrays.equals(model.meshes[m].vertices, loaded.meshes[m].vertices)
+                        && Arrays.equals(model.meshes[m].indices, loaded.meshes[m].indices)
+                        && Arrays.deepEquals(model.meshes[m].lods, loaded.meshes[m].lods);
+            }
+
+            System.out.printf("%s: %.1f MB, best of %d loads and reads %.2f ms, data matches=%b%n",
+                    file == v1 ? "v1" : "v2", file.length() / 1e6, iterations, best / 1e6,
+                    matches && sum == expected);
+        }
+    }
+
+    /**
+     * Reading every attribute, index and lod of the model data, either from its
+     * arrays or from the sections of a mapped file
+     *
+     * @param model Model data to read
+     * @return Sum of all values as int bits
+     */
+    private static long checksum(ModelData model) {
+        long sum = 0;
+        for (MeshData mesh : model.meshes) {
+            sum += checksum(mesh.vertices, null) + checksum(mesh.texCoords, mesh.texCoordsBuffer)
+                    + checksum(mesh.normals, mesh.normalsBuffer) + checksum(mesh.tangents, mesh.tangentsBuffer)
+                    + checksum(mesh.indices);
+            for (int[] lod : mesh.lods)
+                sum += checksum(lod);
+        }
+        return sum;
+    }
+
+    private static long checksum(float[] array, ByteBuffer buffer) {
+        long sum = 0;
+        if (array != null) {
+            for (float value : array)
+                sum += Float.floatToRawIntBits(value);
+        } else if (buffer != null) {
+            IntBuffer values = buffer.duplicate().order(buffer.order()).asIntBuffer();
+            for (int i = 0; i < values.limit(); i++)
+                sum += values.get(i);
+        }
+        return sum;
+    }
+
+    private static long checksum(int[] array) {
+        long sum = 0;
+        for (int value : array)
+            sum += value;
+        return sum;
+    }
+
+    /**
+     * Creating model data with random attributes, indices and two lods
+     *
+     * @param meshCount   Count of meshes
+     * @param vertexCount Vertices per mesh
+     * @return Created model data
+     */
+    private static ModelData createModel(int meshCount, int vertexCount) {
+        Random random = new Random(1);
+        ModelData model = new ModelData();
+        model.meshes = new MeshData[meshCount];
+        for (int m = 0; m < meshCount; m++) {
+            MeshData mesh = new MeshData();
+            mesh.vertices = randomFloats(random, vertexCount * 3);
+            mesh.texCoords = randomFloats(random, vertexCount * 2);
+            mesh.normals = randomFloats(random, vertexCount * 3);
+            mesh.tangents = randomFloats(random, vertexCount * 3);
+            mesh.indices = randomIndices(random, vertexCount * 6, vertexCount);
+            mesh.lods = new int[][] { randomIndices(random, vertexCount * 3, vertexCount),
+                    randomIndices(random, vertexCount * 3 / 2, vertexCount) };
+            mesh.material = new MaterialData();
+            mesh.shape = "triangleMesh";
+            model.meshes[m] = mesh;
+        }
+        return model;
+    }
+
+    private static float[] randomFloats(Random random, int count) {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++)
+            values[i] = random.nextFloat();
+        return values;
+    }
+
+    private static int[] randomIndices(Random random, int count, int vertexCount) {
+        int[] indices = new int[count / 3 * 3];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = random.nextInt(vertexCount);
+        return indices;
+    }
+}
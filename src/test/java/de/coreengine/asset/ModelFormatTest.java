@@ -0,0 +1,281 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.animation.Animation;
+import de.coreengine.animation.Joint;
+import de.coreengine.animation.KeyFrame;
+import de.coreengine.animation.KeyFrameList;
+import de.coreengine.asset.dataStructures.AnimatedModelData;
+import de.coreengine.asset.dataStructures.MaterialData;
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.asset.dataStructures.ModelData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that cem and cea files in the first format version (v1) and the memory
+ * mappable format (v2) load the saved data
+ *
+ * @author Darius Dinger
+ */
+public class ModelFormatTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void cemRoundTripLegacyFormat() throws IOException {
+        ModelData model = createModel(false);
+        ModelData loaded = saveAndLoad(model, true);
+
+        assertModel(model, loaded);
+        assertNotNull(loaded.meshes[0].texCoords);
+    }
+
+    @Test
+    public void cemRoundTripMappedFormat() throws IOException {
+        ModelData model = createModel(false);
+        ModelData loaded = saveAndLoad(model, false);
+
+        assertModel(model, loaded);
+
+        // Attributes only needed by opengl stay slices of the mapped file
+        assertNull(loaded.meshes[0].texCoords);
+        assertNotNull(loaded.meshes[0].texCoordsBuffer);
+        assertEquals(ByteOrder.nativeOrder(), loaded.meshes[0].texCoordsBuffer.order());
+    }
+
+    @Test
+    public void lodsNullAndEmptyStayDistinct() throws IOException {
+        for (boolean legacyFormat : new boolean[] { true, false }) {
+            ModelData model = createModel(false);
+            model.meshes[0].lods = null;
+            model.meshes[1].lods = new int[0][];
+            ModelData loaded = saveAndLoad(model, legacyFormat);
+
+            assertNull(loaded.meshes[0].lods);
+            assertNotNull(loaded.meshes[1].lods);
+            assertEquals(0, loaded.meshes[1].lods.length);
+        }
+    }
+
+    @Test
+    public void ceaRoundTrip() throws IOException {
+        for (boolean legacyFormat : new boolean[] { true, false }) {
+            AnimatedModelData model = new AnimatedModelData();
+            model.meshes = createModel(true).meshes;
+            model.skeleton = new Joint(0, "root", identity(), identity());
+            model.skeleton.addChild(new Joint(1, "child", identity(), identity()));
+            model.animations = new HashMap<>();
+            model.animations.put("walk", createAnimation("walk", 2.0f));
+
+            String file = folder.newFile().getPath();
+            CeaLoader.saveAnimatedModelData(file, model, legacyFormat);
+            AnimatedModelData loaded = CeaLoader.loadAnimatedModelData(file, false);
+
+            assertModel(model, loaded);
+            assertEquals(2, loaded.skeleton.getSkeletonSize());
+            assertEquals(1, loaded.skeleton.getByName("child").getIndex());
+            assertEquals(1, loaded.animations.size());
+            assertEquals(2.0f, loaded.animations.get("walk").getLength(), 0.0f);
+        }
+    }
+
+    @Test
+    public void nonNativeByteOrderFileIsCopied() throws IOException {
+        ModelData model = createModel(false);
+        String file = folder.newFile().getPath();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.getChannel().write(swapOrder(model.toBuffer()));
+        }
+        ModelData loaded = CemLoader.loadModelData(file, false);
+
+        assertModel(model, loaded);
+
+        // Slices in the wrong byte order cannot be passed to opengl
+        assertNotNull(loaded.meshes[0].texCoords);
+        assertNull(loaded.meshes[0].texCoordsBuffer);
+    }
+
+    /**
+     * Saving model data into a file and loading it again
+     */
+    private ModelData saveAndLoad(ModelData model, boolean legacyFormat) throws IOException {
+        String file = folder.newFile().getPath();
+        CemLoader.saveModelData(file, model, legacyFormat);
+        return CemLoader.loadModelData(file, false);
+    }
+
+    /**
+     * Creating model data with two meshes, that have all attributes, a material
+     * and lods
+     */
+    private static ModelData createModel(boolean animated) {
+        ModelData model = new ModelData();
+        model.meshes = new MeshData[2];
+        for (int m = 0; m < model.meshes.length; m++) {
+            MeshData mesh = new MeshData();
+            mesh.vertices = sequence(12, m, 3);
+            mesh.texCoords = sequence(8, m, 2);
+            mesh.normals = sequence(12, m, 5);
+            mesh.tangents = sequence(12, m, 7);
+            mesh.indices = new int[] { 0, 1, 2, 0, 2, 3 };
+            if (animated) {
+                mesh.jointIds = new int[] { 0, 1, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 1, 1, 0, 0 };
+                mesh.weights = sequence(16, m, 11);
+            }
+            mesh.lods = new int[][] { { 0, 1, 2 } };
+            mesh.material = new MaterialData();
+            mesh.material.diffuseMap = "diffuse" + m + ".png";
+            mesh.shape = "triangleMesh";
+            model.meshes[m] = mesh;
+        }
+        return model;
+    }
+
+    private static float[] sequence(int count, int mesh, int step) {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++)
+            values[i] = mesh * 100.0f + i * step * 0.25f;
+        return values;
+    }
+
+    private static Matrix4f identity() {
+        Matrix4f matrix = new Matrix4f();
+        matrix.setIdentity();
+        return matrix;
+    }
+
+    /**
+     * Creating an animation of one joint with a single keyframe
+     */
+    private static Animation createAnimation(String name, float length) {
+        KeyFrameList<Vector3f> positions = new KeyFrameList<>(), scales = new KeyFrameList<>();
+        KeyFrameList<Quat4f> rotations = new KeyFrameList<>();
+        positions.addKeyFrame(new KeyFrame<>(length, new Vector3f(1, 2, 3)));
+        rotations.addKeyFrame(new KeyFrame<>(length, new Quat4f(0, 0, 0, 1)));
+        scales.addKeyFrame(new KeyFrame<>(length, new Vector3f(1, 1, 1)));
+
+        List<KeyFrameList<Vector3f>> positionKeys = new ArrayList<>(Collections.singletonList(positions));
+        List<KeyFrameList<Quat4f>> rotationKeys = new ArrayList<>(Collections.singletonList(rotations));
+        List<KeyFrameList<Vector3f>> scaleKeys = new ArrayList<>(Collections.singletonList(scales));
+        return new Animation(name, positionKeys, rotationKeys, scaleKeys);
+    }
+
+    /**
+     * Converting data in the memory mappable format into the other byte order.
+     * Header, offset table and all int and float sections are swapped, the
+     * material, collision shape and extra section are bytes.
+     */
+    private static ByteBuffer swapOrder(ByteBuffer data) {
+        ByteBuffer swapped = ByteBuffer.allocate(data.remaining()).order(data.order());
+        swapped.put(data.duplicate()).flip();
+
+        for (int i = 4; i < 20; i += 4)
+            swapWord(data, swapped, i);
+
+        int table = 20;
+        for (int m = 0; m < data.getInt(8); m++) {
+            int sections = 9 + Math.max(0, data.getInt(table));
+            swapWord(data, swapped, table);
+            for (int s = 0; s < sections; s++) {
+                int offset = data.getInt(table + 4 + s * 8), size = data.getInt(table + 8 + s * 8);
+                swapWord(data, swapped, table + 4 + s * 8);
+                swapWord(data, swapped, table + 8 + s * 8);
+                if (s == 7 || s == 8)
+                    continue;
+                for (int i = offset; i < offset + size; i += 4)
+                    swapWord(data, swapped, i);
+            }
+            table += 4 + sections * 8;
+        }
+        return swapped;
+    }
+
+    private static void swapWord(ByteBuffer data, ByteBuffer swapped, int index) {
+        swapped.putInt(index, Integer.reverseBytes(data.getInt(index)));
+    }
+
+    private static void assertModel(ModelData expected, ModelData actual) {
+        assertNotNull(actual);
+        assertEquals(expected.meshes.length, actual.meshes.length);
+        for (int m = 0; m < expected.meshes.length; m++) {
+            MeshData e = expected.meshes[m], a = actual.meshes[m];
+            assertArrayEquals(e.vertices, a.vertices, 0.0f);
+            assertArrayEquals(e.indices, a.indices);
+            assertArrayEquals(e.texCoords, floats(a.texCoords, a.texCoordsBuffer), 0.0f);
+            assertArrayEquals(e.normals, floats(a.normals, a.normalsBuffer), 0.0f);
+            assertArrayEquals(e.tangents, floats(a.tangents, a.tangentsBuffer), 0.0f);
+            assertArrayEquals(e.jointIds, ints(a.jointIds, a.jointIdsBuffer));
+            assertArrayEquals(e.weights, floats(a.weights, a.weightsBuffer), 0.0f);
+            assertArrayEquals(e.lods, a.lods);
+            assertEquals(e.material.diffuseMap, a.material.diffuseMap);
+            assertEquals(e.shape, a.shape);
+        }
+    }
+
+    /**
+     * @return Attribute array or the attribute section of a mapped file copied
+     */
+    private static float[] floats(float[] array, ByteBuffer buffer) {
+        if (array != null || buffer == null)
+            return array;
+
+        float[] result = new float[buffer.remaining() / 4];
+        buffer.duplicate().order(buffer.order()).asFloatBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * @return Attribute array or the attribute section of a mapped file copied
+     */
+    private static int[] ints(int[] array, ByteBuffer buffer) {
+        if (array != null || buffer == null)
+            return array;
+
+        int[] result = new int[buffer.remaining() / 4];
+        buffer.duplicate().order(buffer.order()).asIntBuffer().get(result);
+        return result;
+    }
+}
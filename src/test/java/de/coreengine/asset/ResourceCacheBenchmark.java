@@ -0,0 +1,96 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.rendering.renderable.terrain.TerrainMeshLoader;
+import de.coreengine.util.Configuration;
+import de.coreengine.util.gl.StubGL;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Benchmark of loading the text resources by parsing their text against loading
+ * their cached blobs, that runs against a stubbed opengl layer.<br>
+ * Usage: ResourceCacheBenchmark [iterations] [fntFile]
+ *
+ * @author Darius Dinger
+ */
+public class ResourceCacheBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        String fntFile = args.length > 1 ? args[1] : "examples/rotatingCube/src/resources/Margarine.fnt";
+
+        StubGL gl = StubGL.create();
+        File directory = Files.createTempDirectory("resourceCacheBenchmark").toFile();
+        ResourceCache.setDirectory(directory);
+
+        run("config.ini", iterations, Configuration::reloadConfig);
+        run("DefaultTerrainMesh", iterations, TerrainMeshLoader::loadTerrainMesh);
+        run(new File(fntFile).getName(), iterations, () -> {
+            AssetDatabase.removeFont(fntFile);
+            FntLoader.loadFont(fntFile, false);
+        });
+
+        File[] blobs = directory.listFiles();
+        if (blobs != null) {
+            for (File blob : blobs)
+                blob.delete();
+        }
+        directory.delete();
+        gl.free();
+    }
+
+    /**
+     * Timing a resource load with and without the cache
+     *
+     * @param name       Name of the resource to print
+     * @param iterations Count of timed loads
+     * @param load       Load of the resource
+     */
+    private static void run(String name, int iterations, Runnable load) {
+        double[] ms = new double[2];
+        for (int mode = 0; mode < 2; mode++) {
+            ResourceCache.setEnabled(mode == 1);
+
+            // Warm up jit, the first cached load writes the blob
+            for (int i = 0; i < iterations / 4 + 1; i++)
+                load.run();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                load.run();
+            ms[mode] = (System.nanoTime() - start) / 1e6 / iterations;
+        }
+        ResourceCache.setEnabled(true);
+
+        System.out.printf("%s: text %.3f ms, cached %.3f ms per load (%.1fx)%n", name, ms[0], ms[1], ms[0] / ms[1]);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.asset;
+
+import de.coreengine.rendering.model.Character;
+import de.coreengine.rendering.model.Font;
+import de.coreengine.util.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the conversion, reuse and invalidation of binary resource blobs and that
+ * text and blob loading give the same resources
+ *
+ * @author Darius Dinger
+ */
+public class ResourceCacheTest {
+
+    private static final String FNT = "common lineHeight=50 base=40 scaleW=256 scaleH=128 pages=1\n"
+            + "char id=65 x=10 y=20 width=30 height=40 xoffset=1 yoffset=2 xadvance=33 page=0\n"
+            + "char id=66    x=50    y=20    width=25    height=40    xoffset=-1    yoffset=3    xadvance=28\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    // Count of text conversions
+    private int conversions = 0;
+
+    @Before
+    public void setUp() {
+        ResourceCache.setDirectory(folder.getRoot());
+        ResourceCache.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        ResourceCache.setDirectory(new File("coreEngineCache"));
+        ResourceCache.setEnabled(true);
+    }
+
+    /**
+     * Loading a text resource, whose payload is its lines joined as one string
+     */
+    private String load(String text, int format) throws IOException {
+        return ResourceCache.load("test", format, text.getBytes(StandardCharsets.UTF_8), lines -> {
+            conversions++;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ResourceCache.putString(new DataOutputStream(bytes), String.join("|", lines));
+            return bytes.toByteArray();
+        }, ResourceCache::getString);
+    }
+
+    @Test
+    public void firstRunConvertsAndCaches() throws IOException {
+        assertEquals("a|b", load("a\nb", 1));
+        assertEquals(1, conversions);
+        assertTrue(new File(folder.getRoot(), "test.bin").isFile());
+    }
+
+    @Test
+    public void cacheHitSkipsConversion() throws IOException {
+        load("a\nb", 1);
+        assertEquals("a|b", load("a\nb", 1));
+        assertEquals(1, conversions);
+    }
+
+    @Test
+    public void changedSourceConvertsAgain() throws IOException {
+        load("a\nb", 1);
+        assertEquals("a|c", load("a\nc", 1));
+        assertEquals(2, conversions);
+    }
+
+    @Test
+    public void formatBumpConvertsAgain() throws IOException {
+        load("a\nb", 1);
+        assertEquals("a|b", load("a\nb", 2));
+        assertEquals(2, conversions);
+        assertEquals("a|b", load("a\nb", 2));
+        assertEquals(2, conversions);
+    }
+
+    @Test
+    public void disabledCacheConvertsEveryLoad() throws IOException {
+        ResourceCache.setEnabled(false);
+        load("a\nb", 1);
+        assertEquals("a|b", load("a\nb", 1));
+        assertEquals(2, conversions);
+        assertFalse(new File(folder.getRoot(), "test.bin").exists());
+    }
+
+    @Test
+    public void brokenPayloadFallsBackToText() throws IOException {
+        load("a\nb", 1);
+
+        // Damage the string length behind the 20 byte header, header and payload
+        // size stay valid
+        File blob = new File(folder.getRoot(), "test.bin");
+        byte[] bytes = Files.readAllBytes(blob.toPath());
+        bytes[20] = 0x7f;
+        Files.write(blob.toPath(), bytes);
+
+        assertEquals("a|b", load("a\nb", 1));
+        assertEquals(2, conversions);
+
+        // Rewritten blob is valid again
+        assertEquals("a|b", load("a\nb", 1));
+        assertEquals(2, conversions);
+    }
+
+    @Test
+    public void fontFromTextAndBlobMatch() throws IOException {
+        File file = folder.newFile("test.fnt");
+        Files.write(file.toPath(), FNT.getBytes(StandardCharsets.UTF_8));
+
+        ResourceCache.setEnabled(false);
+        Font text = loadFont(file.getPath());
+        ResourceCache.setEnabled(true);
+        Font converted = loadFont(file.getPath());
+        Font cached = loadFont(file.getPath());
+
+        for (Font font : new Font[] { converted, cached }) {
+            assertEquals(text.getTextureAtlas(), font.getTextureAtlas());
+            for (int id = 65; id <= 66; id++)
+                assertCharacterEquals(text.getCharacter(id), font.getCharacter(id));
+        }
+        assertEquals(30.0f / 256.0f, cached.getCharacter(65).getTexWidth(), 0.0f);
+    }
+
+    @Test
+    public void configFromTextAndBlobMatch() {
+        String[] keys = { "MSAA_LEVEL", "CLEAR_DEFAULT_GREEN", "PICKING_MODE", "OCCLUSION_BUFFER_WIDTH" };
+
+        ResourceCache.setEnabled(false);
+        Configuration.reloadConfig();
+        String[] text = new String[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            text[i] = Configuration.getValues(keys[i]);
+
+        ResourceCache.setEnabled(true);
+        for (int run = 0; run < 2; run++) {
+            Configuration.reloadConfig();
+            for (int i = 0; i < keys.length; i++)
+                assertEquals(keys[i], text[i], Configuration.getValues(keys[i]));
+        }
+        assertTrue(new File(folder.getRoot(), "res_config.ini.bin").isFile());
+    }
+
+    /**
+     * Loading a font file again
+     */
+    private static Font loadFont(String file) {
+        AssetDatabase.removeFont(file);
+        FntLoader.loadFont(file, false);
+        Font font = AssetDatabase.getFont(file);
+        assertNotNull(font);
+        return font;
+    }
+
+    private static void assertCharacterEquals(Character expected, Character actual) {
+        assertEquals(expected.getOffsetx(), actual.getOffsetx(), 0.0f);
+        assertEquals(expected.getOffsety(), actual.getOffsety(), 0.0f);
+        assertEquals(expected.getAdvancex(), actual.getAdvancex(), 0.0f);
+        assertEquals(expected.getWidth(), actual.getWidth(), 0.0f);
+        assertEquals(expected.getHeight(), actual.getHeight(), 0.0f);
+        assertEquals(expected.getTexx(), actual.getTexx(), 0.0f);
+        assertEquals(expected.getTexy(), actual.getTexy(), 0.0f);
+        assertEquals(expected.getTexWidth(), actual.getTexWidth(), 0.0f);
+        assertEquals(expected.getTexHeight(), actual.getTexHeight(), 0.0f);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests building, grouping and the instance data of indirect draw commands
+ *
+ * @author Darius Dinger
+ */
+public class IndirectCommandBuilderTest {
+
+    private final float[] transMat = new float[16];
+    private IndirectCommandBuilder builder;
+
+    @Before
+    public void setUp() {
+        builder = new IndirectCommandBuilder();
+    }
+
+    /**
+     * Asserting a command of the sorted command list
+     */
+    private void assertCommand(int command, int count, int instanceCount, int firstIndex, int baseVertex,
+            int baseInstance) {
+        int[] commands = builder.getCommands();
+        int c = command * IndirectCommandBuilder.COMMAND_SIZE;
+        assertEquals("count", count, commands[c]);
+        assertEquals("instanceCount", instanceCount, commands[c + 1]);
+        assertEquals("firstIndex", firstIndex, commands[c + 2]);
+        assertEquals("baseVertex", baseVertex, commands[c + 3]);
+        assertEquals("baseInstance", baseInstance, commands[c + 4]);
+    }
+
+    @Test
+    public void buildsCommandWithInstances() {
+        transMat[12] = 5.0f;
+        builder.beginCommand(0, 36, 100, 20);
+        builder.addInstance(transMat, 0.1f, 0.2f, 0.3f);
+        builder.addInstance(transMat, 0.4f, 0.5f, 0.6f);
+        builder.finish();
+
+        assertEquals(1, builder.getCommandCount());
+        assertEquals(1, builder.getGroupCount());
+        assertCommand(0, 36, 2, 100, 20, 0);
+
+        assertEquals(2, builder.getInstanceCount());
+        float[] instances = builder.getInstanceData();
+        int second = IndirectCommandBuilder.INSTANCE_SIZE;
+        assertEquals(5.0f, instances[second + 12], 0.0f);
+        assertEquals(0.4f, instances[second + 16], 0.0f);
+        assertEquals(0.5f, instances[second + 17], 0.0f);
+        assertEquals(0.6f, instances[second + 18], 0.0f);
+    }
+
+    @Test
+    public void dropsCommandsWithoutInstances() {
+        builder.beginCommand(0, 3, 0, 0);
+        builder.beginCommand(0, 6, 3, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.beginCommand(0, 9, 9, 0);
+        builder.finish();
+
+        assertEquals(1, builder.getCommandCount());
+        assertCommand(0, 6, 1, 3, 0, 0);
+    }
+
+    @Test
+    public void sortsCommandsByGroupStable() {
+        builder.beginCommand(1, 10, 0, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.beginCommand(0, 20, 0, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.beginCommand(1, 30, 0, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.beginCommand(2, 40, 0, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.finish();
+
+        assertEquals(4, builder.getCommandCount());
+        assertEquals(3, builder.getGroupCount());
+        assertEquals(0, builder.getGroupFirstCommand(0));
+        assertEquals(1, builder.getGroupCommandCount(0));
+        assertEquals(1, builder.getGroupFirstCommand(1));
+        assertEquals(2, builder.getGroupCommandCount(1));
+        assertEquals(3, builder.getGroupFirstCommand(2));
+        assertEquals(1, builder.getGroupCommandCount(2));
+
+        // Base instances keep pointing to the instances of the command
+        assertCommand(0, 20, 1, 0, 0, 1);
+        assertCommand(1, 10, 1, 0, 0, 0);
+        assertCommand(2, 30, 2, 0, 0, 2);
+        assertCommand(3, 40, 1, 0, 0, 4);
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        for (int c = 0; c < 200; c++) {
+            builder.beginCommand(c % 12, 3, c * 3, c);
+            for (int i = 0; i < 3; i++)
+                builder.addInstance(transMat, c, i, 0);
+        }
+        builder.finish();
+
+        assertEquals(200, builder.getCommandCount());
+        assertEquals(600, builder.getInstanceCount());
+        assertEquals(12, builder.getGroupCount());
+
+        int total = 0;
+        for (int g = 0; g < builder.getGroupCount(); g++) {
+            assertEquals(total, builder.getGroupFirstCommand(g));
+            total += builder.getGroupCommandCount(g);
+        }
+        assertEquals(200, total);
+
+        // Last command of group 11 is command 191
+        int last = builder.getGroupFirstCommand(11) + builder.getGroupCommandCount(11) - 1;
+        assertCommand(last, 3, 3, 191 * 3, 191, 191 * 3);
+        assertEquals(191.0f, builder.getInstanceData()[191 * 3 * IndirectCommandBuilder.INSTANCE_SIZE + 16], 0.0f);
+    }
+
+    @Test
+    public void clearResetsCommands() {
+        builder.beginCommand(3, 3, 0, 0);
+        builder.addInstance(transMat, 0, 0, 0);
+        builder.finish();
+        builder.clear();
+        builder.finish();
+
+        assertEquals(0, builder.getCommandCount());
+        assertEquals(0, builder.getInstanceCount());
+        assertEquals(0, builder.getGroupCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void instanceWithoutCommandFails() {
+        builder.addInstance(transMat, 0, 0, 0);
+    }
+}
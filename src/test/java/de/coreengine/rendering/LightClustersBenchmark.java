@@ -0,0 +1,69 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import de.coreengine.rendering.renderable.light.PointLight;
+
+import javax.vecmath.Matrix4f;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Benchmark of the light binning, that runs without an opengl context.<br>
+ * Usage: LightClustersBenchmark [lightCount] [iterations]
+ *
+ * @author Darius Dinger
+ */
+public class LightClustersBenchmark {
+
+    public static void main(String[] args) {
+        int lightCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<PointLight> lights = LightClustersTest.createLights(lightCount, 1);
+        Matrix4f view = LightClustersTest.createViewMatrix();
+        Matrix4f projection = LightClustersTest.createProjectionMatrix();
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            LightClusters clusters = new LightClusters(16, 9, 24, 0.004f);
+            clusters.setParallel(parallel);
+
+            // Warm up jit
+            for (int i = 0; i < iterations / 4; i++)
+                clusters.update(lights, Collections.emptyList(), view, projection, 0.1f, 1000.0f);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                clusters.update(lights, Collections.emptyList(), view, projection, 0.1f, 1000.0f);
+            double ms = (System.nanoTime() - start) / 1e6 / iterations;
+
+            System.out.printf("%d lights, parallel=%b: %.3f ms per update, %d light indices%n", lightCount, parallel,
+                    ms, clusters.getIndexCount());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import de.coreengine.rendering.renderable.light.PointLight;
+import de.coreengine.rendering.renderable.light.SpotLight;
+import org.junit.Test;
+
+import javax.vecmath.Matrix4f;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the cpu side light binning of the light clusters
+ *
+ * @author Darius Dinger
+ */
+public class LightClustersTest {
+    private static final float NEAR = 0.1f, FAR = 1000.0f;
+    private static final int TILES_X = 16, TILES_Y = 9, SLICES = 24;
+
+    /**
+     * Creating a camera at the origin, that looks along -z
+     *
+     * @return View matrix of the camera
+     */
+    static Matrix4f createViewMatrix() {
+        Matrix4f view = new Matrix4f();
+        view.setIdentity();
+        return view;
+    }
+
+    /**
+     * Creating a perspective projection with 70 degrees fov and 16:9 aspect
+     *
+     * @return Projection matrix of the camera
+     */
+    static Matrix4f createProjectionMatrix() {
+        float yScale = (float) (1.0 / Math.tan(Math.toRadians(35.0)));
+        Matrix4f projection = new Matrix4f();
+        projection.m00 = yScale / (16.0f / 9.0f);
+        projection.m11 = yScale;
+        projection.m22 = -(FAR + NEAR) / (FAR - NEAR);
+        projection.m23 = -2.0f * NEAR * FAR / (FAR - NEAR);
+        projection.m32 = -1.0f;
+        return projection;
+    }
+
+    /**
+     * Creating random point lights in front of the camera
+     *
+     * @param count Count of lights to create
+     * @param seed  Seed of the random positions
+     * @return Created point lights
+     */
+    static List<PointLight> createLights(int count, long seed) {
+        Random random = new Random(seed);
+        List<PointLight> lights = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PointLight light = new PointLight();
+            light.getPosition().set(random.nextFloat() * 400.0f - 200.0f, random.nextFloat() * 100.0f - 50.0f,
+                    -random.nextFloat() * 500.0f);
+            light.getAttenuation().set(0.5f + random.nextFloat(), 0.05f + random.nextFloat() * 0.5f);
+            lights.add(light);
+        }
+        return lights;
+    }
+
+    /**
+     * Searching the light indices of a cluster for a light
+     */
+    private static boolean clusterContains(LightClusters clusters, int cluster, int light) {
+        int offset = clusters.getClusterData()[cluster * 2];
+        int count = clusters.getClusterData()[cluster * 2 + 1];
+        for (int i = offset; i < offset + count; i++) {
+            if (clusters.getLightIndices()[i] == light)
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void lightInFrontOfCameraIsBinnedIntoItsCluster() {
+        LightClusters clusters = new LightClusters(TILES_X, TILES_Y, SLICES, 0.004f);
+        PointLight light = new PointLight();
+        light.getPosition().set(0.0f, 0.0f, -10.0f);
+
+        clusters.update(Collections.singletonList(light), Collections.emptyList(), createViewMatrix(),
+                createProjectionMatrix(), NEAR, FAR);
+
+        int slice = (int) (Math.log(10.0f / NEAR) * clusters.getSliceScale());
+        int cluster = slice * TILES_X * TILES_Y + (TILES_Y / 2) * TILES_X + TILES_X / 2;
+        assertEquals(1, clusters.getLightCount());
+        assertTrue(clusterContains(clusters, cluster, 0));
+    }
+
+    @Test
+    public void lightBehindCameraIsNotBinned() {
+        LightClusters clusters = new LightClusters(TILES_X, TILES_Y, SLICES, 0.004f);
+        PointLight light = new PointLight();
+        light.getPosition().set(0.0f, 0.0f, 1000.0f);
+
+        clusters.update(Collections.singletonList(light), Collections.emptyList(), createViewMatrix(),
+                createProjectionMatrix(), NEAR, FAR);
+
+        assertEquals(0, clusters.getIndexCount());
+    }
+
+    @Test
+    public void everyPointInsideALightIsCoveredByItsClusters() {
+        LightClusters clusters = new LightClusters(TILES_X, TILES_Y, SLICES, 0.004f);
+        List<PointLight> lights = createLights(300, 1);
+        Matrix4f projection = createProjectionMatrix();
+
+        clusters.update(lights, Collections.emptyList(), createViewMatrix(), projection, NEAR, FAR);
+
+        Random random = new Random(2);
+        float[] lightData = clusters.getLightData();
+        int tested = 0;
+        for (int l = 0; l < lights.size(); l++) {
+            float radius = lightData[l * LightClusters.LIGHT_DATA_SIZE + 15];
+            for (int s = 0; s < 50; s++) {
+
+                // Random point inside the light sphere
+                float dx, dy, dz;
+                do {
+                    dx = random.nextFloat() * 2.0f - 1.0f;
+                    dy = random.nextFloat() * 2.0f - 1.0f;
+                    dz = random.nextFloat() * 2.0f - 1.0f;
+                } while (dx * dx + dy * dy + dz * dz > 1.0f);
+                float x = lights.get(l).getPosition().x + dx * radius;
+                float y = lights.get(l).getPosition().y + dy * radius;
+                float depth = -(lights.get(l).getPosition().z + dz * radius);
+
+                // Skip points outside of the frustum
+                float ndcX = projection.m00 * x / depth, ndcY = projection.m11 * y / depth;
+                if (depth <= NEAR || depth >= FAR || Math.abs(ndcX) >= 1.0f || Math.abs(ndcY) >= 1.0f)
+                    continue;
+
+                int tileX = (int) ((ndcX * 0.5f + 0.5f) * TILES_X);
+                int tileY = (int) ((ndcY * 0.5f + 0.5f) * TILES_Y);
+                int slice = Math.min(SLICES - 1, (int) (Math.log(depth / NEAR) * clusters.getSliceScale()));
+                int cluster = (slice * TILES_Y + tileY) * TILES_X + tileX;
+
+                assertTrue("Light " + l + " missing in cluster " + cluster, clusterContains(clusters, cluster, l));
+                tested++;
+            }
+        }
+        assertTrue(tested > 1000);
+    }
+
+    @Test
+    public void parallelBinningMatchesSerialBinning() {
+        List<PointLight> lights = createLights(2000, 3);
+        List<SpotLight> spotLights = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SpotLight spotLight = new SpotLight();
+            spotLight.getPosition().set(i, 0.0f, -i);
+            spotLights.add(spotLight);
+        }
+
+        LightClusters serial = new LightClusters(TILES_X, TILES_Y, SLICES, 0.004f);
+        serial.setParallel(false);
+        serial.update(lights, spotLights, createViewMatrix(), createProjectionMatrix(), NEAR, FAR);
+
+        LightClusters parallel = new LightClusters(TILES_X, TILES_Y, SLICES, 0.004f);
+        parallel.update(lights, spotLights, createViewMatrix(), createProjectionMatrix(), NEAR, FAR);
+
+        assertEquals(serial.getIndexCount(), parallel.getIndexCount());
+        assertArrayEquals(serial.getClusterData(), parallel.getClusterData());
+        for (int i = 0; i < serial.getIndexCount(); i++)
+            assertEquals(serial.getLightIndices()[i], parallel.getLightIndices()[i]);
+    }
+}
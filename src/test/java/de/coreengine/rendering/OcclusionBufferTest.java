@@ -0,0 +1,163 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.vecmath.Matrix4f;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the watertight rasterization and box tests of the occlusion buffer
+ *
+ * @author Darius Dinger
+ */
+public class OcclusionBufferTest {
+
+    private static final int SIZE = 64;
+
+    private final Matrix4f identity = new Matrix4f();
+    private OcclusionBuffer buffer;
+
+    @Before
+    public void setUp() {
+        identity.setIdentity();
+        buffer = new OcclusionBuffer(SIZE, SIZE);
+        buffer.clear(identity);
+    }
+
+    /**
+     * Adding a single triangle occluder in ndc space at depth z, that covers the
+     * screen left of maxX
+     */
+    private void addLeftOccluder(float maxX, float z) {
+        float[] vertices = { maxX, -5.0f, z, maxX, 5.0f, z, -10.0f, 0.0f, z };
+        int[] indices = { 0, 1, 2 };
+        buffer.addOccluder(identity, vertices, indices);
+    }
+
+    @Test
+    public void boxBehindOccluderIsCulled() {
+        addLeftOccluder(0.05f, 0.0f);
+
+        assertTrue(buffer.isOccluded(-0.5f, -0.1f, 0.5f, -0.4f, 0.1f, 0.6f));
+        assertEquals(1, buffer.getCulledObjects());
+    }
+
+    @Test
+    public void boxInFrontOfOccluderIsVisible() {
+        addLeftOccluder(0.05f, 0.5f);
+
+        assertFalse(buffer.isOccluded(-0.5f, -0.1f, 0.0f, -0.4f, 0.1f, 0.1f));
+    }
+
+    @Test
+    public void partiallyCoveredPixelDoesNotOcclude() {
+
+        // Occluder edge at screen x 33.6, the center of pixel 33 is covered
+        addLeftOccluder(0.05f, 0.0f);
+
+        // Box at screen x 33.7 to 33.9 lies in pixel 33, but not behind the
+        // occluder
+        assertFalse(buffer.isOccluded(0.053125f, -0.1f, 0.5f, 0.059375f, 0.1f, 0.6f));
+    }
+
+    @Test
+    public void slopedOccluderUsesFarthestDepthOfPixel() {
+
+        // Depth rises from 0 to 1 over the screen in x
+        float[] vertices = { -1.0f, -1.0f, 0.0f, 1.0f, -1.0f, 1.0f, 1.0f, 1.0f, 1.0f, -1.0f, 1.0f, 0.0f };
+        int[] indices = { 0, 1, 2, 0, 2, 3 };
+        buffer.addOccluder(identity, vertices, indices);
+
+        // Box in pixel (32, 48), the test is widened to pixels 31 to 33, whose
+        // farthest corner has the depth 0.53125
+        assertFalse(buffer.isOccluded(0.001f, 0.51f, 0.53f, 0.002f, 0.53f, 0.6f));
+        assertTrue(buffer.isOccluded(0.001f, 0.51f, 0.532f, 0.002f, 0.53f, 0.6f));
+    }
+
+    @Test
+    public void boxOnQuadDiagonalIsCulled() {
+        float[] vertices = { -1.0f, -1.0f, 0.0f, 1.0f, -1.0f, 0.0f, 1.0f, 1.0f, 0.0f, -1.0f, 1.0f, 0.0f };
+        int[] indices = { 0, 1, 2, 0, 2, 3 };
+        buffer.addOccluder(identity, vertices, indices);
+
+        // Small box and box along the shared diagonal
+        assertTrue(buffer.isOccluded(0.1f, 0.1f, 0.5f, 0.12f, 0.12f, 0.6f));
+        assertTrue(buffer.isOccluded(-0.5f, -0.5f, 0.5f, 0.5f, 0.5f, 0.6f));
+    }
+
+    @Test
+    public void boxBehindGridIsCulled() {
+
+        // Grid of 32x32 quads over the screen, with inconsistent winding per row
+        int cells = 32;
+        float[] vertices = new float[(cells + 1) * (cells + 1) * 3];
+        for (int y = 0; y <= cells; y++) {
+            for (int x = 0; x <= cells; x++) {
+                int v = (y * (cells + 1) + x) * 3;
+                vertices[v] = x * 2.0f / cells - 1.0f;
+                vertices[v + 1] = y * 2.0f / cells - 1.0f;
+                vertices[v + 2] = 0.0f;
+            }
+        }
+        int[] indices = new int[cells * cells * 6];
+        int i = 0;
+        for (int y = 0; y < cells; y++) {
+            for (int x = 0; x < cells; x++) {
+                int v00 = y * (cells + 1) + x, v10 = v00 + 1, v01 = v00 + cells + 1, v11 = v01 + 1;
+                int[] quad = y % 2 == 0 ? new int[] { v00, v10, v11, v00, v11, v01 }
+                        : new int[] { v00, v11, v10, v00, v01, v11 };
+                System.arraycopy(quad, 0, indices, i, 6);
+                i += 6;
+            }
+        }
+        buffer.addOccluder(identity, vertices, indices);
+
+        // Large box, small box on a grid vertex and box on a cell diagonal
+        assertTrue(buffer.isOccluded(-0.8f, -0.8f, 0.5f, 0.8f, 0.8f, 0.6f));
+        assertTrue(buffer.isOccluded(0.12f, 0.12f, 0.5f, 0.13f, 0.13f, 0.6f));
+        assertTrue(buffer.isOccluded(0.03f, 0.03f, 0.5f, 0.035f, 0.035f, 0.6f));
+        assertEquals(3, buffer.getCulledObjects());
+    }
+
+    @Test
+    public void boxBesideGapIsVisible() {
+
+        // Two quads with a gap of four pixels between x -0.0625 and 0.0625
+        float[] vertices = { -1.0f, -1.0f, 0.0f, -0.0625f, -1.0f, 0.0f, -0.0625f, 1.0f, 0.0f, -1.0f, 1.0f, 0.0f,
+                0.0625f, -1.0f, 0.0f, 1.0f, -1.0f, 0.0f, 1.0f, 1.0f, 0.0f, 0.0625f, 1.0f, 0.0f };
+        int[] indices = { 0, 1, 2, 0, 2, 3, 4, 5, 6, 4, 6, 7 };
+        buffer.addOccluder(identity, vertices, indices);
+
+        assertFalse(buffer.isOccluded(-0.01f, -0.1f, 0.5f, 0.01f, 0.1f, 0.6f));
+        assertTrue(buffer.isOccluded(0.3f, -0.1f, 0.5f, 0.4f, 0.1f, 0.6f));
+    }
+}
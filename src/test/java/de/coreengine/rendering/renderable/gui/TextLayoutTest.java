@@ -0,0 +1,141 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderable.gui;
+
+import de.coreengine.rendering.model.Character;
+import de.coreengine.rendering.model.Font;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the layout of texts without an opengl context
+ *
+ * @author Darius Dinger
+ */
+public class TextLayoutTest {
+
+    private static final float LINE_HEIGHT = 1.5f;
+
+    // Offset of the vertex with the min x and y of the first triangle and of the max y
+    private static final int MIN_X = 2 * TextLayout.FLOATS_PER_VERTEX, MAX_Y = TextLayout.FLOATS_PER_VERTEX + 1;
+    private static final int CHAR_FLOATS = TextLayout.FLOATS_PER_VERTEX * TextLayout.VERTICES_PER_CHAR;
+
+    /**
+     * Creating a font, that only contains 'A' with an advance of 0.5
+     */
+    private static Font createFont() {
+        HashMap<Integer, Character> characters = new HashMap<>();
+        characters.put((int) 'A', new Character(0.1f, 0.0f, 0.5f, 0.4f, 1.0f, 0.25f, 0.5f, 0.125f, 0.25f));
+        return new Font("atlas", characters, LINE_HEIGHT);
+    }
+
+    @Test
+    public void missingFontOrTextGivesEmptyLayout() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "AA", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+
+        layout.layout(null, "AA", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+        assertEquals(0, layout.getVertexCount());
+
+        layout.layout(createFont(), null, 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+        assertEquals(0, layout.getVertexCount());
+    }
+
+    @Test
+    public void charsAdvanceAndLineIsCentered() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "AA", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+        float[] vertices = layout.getVertices();
+
+        assertEquals(2 * TextLayout.VERTICES_PER_CHAR, layout.getVertexCount());
+        assertEquals(-0.4f, vertices[MIN_X], 1e-6f);
+        assertEquals(0.1f, vertices[CHAR_FLOATS + MIN_X], 1e-6f);
+
+        // Texture coordinates of the first vertex (max u, max v)
+        assertEquals(0.375f, vertices[2], 1e-6f);
+        assertEquals(0.75f, vertices[3], 1e-6f);
+    }
+
+    @Test
+    public void fontSizeScalesChars() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "AA", 2.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+
+        assertEquals(-0.8f, layout.getVertices()[MIN_X], 1e-6f);
+        assertEquals(0.2f, layout.getVertices()[CHAR_FLOATS + MIN_X], 1e-6f);
+    }
+
+    @Test
+    public void leftAndRightAlignmentUseLineWidth() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "A", 1.0f, GUIText.Alignment.LEFT, 0.0f, 10.0f);
+        assertEquals(-4.9f, layout.getVertices()[MIN_X], 1e-6f);
+
+        layout.layout(createFont(), "A", 1.0f, GUIText.Alignment.RIGHT, 0.0f, 10.0f);
+        assertEquals(4.6f, layout.getVertices()[MIN_X], 1e-6f);
+    }
+
+    @Test
+    public void newlineAndLineWidthBreakLines() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "A\nA", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+        float[] vertices = layout.getVertices();
+
+        assertEquals(2 * TextLayout.VERTICES_PER_CHAR, layout.getVertexCount());
+        assertEquals(LINE_HEIGHT, vertices[MAX_Y] - vertices[CHAR_FLOATS + MAX_Y], 1e-6f);
+        assertEquals(vertices[MIN_X], vertices[CHAR_FLOATS + MIN_X], 1e-6f);
+
+        // Third char does not fit into the line width anymore
+        layout.layout(createFont(), "AAA", 1.0f, GUIText.Alignment.CENTER, 0.0f, 1.2f);
+        vertices = layout.getVertices();
+        assertEquals(vertices[MAX_Y], vertices[CHAR_FLOATS + MAX_Y], 1e-6f);
+        assertEquals(LINE_HEIGHT, vertices[MAX_Y] - vertices[2 * CHAR_FLOATS + MAX_Y], 1e-6f);
+    }
+
+    @Test
+    public void missingCharsAreSkipped() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "A?A", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+
+        assertEquals(2 * TextLayout.VERTICES_PER_CHAR, layout.getVertexCount());
+    }
+
+    @Test
+    public void arraysAreReusedForShorterTexts() {
+        TextLayout layout = new TextLayout();
+        layout.layout(createFont(), "AAAA", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+        float[] vertices = layout.getVertices();
+
+        layout.layout(createFont(), "A", 1.0f, GUIText.Alignment.CENTER, 0.0f, 10.0f);
+        assertSame(vertices, layout.getVertices());
+        assertEquals(TextLayout.VERTICES_PER_CHAR, layout.getVertexCount());
+    }
+}
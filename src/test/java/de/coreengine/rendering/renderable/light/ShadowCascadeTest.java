@@ -0,0 +1,121 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderable.light;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Point3f;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the static shadow box and the reprojection of the cached static shadows
+ * into a moved cascade
+ *
+ * @author Darius Dinger
+ */
+public class ShadowCascadeTest {
+    private static final float EPSILON = 1e-4f;
+
+    // Light looking straight down (light space x = world x, y = world -z, z = world y)
+    private static final float[] ROTATION = { 1, 0, 0, 0, 0, -1, 0, 1, 0 };
+
+    private ShadowCascade cascade;
+
+    @Before
+    public void setUp() {
+        cascade = new ShadowCascade();
+        cascade.set(ROTATION, 10.0f, 20.0f, 8.0f, -8.0f, 58.0f, 50.0f);
+        cascade.updateStaticBox(2.0f);
+    }
+
+    @Test
+    public void smallMovementKeepsStaticShadows() {
+        assertFalse(cascade.needsStaticUpdate());
+
+        cascade.set(ROTATION, 15.0f, 14.0f, 8.0f, -3.0f, 63.0f, 50.0f);
+        assertFalse(cascade.needsStaticUpdate());
+    }
+
+    @Test
+    public void leavingTheStaticBoxRendersStaticShadows() {
+        cascade.set(ROTATION, 19.0f, 20.0f, 8.0f, -8.0f, 58.0f, 50.0f);
+        assertTrue(cascade.needsStaticUpdate());
+    }
+
+    @Test
+    public void changedRadiusOrRotationRendersStaticShadows() {
+        cascade.set(ROTATION, 10.0f, 20.0f, 8.5f, -8.0f, 58.0f, 50.0f);
+        assertTrue(cascade.needsStaticUpdate());
+
+        cascade.set(new float[] { 0, 0, 1, 0, 1, 0, -1, 0, 0 }, 10.0f, 20.0f, 8.0f, -8.0f, 58.0f, 50.0f);
+        assertTrue(cascade.needsStaticUpdate());
+    }
+
+    @Test
+    public void invalidationRendersStaticShadows() {
+        cascade.invalidateStatic();
+        assertTrue(cascade.needsStaticUpdate());
+    }
+
+    @Test
+    public void reprojectionMapsStaticDepthIntoMovedCascade() {
+        cascade.set(ROTATION, 13.0f, 16.0f, 8.0f, -5.0f, 61.0f, 50.0f);
+        assertFalse(cascade.needsStaticUpdate());
+        cascade.updateStaticReprojection();
+
+        // World points inside the cascade
+        Point3f[] points = { new Point3f(13.0f, 2.0f, -16.0f), new Point3f(7.0f, -4.0f, -10.0f),
+                new Point3f(20.0f, 40.0f, -22.0f) };
+        for (Point3f point : points) {
+            Point3f cascadePos = toShadowMap(cascade.getVpMat(), point);
+            Point3f staticPos = toShadowMap(cascade.getStaticVpMat(), point);
+
+            float u = cascadePos.x * cascade.getStaticUvScale() + cascade.getStaticUvOffsetX();
+            float v = cascadePos.y * cascade.getStaticUvScale() + cascade.getStaticUvOffsetY();
+            float depth = staticPos.z * cascade.getStaticDepthScale() + cascade.getStaticDepthOffset();
+
+            assertEquals(staticPos.x, u, EPSILON);
+            assertEquals(staticPos.y, v, EPSILON);
+            assertEquals(cascadePos.z, depth, EPSILON);
+        }
+    }
+
+    /**
+     * Transforming a world point into shadow map coordinates and depth (0 - 1)
+     */
+    private static Point3f toShadowMap(Matrix4f vpMat, Point3f point) {
+        Point3f result = new Point3f(point);
+        vpMat.transform(result);
+        result.scale(0.5f);
+        result.add(new Point3f(0.5f, 0.5f, 0.5f));
+        return result;
+    }
+}
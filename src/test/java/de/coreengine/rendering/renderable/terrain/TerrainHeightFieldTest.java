@@ -0,0 +1,204 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderable.terrain;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the height queries, the min/max pyramid and the raycasts of the
+ * terrain height field
+ *
+ * @author Darius Dinger
+ */
+public class TerrainHeightFieldTest {
+
+    private static final int SIZE = 33;
+
+    /**
+     * Creating a random height field with smooth hills
+     */
+    private static TerrainHeightField createField(long seed) {
+        Random random = new Random(seed);
+        float[] heights = new float[SIZE * SIZE];
+        float fx = 0.1f + random.nextFloat() * 0.3f, fz = 0.1f + random.nextFloat() * 0.3f;
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                heights[x + z * SIZE] = 0.5f + 0.2f * (float) Math.sin(x * fx) * (float) Math.cos(z * fz)
+                        + random.nextFloat() * 0.05f;
+            }
+        }
+        return new TerrainHeightField(heights, SIZE, SIZE);
+    }
+
+    /**
+     * @return Height at a texel space position
+     */
+    private static float heightAt(TerrainHeightField field, float x, float z) {
+        return field.getHeight((x + 0.5f) / field.getWidth(), (z + 0.5f) / field.getHeight());
+    }
+
+    /**
+     * Reference raycast, that marches the ray in small steps
+     */
+    private static float marchRay(TerrainHeightField field, float ox, float oy, float oz, float dx, float dy,
+            float dz, float maxDist) {
+        float step = 0.0005f;
+        for (float t = 0.0f; t <= maxDist; t += step) {
+            float x = ox + dx * t, z = oz + dz * t;
+            if (x < 0 || z < 0 || x > SIZE - 1 || z > SIZE - 1)
+                continue;
+            if (oy + dy * t <= heightAt(field, x, z))
+                return t;
+        }
+        return -1.0f;
+    }
+
+    @Test
+    public void heightInterpolatesTexels() {
+        float[] heights = { 0.0f, 1.0f, 0.5f, 0.5f };
+        TerrainHeightField field = new TerrainHeightField(heights, 2, 2);
+
+        assertEquals(0.0f, heightAt(field, 0.0f, 0.0f), 1e-6f);
+        assertEquals(1.0f, heightAt(field, 1.0f, 0.0f), 1e-6f);
+        assertEquals(0.5f, heightAt(field, 0.5f, 0.0f), 1e-6f);
+        assertEquals(0.5f, heightAt(field, 0.5f, 1.0f), 1e-6f);
+        assertEquals(0.5f, heightAt(field, 0.5f, 0.5f), 1e-6f);
+    }
+
+    @Test
+    public void pyramidBoundsContainHeights() {
+        TerrainHeightField field = createField(1);
+        Random random = new Random(2);
+        float[] bounds = new float[2];
+
+        for (int i = 0; i < 500; i++) {
+            float u0 = random.nextFloat(), v0 = random.nextFloat();
+            float u1 = Math.min(1.0f, u0 + random.nextFloat() * 0.5f), v1 = Math.min(1.0f, v0 + random.nextFloat() * 0.5f);
+            field.getBounds(u0, v0, u1, v1, bounds);
+
+            for (int s = 0; s < 20; s++) {
+                float u = u0 + (u1 - u0) * random.nextFloat(), v = v0 + (v1 - v0) * random.nextFloat();
+                float h = field.getHeight(u, v);
+                assertTrue(h >= bounds[0] - 1e-6f);
+                assertTrue(h <= bounds[1] + 1e-6f);
+            }
+        }
+    }
+
+    @Test
+    public void pyramidBoundsOfWholeFieldAreExact() {
+        float[] heights = new float[SIZE * SIZE];
+        heights[5 + 7 * SIZE] = 0.75f;
+        heights[20 + 30 * SIZE] = -0.25f;
+        TerrainHeightField field = new TerrainHeightField(heights, SIZE, SIZE);
+
+        float[] bounds = field.getBounds(0.0f, 0.0f, 1.0f, 1.0f, new float[2]);
+        assertEquals(-0.25f, bounds[0], 0.0f);
+        assertEquals(0.75f, bounds[1], 0.0f);
+
+        // Small area far away from both extremes
+        field.getBounds(0.9f, 0.05f, 0.95f, 0.1f, bounds);
+        assertEquals(0.0f, bounds[0], 0.0f);
+        assertEquals(0.0f, bounds[1], 0.0f);
+    }
+
+    @Test
+    public void verticalRayHitsSurface() {
+        TerrainHeightField field = createField(3);
+
+        // Origins on texel centers and cell borders, the direction has zero x and z
+        for (int x = 0; x < SIZE - 1; x += 3) {
+            for (int z = 0; z < SIZE - 1; z += 5) {
+                float px = x + (x % 2) * 0.5f, pz = z;
+                float t = field.raycastTexelSpace(px, 2.0f, pz, 0.0f, -1.0f, 0.0f, 10.0f);
+                assertEquals(2.0f - heightAt(field, px, pz), t, 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void verticalRayOutsideMisses() {
+        TerrainHeightField field = createField(4);
+
+        assertTrue(field.raycastTexelSpace(-1.0f, 2.0f, 5.0f, 0.0f, -1.0f, 0.0f, 10.0f) < 0.0f);
+        assertTrue(field.raycastTexelSpace(5.0f, 2.0f, SIZE + 1.0f, 0.0f, -1.0f, 0.0f, 10.0f) < 0.0f);
+        assertTrue(field.raycastTexelSpace(5.0f, 2.0f, 5.0f, 0.0f, 1.0f, 0.0f, 10.0f) < 0.0f);
+    }
+
+    @Test
+    public void horizontalRayHitsOnlyBelowTop() {
+        float[] heights = new float[SIZE * SIZE];
+        for (int z = 0; z < SIZE; z++) {
+            heights[20 + z * SIZE] = 1.0f;
+        }
+        TerrainHeightField field = new TerrainHeightField(heights, SIZE, SIZE);
+
+        // Axis aligned ray along x through the wall, and one along z beside it
+        float t = field.raycastTexelSpace(2.0f, 0.5f, 10.0f, 1.0f, 0.0f, 0.0f, 100.0f);
+        assertEquals(17.5f, t, 1e-4f);
+        assertTrue(field.raycastTexelSpace(2.0f, 1.5f, 10.0f, 1.0f, 0.0f, 0.0f, 100.0f) < 0.0f);
+        assertTrue(field.raycastTexelSpace(10.0f, 0.5f, 0.0f, 0.0f, 0.0f, 1.0f, 100.0f) < 0.0f);
+    }
+
+    @Test
+    public void raycastMatchesMarching() {
+        TerrainHeightField field = createField(5);
+        Random random = new Random(6);
+
+        int hits = 0;
+        for (int i = 0; i < 200; i++) {
+            float ox = random.nextFloat() * (SIZE - 1), oz = random.nextFloat() * (SIZE - 1);
+            float oy = 1.0f + random.nextFloat();
+            float dx = random.nextFloat() * 2.0f - 1.0f, dz = random.nextFloat() * 2.0f - 1.0f;
+            float dy = -0.05f - random.nextFloat() * 0.5f;
+
+            float expected = marchRay(field, ox, oy, oz, dx, dy, dz, 40.0f);
+            float t = field.raycastTexelSpace(ox, oy, oz, dx, dy, dz, 40.0f);
+            if (expected < 0.0f) {
+                assertTrue("Ray " + i + " should miss", t < 0.0f);
+            } else {
+                assertEquals("Ray " + i, expected, t, 0.002f);
+                hits++;
+            }
+        }
+        assertTrue(hits > 50);
+    }
+
+    @Test
+    public void raycastRespectsMaxDistance() {
+        TerrainHeightField field = createField(7);
+
+        float t = field.raycastTexelSpace(10.0f, 2.0f, 10.0f, 0.0f, -1.0f, 0.0f, 10.0f);
+        assertTrue(t > 0.0f);
+        assertTrue(field.raycastTexelSpace(10.0f, 2.0f, 10.0f, 0.0f, -1.0f, 0.0f, t * 0.5f) < 0.0f);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.rendering.renderer;
+
+import de.coreengine.asset.AssetDatabase;
+import de.coreengine.asset.dataStructures.MaterialData;
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.asset.dataStructures.ModelData;
+import de.coreengine.rendering.model.Material;
+import de.coreengine.rendering.renderable.Entity;
+import de.coreengine.rendering.renderable.Particle;
+import de.coreengine.rendering.renderable.light.AmbientLight;
+import de.coreengine.rendering.renderable.light.DirectionalLight;
+import de.coreengine.rendering.renderable.light.PointLight;
+import de.coreengine.rendering.renderable.light.ShadowLight;
+import de.coreengine.rendering.renderable.light.SpotLight;
+import de.coreengine.util.AllocationCounter;
+import de.coreengine.util.gl.StubGL;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.vecmath.Vector3f;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Renders frames of a test scene against the stubbed gl layer and asserts, that
+ * steady state frames allocate nothing on the heap
+ *
+ * @author Darius Dinger
+ */
+public class RenderAllocationTest {
+
+    private static final int WARMUP_FRAMES = 300;
+    private static final int MEASURED_FRAMES = 50;
+
+    // Jit recompilation can rematerialize scalar replaced objects in single frames
+    // after the warm up, so the measured windows must become and stay clean
+    private static final int CLEAN_WINDOWS = 4;
+    private static final int MAX_WINDOWS = 16;
+
+    private static final int ENTITY_GRID = 6;
+    private static final int POINT_LIGHTS = 32;
+    private static final int SPOT_LIGHTS = 8;
+    private static final int PARTICLES = 64;
+
+    private static StubGL gl;
+
+    private static final Entity[] entities = new Entity[ENTITY_GRID * ENTITY_GRID];
+    private static final PointLight[] pointLights = new PointLight[POINT_LIGHTS];
+    private static final SpotLight[] spotLights = new SpotLight[SPOT_LIGHTS];
+    private static final Particle[] particles = new Particle[PARTICLES];
+    private static final AmbientLight ambientLight = new AmbientLight();
+    private static final DirectionalLight directionalLight = new DirectionalLight();
+    private static ShadowLight shadowLight;
+    private static final Vector3f lightDirection = new Vector3f(-0.3f, -1.0f, -0.2f);
+
+    @BeforeClass
+    public static void setUp() {
+        gl = StubGL.create();
+        MasterRenderer.init();
+        PostProcesser.init();
+        Material.init();
+
+        AssetDatabase.addModel("allocationTestSphere", createSphere(24).getInstance("", true));
+
+        // Static and moving entities in front of and behind the camera
+        for (int i = 0; i < entities.length; i++) {
+            Entity entity = new Entity();
+            entity.setModel("allocationTestSphere");
+            entity.getTransform().setPosX((i % ENTITY_GRID - ENTITY_GRID / 2) * 4.0f);
+            entity.getTransform().setPosZ((i / ENTITY_GRID - 1) * -6.0f);
+            entity.setStatic(i % 2 == 0);
+            entity.setOccluder(i % 3 == 0);
+            entities[i] = entity;
+        }
+
+        for (int i = 0; i < pointLights.length; i++) {
+            pointLights[i] = new PointLight();
+            pointLights[i].getPosition().set(i % 8 * 3.0f - 12.0f, 2.0f, i / 8 * -5.0f);
+        }
+        for (int i = 0; i < spotLights.length; i++) {
+            spotLights[i] = new SpotLight();
+            spotLights[i].getPosition().set(i * 3.0f - 12.0f, 4.0f, -10.0f);
+        }
+        for (int i = 0; i < particles.length; i++) {
+            particles[i] = new Particle();
+            particles[i].getPosition().set(i % 8 - 4.0f, i / 8, -8.0f);
+        }
+
+        shadowLight = new ShadowLight();
+        MasterRenderer.setShadowLight(shadowLight);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (gl != null)
+            gl.free();
+    }
+
+    /**
+     * Creating a uv sphere with a uv seam, so lods and the arena are used like for
+     * loaded models
+     *
+     * @param segments Segments around the sphere
+     * @return Model data of the sphere
+     */
+    private static ModelData createSphere(int segments) {
+        int rings = segments / 2;
+        int vertexCount = (segments + 1) * (rings + 1);
+        MeshData mesh = new MeshData();
+        mesh.vertices = new float[vertexCount * 3];
+        mesh.normals = new float[vertexCount * 3];
+        mesh.tangents = new float[vertexCount * 3];
+        mesh.texCoords = new float[vertexCount * 2];
+        for (int r = 0, v = 0; r <= rings; r++) {
+            double theta = Math.PI * r / rings;
+            for (int s = 0; s <= segments; s++, v++) {
+                double phi = 2.0 * Math.PI * s / segments;
+                float x = (float) (Math.sin(theta) * Math.cos(phi)), y = (float) Math.cos(theta),
+                        z = (float) (Math.sin(theta) * Math.sin(phi));
+                mesh.vertices[v * 3] = mesh.normals[v * 3] = x;
+                mesh.vertices[v * 3 + 1] = mesh.normals[v * 3 + 1] = y;
+                mesh.vertices[v * 3 + 2] = mesh.normals[v * 3 + 2] = z;
+                mesh.tangents[v * 3] = (float) -Math.sin(phi);
+                mesh.tangents[v * 3 + 2] = (float) Math.cos(phi);
+                mesh.texCoords[v * 2] = (float) s / segments;
+                mesh.texCoords[v * 2 + 1] = (float) r / rings;
+            }
+        }
+
+        mesh.indices = new int[segments * rings * 6];
+        for (int r = 0, i = 0; r < rings; r++) {
+            for (int s = 0; s < segments; s++) {
+                int a = r * (segments + 1) + s, b = a + segments + 1;
+                mesh.indices[i++] = a;
+                mesh.indices[i++] = b;
+                mesh.indices[i++] = a + 1;
+                mesh.indices[i++] = a + 1;
+                mesh.indices[i++] = b;
+                mesh.indices[i++] = b + 1;
+            }
+        }
+        mesh.material = new MaterialData();
+        mesh.shape = "sphere/1";
+
+        ModelData model = new ModelData();
+        model.meshes = new MeshData[] { mesh };
+        model.generateLods();
+        return model;
+    }
+
+    /**
+     * Simulating a frame: moving the dynamic entities, submitting the scene and
+     * rendering it
+     *
+     * @param frame Index of the frame
+     */
+    private static void renderFrame(int frame) {
+        for (int i = 0; i < entities.length; i++) {
+            Entity entity = entities[i];
+            if (!entity.isStatic())
+                entity.getTransform().setRotY(frame + i);
+            MasterRenderer.renderEntity(entity);
+        }
+        for (PointLight light : pointLights)
+            MasterRenderer.renderPointLight(light);
+        for (SpotLight light : spotLights)
+            MasterRenderer.renderSpotLight(light);
+        for (Particle particle : particles)
+            MasterRenderer.renderParticle(particle);
+        MasterRenderer.renderAmbientLight(ambientLight);
+        MasterRenderer.renderDirectionalLight(directionalLight);
+
+        shadowLight.update(MasterRenderer.getCamera(), lightDirection);
+        MasterRenderer.render();
+    }
+
+    @Test
+    public void steadyStateFramesDoNotAllocate() {
+        assumeTrue("Jvm can not count thread allocations", AllocationCounter.isSupported());
+
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++)
+            renderFrame(frame);
+
+        // Bytes allocated by the measurement itself
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = AllocationCounter.getAllocatedBytes();
+            overhead = Math.min(overhead, AllocationCounter.getAllocatedBytes() - start);
+        }
+
+        long callsBefore = gl.getCalls();
+        int frame = WARMUP_FRAMES;
+        int cleanWindows = 0;
+        String allocatingFrame = null;
+        for (int window = 0; window < MAX_WINDOWS && cleanWindows < CLEAN_WINDOWS; window++) {
+            boolean clean = true;
+            for (int end = frame + MEASURED_FRAMES; frame < end; frame++) {
+                long start = AllocationCounter.getAllocatedBytes();
+                renderFrame(frame);
+                long allocated = AllocationCounter.getAllocatedBytes() - start - overhead;
+                if (allocated != 0 && clean) {
+                    allocatingFrame = "Frame " + frame + " allocated " + allocated + " bytes";
+                    clean = false;
+                }
+            }
+            cleanWindows = clean ? cleanWindows + 1 : 0;
+        }
+        assertEquals("Consecutive clean windows, last allocation: " + allocatingFrame, CLEAN_WINDOWS, cleanWindows);
+
+        // The frames really issued draw calls
+        assertTrue(gl.getCalls() - callsBefore > (frame - WARMUP_FRAMES) * 100L);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects;
+
+import de.coreengine.rendering.renderable.terrain.TerrainConfig;
+import de.coreengine.util.gl.StubGL;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests streaming the tiles of a terrain world around the focus against a
+ * stubbed opengl layer
+ *
+ * @author Darius Dinger
+ */
+public class TerrainWorldTest {
+
+    private static final int RESOLUTION = 17;
+    private static final float TILE_SIZE = 100.0f;
+
+    private static StubGL gl;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    // Worlds created by the test, removed afterwards
+    private final List<TerrainWorld> worlds = new ArrayList<>();
+
+    @BeforeClass
+    public static void setUp() {
+        gl = StubGL.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (gl != null)
+            gl.free();
+    }
+
+    @After
+    public void removeWorlds() {
+        for (TerrainWorld world : worlds) {
+            world.onRemove();
+        }
+    }
+
+    /**
+     * Writing a flat height map file of a tile
+     */
+    private void writeTile(int x, int z, int height) throws IOException {
+        byte[] heights = new byte[RESOLUTION * RESOLUTION];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = (byte) height;
+        }
+        Files.write(new File(folder.getRoot(), x + "_" + z + ".raw").toPath(), heights);
+    }
+
+    private TerrainWorld createWorld(TerrainConfig config) {
+        TerrainWorld world = new TerrainWorld(folder.getRoot().getPath(), config, TILE_SIZE, 1);
+        worlds.add(world);
+        return world;
+    }
+
+    /**
+     * Updating the world until the condition is true
+     */
+    private static void updateUntil(TerrainWorld world, BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 2000 && !condition.getAsBoolean(); i++) {
+            world.onUpdate();
+            Thread.sleep(1);
+        }
+        assertTrue("Condition not reached", condition.getAsBoolean());
+    }
+
+    /**
+     * @return Count of alive tile loader threads
+     */
+    private static int countLoaderThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().equals("TerrainWorldLoader"))
+                count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void loadsTilesAroundFocus() throws Exception {
+        for (int z = -1; z <= 1; z++) {
+            for (int x = -1; x <= 1; x++) {
+                writeTile(x, z, 0);
+            }
+        }
+        writeTile(3, 0, 0);
+
+        TerrainWorld world = createWorld(new TerrainConfig());
+        world.getFocus().set(50.0f, 0.0f, 50.0f);
+        updateUntil(world, () -> world.getTerrains().size() == 9);
+
+        assertEquals(0.0f, world.getHeight(50.0f, 50.0f), 1e-4f);
+        assertEquals(0.0f, world.getHeight(-50.0f, 150.0f), 1e-4f);
+        assertTrue(Float.isNaN(world.getHeight(350.0f, 50.0f)));
+    }
+
+    @Test
+    public void missingTilesAreHoles() throws Exception {
+        writeTile(0, 0, 0);
+
+        TerrainWorld world = createWorld(new TerrainConfig());
+        world.getFocus().set(50.0f, 0.0f, 50.0f);
+        updateUntil(world, () -> world.getTerrains().size() == 1);
+
+        for (int i = 0; i < 20; i++) {
+            world.onUpdate();
+        }
+        assertEquals(1, world.getTerrains().size());
+        assertTrue(Float.isNaN(world.getHeight(150.0f, 50.0f)));
+        assertEquals(0, world.getFailedTileCount());
+    }
+
+    @Test
+    public void unloadsTilesOutsideRadius() throws Exception {
+        writeTile(0, 0, 0);
+        writeTile(5, 0, 0);
+
+        TerrainWorld world = createWorld(new TerrainConfig());
+        world.getFocus().set(50.0f, 0.0f, 50.0f);
+        updateUntil(world, () -> world.getTerrains().size() == 1);
+
+        // Still in the radius plus one tile hysteresis
+        world.getFocus().set(250.0f, 0.0f, 50.0f);
+        world.onUpdate();
+        assertFalse(Float.isNaN(world.getHeight(50.0f, 50.0f)));
+
+        world.getFocus().set(550.0f, 0.0f, 50.0f);
+        updateUntil(world, () -> !Float.isNaN(world.getHeight(550.0f, 50.0f)));
+        assertEquals(1, world.getTerrains().size());
+        assertTrue(Float.isNaN(world.getHeight(50.0f, 50.0f)));
+    }
+
+    @Test
+    public void brokenTilesAreMarkedFailed() throws Exception {
+        writeTile(0, 0, 0);
+        Files.write(new File(folder.getRoot(), "1_0.raw").toPath(), new byte[10]);
+
+        // The tile config is null, so loading throws a runtime exception
+        TerrainWorld broken = createWorld(null);
+        broken.getFocus().set(50.0f, 0.0f, 50.0f);
+        updateUntil(broken, () -> broken.getFailedTileCount() == 2);
+        assertTrue(broken.getTerrains().isEmpty());
+
+        // Not square height map
+        TerrainWorld world = createWorld(new TerrainConfig());
+        world.getFocus().set(50.0f, 0.0f, 50.0f);
+        updateUntil(world, () -> world.getTerrains().size() == 1 && world.getFailedTileCount() == 1);
+    }
+
+    @Test
+    public void removingShutsDownLoader() throws Exception {
+        writeTile(0, 0, 0);
+
+        TerrainWorld world = createWorld(new TerrainConfig());
+        world.getFocus().set(50.0f, 0.0f, 50.0f);
+        updateUntil(world, () -> world.getTerrains().size() == 1);
+        removeWorlds();
+        worlds.clear();
+
+        long end = System.currentTimeMillis() + 5000;
+        while (countLoaderThreads() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, countLoaderThreads());
+        assertTrue(world.getTerrains().isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.asset.dataStructures.MeshData;
+import de.coreengine.util.FastRandom;
+import org.junit.Test;
+
+import javax.vecmath.Vector3f;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, that the emitter shapes spawn particles inside their shape
+ *
+ * @author Darius Dinger
+ */
+public class EmitterShapeTest {
+
+    private static final int SAMPLES = 10000;
+
+    private final FastRandom random = new FastRandom(1);
+    private final Vector3f point = new Vector3f();
+
+    @Test
+    public void pointShapeSpawnsAtOrigin() {
+        new PointEmitterShape().sample(random, point);
+        assertEquals(new Vector3f(), point);
+    }
+
+    @Test
+    public void boxShapeSpawnsInsideBox() {
+        BoxEmitterShape shape = new BoxEmitterShape(new Vector3f(-1.0f, 2.0f, -3.0f), new Vector3f(1.0f, 4.0f, 0.0f));
+        for (int i = 0; i < SAMPLES; i++) {
+            shape.sample(random, point);
+            assertTrue(point.toString(), point.x >= -1.0f && point.x <= 1.0f);
+            assertTrue(point.toString(), point.y >= 2.0f && point.y <= 4.0f);
+            assertTrue(point.toString(), point.z >= -3.0f && point.z <= 0.0f);
+        }
+    }
+
+    @Test
+    public void sphereShapeSpawnsInsideSphere() {
+        SphereEmitterShape shape = new SphereEmitterShape(2.0f, false);
+        int inner = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            shape.sample(random, point);
+            assertTrue(point.toString(), point.length() <= 2.0f + 1e-5f);
+            if (point.length() < 1.0f)
+                inner++;
+        }
+
+        // Uniform in the volume, the inner half radius holds an eighth
+        assertEquals(SAMPLES / 8.0f, inner, SAMPLES * 0.02f);
+    }
+
+    @Test
+    public void sphereSurfaceShapeSpawnsOnSurface() {
+        SphereEmitterShape shape = new SphereEmitterShape(2.0f, true);
+        for (int i = 0; i < SAMPLES; i++) {
+            shape.sample(random, point);
+            assertEquals(2.0f, point.length(), 1e-5f);
+        }
+    }
+
+    @Test
+    public void meshShapeSpawnsOnTrianglesByArea() {
+
+        // Big triangle in the y = 0 plane and a small one in the y = 1 plane, with a
+        // quarter of the area
+        MeshData mesh = new MeshData();
+        mesh.vertices = new float[] { 0, 0, 0, 2, 0, 0, 0, 0, 2, 0, 1, 0, 1, 1, 0, 0, 1, 1 };
+        mesh.indices = new int[] { 0, 1, 2, 3, 4, 5 };
+        MeshEmitterShape shape = new MeshEmitterShape(mesh);
+
+        int small = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            shape.sample(random, point);
+            float size = point.y == 0.0f ? 2.0f : 1.0f;
+            assertTrue(point.toString(), point.y == 0.0f || point.y == 1.0f);
+            assertTrue(point.toString(), point.x >= 0.0f && point.z >= 0.0f && point.x + point.z <= size + 1e-5f);
+            if (point.y == 1.0f)
+                small++;
+        }
+        assertEquals(SAMPLES / 5.0f, small, SAMPLES * 0.02f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void meshShapeWithoutTrianglesIsRejected() {
+        new MeshEmitterShape(new float[9], new int[0]);
+    }
+}
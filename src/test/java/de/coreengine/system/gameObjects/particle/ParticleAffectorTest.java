@@ -0,0 +1,157 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.util.FrameTimer;
+import de.coreengine.util.bullet.Physics;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.vecmath.Vector3f;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the integration of the particle affectors and the particle system over
+ * fixed time steps
+ *
+ * @author Darius Dinger
+ */
+public class ParticleAffectorTest {
+
+    @After
+    public void tearDown() {
+        FrameTimer.setFixedTslf(0.0f);
+    }
+
+    /**
+     * Creating particle data with one particle of mass 2, that moves with the
+     * velocity (3, 4, 0) and lives 10 seconds
+     */
+    private static ParticleData createParticle() {
+        ParticleData data = new ParticleData();
+        data.add(0.0f, 0.0f, 0.0f, 3.0f, 4.0f, 0.0f, 2.0f, 10.0f, 1.0f, 1.0f, 1.0f, 1.0f, 1.0f);
+        return data;
+    }
+
+    /**
+     * Applying an affector for steps of a fixed time
+     */
+    private static void simulate(ParticleAffector affector, ParticleData data, int steps, float tslf) {
+        for (int i = 0; i < steps; i++) {
+            affector.prepare(tslf);
+            affector.affect(data, 0, data.getCount(), tslf);
+        }
+    }
+
+    @Test
+    public void gravityAcceleratesByMass() {
+        ParticleData data = createParticle();
+        simulate(new GravityAffector(), data, 60, 1.0f / 60.0f);
+
+        assertEquals(4.0f + 2.0f * Physics.GRAVITY_OF_EARTH, data.getVelY()[0], 1e-4f);
+        assertEquals(3.0f, data.getVelX()[0], 0.0f);
+    }
+
+    @Test
+    public void dragIsIndependentOfTimeStep() {
+        ParticleData coarse = createParticle(), fine = createParticle();
+        simulate(new DragAffector(0.25f), coarse, 2, 0.5f);
+        simulate(new DragAffector(0.25f), fine, 100, 0.01f);
+
+        // A quarter of the velocity is left after one second
+        assertEquals(0.75f, coarse.getVelX()[0], 1e-5f);
+        assertEquals(1.0f, coarse.getVelY()[0], 1e-5f);
+        assertEquals(coarse.getVelX()[0], fine.getVelX()[0], 1e-4f);
+        assertEquals(coarse.getVelY()[0], fine.getVelY()[0], 1e-4f);
+    }
+
+    @Test
+    public void windTakesOverVelocity() {
+        ParticleData data = createParticle();
+        simulate(new WindAffector(new Vector3f(-1.0f, 0.0f, 5.0f), 1000.0f), data, 1, 0.1f);
+
+        assertEquals(-1.0f, data.getVelX()[0], 1e-6f);
+        assertEquals(0.0f, data.getVelY()[0], 1e-6f);
+        assertEquals(5.0f, data.getVelZ()[0], 1e-6f);
+    }
+
+    @Test
+    public void attractorPullsInsideRadiusOnly() {
+        ParticleData data = new ParticleData();
+        data.add(1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 10.0f, 1.0f, 1.0f, 1.0f, 1.0f, 1.0f);
+        data.add(5.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 10.0f, 1.0f, 1.0f, 1.0f, 1.0f, 1.0f);
+        simulate(new AttractorAffector(new Vector3f(), 4.0f, 2.0f), data, 1, 0.5f);
+
+        // Half the strength at half the radius
+        assertEquals(-1.0f, data.getVelX()[0], 1e-6f);
+        assertEquals(0.0f, data.getVelX()[1], 0.0f);
+    }
+
+    @Test
+    public void sizeFollowsCurveOverLifetime() {
+        ParticleData data = createParticle();
+        data.getTtl()[0] = 2.5f;
+        simulate(new SizeOverLifetimeAffector(ParticleCurve.linear(1.0f, 0.0f)), data, 1, 0.0f);
+
+        assertEquals(0.25f, data.getSize()[0], 1e-6f);
+    }
+
+    @Test
+    public void particleSystemIntegratesFixedSteps() {
+        FrameTimer.setFixedTslf(0.1f);
+        ParticleSystem system = new ParticleSystem();
+        system.getAffectors().clear();
+        system.getAffectors().add(new GravityAffector());
+        system.setEmitterShape(new PointEmitterShape());
+        system.setVelocityRange(new Vector3f(1.0f, 2.0f, 0.0f), new Vector3f(1.0f, 2.0f, 0.0f));
+        system.setMassRange(1.0f, 1.0f);
+        system.setTtlRange(1000.0f, 1000.0f);
+        system.setGenerationSpeed(0.0f);
+        system.setGenerationCountRange(1, 1);
+
+        // Spawn one particle, then move it without spawning
+        system.onUpdate();
+        system.setGenerationSpeed(Float.MAX_VALUE);
+        for (int i = 0; i < 10; i++)
+            system.onUpdate();
+
+        ParticleData data = system.getData();
+        assertEquals(1, data.getCount());
+
+        // Velocity is updated before the position, every step
+        float y = 0.0f, vy = 2.0f;
+        for (int i = 0; i < 10; i++) {
+            vy += Physics.GRAVITY_OF_EARTH * 0.1f;
+            y += vy * 0.1f;
+        }
+        assertEquals(1.0f, data.getPosX()[0], 1e-5f);
+        assertEquals(y, data.getPosY()[0], 1e-4f);
+        assertEquals(vy, data.getVelY()[0], 1e-4f);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the evaluation of particle curves
+ *
+ * @author Darius Dinger
+ */
+public class ParticleCurveTest {
+
+    @Test
+    public void linearCurveInterpolates() {
+        ParticleCurve curve = ParticleCurve.linear(2.0f, 4.0f);
+
+        assertEquals(2.0f, curve.evaluate(0.0f), 1e-6f);
+        assertEquals(2.5f, curve.evaluate(0.25f), 1e-6f);
+        assertEquals(4.0f, curve.evaluate(1.0f), 1e-6f);
+    }
+
+    @Test
+    public void curveIsClampedOutsideKeys() {
+        ParticleCurve curve = new ParticleCurve(new float[] { 0.2f, 0.8f }, new float[] { 1.0f, 3.0f });
+
+        assertEquals(1.0f, curve.evaluate(-1.0f), 0.0f);
+        assertEquals(1.0f, curve.evaluate(0.1f), 0.0f);
+        assertEquals(3.0f, curve.evaluate(0.9f), 0.0f);
+        assertEquals(3.0f, curve.evaluate(2.0f), 0.0f);
+    }
+
+    @Test
+    public void multiKeyCurveInterpolatesPerSegment() {
+        ParticleCurve curve = new ParticleCurve(new float[] { 0.0f, 0.5f, 1.0f }, new float[] { 0.0f, 1.0f, 0.0f });
+
+        assertEquals(0.5f, curve.evaluate(0.25f), 1e-6f);
+        assertEquals(1.0f, curve.evaluate(0.5f), 1e-6f);
+        assertEquals(0.5f, curve.evaluate(0.75f), 1e-6f);
+    }
+
+    @Test
+    public void singleKeyCurveIsConstant() {
+        ParticleCurve curve = new ParticleCurve(new float[] { 0.5f }, new float[] { 7.0f });
+
+        assertEquals(7.0f, curve.evaluate(0.0f), 0.0f);
+        assertEquals(7.0f, curve.evaluate(1.0f), 0.0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchingKeysAreRejected() {
+        new ParticleCurve(new float[] { 0.0f, 1.0f }, new float[] { 1.0f });
+    }
+}
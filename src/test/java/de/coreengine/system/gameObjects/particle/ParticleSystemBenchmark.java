@@ -0,0 +1,94 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import de.coreengine.util.FrameTimer;
+
+/**
+ * Benchmark of the structure of arrays particle simulation against one game
+ * object per particle, that runs without an opengl context. Both are driven
+ * with a fixed time step.<br>
+ * Usage: ParticleSystemBenchmark [particleCount] [iterations]
+ *
+ * @author Darius Dinger
+ */
+public class ParticleSystemBenchmark {
+
+    /**
+     * Custom particle class, that switches the particle system to one game
+     * object per particle
+     */
+    public static class ObjectParticle extends MovingParticle {
+    }
+
+    public static void main(String[] args) {
+        int particleCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        FrameTimer.setFixedTslf(1.0f / 60.0f);
+
+        double arraysMs = run(MovingParticle.class, particleCount, iterations);
+        double objectsMs = run(ObjectParticle.class, particleCount, iterations);
+
+        System.out.printf("%d cores, structure of arrays %.2fx faster%n", Runtime.getRuntime().availableProcessors(),
+                objectsMs / arraysMs);
+        FrameTimer.setFixedTslf(0.0f);
+    }
+
+    /**
+     * Generating all particles at once and timing their simulation
+     *
+     * @param particleClass Particle class of the system
+     * @param particleCount Count of alive particles
+     * @param iterations    Count of timed updates
+     * @return Milliseconds per update
+     */
+    private static double run(Class<? extends MovingParticle> particleClass, int particleCount, int iterations) {
+        ParticleSystem system = new ParticleSystem();
+        system.setParticleClass(particleClass);
+        system.setSeed(1);
+        system.setTtlRange(Float.MAX_VALUE, Float.MAX_VALUE);
+        system.setGenerationSpeed(0.0f);
+        system.setGenerationCountRange(particleCount, particleCount);
+        system.onUpdate();
+        system.setGenerationSpeed(Float.MAX_VALUE);
+
+        // Warm up jit
+        for (int i = 0; i < iterations / 4; i++)
+            system.onUpdate();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            system.onUpdate();
+        double ms = (System.nanoTime() - start) / 1e6 / iterations;
+
+        System.out.printf("%s, %d particles: %.3f ms per update, %.2f ns per particle%n",
+                particleClass == MovingParticle.class ? "structure of arrays" : "game object per particle",
+                system.getParticleCount(), ms, ms * 1e6 / system.getParticleCount());
+        return ms;
+    }
+}
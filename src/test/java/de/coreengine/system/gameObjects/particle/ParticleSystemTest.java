@@ -0,0 +1,119 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.system.gameObjects.particle;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests generating particles and changing between the structure of arrays and
+ * the game object mode of the particle system
+ *
+ * @author Darius Dinger
+ */
+public class ParticleSystemTest {
+
+    // Count of custom particles, that are children of a particle system
+    private static int attached = 0;
+
+    /**
+     * Custom particle class, every particle is its own game object
+     */
+    public static class CustomParticle extends MovingParticle {
+
+        @Override
+        protected void onAdd() {
+            super.onAdd();
+            attached++;
+        }
+
+        @Override
+        protected void onRemove() {
+            super.onRemove();
+            attached--;
+        }
+    }
+
+    private ParticleSystem system;
+
+    @Before
+    public void setUp() {
+        attached = 0;
+        system = new ParticleSystem();
+        system.setSeed(1);
+        system.setTtlRange(1000.0f, 1000.0f);
+        system.setGenerationSpeed(0.0f);
+        system.setGenerationCountRange(10, 10);
+    }
+
+    @Test
+    public void generatesStructureOfArraysParticles() {
+        system.onUpdate();
+        system.onUpdate();
+
+        assertEquals(20, system.getParticleCount());
+        assertEquals(0, attached);
+    }
+
+    @Test
+    public void changingToCustomClassRemovesArrayParticles() {
+        system.onUpdate();
+        system.setParticleClass(CustomParticle.class);
+        assertEquals(0, system.getParticleCount());
+
+        system.onUpdate();
+        assertEquals(10, system.getParticleCount());
+        assertEquals(10, attached);
+    }
+
+    @Test
+    public void changingToDefaultClassRemovesParticleObjects() {
+        system.setParticleClass(CustomParticle.class);
+        system.onUpdate();
+        assertEquals(10, attached);
+
+        system.setParticleClass(MovingParticle.class);
+        assertEquals(0, system.getParticleCount());
+        assertEquals(0, attached);
+
+        system.onUpdate();
+        assertEquals(10, system.getParticleCount());
+        assertEquals(0, attached);
+    }
+
+    @Test
+    public void keepingTheModeKeepsParticles() {
+        system.setParticleClass(CustomParticle.class);
+        system.onUpdate();
+        system.setParticleClass(CustomParticle.class);
+
+        assertEquals(10, system.getParticleCount());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the shelf packing of the atlas packer
+ *
+ * @author Darius Dinger
+ */
+public class AtlasPackerTest {
+
+    /**
+     * Asserting, that all packed rectangles lie inside the atlas and keep the
+     * padding to each other and to the border
+     */
+    private static void assertValidPacking(AtlasPacker packer, int[] widths, int[] heights, int padding) {
+        for (int i = 0; i < widths.length; i++) {
+            assertTrue(packer.getX(i) >= padding && packer.getY(i) >= padding);
+            assertTrue(packer.getX(i) + widths[i] + padding <= packer.getWidth());
+            assertTrue(packer.getY(i) + heights[i] + padding <= packer.getHeight());
+
+            for (int j = i + 1; j < widths.length; j++) {
+                boolean separated = packer.getX(i) + widths[i] + padding <= packer.getX(j)
+                        || packer.getX(j) + widths[j] + padding <= packer.getX(i)
+                        || packer.getY(i) + heights[i] + padding <= packer.getY(j)
+                        || packer.getY(j) + heights[j] + padding <= packer.getY(i);
+                assertTrue("Rectangles " + i + " and " + j + " overlap", separated);
+            }
+        }
+    }
+
+    private static boolean isPowerOfTwo(int value) {
+        return value > 0 && (value & (value - 1)) == 0;
+    }
+
+    @Test
+    public void randomRectanglesDoNotOverlap() {
+        Random random = new Random(1);
+        int[] widths = new int[200], heights = new int[200];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = 1 + random.nextInt(64);
+            heights[i] = 1 + random.nextInt(64);
+        }
+
+        AtlasPacker packer = new AtlasPacker(4096, 2);
+        assertTrue(packer.pack(widths, heights));
+        assertValidPacking(packer, widths, heights, 2);
+        assertTrue(isPowerOfTwo(packer.getWidth()));
+        assertTrue(isPowerOfTwo(packer.getHeight()));
+    }
+
+    @Test
+    public void atlasIsTheSmallestFittingPowerOfTwo() {
+        int[] sizes = new int[16];
+        Arrays.fill(sizes, 16);
+
+        AtlasPacker packer = new AtlasPacker(4096, 0);
+        assertTrue(packer.pack(sizes, sizes));
+        assertEquals(64, packer.getWidth());
+        assertEquals(64, packer.getHeight());
+        assertValidPacking(packer, sizes, sizes, 0);
+    }
+
+    @Test
+    public void wideRectangleWidensTheAtlas() {
+        AtlasPacker packer = new AtlasPacker(4096, 1);
+        assertTrue(packer.pack(new int[] { 300, 4 }, new int[] { 2, 4 }));
+        assertEquals(512, packer.getWidth());
+        assertValidPacking(packer, new int[] { 300, 4 }, new int[] { 2, 4 }, 1);
+    }
+
+    @Test
+    public void tooBigRectanglesFail() {
+        AtlasPacker packer = new AtlasPacker(256, 0);
+        assertFalse(packer.pack(new int[] { 300 }, new int[] { 10 }));
+        assertFalse(packer.pack(new int[] { 200, 200 }, new int[] { 200, 200 }));
+        assertEquals(0, packer.getWidth());
+        assertEquals(0, packer.getHeight());
+    }
+
+    @Test
+    public void emptyInputPacksIntoMinimalAtlas() {
+        AtlasPacker packer = new AtlasPacker(256, 0);
+        assertTrue(packer.pack(new int[0], new int[0]));
+        assertEquals(1, packer.getWidth());
+        assertEquals(1, packer.getHeight());
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the edge collapse simplification of meshes with seams
+ *
+ * @author Darius Dinger
+ */
+public class MeshSimplifierTest {
+
+    private static final int SIZE = 16;
+    private static final int SEAM = SIZE / 2;
+
+    private float[] vertices;
+    private int[] indices;
+    private boolean[] rightIsland;
+
+    /**
+     * Creating a flat grid in the xy plane with a uv seam along x = SEAM. The
+     * right half of the grid uses own copies of the seam vertices.
+     */
+    private void createSeamGrid() {
+        int gridVertices = (SIZE + 1) * (SIZE + 1);
+        vertices = new float[(gridVertices + SIZE + 1) * 3];
+        rightIsland = new boolean[gridVertices + SIZE + 1];
+        for (int y = 0; y <= SIZE; y++) {
+            for (int x = 0; x <= SIZE; x++) {
+                int v = y * (SIZE + 1) + x;
+                vertices[v * 3] = x;
+                vertices[v * 3 + 1] = y;
+                rightIsland[v] = x > SEAM;
+            }
+
+            int copy = gridVertices + y;
+            vertices[copy * 3] = SEAM;
+            vertices[copy * 3 + 1] = y;
+            rightIsland[copy] = true;
+        }
+
+        indices = new int[SIZE * SIZE * 6];
+        int i = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int v00 = vertex(x, y), v10 = vertex(x + 1, y);
+                int v01 = vertex(x, y + 1), v11 = vertex(x + 1, y + 1);
+                if (x == SEAM) {
+                    v00 = gridVertices + y;
+                    v01 = gridVertices + y + 1;
+                }
+                indices[i++] = v00;
+                indices[i++] = v10;
+                indices[i++] = v11;
+                indices[i++] = v00;
+                indices[i++] = v11;
+                indices[i++] = v01;
+            }
+        }
+    }
+
+    private static int vertex(int x, int y) {
+        return y * (SIZE + 1) + x;
+    }
+
+    /**
+     * Calculating the signed z normal length (double area) of a triangle
+     */
+    private float normalZ(int[] tris, int t) {
+        int a = tris[t * 3] * 3, b = tris[t * 3 + 1] * 3, c = tris[t * 3 + 2] * 3;
+        float abx = vertices[b] - vertices[a], aby = vertices[b + 1] - vertices[a + 1];
+        float acx = vertices[c] - vertices[a], acy = vertices[c + 1] - vertices[a + 1];
+        return abx * acy - aby * acx;
+    }
+
+    @Test
+    public void seamedGridIsReduced() {
+        createSeamGrid();
+        int[] result = MeshSimplifier.simplify(vertices, indices, indices.length / 4);
+
+        assertEquals(0, result.length % 3);
+        assertTrue("Only " + result.length + " of " + indices.length + " indices removed",
+                result.length <= indices.length / 2);
+    }
+
+    @Test
+    public void seamIsKept() {
+        createSeamGrid();
+        int[] result = MeshSimplifier.simplify(vertices, indices, indices.length / 4);
+
+        for (int t = 0; t < result.length / 3; t++) {
+            boolean island = rightIsland[result[t * 3]];
+            assertEquals("Triangle " + t + " crosses the seam", island, rightIsland[result[t * 3 + 1]]);
+            assertEquals("Triangle " + t + " crosses the seam", island, rightIsland[result[t * 3 + 2]]);
+        }
+    }
+
+    @Test
+    public void shapeIsKept() {
+        createSeamGrid();
+        int[] result = MeshSimplifier.simplify(vertices, indices, indices.length / 4);
+
+        // No flipped triangles and the area of the grid is still covered
+        float area = 0.0f;
+        for (int t = 0; t < result.length / 3; t++) {
+            float z = normalZ(result, t);
+            assertTrue("Triangle " + t + " flipped", z > 0.0f);
+            area += z * 0.5f;
+        }
+        assertEquals(SIZE * SIZE, area, 0.001f);
+    }
+
+    @Test
+    public void fullyFacetedGridIsNotStretched() {
+        createSeamGrid();
+
+        // Every triangle gets own vertices, no vertex can be moved without
+        // stretching its attributes
+        float[] faceted = new float[indices.length * 3];
+        int[] facetedIndices = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            System.arraycopy(vertices, indices[i] * 3, faceted, i * 3, 3);
+            facetedIndices[i] = i;
+        }
+
+        int[] result = MeshSimplifier.simplify(faceted, facetedIndices, facetedIndices.length / 4);
+        assertArrayEquals(facetedIndices, result);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests allocating, freeing and merging the ranges of the range allocator
+ *
+ * @author Darius Dinger
+ */
+public class RangeAllocatorTest {
+
+    @Test
+    public void allocatesConsecutiveRanges() {
+        RangeAllocator allocator = new RangeAllocator(100);
+
+        assertEquals(0, allocator.allocate(10));
+        assertEquals(10, allocator.allocate(20));
+        assertEquals(30, allocator.allocate(70));
+        assertEquals(0, allocator.getFreeSize());
+        assertEquals(0, allocator.getFreeRangeCount());
+    }
+
+    @Test
+    public void rejectsTooBigAndEmptyRanges() {
+        RangeAllocator allocator = new RangeAllocator(100);
+
+        assertEquals(-1, allocator.allocate(101));
+        assertEquals(-1, allocator.allocate(0));
+        assertEquals(-1, allocator.allocate(-5));
+        assertEquals(100, allocator.getFreeSize());
+
+        assertEquals(0, allocator.allocate(60));
+        assertEquals(-1, allocator.allocate(41));
+        assertEquals(60, allocator.allocate(40));
+    }
+
+    @Test
+    public void reusesFreedRangeFirstFit() {
+        RangeAllocator allocator = new RangeAllocator(100);
+        int a = allocator.allocate(10);
+        int b = allocator.allocate(30);
+        allocator.allocate(10);
+
+        allocator.free(b, 30);
+        assertEquals(2, allocator.getFreeRangeCount());
+        assertEquals(50, allocator.getLargestFreeRange());
+
+        // First range, that is big enough, is the freed one
+        assertEquals(b, allocator.allocate(20));
+        assertEquals(b + 20, allocator.allocate(10));
+        assertEquals(1, allocator.getFreeRangeCount());
+
+        allocator.free(a, 10);
+        assertEquals(a, allocator.allocate(5));
+    }
+
+    @Test
+    public void mergesFreedRangesWithNeighbours() {
+        RangeAllocator allocator = new RangeAllocator(100);
+        int a = allocator.allocate(10);
+        int b = allocator.allocate(10);
+        int c = allocator.allocate(10);
+        int d = allocator.allocate(10);
+
+        // Not adjacent to another free range, except the tail
+        allocator.free(a, 10);
+        allocator.free(c, 10);
+        assertEquals(3, allocator.getFreeRangeCount());
+
+        // Merges with previous and next
+        allocator.free(b, 10);
+        assertEquals(2, allocator.getFreeRangeCount());
+        assertEquals(60, allocator.getLargestFreeRange());
+
+        // Merges the middle with the tail, the whole storage is free again
+        allocator.free(d, 10);
+        assertEquals(1, allocator.getFreeRangeCount());
+        assertEquals(100, allocator.getLargestFreeRange());
+        assertEquals(100, allocator.getFreeSize());
+        assertEquals(0, allocator.allocate(100));
+    }
+
+    @Test
+    public void freesInAnyOrder() {
+        RangeAllocator allocator = new RangeAllocator(64);
+        int[] offsets = new int[16];
+        for (int i = 0; i < offsets.length; i++)
+            offsets[i] = allocator.allocate(4);
+
+        int[] order = { 7, 3, 12, 0, 15, 8, 1, 14, 5, 10, 2, 13, 6, 9, 4, 11 };
+        for (int i : order)
+            allocator.free(offsets[i], 4);
+
+        assertEquals(1, allocator.getFreeRangeCount());
+        assertEquals(64, allocator.getFreeSize());
+        assertEquals(64, allocator.getCapacity());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.bullet;
+
+import com.bulletphysics.collision.narrowphase.TriangleRaycastCallback;
+import com.bulletphysics.collision.shapes.TriangleCallback;
+import com.bulletphysics.linearmath.AabbUtil2;
+import com.bulletphysics.linearmath.Transform;
+import de.coreengine.rendering.renderable.terrain.TerrainHeightField;
+import de.coreengine.util.AllocationCounter;
+import org.junit.Test;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the bounding box, the triangles inside an aabb and the ray walk of the
+ * terrain heightfield shape against brute force
+ *
+ * @author Darius Dinger
+ */
+public class TerrainHeightfieldShapeTest {
+
+    /**
+     * Creating a shape of a height field from 0.25 to 0.75
+     */
+    private static TerrainHeightfieldShape createShape() {
+        float[] heights = new float[9 * 9];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = 0.25f + 0.5f * (i % 7) / 6.0f;
+        }
+        return new TerrainHeightfieldShape(new TerrainHeightField(heights, 9, 9), 20.0f);
+    }
+
+    /**
+     * Creating a random rotation and translation
+     */
+    private static Transform createTransform(Random random) {
+        Quat4f rotation = new Quat4f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                random.nextFloat() - 0.5f);
+        rotation.normalize();
+        Matrix4f matrix = new Matrix4f(rotation,
+                new Vector3f(random.nextFloat() * 100.0f, random.nextFloat() * 100.0f, random.nextFloat() * 100.0f),
+                1.0f);
+        return new Transform(matrix);
+    }
+
+    @Test
+    public void aabbMatchesTransformedBox() {
+        TerrainHeightfieldShape shape = createShape();
+        shape.setLocalScaling(new Vector3f(200.0f, 1.5f, 300.0f));
+        Random random = new Random(1);
+
+        Vector3f min = new Vector3f(), max = new Vector3f();
+        Vector3f expectedMin = new Vector3f(), expectedMax = new Vector3f();
+        for (int i = 0; i < 100; i++) {
+            Transform transform = createTransform(random);
+            shape.getAabb(transform, min, max);
+
+            AabbUtil2.transformAabb(new Vector3f(0.0f, 5.0f * 1.5f, 0.0f), new Vector3f(200.0f, 15.0f * 1.5f, 300.0f),
+                    shape.getMargin(), transform, expectedMin, expectedMax);
+            assertTrue(min.epsilonEquals(expectedMin, 1e-3f));
+            assertTrue(max.epsilonEquals(expectedMax, 1e-3f));
+        }
+    }
+
+    @Test
+    public void aabbDoesNotAllocate() {
+        assumeTrue("Jvm can not count thread allocations", AllocationCounter.isSupported());
+        TerrainHeightfieldShape shape = createShape();
+        Transform transform = createTransform(new Random(2));
+        Vector3f min = new Vector3f(), max = new Vector3f();
+
+        // Warm up jit
+        for (int i = 0; i < 20000; i++)
+            shape.getAabb(transform, min, max);
+
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = AllocationCounter.getAllocatedBytes();
+            overhead = Math.min(overhead, AllocationCounter.getAllocatedBytes() - start);
+        }
+
+        long start = AllocationCounter.getAllocatedBytes();
+        for (int i = 0; i < 1000; i++)
+            shape.getAabb(transform, min, max);
+        assertEquals(0, AllocationCounter.getAllocatedBytes() - start - overhead);
+    }
+
+    /**
+     * Creating a shape of a random non square height field
+     */
+    private static TerrainHeightfieldShape createRandomShape(Random random) {
+        float[] heights = new float[33 * 29];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = random.nextFloat();
+        }
+        TerrainHeightfieldShape shape = new TerrainHeightfieldShape(new TerrainHeightField(heights, 33, 29), 0.1f);
+        shape.setLocalScaling(new Vector3f(200.0f, 150.0f, 300.0f));
+        return shape;
+    }
+
+    /**
+     * Collecting the triangles of a shape inside an aabb by triangle index
+     */
+    private static Map<Integer, Vector3f[]> collectTriangles(TerrainHeightfieldShape shape, Vector3f min,
+            Vector3f max) {
+        Map<Integer, Vector3f[]> triangles = new HashMap<>();
+        shape.processAllTriangles(new TriangleCallback() {
+            @Override
+            public void processTriangle(Vector3f[] triangle, int partId, int triangleIndex) {
+                assertNull("Triangle passed twice", triangles.put(triangleIndex,
+                        new Vector3f[] { new Vector3f(triangle[0]), new Vector3f(triangle[1]),
+                                new Vector3f(triangle[2]) }));
+            }
+        }, min, max);
+        return triangles;
+    }
+
+    /**
+     * Checks if the bounds of a triangle overlap an aabb on one axis
+     */
+    private static boolean overlaps(Vector3f[] triangle, float min, float max, int axis) {
+        float[] values = new float[3];
+        for (int i = 0; i < 3; i++) {
+            values[i] = axis == 0 ? triangle[i].x : axis == 1 ? triangle[i].y : triangle[i].z;
+        }
+        return Math.min(values[0], Math.min(values[1], values[2])) <= max
+                && Math.max(values[0], Math.max(values[1], values[2])) >= min;
+    }
+
+    @Test
+    public void trianglesInAabbMatchBruteForce() {
+        Random random = new Random(3);
+        TerrainHeightfieldShape shape = createRandomShape(random);
+        Map<Integer, Vector3f[]> all = collectTriangles(shape, new Vector3f(-1e6f, -1e6f, -1e6f),
+                new Vector3f(1e6f, 1e6f, 1e6f));
+        assertEquals(34 * 30 * 2, all.size());
+
+        for (int i = 0; i < 500; i++) {
+            Vector3f min = new Vector3f(random.nextFloat() * 240.0f - 20.0f, random.nextFloat() * 16.0f - 1.0f,
+                    random.nextFloat() * 340.0f - 20.0f);
+            Vector3f max = new Vector3f(min.x + random.nextFloat() * 30.0f, min.y + random.nextFloat() * 4.0f,
+                    min.z + random.nextFloat() * 30.0f);
+            Map<Integer, Vector3f[]> inAabb = collectTriangles(shape, min, max);
+
+            // Every overlapping triangle is passed, every passed one lies in a cell
+            // touched by the aabb
+            for (Map.Entry<Integer, Vector3f[]> triangle : all.entrySet()) {
+                Vector3f[] t = triangle.getValue();
+                if (overlaps(t, min.x, max.x, 0) && overlaps(t, min.y, max.y, 1) && overlaps(t, min.z, max.z, 2))
+                    assertTrue(inAabb.containsKey(triangle.getKey()));
+            }
+            for (Vector3f[] t : inAabb.values()) {
+                assertTrue(overlaps(t, min.x, max.x, 0) && overlaps(t, min.z, max.z, 2));
+            }
+        }
+    }
+
+    /**
+     * Ray callback, that keeps the nearest hit
+     */
+    private static class NearestHit extends TriangleRaycastCallback {
+        private int triangleIndex = -1;
+
+        private NearestHit(Vector3f from, Vector3f to) {
+            super(from, to);
+        }
+
+        @Override
+        public float reportHit(Vector3f hitNormalLocal, float hitFraction, int partId, int triangleIndex) {
+            this.triangleIndex = triangleIndex;
+            return hitFraction;
+        }
+    }
+
+    @Test
+    public void rayHitsMatchBruteForce() {
+        Random random = new Random(4);
+        TerrainHeightfieldShape shape = createRandomShape(random);
+        Map<Integer, Vector3f[]> all = collectTriangles(shape, new Vector3f(-1e6f, -1e6f, -1e6f),
+                new Vector3f(1e6f, 1e6f, 1e6f));
+
+        int hits = 0;
+        for (int i = 0; i < 2000; i++) {
+
+            // Steep, flat and axis parallel rays, partly starting outside the shape
+            Vector3f from = new Vector3f(random.nextFloat() * 300.0f - 50.0f, random.nextFloat() * 30.0f - 5.0f,
+                    random.nextFloat() * 400.0f - 50.0f);
+            Vector3f to = new Vector3f(random.nextFloat() * 300.0f - 50.0f, random.nextFloat() * 30.0f - 5.0f,
+                    random.nextFloat() * 400.0f - 50.0f);
+            if (i % 4 == 1)
+                to.x = from.x;
+            else if (i % 4 == 2)
+                to.z = from.z;
+            else if (i % 4 == 3)
+                to.set(from.x, from.y - 30.0f, from.z);
+
+            NearestHit walk = new NearestHit(from, to);
+            Vector3f min = new Vector3f(Math.min(from.x, to.x), Math.min(from.y, to.y), Math.min(from.z, to.z));
+            Vector3f max = new Vector3f(Math.max(from.x, to.x), Math.max(from.y, to.y), Math.max(from.z, to.z));
+            shape.processAllTriangles(walk, min, max);
+
+            NearestHit bruteForce = new NearestHit(from, to);
+            for (Map.Entry<Integer, Vector3f[]> triangle : all.entrySet()) {
+                bruteForce.processTriangle(triangle.getValue(), 0, triangle.getKey());
+            }
+
+            assertEquals(bruteForce.hitFraction, walk.hitFraction, 1e-6f);
+            if (bruteForce.triangleIndex >= 0) {
+                hits++;
+                assertEquals(bruteForce.triangleIndex / 2, walk.triangleIndex / 2);
+            }
+        }
+        assertTrue("Too few hits " + hits, hits > 500);
+    }
+}
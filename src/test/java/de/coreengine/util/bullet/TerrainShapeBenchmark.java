@@ -0,0 +1,172 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.bullet;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.CollisionWorld;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.linearmath.Transform;
+import de.coreengine.asset.TextureData;
+import de.coreengine.rendering.renderable.terrain.Terrain;
+import de.coreengine.rendering.renderable.terrain.TerrainConfig;
+
+import javax.vecmath.Vector3f;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of the terrain heightfield shape against the full resolution
+ * triangle mesh shape, comparing build time, memory and raycast throughput,
+ * that runs without an opengl context.<br>
+ * Usage: TerrainShapeBenchmark [heightMapSize] [rayCount]
+ *
+ * @author Darius Dinger
+ */
+public class TerrainShapeBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 257;
+        int rayCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        Terrain terrain = createTerrain(size);
+        long heapBefore = usedHeap();
+        terrain.getHeightField();
+        System.out.printf("height field (shared with the terrain): %.1f MB heap%n", (usedHeap() - heapBefore) / 1e6);
+
+        run("heightfield", terrain, rayCount, () -> TerrainShapeCreator.createHeightfieldShape(terrain));
+        run("triangle mesh", terrain, rayCount, () -> TerrainShapeCreator.createTerrainShape(terrain, size - 1));
+    }
+
+    /**
+     * Creating a terrain with a smooth random height map
+     *
+     * @param size Texels per row/column of the height map
+     * @return Created terrain
+     */
+    private static Terrain createTerrain(int size) {
+        Random random = new Random(1);
+        float[] phases = { random.nextFloat() * 6.0f, random.nextFloat() * 6.0f, random.nextFloat() * 6.0f };
+
+        TextureData heightMap = new TextureData();
+        heightMap.width = size;
+        heightMap.height = size;
+        heightMap.data = ByteBuffer.allocateDirect(size * size * 4);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                double h = Math.sin(x * 0.05 + phases[0]) * Math.cos(y * 0.04 + phases[1])
+                        + 0.5 * Math.sin((x + y) * 0.13 + phases[2]);
+                heightMap.data.put((y * size + x) * 4, (byte) (127.5 + h * 80.0));
+            }
+        }
+
+        TerrainConfig config = new TerrainConfig();
+        config.setHeightMap(heightMap);
+        return new Terrain(config);
+    }
+
+    /**
+     * Building a shape and casting random rays against it
+     *
+     * @param name     Name of the shape to print
+     * @param terrain  Terrain of the shape
+     * @param rayCount Count of timed rays
+     * @param builder  Builder of the shape
+     */
+    private static void run(String name, Terrain terrain, int rayCount, Supplier<CollisionShape> builder) {
+        long heapBefore = usedHeap(), directBefore = usedDirect();
+        long start = System.nanoTime();
+        CollisionShape shape = builder.get();
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        long heap = usedHeap() - heapBefore, direct = usedDirect() - directBefore;
+
+        CollisionObject object = new CollisionObject();
+        object.setCollisionShape(shape);
+        Transform transform = new Transform();
+        transform.setIdentity();
+        object.setWorldTransform(transform);
+
+        // Warm up jit, then time the same rays
+        castRays(object, terrain, rayCount / 4, 2);
+        start = System.nanoTime();
+        int hits = castRays(object, terrain, rayCount, 3);
+        double rayUs = (System.nanoTime() - start) / 1e3 / rayCount;
+
+        System.out.printf("%s: build %.1f ms, %.1f MB heap + %.1f MB direct, %.2f us per ray, %d hits%n", name,
+                buildMs, heap / 1e6, direct / 1e6, rayUs, hits);
+    }
+
+    /**
+     * Casting random slanted rays from above the terrain downwards
+     *
+     * @return Count of rays, that hit the terrain
+     */
+    private static int castRays(CollisionObject object, Terrain terrain, int count, long seed) {
+        Random random = new Random(seed);
+        float scale = terrain.getScale(), top = terrain.getConfig().getAmplitude() * scale * 2.0f;
+        Transform from = new Transform(), to = new Transform();
+        from.setIdentity();
+        to.setIdentity();
+
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            from.origin.set(random.nextFloat() * scale, top, random.nextFloat() * scale);
+            to.origin.set(random.nextFloat() * scale, -top, random.nextFloat() * scale);
+            CollisionWorld.ClosestRayResultCallback callback = new CollisionWorld.ClosestRayResultCallback(
+                    new Vector3f(from.origin), new Vector3f(to.origin));
+            CollisionWorld.rayTestSingle(from, to, object, object.getCollisionShape(), object.getWorldTransform(
+                    new Transform()), callback);
+            if (callback.hasHit())
+                hits++;
+        }
+        return hits;
+    }
+
+    /**
+     * @return Used heap after a garbage collection
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return Used direct buffer memory
+     */
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct"))
+                return pool.getMemoryUsed();
+        }
+        return 0;
+    }
+}
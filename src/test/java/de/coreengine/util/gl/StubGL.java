@@ -0,0 +1,277 @@
+/*
+ * BSD 2-Clause License
+ *
+ * Copyright (c) 2019, Suuirad
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.coreengine.util.gl;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.system.Callback;
+import org.lwjgl.system.CallbackI;
+import org.lwjgl.system.Configuration;
+import org.lwjgl.system.FunctionProvider;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.function.LongConsumer;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+
+import static org.lwjgl.system.dyncall.DynCallback.dcbArgInt;
+import static org.lwjgl.system.dyncall.DynCallback.dcbArgPointer;
+
+/**
+ * Stubbed opengl layer to run the renderers without a context. Every gl
+ * function is a native callback, that does nothing and returns 0. Queries,
+ * that the engine checks (versions, limits, compile/link and framebuffer
+ * status), get valid answers and gen/create calls return unique names.
+ *
+ * @author Darius Dinger
+ */
+public class StubGL implements FunctionProvider {
+
+    private static final int GL_MAJOR_VERSION = 0x821B, GL_MINOR_VERSION = 0x821C;
+    private static final int GL_MAX_TEXTURE_MAX_ANISOTROPY = 0x84FF;
+
+    // Stubbed gl functions by name
+    private final HashMap<String, Callback> functions = new HashMap<>();
+
+    // Version string returned by glGetString
+    private final ByteBuffer version = MemoryUtil.memUTF8("4.6.0 StubGL");
+
+    // Memory returned by buffer mappings
+    private final ByteBuffer mapping = MemoryUtil.memCalloc(1 << 24);
+
+    // Last generated gl name
+    private int lastName = 0;
+
+    // Count of gl calls since creation
+    private long calls = 0;
+
+    /**
+     * Creating the stubbed gl layer and making it the current gl capabilities of
+     * the thread
+     *
+     * @return Created stub
+     */
+    public static StubGL create() {
+        Configuration.OPENGL_EXPLICIT_INIT.set(true);
+        StubGL stub = new StubGL();
+        GL.create(stub);
+        GL.createCapabilities();
+        return stub;
+    }
+
+    @Override
+    public long getFunctionAddress(ByteBuffer functionName) {
+        String name = MemoryUtil.memASCII(MemoryUtil.memAddress(functionName));
+        Callback function = functions.get(name);
+        if (function == null) {
+            function = createFunction(name);
+            functions.put(name, function);
+        }
+        return function.address();
+    }
+
+    /**
+     * Creating the stub of a gl function
+     *
+     * @param name Name of the gl function
+     * @return Created function
+     */
+    private Callback createFunction(String name) {
+        switch (name) {
+        case "glGetIntegerv":
+            return new VoidFunction("(ip)v", args -> {
+                int pname = dcbArgInt(args);
+                long params = dcbArgPointer(args);
+                MemoryUtil.memPutInt(params, getInteger(pname));
+            });
+        case "glGetFloatv":
+            return new VoidFunction("(ip)v", args -> {
+                int pname = dcbArgInt(args);
+                long params = dcbArgPointer(args);
+                MemoryUtil.memPutFloat(params, pname == GL_MAX_TEXTURE_MAX_ANISOTROPY ? 16.0f : 0.0f);
+            });
+        case "glGetShaderiv":
+        case "glGetProgramiv":
+            return new VoidFunction("(iip)v", args -> {
+                dcbArgInt(args);
+                int pname = dcbArgInt(args);
+                long params = dcbArgPointer(args);
+                boolean status = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS
+                        || pname == GL20.GL_VALIDATE_STATUS;
+                MemoryUtil.memPutInt(params, status ? GL11.GL_TRUE : 0);
+            });
+        case "glGenTextures":
+        case "glGenBuffers":
+        case "glGenVertexArrays":
+        case "glGenFramebuffers":
+        case "glGenRenderbuffers":
+        case "glGenQueries":
+            return new VoidFunction("(ip)v", args -> {
+                int n = dcbArgInt(args);
+                long names = dcbArgPointer(args);
+                for (int i = 0; i < n; i++)
+                    MemoryUtil.memPutInt(names + i * 4L, ++lastName);
+            });
+        case "glCreateShader":
+        case "glCreateProgram":
+            return new IntFunction("(i)i", args -> ++lastName);
+        case "glCheckFramebufferStatus":
+            return new IntFunction("(i)i", args -> GL30.GL_FRAMEBUFFER_COMPLETE);
+        case "glClientWaitSync":
+            return new IntFunction("(pil)i", args -> GL32.GL_ALREADY_SIGNALED);
+        case "glGetString":
+            return new PointerFunction("(i)p", args -> MemoryUtil.memAddress(version));
+        case "glMapBuffer":
+        case "glMapBufferRange":
+            return new PointerFunction("(v)p", args -> MemoryUtil.memAddress(mapping));
+        case "glFenceSync":
+            return new PointerFunction("(ii)p", args -> 1L);
+        default:
+            return new IntFunction("(v)i", args -> 0);
+        }
+    }
+
+    /**
+     * Answering a glGetIntegerv query
+     *
+     * @param pname Queried value
+     * @return Value of the stubbed context
+     */
+    private static int getInteger(int pname) {
+        switch (pname) {
+        case GL_MAJOR_VERSION:
+            return 4;
+        case GL_MINOR_VERSION:
+            return 6;
+        case GL11.GL_MAX_TEXTURE_SIZE:
+            return 16384;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * @return Count of gl calls since creation
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Freeing the stubbed functions and memory
+     */
+    public void free() {
+        GL.setCapabilities(null);
+        GL.destroy();
+        for (Callback function : functions.values())
+            function.free();
+        functions.clear();
+        MemoryUtil.memFree(version);
+        MemoryUtil.memFree(mapping);
+    }
+
+    /**
+     * Stubbed gl function without return value
+     */
+    private class VoidFunction extends Callback implements CallbackI.V {
+        private final String signature;
+        private final LongConsumer body;
+
+        private VoidFunction(String signature, LongConsumer body) {
+            super(signature);
+            this.signature = signature;
+            this.body = body;
+        }
+
+        @Override
+        public String getSignature() {
+            return signature;
+        }
+
+        @Override
+        public void callback(long args) {
+            calls++;
+            body.accept(args);
+        }
+    }
+
+    /**
+     * Stubbed gl function returning an int
+     */
+    private class IntFunction extends Callback implements CallbackI.I {
+        private final String signature;
+        private final LongToIntFunction body;
+
+        private IntFunction(String signature, LongToIntFunction body) {
+            super(signature);
+            this.signature = signature;
+            this.body = body;
+        }
+
+        @Override
+        public String getSignature() {
+            return signature;
+        }
+
+        @Override
+        public int callback(long args) {
+            calls++;
+            return body.applyAsInt(args);
+        }
+    }
+
+    /**
+     * Stubbed gl function returning a pointer
+     */
+    private class PointerFunction extends Callback implements CallbackI.P {
+        private final String signature;
+        private final LongUnaryOperator body;
+
+        private PointerFunction(String signature, LongUnaryOperator body) {
+            super(signature);
+            this.signature = signature;
+            this.body = body;
+        }
+
+        @Override
+        public String getSignature() {
+            return signature;
+        }
+
+        @Override
+        public long callback(long args) {
+            calls++;
+            return body.applyAsLong(args);
+        }
+    }
+}